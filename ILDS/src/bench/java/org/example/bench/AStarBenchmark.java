@@ -0,0 +1,67 @@
+package org.example.bench;
+
+import org.example.Heuristics;
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.RoutingEngine;
+
+// Nodes settled and latency of A* (great-circle heuristics) against plain Dijkstra,
+// for both the distance and the travel-time metric.
+// Usage: AStarBenchmark [gridSide] [queries]
+public class AStarBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        NetworkSnapshot graph = network.freeze();
+        RoutingEngine engine = new RoutingEngine(graph);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+
+        // A* must find paths as short as Dijkstra's
+        for (String[] query : queries) {
+            for (boolean useDistance : new boolean[]{true, false}) {
+                double dijkstra = LegacyRouting.pathCost(network,
+                        network.findPath(query[0], query[1], useDistance), useDistance);
+                double astar = LegacyRouting.pathCost(network,
+                        network.findPath(query[0], query[1], useDistance, LogisticsNetwork.SearchMode.ASTAR), useDistance);
+                if (Math.abs(dijkstra - astar) > 1e-9) {
+                    throw new IllegalStateException("A* returned a longer path for " + query[0] + " -> " + query[1]);
+                }
+            }
+        }
+
+        BenchmarkSupport.printHeader("A* vs Dijkstra (" + graph.getNodeCount() + " nodes)");
+        System.out.printf("%-10s %-10s %16s %12s%n", "Metric", "Search", "settled/query", "ms/query");
+        for (boolean useDistance : new boolean[]{true, false}) {
+            RoutingEngine.EdgeWeight cost = useDistance ? graph::getDistance : graph::getTravelTime;
+            String metric = useDistance ? "distance" : "time";
+            run(engine, graph, queries, cost, useDistance, false, metric);
+            run(engine, graph, queries, cost, useDistance, true, metric);
+        }
+    }
+
+    private static void run(RoutingEngine engine, NetworkSnapshot graph, String[][] queries,
+                            RoutingEngine.EdgeWeight cost, boolean useDistance, boolean astar, String metric) {
+        // warm-up pass, then a timed pass that also counts settled nodes
+        for (int pass = 0; pass < 2; pass++) {
+            long settled = 0;
+            long start = System.nanoTime();
+            for (String[] query : queries) {
+                RoutingEngine.Heuristic heuristic = Heuristics.none();
+                if (astar) {
+                    int target = graph.indexOf(query[1]);
+                    heuristic = useDistance ? Heuristics.greatCircle(graph, target) : Heuristics.travelTime(graph, target);
+                }
+                engine.findPath(query[0], query[1], cost, heuristic);
+                settled += engine.getLastSettledCount();
+            }
+            double millis = BenchmarkSupport.millisSince(start);
+            if (pass == 1) {
+                System.out.printf("%-10s %-10s %16d %12.3f%n", metric, astar ? "A*" : "Dijkstra",
+                        settled / queries.length, millis / queries.length);
+            }
+        }
+    }
+}
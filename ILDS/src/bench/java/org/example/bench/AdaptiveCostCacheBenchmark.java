@@ -0,0 +1,94 @@
+package org.example.bench;
+
+import org.example.CongestionPredictor;
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.RoutingEngine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+// Adaptive routing with the congestion-adjusted cost computed on every relaxation against the
+// per-hour cost table, plus the cost of keeping the table current as readings and road updates
+// arrive. Checks that both give the same paths and that the table matches a fresh computation
+// after the updates.
+// Usage: AdaptiveCostCacheBenchmark [gridSide] [queries] [readings]
+public class AdaptiveCostCacheBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int readings = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        CongestionPredictor predictor = network.getCongestionPredictor();
+        RoutingEngine engine = network.getRoutingEngine();
+        NetworkSnapshot graph = engine.getGraph();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 15, 8, 0);
+        int hour = time.getHour();
+
+        Random random = new Random(5L);
+        for (int i = 0; i < readings; i++) {
+            predictor.getTrafficData().recordCongestion(graph.getRoadId(random.nextInt(graph.getEdgeCount())),
+                    time.withHour(random.nextInt(24)), 1.0 + 2.0 * random.nextDouble());
+        }
+
+        RoutingEngine.EdgeWeight computed = edge -> predictor.adjustedCost(graph, edge, hour);
+        long start = System.nanoTime();
+        RoutingEngine.EdgeWeight cached = predictor.adaptiveWeight(graph, time);
+        double tableMillis = BenchmarkSupport.millisSince(start);
+
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+        for (String[] query : queries) {
+            List<String> expected = engine.findPath(query[0], query[1], computed);
+            if (!expected.equals(engine.findPath(query[0], query[1], cached))) {
+                throw new IllegalStateException("cached costs give a different path for " + query[0] + " -> " + query[1]);
+            }
+        }
+
+        BenchmarkSupport.printHeader("Adaptive cost table (" + graph.getNodeCount() + " nodes, "
+                + graph.getEdgeCount() + " edges)");
+        System.out.println("Paths match the per-relaxation computation for all queries");
+        System.out.printf("Building one hour's table: %.1f ms, %,d bytes%n", tableMillis, 8L * graph.getEdgeCount());
+        System.out.printf("%-24s %12s%n", "adaptive cost", "ms/query");
+        System.out.printf("%-24s %12.3f%n", "computed per relaxation", timeQueries(engine, queries, computed));
+        System.out.printf("%-24s %12.3f%n", "cost table", timeQueries(engine, queries, cached));
+
+        // keeping the table current: readings for the cached hour and road updates on the live graph
+        start = System.nanoTime();
+        for (int i = 0; i < readings; i++) {
+            predictor.getTrafficData().recordCongestion(graph.getRoadId(random.nextInt(graph.getEdgeCount())),
+                    time, 1.0 + 2.0 * random.nextDouble());
+        }
+        double recordMillis = BenchmarkSupport.millisSince(start);
+        int updates = Math.min(readings, 20_000);
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            int edge = random.nextInt(graph.getEdgeCount());
+            network.updateRoad(graph.getRoadId(edge), graph.getDistance(edge), 1.0 + 2.0 * random.nextDouble(),
+                    graph.getAverageSpeed(edge));
+        }
+        double updateMillis = BenchmarkSupport.millisSince(start);
+        System.out.printf("recordCongestion with the table cached: %.0f ns/reading%n", recordMillis * 1e6 / readings);
+        System.out.printf("updateRoad with the table cached:       %.0f ns/update%n", updateMillis * 1e6 / updates);
+
+        int stale = 0;
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            if (cached.weight(edge) != predictor.adjustedCost(graph, edge, hour)) stale++;
+        }
+        System.out.println("Stale table entries after the updates: " + stale);
+    }
+
+    private static double timeQueries(RoutingEngine engine, String[][] queries, RoutingEngine.EdgeWeight cost) {
+        double millis = 0.0;
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (String[] query : queries) {
+                engine.findPath(query[0], query[1], cost);
+            }
+            millis = BenchmarkSupport.millisSince(start);
+        }
+        return millis / queries.length;
+    }
+}
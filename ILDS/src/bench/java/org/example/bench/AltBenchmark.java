@@ -0,0 +1,91 @@
+package org.example.bench;
+
+import org.example.LandmarkIndex;
+import org.example.LogisticsNetwork;
+import org.example.LogisticsNetwork.SearchMode;
+import org.example.Road;
+
+import java.util.*;
+
+// ALT landmarks against Dijkstra and A*: preprocessing time, nodes settled, latency, and the
+// cost of keeping the landmark tables current under a stream of updateRoad calls.
+// Usage: AltBenchmark [gridSide] [queries] [landmarks] [updates]
+public class AltBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int landmarkCount = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int updateCount = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        network.setLandmarkOptions(landmarkCount, 0.25);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+
+        BenchmarkSupport.printHeader("ALT (" + side * side + " nodes, " + landmarkCount + " landmarks)");
+        for (boolean useDistance : new boolean[]{true, false}) {
+            long start = System.nanoTime();
+            network.getLandmarks(useDistance);
+            System.out.printf("Preprocessing (%s): %.1f ms%n", useDistance ? "distance" : "time",
+                    BenchmarkSupport.millisSince(start));
+        }
+
+        System.out.printf("%-10s %-10s %16s %12s%n", "Metric", "Search", "settled/query", "ms/query");
+        for (boolean useDistance : new boolean[]{true, false}) {
+            for (SearchMode mode : SearchMode.values()) {
+                run(network, queries, useDistance, mode);
+            }
+        }
+        verify(network, queries);
+
+        // stream of congestion/speed updates, half of them easing traffic
+        int roadCount = 2 * side * (side - 1);
+        Random random = new Random(11L);
+        long start = System.nanoTime();
+        for (int i = 0; i < updateCount; i++) {
+            Road road = network.getRoad("R" + random.nextInt(roadCount));
+            double factor = 0.5 + random.nextDouble() * 1.5;
+            network.updateRoad(road.getId(), road.getDistance(),
+                    Math.max(1.0, road.getCurrentCongestion() * factor), road.getAverageSpeed());
+        }
+        double updateMillis = BenchmarkSupport.millisSince(start);
+        System.out.printf("%d updates with landmark upkeep: %.3f ms/update%n", updateCount, updateMillis / updateCount);
+
+        LandmarkIndex timeLandmarks = network.getLandmarks(false);
+        run(network, queries, false, SearchMode.ALT);
+        System.out.println("Landmarks rebuilt after updates: " + timeLandmarks.getRebuildCount());
+        verify(network, queries);
+    }
+
+    private static void run(LogisticsNetwork network, String[][] queries, boolean useDistance, SearchMode mode) {
+        for (int pass = 0; pass < 2; pass++) {
+            long settled = 0;
+            long start = System.nanoTime();
+            for (String[] query : queries) {
+                network.findPath(query[0], query[1], useDistance, mode);
+                settled += network.getRoutingEngine().getLastSettledCount();
+            }
+            double millis = BenchmarkSupport.millisSince(start);
+            if (pass == 1) {
+                System.out.printf("%-10s %-10s %16d %12.3f%n", useDistance ? "distance" : "time", mode,
+                        settled / queries.length, millis / queries.length);
+            }
+        }
+    }
+
+    // ALT must return paths exactly as short as Dijkstra's
+    private static void verify(LogisticsNetwork network, String[][] queries) {
+        for (String[] query : queries) {
+            for (boolean useDistance : new boolean[]{true, false}) {
+                double dijkstra = LegacyRouting.pathCost(network,
+                        network.findPath(query[0], query[1], useDistance), useDistance);
+                double alt = LegacyRouting.pathCost(network,
+                        network.findPath(query[0], query[1], useDistance, SearchMode.ALT), useDistance);
+                if (Math.abs(dijkstra - alt) > 1e-9 * Math.max(1.0, dijkstra)) {
+                    throw new IllegalStateException("ALT returned a longer path for " + query[0] + " -> " + query[1]);
+                }
+            }
+        }
+        System.out.println("ALT path costs match Dijkstra for all queries");
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.bench;
+
+import org.example.AssignmentSolver;
+import org.example.Delivery;
+import org.example.DeliveryScheduler;
+import org.example.LogisticsNetwork;
+import org.example.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Greedy one-at-a-time scheduling against batch assignment with the Hungarian and auction
+// solvers: wall time, deliveries placed, and average travel time from vehicle to delivery.
+// Before that, both solvers are checked against brute force on small random sparse matrices.
+// Usage: BatchAssignmentBenchmark [gridSide] [vehicles] [deliveries] [batchSize]
+public class BatchAssignmentBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int deliveryCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 128;
+
+        verifySolvers();
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        LocalDateTime departure = LocalDateTime.now();
+        BenchmarkSupport.printHeader("Batch assignment (" + side * side + " nodes, " + vehicleCount
+                + " vehicles, " + deliveryCount + " deliveries, batches of " + batchSize + ")");
+        System.out.printf("%-12s %10s %12s %18s %14s%n", "Mode", "ms", "assigned", "avg travel h", "load stddev");
+        for (String mode : new String[]{"greedy", "HUNGARIAN", "AUCTION"}) {
+            List<Vehicle> vehicles = BenchmarkSupport.randomVehicles(network, side, vehicleCount,
+                    1.1 * 3.0 * deliveryCount / vehicleCount, 1L);
+            DeliveryScheduler scheduler = new DeliveryScheduler(network);
+            vehicles.forEach(scheduler::addVehicle);
+            BenchmarkSupport.randomDeliveries(side, deliveryCount, departure, 2L).forEach(scheduler::addDelivery);
+
+            long start = System.nanoTime();
+            Map<String, List<Delivery>> schedule = mode.equals("greedy")
+                    ? scheduler.scheduleDeliveries()
+                    : scheduler.scheduleDeliveriesInBatches(batchSize, AssignmentSolver.Method.valueOf(mode));
+            double millis = BenchmarkSupport.millisSince(start);
+
+            int assigned = 0;
+            double travel = 0.0;
+            double sum = 0.0;
+            double sumSquares = 0.0;
+            for (Vehicle vehicle : vehicles) {
+                double ratio = vehicle.getCurrentLoad() / vehicle.getCapacity();
+                sum += ratio;
+                sumSquares += ratio * ratio;
+                List<String> targets = new ArrayList<>();
+                for (Delivery delivery : schedule.get(vehicle.getId())) targets.add(delivery.getDestinationId());
+                if (targets.isEmpty()) continue;
+                double[] row = network.computeDistanceMatrix(
+                        Collections.singletonList(vehicle.getCurrentLocation().getId()), targets, false).getCosts()[0];
+                for (double cost : row) travel += cost;
+                assigned += targets.size();
+            }
+            double mean = sum / vehicles.size();
+            double stddev = Math.sqrt(Math.max(0.0, sumSquares / vehicles.size() - mean * mean));
+            System.out.printf("%-12s %10.0f %12d %18.3f %14.3f%n", mode, millis, assigned, travel / assigned, stddev);
+        }
+    }
+
+    // both solvers against exhaustive search on small sparse instances
+    private static void verifySolvers() {
+        Random random = new Random(9L);
+        for (int instance = 0; instance < 300; instance++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            int[][] candidates = new int[rows][];
+            double[][] costs = new double[rows][];
+            for (int i = 0; i < rows; i++) {
+                List<Integer> options = new ArrayList<>();
+                for (int j = 0; j < columns; j++) if (random.nextDouble() < 0.6) options.add(j);
+                candidates[i] = options.stream().mapToInt(Integer::intValue).toArray();
+                costs[i] = new double[options.size()];
+                for (int k = 0; k < options.size(); k++) costs[i][k] = random.nextDouble() * 100 - 20;
+            }
+            double[] best = bruteForce(candidates, costs, 0, new boolean[columns], 0, 0.0);
+            for (AssignmentSolver.Method method : AssignmentSolver.Method.values()) {
+                int[] assignment = AssignmentSolver.solve(method, columns, candidates, costs);
+                int count = 0;
+                double total = 0.0;
+                Set<Integer> used = new HashSet<>();
+                for (int i = 0; i < rows; i++) {
+                    if (assignment[i] < 0) continue;
+                    if (!used.add(assignment[i])) throw new IllegalStateException(method + " reused a column");
+                    int k = Arrays.binarySearch(candidates[i], assignment[i]);
+                    if (k < 0) throw new IllegalStateException(method + " used a missing edge");
+                    count++;
+                    total += costs[i][k];
+                }
+                if (count != (int) best[0] || total > best[1] + 1e-3) {
+                    throw new IllegalStateException(method + " is not optimal on instance " + instance
+                            + ": " + count + "/" + total + " vs " + (int) best[0] + "/" + best[1]);
+                }
+            }
+        }
+        System.out.println("Hungarian and auction match brute force on 300 small instances");
+    }
+
+    // {most rows assigned, least cost among those}
+    private static double[] bruteForce(int[][] candidates, double[][] costs, int row, boolean[] used,
+                                       int count, double total) {
+        if (row == candidates.length) return new double[]{count, total};
+        double[] best = bruteForce(candidates, costs, row + 1, used, count, total);
+        for (int k = 0; k < candidates[row].length; k++) {
+            int column = candidates[row][k];
+            if (used[column]) continue;
+            used[column] = true;
+            double[] option = bruteForce(candidates, costs, row + 1, used, count + 1, total + costs[row][k]);
+            used[column] = false;
+            if (option[0] > best[0] || (option[0] == best[0] && option[1] < best[1])) best = option;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.bench;
+
+import org.example.Delivery;
+import org.example.Heuristics;
+import org.example.Location;
+import org.example.LogisticsNetwork;
+import org.example.Road;
+import org.example.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Shared helpers for the benchmark harnesses: synthetic networks and simple timing.
+// JMH is not available to this build, so each harness warms up and times itself.
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    private static final double BASE_LATITUDE = 51.5;
+    private static final double BASE_LONGITUDE = -0.1;
+    private static final double SPACING_KM = 0.5;
+
+    // builds a side x side grid of locations ("N<row>_<col>") about 0.5 km apart with jittered
+    // coordinates; roads are 0-40% longer than the straight line between their endpoints and get
+    // randomised speeds and congestion; every 50th location is a hub
+    public static LogisticsNetwork buildGridNetwork(int side, long seed) {
+        Random random = new Random(seed);
+        LogisticsNetwork network = new LogisticsNetwork();
+        Location[][] grid = new Location[side][side];
+
+        double latStep = SPACING_KM / 111.195;
+        double lonStep = SPACING_KM / (111.195 * Math.cos(Math.toRadians(BASE_LATITUDE)));
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int index = row * side + col;
+                double latitude = BASE_LATITUDE + (row + (random.nextDouble() - 0.5) * 0.3) * latStep;
+                double longitude = BASE_LONGITUDE + (col + (random.nextDouble() - 0.5) * 0.3) * lonStep;
+                grid[row][col] = new Location(nodeId(row, col), "Node " + index, index % 50 == 0, latitude, longitude);
+                network.addLocation(grid[row][col]);
+            }
+        }
+
+        int roadCount = 0;
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                if (col + 1 < side) {
+                    network.addRoad(randomRoad("R" + roadCount++, grid[row][col], grid[row][col + 1], random));
+                }
+                if (row + 1 < side) {
+                    network.addRoad(randomRoad("R" + roadCount++, grid[row][col], grid[row + 1][col], random));
+                }
+            }
+        }
+        return network;
+    }
+
+    public static String nodeId(int row, int col) {
+        return "N" + row + "_" + col;
+    }
+
+    // random (start, end) location pairs on a grid built by buildGridNetwork
+    public static String[][] randomQueries(int side, int count, long seed) {
+        Random random = new Random(seed);
+        String[][] queries = new String[count][2];
+        for (int i = 0; i < count; i++) {
+            queries[i][0] = nodeId(random.nextInt(side), random.nextInt(side));
+            queries[i][1] = nodeId(random.nextInt(side), random.nextInt(side));
+        }
+        return queries;
+    }
+
+    // vehicles "V<i>" parked at random locations of a grid built by buildGridNetwork
+    public static List<Vehicle> randomVehicles(LogisticsNetwork network, int side, int count, double capacity,
+                                               long seed) {
+        Random random = new Random(seed);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Location start = network.getLocation(nodeId(random.nextInt(side), random.nextInt(side)));
+            vehicles.add(new Vehicle("V" + i, capacity, start));
+        }
+        return vehicles;
+    }
+
+    // deliveries "D<i>" to random grid locations with loads of 1-5 and deadlines 2-12 hours
+    // (on the half hour) after departure
+    public static List<Delivery> randomDeliveries(int side, int count, LocalDateTime departure, long seed) {
+        Random random = new Random(seed);
+        Delivery.DeliveryPriority[] priorities = Delivery.DeliveryPriority.values();
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime deadline = departure.plusMinutes(90 + 60 * (1 + random.nextInt(10)));
+            deliveries.add(new Delivery("D" + i, nodeId(random.nextInt(side), random.nextInt(side)),
+                    1 + random.nextInt(5), deadline, 1.0, priorities[random.nextInt(priorities.length)]));
+        }
+        return deliveries;
+    }
+
+    private static Road randomRoad(String id, Location source, Location destination, Random random) {
+        double straightLine = Heuristics.greatCircleKm(source.getLatitude(), source.getLongitude(),
+                destination.getLatitude(), destination.getLongitude());
+        Road road = new Road(id, source, destination, straightLine * (1.0 + random.nextDouble() * 0.4));
+        road.setAverageSpeed(30.0 + random.nextInt(6) * 10.0);
+        road.setCurrentCongestion(1.0 + random.nextDouble());
+        return road;
+    }
+
+    public static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    public static void printHeader(String title) {
+        System.out.println("\n=== " + title + " ===");
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.RoutingEngine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Nodes settled and latency of bidirectional Dijkstra against one-directional Dijkstra for the
+// distance, travel-time and congestion-adjusted (findAdaptiveRoute) costs.
+// Usage: BidirectionalBenchmark [gridSide] [queries]
+public class BidirectionalBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        NetworkSnapshot graph = network.freeze();
+        RoutingEngine engine = new RoutingEngine(graph);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+
+        String[] metrics = {"distance", "time", "adaptive"};
+        RoutingEngine.EdgeWeight[] costs = {
+                graph::getDistance,
+                graph::getTravelTime,
+                network.getCongestionPredictor().adaptiveWeight(graph, LocalDateTime.of(2024, 1, 15, 8, 0))
+        };
+
+        // both searches must agree on every path cost
+        for (int m = 0; m < metrics.length; m++) {
+            for (String[] query : queries) {
+                double forward = pathCost(graph, engine.findPath(query[0], query[1], costs[m]), costs[m]);
+                double both = pathCost(graph, engine.findPathBidirectional(query[0], query[1], costs[m]), costs[m]);
+                if (Math.abs(forward - both) > 1e-9 * Math.max(1.0, forward)) {
+                    throw new IllegalStateException("bidirectional cost " + both + " differs from Dijkstra "
+                            + forward + " (" + metrics[m] + ") for " + query[0] + " -> " + query[1]);
+                }
+            }
+        }
+
+        BenchmarkSupport.printHeader("Bidirectional vs Dijkstra (" + graph.getNodeCount() + " nodes)");
+        System.out.println("Path costs match Dijkstra for all queries and metrics");
+        System.out.printf("%-10s %-14s %16s %12s%n", "Metric", "Search", "settled/query", "ms/query");
+        for (int m = 0; m < metrics.length; m++) {
+            for (boolean bidirectional : new boolean[]{false, true}) {
+                for (int pass = 0; pass < 2; pass++) {
+                    long settled = 0;
+                    long start = System.nanoTime();
+                    for (String[] query : queries) {
+                        if (bidirectional) {
+                            engine.findPathBidirectional(query[0], query[1], costs[m]);
+                        } else {
+                            engine.findPath(query[0], query[1], costs[m]);
+                        }
+                        settled += engine.getLastSettledCount();
+                    }
+                    double millis = BenchmarkSupport.millisSince(start);
+                    if (pass == 1) {
+                        System.out.printf("%-10s %-14s %16d %12.3f%n", metrics[m],
+                                bidirectional ? "bidirectional" : "Dijkstra", settled / queries.length,
+                                millis / queries.length);
+                    }
+                }
+            }
+        }
+    }
+
+    // cost of a node path, taking the cheapest edge between consecutive nodes
+    private static double pathCost(NetworkSnapshot graph, List<String> path, RoutingEngine.EdgeWeight cost) {
+        double total = 0.0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int from = graph.indexOf(path.get(i));
+            int to = graph.indexOf(path.get(i + 1));
+            double best = Double.POSITIVE_INFINITY;
+            for (int edge = graph.firstEdge(from); edge < graph.endEdge(from); edge++) {
+                if (graph.getTarget(edge) == to) best = Math.min(best, cost.weight(edge));
+            }
+            total += best;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.bench;
+
+import org.example.Delivery;
+import org.example.DeliveryScheduler;
+import org.example.LogisticsNetwork;
+import org.example.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Scheduling throughput of scheduleDeliveries against scheduleDeliveriesConcurrently with a
+// growing number of workers, up to twice the available cores.
+// Usage: ConcurrentSchedulerBenchmark [gridSide] [vehicles] [deliveries]
+public class ConcurrentSchedulerBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int deliveryCount = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        LocalDateTime departure = LocalDateTime.now();
+        BenchmarkSupport.printHeader("Concurrent scheduling (" + side * side + " nodes, " + vehicleCount
+                + " vehicles, " + deliveryCount + " deliveries, " + cores + " cores)");
+        System.out.printf("%-14s %10s %12s %16s %10s%n", "Workers", "ms", "assigned", "deliveries/s", "speedup");
+
+        List<Integer> workerCounts = new ArrayList<>();
+        workerCounts.add(0); // sequential scheduleDeliveries
+        for (int workers = 1; workers <= 2 * cores; workers *= 2) workerCounts.add(workers);
+        if (!workerCounts.contains(2 * cores)) workerCounts.add(2 * cores);
+
+        run(network, side, vehicleCount, deliveryCount, departure, 1); // warm-up
+        double baseline = 0.0;
+        for (int workers : workerCounts) {
+            double[] result = run(network, side, vehicleCount, deliveryCount, departure, workers);
+            double perSecond = result[1] / (result[0] / 1000.0);
+            if (workers == 0) baseline = perSecond;
+            System.out.printf("%-14s %10.0f %12.0f %16.0f %9.2fx%n", workers == 0 ? "sequential" : workers,
+                    result[0], result[1], perSecond, perSecond / baseline);
+        }
+    }
+
+    // {milliseconds, deliveries assigned}; workers 0 runs the sequential scheduler
+    private static double[] run(LogisticsNetwork network, int side, int vehicleCount, int deliveryCount,
+                                LocalDateTime departure, int workers) {
+        List<Vehicle> vehicles = BenchmarkSupport.randomVehicles(network, side, vehicleCount,
+                1.2 * 3.0 * deliveryCount / vehicleCount, 1L);
+        DeliveryScheduler scheduler = new DeliveryScheduler(network);
+        vehicles.forEach(scheduler::addVehicle);
+        BenchmarkSupport.randomDeliveries(side, deliveryCount, departure, 2L).forEach(scheduler::addDelivery);
+
+        long start = System.nanoTime();
+        Map<String, List<Delivery>> schedule = workers == 0
+                ? scheduler.scheduleDeliveries()
+                : scheduler.scheduleDeliveriesConcurrently(workers);
+        double millis = BenchmarkSupport.millisSince(start);
+        int assigned = schedule.values().stream().mapToInt(List::size).sum();
+        return new double[]{millis, assigned};
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.bench;
+
+import org.example.Delivery;
+import org.example.DeliveryScheduler;
+import org.example.LogisticsNetwork;
+import org.example.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Stress check for scheduleDeliveriesConcurrently: intake threads add deliveries while worker
+// threads schedule them onto a small fleet whose total capacity about matches the demand, so
+// workers keep colliding on the same vehicles. After every round it checks that no vehicle is
+// over capacity, each vehicle's load equals the loads of its scheduled deliveries, no delivery
+// is scheduled twice, and every delivery left over really fits no vehicle.
+// Usage: ConcurrentSchedulerStress [rounds] [workers] [intakeThreads] [deliveries]
+public class ConcurrentSchedulerStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int intakeThreads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int deliveryCount = args.length > 3 ? Integer.parseInt(args[3]) : 4000;
+        int side = 40;
+        int vehicleCount = 40;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        LocalDateTime departure = LocalDateTime.now();
+        BenchmarkSupport.printHeader("Concurrent scheduler stress (" + rounds + " rounds, " + workers
+                + " workers, " + intakeThreads + " intake threads, " + deliveryCount + " deliveries)");
+
+        int leftOver = 0;
+        for (int round = 0; round < rounds; round++) {
+            List<Delivery> deliveries = BenchmarkSupport.randomDeliveries(side, deliveryCount, departure, round);
+            double demand = deliveries.stream().mapToDouble(Delivery::getLoad).sum();
+            List<Vehicle> vehicles = BenchmarkSupport.randomVehicles(network, side, vehicleCount,
+                    Math.ceil(demand / vehicleCount), 1000L + round);
+            DeliveryScheduler scheduler = new DeliveryScheduler(network);
+            vehicles.forEach(scheduler::addVehicle);
+
+            // intake runs alongside the workers; schedule again until it has finished and the
+            // queue is drained
+            AtomicBoolean intakeDone = new AtomicBoolean();
+            List<Thread> intake = new ArrayList<>();
+            for (int t = 0; t < intakeThreads; t++) {
+                int first = t;
+                intake.add(Thread.ofPlatform().start(() -> {
+                    for (int i = first; i < deliveries.size(); i += intakeThreads) {
+                        scheduler.addDelivery(deliveries.get(i));
+                    }
+                }));
+            }
+            Thread watcher = Thread.ofPlatform().start(() -> {
+                for (Thread thread : intake) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                intakeDone.set(true);
+            });
+            Map<String, List<Delivery>> schedule;
+            boolean finished;
+            do {
+                finished = intakeDone.get();
+                schedule = scheduler.scheduleDeliveriesConcurrently(workers);
+            } while (!finished);
+            watcher.join();
+
+            leftOver += check(round, vehicles, deliveries, schedule);
+        }
+        System.out.println("OK: no vehicle over capacity in " + rounds + " rounds; "
+                + leftOver + " deliveries fit no vehicle and were left unassigned");
+    }
+
+    // returns the number of deliveries left unassigned
+    private static int check(int round, List<Vehicle> vehicles, List<Delivery> deliveries,
+                             Map<String, List<Delivery>> schedule) {
+        Set<String> scheduled = new HashSet<>();
+        double largestSpace = 0.0;
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getCurrentLoad() > vehicle.getCapacity()) {
+                throw new IllegalStateException("Round " + round + ": vehicle " + vehicle.getId()
+                        + " over capacity: " + vehicle.getCurrentLoad() + "/" + vehicle.getCapacity());
+            }
+            double load = 0.0;
+            for (Delivery delivery : schedule.get(vehicle.getId())) {
+                load += delivery.getLoad();
+                if (!scheduled.add(delivery.getId())) {
+                    throw new IllegalStateException("Round " + round + ": delivery " + delivery.getId()
+                            + " scheduled twice");
+                }
+            }
+            if (Math.abs(load - vehicle.getCurrentLoad()) > 1e-6
+                    || vehicle.getAssignedDeliveries().size() != schedule.get(vehicle.getId()).size()) {
+                throw new IllegalStateException("Round " + round + ": vehicle " + vehicle.getId()
+                        + " load " + vehicle.getCurrentLoad() + " does not match its schedule (" + load + ")");
+            }
+            if (vehicle.isAvailable()) {
+                largestSpace = Math.max(largestSpace, vehicle.getCapacity() - vehicle.getCurrentLoad());
+            }
+        }
+        int unassigned = 0;
+        for (Delivery delivery : deliveries) {
+            if (scheduled.contains(delivery.getId())) continue;
+            unassigned++;
+            if (delivery.getLoad() <= largestSpace) {
+                throw new IllegalStateException("Round " + round + ": delivery " + delivery.getId()
+                        + " was dropped although a vehicle had room for it");
+            }
+        }
+        return unassigned;
+    }
+}
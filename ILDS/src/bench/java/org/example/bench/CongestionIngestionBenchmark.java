@@ -0,0 +1,144 @@
+package org.example.bench;
+
+import org.example.CongestionIngestor;
+import org.example.LogisticsNetwork;
+import org.example.TrafficData;
+
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sustained congestion readings per second.
+// "direct" has every producer record each reading in TrafficData and apply it to its road with
+// updateRoad, behind one lock since the network is not thread-safe. "put" pushes readings through
+// CongestionIngestor as fast as the consumers take them; "offer @ rate" paces producers to a
+// target rate and reports what backpressure rejected. In both, the main thread owns the network
+// and applies the ingestor's windows every 100 ms. After each ingestor run the TrafficData
+// reading counts are checked against the number of readings accepted.
+// Usage: CongestionIngestionBenchmark [gridSide] [producers] [consumers] [seconds] [targetRate]
+public class CongestionIngestionBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int consumers = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int targetRate = args.length > 4 ? Integer.parseInt(args[4]) : 50_000;
+
+        BenchmarkSupport.printHeader("Congestion ingestion (" + side * side + " nodes, " + producers
+                + " producers, " + consumers + " consumers, " + seconds + " s per run)");
+        System.out.printf("%-16s %14s %12s %12s %12s %12s %12s%n", "Mode", "readings/s", "rejected",
+                "waits", "max backlog", "net batches", "road upd/s");
+        runDirect(side, producers, seconds);
+        runIngestor(side, producers, consumers, seconds, 0);
+        runIngestor(side, producers, consumers, seconds, targetRate);
+    }
+
+    private static void runDirect(int side, int producers, int seconds) throws InterruptedException {
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        TrafficData trafficData = network.getCongestionPredictor().getTrafficData();
+        String[] roadIds = roadIds(side);
+        network.getRoutingEngine();
+        AtomicLong readings = new AtomicLong();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long seed = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                Random random = new Random(seed);
+                long count = 0;
+                while (System.nanoTime() < end) {
+                    String roadId = roadIds[random.nextInt(roadIds.length)];
+                    double congestion = 1.0 + 2.0 * random.nextDouble();
+                    synchronized (network) {
+                        trafficData.recordAggregate(roadId, DayOfWeek.MONDAY, hourOf(count), 1, congestion,
+                                congestion * congestion, System.currentTimeMillis());
+                        network.updateCongestions(Map.of(roadId, congestion));
+                    }
+                    count++;
+                }
+                readings.addAndGet(count);
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        System.out.printf("%-16s %14.0f %12s %12s %12s %12s %12.0f%n", "direct",
+                readings.get() / (double) seconds, "-", "-", "-", "-", readings.get() / (double) seconds);
+    }
+
+    // rate 0 means unpaced put(); otherwise offer() at that total rate
+    private static void runIngestor(int side, int producers, int consumers, int seconds, int rate)
+            throws InterruptedException {
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        TrafficData trafficData = network.getCongestionPredictor().getTrafficData();
+        String[] roadIds = roadIds(side);
+        CongestionIngestor ingestor = new CongestionIngestor(network, consumers, 1 << 16, 100);
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long seed = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                Random random = new Random(seed);
+                long count = 0;
+                while (System.nanoTime() < end) {
+                    if (rate > 0) {
+                        long due = (System.nanoTime() - start) * rate / producers / 1_000_000_000L;
+                        if (count >= due) {
+                            try {
+                                Thread.sleep(1);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                            continue;
+                        }
+                    }
+                    String roadId = roadIds[random.nextInt(roadIds.length)];
+                    double congestion = 1.0 + 2.0 * random.nextDouble();
+                    if (rate > 0) {
+                        ingestor.offer(roadId, DayOfWeek.MONDAY, hourOf(count), congestion);
+                    } else {
+                        ingestor.put(roadId, DayOfWeek.MONDAY, hourOf(count), congestion);
+                    }
+                    count++;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                thread.join(100);
+                ingestor.applyPending();
+            }
+        }
+        ingestor.close();
+        double elapsed = BenchmarkSupport.millisSince(start) / 1000.0;
+
+        long recorded = 0;
+        for (String roadId : roadIds) {
+            for (int hour = 0; hour < 24; hour++) recorded += trafficData.getReadingCount(roadId, hour);
+        }
+        if (recorded != ingestor.getAcceptedCount() || ingestor.getConsumedCount() != ingestor.getAcceptedCount()) {
+            throw new IllegalStateException("Accepted " + ingestor.getAcceptedCount() + " readings but consumed "
+                    + ingestor.getConsumedCount() + " and recorded " + recorded);
+        }
+        System.out.printf("%-16s %14.0f %12d %12d %12d %12d %12.0f%n",
+                rate == 0 ? "put" : "offer @ " + rate, ingestor.getAcceptedCount() / elapsed,
+                ingestor.getRejectedCount(), ingestor.getProducerWaitCount(), ingestor.getMaxBacklog(),
+                ingestor.getNetworkBatchCount(), ingestor.getRoadUpdateCount() / elapsed);
+    }
+
+    // readings move to the next hour of day every 200k, so windows cross hour boundaries
+    private static int hourOf(long count) {
+        return (int) ((count / 200_000) % 24);
+    }
+
+    private static String[] roadIds(int side) {
+        int roads = 2 * side * (side - 1);
+        String[] ids = new String[2 * roads];
+        for (int i = 0; i < roads; i++) {
+            ids[2 * i] = "R" + i;
+            ids[2 * i + 1] = "R" + i + "_reverse";
+        }
+        return ids;
+    }
+}
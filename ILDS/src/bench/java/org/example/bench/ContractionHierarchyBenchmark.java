@@ -0,0 +1,57 @@
+package org.example.bench;
+
+import org.example.ContractionHierarchy;
+import org.example.LogisticsNetwork;
+import org.example.LogisticsNetwork.SearchMode;
+
+// Contraction Hierarchies report: preprocessing time, shortcut count and query latency next to
+// Dijkstra, for the distance metric.
+// Usage: ContractionHierarchyBenchmark [gridSide] [queries]
+public class ContractionHierarchyBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+
+        ContractionHierarchy hierarchy = network.getHierarchy(true);
+        int edges = hierarchy.getGraph().getEdgeCount();
+
+        BenchmarkSupport.printHeader("Contraction Hierarchies (" + side * side + " nodes, " + edges + " edges)");
+        System.out.printf("Preprocessing: %.1f ms%n", hierarchy.getPreprocessingMillis());
+        System.out.printf("Shortcuts:     %d (%.2f per original edge)%n",
+                hierarchy.getShortcutCount(), (double) hierarchy.getShortcutCount() / edges);
+
+        // CH must agree with Dijkstra on every path cost
+        for (String[] query : queries) {
+            double dijkstra = LegacyRouting.pathCost(network, network.findPath(query[0], query[1], true), true);
+            double ch = LegacyRouting.pathCost(network, network.findPath(query[0], query[1], true, SearchMode.CH), true);
+            if (Math.abs(dijkstra - ch) > 1e-9 * Math.max(1.0, dijkstra)) {
+                throw new IllegalStateException("CH cost " + ch + " differs from Dijkstra " + dijkstra
+                        + " for " + query[0] + " -> " + query[1]);
+            }
+        }
+        System.out.println("CH path costs match Dijkstra for all queries");
+
+        System.out.printf("%-10s %16s %12s%n", "Search", "settled/query", "us/query");
+        for (SearchMode mode : new SearchMode[]{SearchMode.DIJKSTRA, SearchMode.CH}) {
+            for (int pass = 0; pass < 2; pass++) {
+                long settled = 0;
+                long start = System.nanoTime();
+                for (String[] query : queries) {
+                    network.findPath(query[0], query[1], true, mode);
+                    settled += mode == SearchMode.CH
+                            ? hierarchy.getLastSettledCount()
+                            : network.getRoutingEngine().getLastSettledCount();
+                }
+                double millis = BenchmarkSupport.millisSince(start);
+                if (pass == 1) {
+                    System.out.printf("%-10s %16d %12.1f%n", mode, settled / queries.length,
+                            millis * 1000.0 / queries.length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.bench;
+
+import org.example.CellPartition;
+import org.example.CustomizableRoutePlanner;
+import org.example.LogisticsNetwork;
+import org.example.LogisticsNetwork.SearchMode;
+
+import java.util.Random;
+
+// Customizable route planning report for the travel-time metric: partition and full
+// customization time, query latency next to Dijkstra, and the cost of re-customizing after
+// batches of updateRoad calls.
+// Usage: CrpBenchmark [gridSide] [queries]
+public class CrpBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+
+        long start = System.nanoTime();
+        CustomizableRoutePlanner planner = network.getRoutePlanner(false);
+        double setupMillis = BenchmarkSupport.millisSince(start);
+        CellPartition partition = planner.getPartition();
+
+        BenchmarkSupport.printHeader("Customizable route planning (" + side * side + " nodes)");
+        System.out.printf("Partition + customization: %.1f ms (customization %.1f ms, %d cells)%n",
+                setupMillis, planner.getLastCustomizationMillis(), planner.getLastCustomizedCells());
+        for (int l = 1; l <= partition.getLevelCount(); l++) {
+            int boundary = 0;
+            for (int c = 0; c < partition.getCellCount(l); c++) boundary += partition.getBoundaryCount(l, c);
+            System.out.printf("  level %d: %d cells, %d boundary nodes%n", l, partition.getCellCount(l), boundary);
+        }
+
+        verify(network, queries);
+        System.out.println("CRP path costs match Dijkstra for all queries");
+
+        System.out.printf("%-10s %16s %12s%n", "Search", "settled/query", "us/query");
+        for (SearchMode mode : new SearchMode[]{SearchMode.DIJKSTRA, SearchMode.CRP}) {
+            for (int pass = 0; pass < 2; pass++) {
+                long settled = 0;
+                long begin = System.nanoTime();
+                for (String[] query : queries) {
+                    network.findPath(query[0], query[1], false, mode);
+                    settled += mode == SearchMode.CRP
+                            ? planner.getLastSettledCount()
+                            : network.getRoutingEngine().getLastSettledCount();
+                }
+                double millis = BenchmarkSupport.millisSince(begin);
+                if (pass == 1) {
+                    System.out.printf("%-10s %16d %12.1f%n", mode, settled / queries.length,
+                            millis * 1000.0 / queries.length);
+                }
+            }
+        }
+
+        // re-customization after traffic updates: only cells holding both ends of a road are redone
+        Random random = new Random(11L);
+        int roadCount = 2 * side * (side - 1);
+        System.out.printf("%-10s %16s %16s%n", "Updates", "cells redone", "customize ms");
+        for (int batch : new int[]{1, 10, 100, 1000}) {
+            for (int i = 0; i < batch; i++) {
+                String roadId = "R" + random.nextInt(roadCount);
+                double distance = network.getRoad(roadId).getDistance();
+                network.updateRoad(roadId, distance, 1.0 + 2.0 * random.nextDouble(), 30 + 50 * random.nextDouble());
+            }
+            planner.customize();
+            System.out.printf("%-10d %16d %16.2f%n", batch, planner.getLastCustomizedCells(),
+                    planner.getLastCustomizationMillis());
+        }
+
+        verify(network, queries);
+        System.out.println("CRP path costs still match Dijkstra after updates");
+    }
+
+    private static void verify(LogisticsNetwork network, String[][] queries) {
+        for (String[] query : queries) {
+            double dijkstra = LegacyRouting.pathCost(network, network.findPath(query[0], query[1], false), false);
+            double crp = LegacyRouting.pathCost(network, network.findPath(query[0], query[1], false, SearchMode.CRP), false);
+            if (Math.abs(dijkstra - crp) > 1e-9 * Math.max(1.0, dijkstra)) {
+                throw new IllegalStateException("CRP cost " + crp + " differs from Dijkstra " + dijkstra
+                        + " for " + query[0] + " -> " + query[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.bench;
+
+import org.example.Heuristics;
+import org.example.Location;
+import org.example.LogisticsNetwork;
+import org.example.NetworkImporter;
+import org.example.NetworkSnapshot;
+import org.example.Road;
+import org.example.RoutingEngine;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Bulk CSV import: writes a side x side grid as location and road CSV files (hub names quoted
+// with commas inside, plus one road per row of the grid whose endpoint lies outside the extract),
+// then imports them line by line with String.split and addLocation/addRoad, and with
+// NetworkImporter on one worker and on every core. Reports rows per second and heap, and checks
+// that the importer's snapshot matches the network built through addRoad.
+// The baseline is skipped above baselineMaxSide; side 2237 gives a 10M-road input.
+// Usage: CsvImportBenchmark [gridSide] [baselineMaxSide]
+public class CsvImportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 700;
+        int baselineMaxSide = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Path directory = Files.createTempDirectory("import");
+        Path locationsCsv = directory.resolve("locations.csv");
+        Path roadsCsv = directory.resolve("roads.csv");
+
+        try {
+            long start = System.nanoTime();
+            long rows = writeCsv(side, locationsCsv, roadsCsv);
+            long bytes = Files.size(locationsCsv) + Files.size(roadsCsv);
+            BenchmarkSupport.printHeader(String.format("CSV import (%,d rows, %,d bytes, written in %.1f s)",
+                    rows, bytes, BenchmarkSupport.millisSince(start) / 1000.0));
+            System.out.printf("%-32s %10s %12s %10s %16s %16s%n", "", "seconds", "rows/s", "MB/s",
+                    "peak heap", "retained heap");
+
+            LogisticsNetwork baseline = null;
+            if (side <= baselineMaxSide) {
+                long heap = usedMemory();
+                resetPeaks();
+                start = System.nanoTime();
+                baseline = importWithAddRoad(locationsCsv, roadsCsv);
+                double seconds = BenchmarkSupport.millisSince(start) / 1000.0;
+                print("split + addLocation/addRoad", seconds, rows, bytes, peakHeap() - heap, usedMemory() - heap);
+            }
+
+            NetworkImporter.Result result = null;
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int parallelism : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+                result = null;
+                long heap = usedMemory();
+                resetPeaks();
+                result = new NetworkImporter(parallelism).importCsv(locationsCsv, roadsCsv);
+                print("NetworkImporter, " + parallelism + (parallelism == 1 ? " worker" : " workers"),
+                        result.getSeconds(), rows, bytes, peakHeap() - heap, usedMemory() - heap);
+            }
+            System.out.printf("Imported %,d locations and %,d roads, skipped %,d roads with unknown endpoints%n",
+                    result.getLocationRows(), result.getRoadRows(), result.getSkippedRows());
+
+            if (baseline != null) {
+                System.out.println("Mismatches against addRoad: " + compare(baseline, result, side));
+            }
+        } finally {
+            Files.deleteIfExists(locationsCsv);
+            Files.deleteIfExists(roadsCsv);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void print(String label, double seconds, long rows, long bytes, long peak, long retained) {
+        System.out.printf("%-32s %10.2f %,12.0f %10.1f %,16d %,16d%n", label, seconds, rows / seconds,
+                bytes / seconds / 1e6, peak, retained);
+    }
+
+    // grid as in BenchmarkSupport.buildGridNetwork, streamed straight to CSV; returns the row count
+    private static long writeCsv(int side, Path locationsCsv, Path roadsCsv) throws IOException {
+        Random random = new Random(42L);
+        double latStep = 0.5 / 111.195;
+        double lonStep = 0.5 / (111.195 * Math.cos(Math.toRadians(51.5)));
+        double[] latitudes = new double[side * side];
+        double[] longitudes = new double[side * side];
+        long rows = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(locationsCsv)) {
+            out.write("id,name,hub,latitude,longitude\n");
+            for (int row = 0; row < side; row++) {
+                for (int col = 0; col < side; col++) {
+                    int index = row * side + col;
+                    latitudes[index] = round(51.5 + (row + (random.nextDouble() - 0.5) * 0.3) * latStep, 7);
+                    longitudes[index] = round(-0.1 + (col + (random.nextDouble() - 0.5) * 0.3) * lonStep, 7);
+                    boolean hub = index % 50 == 0;
+                    String name = hub ? "\"Hub " + index + ", \"\"depot\"\"\"" : "Node " + index;
+                    out.write(BenchmarkSupport.nodeId(row, col) + "," + name + "," + hub + ","
+                            + latitudes[index] + "," + longitudes[index] + "\n");
+                    rows++;
+                }
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(roadsCsv)) {
+            out.write("id,source,destination,distance,averageSpeed,congestion\n");
+            int roadCount = 0;
+            for (int row = 0; row < side; row++) {
+                for (int col = 0; col < side; col++) {
+                    int index = row * side + col;
+                    if (col + 1 < side) {
+                        writeRoad(out, "R" + roadCount++, row, col, row, col + 1, latitudes, longitudes, side, random);
+                        rows++;
+                    }
+                    if (row + 1 < side) {
+                        writeRoad(out, "R" + roadCount++, row, col, row + 1, col, latitudes, longitudes, side, random);
+                        rows++;
+                    }
+                    if (col == side - 1) {
+                        out.write("X" + index + "," + BenchmarkSupport.nodeId(row, col) + ",OUTSIDE" + row + ",1.0\n");
+                        rows++;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void writeRoad(BufferedWriter out, String id, int row, int col, int toRow, int toCol,
+                                  double[] latitudes, double[] longitudes, int side, Random random) throws IOException {
+        int from = row * side + col;
+        int to = toRow * side + toCol;
+        double straightLine = Heuristics.greatCircleKm(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+        double distance = round(straightLine * (1.0 + random.nextDouble() * 0.4), 3);
+        double speed = 30.0 + random.nextInt(6) * 10.0;
+        double congestion = round(1.0 + random.nextDouble(), 3);
+        out.write(id + "," + BenchmarkSupport.nodeId(row, col) + "," + BenchmarkSupport.nodeId(toRow, toCol) + ","
+                + distance + "," + speed + "," + congestion + "\n");
+    }
+
+    // extracts carry coordinates to about 7 decimals and distances to the metre
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    // what an import looks like without the importer: a String per field and addLocation/addRoad
+    private static LogisticsNetwork importWithAddRoad(Path locationsCsv, Path roadsCsv) throws IOException {
+        LogisticsNetwork network = new LogisticsNetwork();
+        try (BufferedReader in = Files.newBufferedReader(locationsCsv)) {
+            in.readLine();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                List<String> fields = splitCsv(line);
+                network.addLocation(new Location(fields.get(0), fields.get(1), Boolean.parseBoolean(fields.get(2)),
+                        Double.parseDouble(fields.get(3)), Double.parseDouble(fields.get(4))));
+            }
+        }
+        try (BufferedReader in = Files.newBufferedReader(roadsCsv)) {
+            in.readLine();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                List<String> fields = splitCsv(line);
+                Location source = find(network, fields.get(1));
+                Location destination = find(network, fields.get(2));
+                if (source == null || destination == null) continue;
+                Road road = new Road(fields.get(0), source, destination, Double.parseDouble(fields.get(3)));
+                road.setAverageSpeed(Double.parseDouble(fields.get(4)));
+                road.setCurrentCongestion(Double.parseDouble(fields.get(5)));
+                network.addRoad(road);
+            }
+        }
+        return network;
+    }
+
+    private static Location find(LogisticsNetwork network, String id) {
+        try {
+            return network.getLocation(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // every location and road of the baseline, looked up by id in the import, plus some routes
+    private static int compare(LogisticsNetwork baseline, NetworkImporter.Result result, int side) {
+        NetworkSnapshot expected = baseline.freeze();
+        NetworkSnapshot actual = result.getSnapshot();
+        int mismatches = 0;
+        if (expected.getNodeCount() != actual.getNodeCount() || expected.getEdgeCount() != actual.getEdgeCount()) {
+            System.out.println("Sizes differ");
+            return 1;
+        }
+        for (int node = 0; node < expected.getNodeCount(); node++) {
+            String id = expected.getNodeId(node);
+            int other = actual.indexOf(id);
+            if (other < 0 || !id.equals(actual.getNodeId(other)) || expected.isHub(node) != actual.isHub(other)
+                    || expected.getLatitude(node) != actual.getLatitude(other)
+                    || expected.getLongitude(node) != actual.getLongitude(other)
+                    || !baseline.getLocation(id).getName().equals(result.getName(other))) {
+                mismatches++;
+            }
+        }
+        for (int edge = 0; edge < expected.getEdgeCount(); edge++) {
+            String id = expected.getRoadId(edge);
+            int other = actual.indexOfRoad(id);
+            if (other < 0 || !id.equals(actual.getRoadId(other))
+                    || !expected.getNodeId(expected.getSource(edge)).equals(actual.getNodeId(actual.getSource(other)))
+                    || !expected.getNodeId(expected.getTarget(edge)).equals(actual.getNodeId(actual.getTarget(other)))
+                    || expected.getDistance(edge) != actual.getDistance(other)
+                    || expected.getAverageSpeed(edge) != actual.getAverageSpeed(other)
+                    || expected.getCongestion(edge) != actual.getCongestion(other)) {
+                mismatches++;
+            }
+        }
+        RoutingEngine engine = new RoutingEngine(actual);
+        for (String[] query : BenchmarkSupport.randomQueries(side, 20, 7L)) {
+            if (!baseline.findPath(query[0], query[1], false).equals(engine.findPath(query[0], query[1], false))) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    // sum of the heap pools' peaks since resetPeaks, an upper bound on the peak heap in use
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
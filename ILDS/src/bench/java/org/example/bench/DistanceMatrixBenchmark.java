@@ -0,0 +1,80 @@
+package org.example.bench;
+
+import org.example.DistanceMatrix;
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Many-to-many travel times: one findPath per pair against DistanceMatrix on one thread and on
+// the common fork-join pool.
+// Usage: DistanceMatrixBenchmark [gridSide] [stops]
+public class DistanceMatrixBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int stopCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        NetworkSnapshot graph = network.freeze();
+        Random random = new Random(5L);
+        List<String> stops = new ArrayList<>();
+        for (int i = 0; i < stopCount; i++) {
+            stops.add(BenchmarkSupport.nodeId(random.nextInt(side), random.nextInt(side)));
+        }
+
+        BenchmarkSupport.printHeader("Distance matrix " + stopCount + " x " + stopCount
+                + " (" + graph.getNodeCount() + " nodes)");
+
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            List<List<String>> paths = new ArrayList<>();
+            for (int i = 0; i < stopCount; i++) {
+                for (int j = 0; j < stopCount; j++) {
+                    paths.add(network.findPath(stops.get(i), stops.get(j), false));
+                }
+            }
+            double pairwiseMillis = BenchmarkSupport.millisSince(start);
+
+            ForkJoinPool single = new ForkJoinPool(1);
+            start = System.nanoTime();
+            DistanceMatrix sequential = DistanceMatrix.compute(graph, stops, stops, graph::getTravelTime, false, single);
+            double sequentialMillis = BenchmarkSupport.millisSince(start);
+            single.shutdown();
+
+            start = System.nanoTime();
+            DistanceMatrix parallel = network.computeDistanceMatrix(stops, stops, false, true);
+            double parallelMillis = BenchmarkSupport.millisSince(start);
+
+            // every entry, and the cost of every rebuilt path, must match the pairwise searches
+            for (int i = 0; i < stopCount; i++) {
+                for (int j = 0; j < stopCount; j++) {
+                    double expected = LegacyRouting.pathCost(network, paths.get(i * stopCount + j), false);
+                    double pathCost = LegacyRouting.pathCost(network, parallel.getPath(i, j), false);
+                    if (!close(expected, sequential.getCost(i, j)) || !close(expected, parallel.getCost(i, j))
+                            || !close(expected, pathCost)) {
+                        throw new IllegalStateException("matrix entry " + i + "," + j + " differs from findPath");
+                    }
+                }
+            }
+
+            if (pass == 1) {
+                System.out.println("Matrix entries and paths match findPath for all pairs");
+                System.out.printf("%-26s %12s %16s%n", "Method", "ms", "settled");
+                System.out.printf("%-26s %12.1f %16s%n", "findPath per pair", pairwiseMillis, "-");
+                System.out.printf("%-26s %12.1f %16d%n", "matrix, 1 thread", sequentialMillis,
+                        sequential.getSettledCount());
+                System.out.printf("%-26s %12.1f %16d%n",
+                        "matrix, " + ForkJoinPool.commonPool().getParallelism() + " threads + paths",
+                        parallelMillis, parallel.getSettledCount());
+            }
+        }
+    }
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.max(1.0, a);
+    }
+}
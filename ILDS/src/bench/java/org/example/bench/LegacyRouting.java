@@ -0,0 +1,86 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.Road;
+
+import java.util.*;
+
+// The original findPath implementation (linear scan for the closest unvisited node, boxed
+// HashMap distances), kept as the baseline the benchmarks compare against.
+public final class LegacyRouting {
+
+    private LegacyRouting() {
+    }
+
+    public static List<String> findPath(LogisticsNetwork network, Collection<String> locationIds,
+                                        String startId, String endId, boolean useDistance) {
+        Map<String, Double> distances = new HashMap<>();
+        Map<String, String> previousNode = new HashMap<>();
+        Set<String> unvisited = new HashSet<>(locationIds);
+
+        for (String locationId : locationIds) {
+            distances.put(locationId, Double.MAX_VALUE);
+        }
+        distances.put(startId, 0.0);
+
+        while (!unvisited.isEmpty()) {
+            String current = findClosestNode(unvisited, distances);
+            if (current == null || current.equals(endId)) {
+                break;
+            }
+            unvisited.remove(current);
+
+            for (Road road : network.getConnectedRoads(current)) {
+                String neighbor = road.getDestination().getId();
+                if (!unvisited.contains(neighbor)) {
+                    continue;
+                }
+                double cost = useDistance ? road.getDistance() : road.getTravelTime();
+                double newDistance = distances.get(current) + cost;
+                if (newDistance < distances.get(neighbor)) {
+                    distances.put(neighbor, newDistance);
+                    previousNode.put(neighbor, current);
+                }
+            }
+        }
+
+        List<String> path = new ArrayList<>();
+        String current = endId;
+        while (current != null) {
+            path.add(0, current);
+            if (current.equals(startId)) {
+                return path;
+            }
+            current = previousNode.get(current);
+        }
+        return new ArrayList<>();
+    }
+
+    private static String findClosestNode(Set<String> unvisited, Map<String, Double> distances) {
+        String closest = null;
+        double minDistance = Double.MAX_VALUE;
+        for (String node : unvisited) {
+            double distance = distances.get(node);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = node;
+            }
+        }
+        return closest;
+    }
+
+    // sums the chosen metric along a path, used to check both engines agree on cost
+    public static double pathCost(LogisticsNetwork network, List<String> path, boolean useDistance) {
+        double total = 0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            double best = Double.MAX_VALUE;
+            for (Road road : network.getConnectedRoads(path.get(i))) {
+                if (road.getDestination().getId().equals(path.get(i + 1))) {
+                    best = Math.min(best, useDistance ? road.getDistance() : road.getTravelTime());
+                }
+            }
+            total += best;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.bench;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// The original TrafficData storage (every reading kept as a boxed Double per road and hour, the
+// prediction averaged on each call), kept as the baseline TrafficStatsBenchmark compares against.
+public final class LegacyTrafficData {
+    private final Map<String, Map<Integer, List<Double>>> historicalCongestion = new HashMap<>();
+    private final Map<String, Double> currentTrafficPatterns = new HashMap<>();
+
+    public void recordCongestion(String roadId, LocalDateTime timestamp, double congestionLevel) {
+        int hour = timestamp.getHour();
+        historicalCongestion
+            .computeIfAbsent(roadId, k -> new HashMap<>())
+            .computeIfAbsent(hour, k -> new ArrayList<>())
+            .add(congestionLevel);
+
+        currentTrafficPatterns.put(roadId, congestionLevel);
+    }
+
+    public double getPredictedCongestion(String roadId, int hour) {
+        Map<Integer, List<Double>> roadData = historicalCongestion.get(roadId);
+        if (roadData == null || !roadData.containsKey(hour)) {
+            return 1.0;
+        }
+
+        List<Double> hourlyData = roadData.get(hour);
+        return hourlyData.stream()
+            .mapToDouble(Double::doubleValue)
+            .average()
+            .orElse(1.0);
+    }
+}
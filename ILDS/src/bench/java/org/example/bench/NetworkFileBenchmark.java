@@ -0,0 +1,142 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.NetworkFile;
+import org.example.NetworkSnapshot;
+import org.example.Road;
+import org.example.RoutingEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Round trip through the binary network format: builds a grid with addLocation/addRoad, exports
+// it, and compares building against opening the file (mapped snapshot) and loading it back
+// into a LogisticsNetwork, in time and heap. Then checks that every location, road and
+// attribute survived and that routes over the file match routes over the original network.
+// Usage: NetworkFileBenchmark [gridSide] [queries]
+public class NetworkFileBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Path path = Files.createTempFile("network", ".ilds");
+
+        try {
+            long heap = usedMemory();
+            long start = System.nanoTime();
+            LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+            NetworkSnapshot original = network.freeze();
+            double buildMillis = BenchmarkSupport.millisSince(start);
+            long buildBytes = usedMemory() - heap;
+
+            start = System.nanoTime();
+            network.export(path);
+            double exportMillis = BenchmarkSupport.millisSince(start);
+
+            heap = usedMemory();
+            start = System.nanoTime();
+            NetworkFile file = NetworkFile.open(path);
+            double openMillis = BenchmarkSupport.millisSince(start);
+            start = System.nanoTime();
+            NetworkSnapshot mapped = file.toSnapshot();
+            double snapshotMillis = BenchmarkSupport.millisSince(start);
+            long mappedBytes = usedMemory() - heap;
+
+            heap = usedMemory();
+            start = System.nanoTime();
+            LogisticsNetwork loaded = LogisticsNetwork.load(path);
+            double loadMillis = BenchmarkSupport.millisSince(start);
+            long loadedBytes = usedMemory() - heap;
+
+            BenchmarkSupport.printHeader("Network file (" + original.getNodeCount() + " nodes, "
+                    + original.getEdgeCount() + " edges, " + String.format("%,d", file.getFileSize()) + " bytes)");
+            System.out.printf("%-38s %10s %14s%n", "", "ms", "heap bytes");
+            System.out.printf("%-38s %10.1f %,14d%n", "addLocation/addRoad + freeze()", buildMillis, buildBytes);
+            System.out.printf("%-38s %10.1f %14s%n", "export", exportMillis, "-");
+            System.out.printf("%-38s %10.1f %14s%n", "NetworkFile.open (map)", openMillis, "-");
+            System.out.printf("%-38s %10.1f %,14d%n", "open + toSnapshot()", openMillis + snapshotMillis, mappedBytes);
+            System.out.printf("%-38s %10.1f %,14d%n", "LogisticsNetwork.load", loadMillis, loadedBytes);
+
+            int mismatches = compareSnapshots(network, original, mapped, file);
+            mismatches += compareRoads(network, loaded, original);
+            mismatches += compareRoutes(network, loaded, mapped, side, queryCount);
+            System.out.println("Round-trip mismatches: " + mismatches);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    // every node and edge of the original, looked up by id in the copy
+    private static int compareSnapshots(LogisticsNetwork network, NetworkSnapshot original, NetworkSnapshot copy,
+                                        NetworkFile file) {
+        int mismatches = 0;
+        if (original.getNodeCount() != copy.getNodeCount() || original.getEdgeCount() != copy.getEdgeCount()) {
+            System.out.println("Sizes differ");
+            return 1;
+        }
+        for (int node = 0; node < original.getNodeCount(); node++) {
+            int other = copy.indexOf(original.getNodeId(node));
+            if (other < 0 || original.isHub(node) != copy.isHub(other)
+                    || Double.compare(original.getLatitude(node), copy.getLatitude(other)) != 0
+                    || Double.compare(original.getLongitude(node), copy.getLongitude(other)) != 0
+                    || !network.getLocation(original.getNodeId(node)).getName().equals(file.getName(other))) {
+                mismatches++;
+            }
+        }
+        for (int edge = 0; edge < original.getEdgeCount(); edge++) {
+            int other = copy.indexOfRoad(original.getRoadId(edge));
+            if (other < 0
+                    || !original.getNodeId(original.getSource(edge)).equals(copy.getNodeId(copy.getSource(other)))
+                    || !original.getNodeId(original.getTarget(edge)).equals(copy.getNodeId(copy.getTarget(other)))
+                    || original.getDistance(edge) != copy.getDistance(other)
+                    || original.getAverageSpeed(edge) != copy.getAverageSpeed(other)
+                    || original.getCongestion(edge) != copy.getCongestion(other)) {
+                mismatches++;
+            }
+        }
+        if (copy.indexOf("no such location") != -1 || copy.indexOfRoad("no such road") != -1) mismatches++;
+        return mismatches;
+    }
+
+    private static int compareRoads(LogisticsNetwork original, LogisticsNetwork loaded, NetworkSnapshot graph) {
+        int mismatches = 0;
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            Road road = original.getRoad(graph.getRoadId(edge));
+            Road copy = loaded.getRoad(road.getId());
+            if (!road.getSource().getId().equals(copy.getSource().getId())
+                    || !road.getDestination().getId().equals(copy.getDestination().getId())
+                    || road.getDistance() != copy.getDistance() || road.getAverageSpeed() != copy.getAverageSpeed()
+                    || road.getCurrentCongestion() != copy.getCurrentCongestion()) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    // routes by travel time over the original network, the loaded network and the mapped snapshot
+    private static int compareRoutes(LogisticsNetwork original, LogisticsNetwork loaded, NetworkSnapshot mapped,
+                                     int side, int queryCount) {
+        RoutingEngine engine = new RoutingEngine(mapped);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+        int mismatches = 0;
+        long start = System.nanoTime();
+        for (String[] query : queries) {
+            List<String> expected = original.findPath(query[0], query[1], false);
+            if (!expected.equals(loaded.findPath(query[0], query[1], false))) mismatches++;
+            if (!expected.equals(engine.findPath(query[0], query[1], false))) mismatches++;
+        }
+        System.out.printf("Route checks: %d queries x 3 networks, %.1f ms%n", queryCount,
+                BenchmarkSupport.millisSince(start));
+        return mismatches;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
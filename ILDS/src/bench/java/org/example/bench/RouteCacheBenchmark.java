@@ -0,0 +1,128 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.Road;
+import org.example.RouteCache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Replays a skewed dispatch workload (hub-to-customer pairs drawn from a Zipf distribution, 70%
+// findPath by travel time, 30% findAdaptiveRoute at three hours of day, with a road congestion
+// update every 50 queries) without a cache and with LRU and LFU route caches. Every tenth cached
+// answer is checked against an uncached network that receives the same updates.
+// Usage: RouteCacheBenchmark [gridSide] [queries] [pairs] [cacheKilobytes]
+public class RouteCacheBenchmark {
+    private static final int[] HOURS = {8, 12, 17};
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int pairCount = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+        long cacheBytes = (args.length > 3 ? Long.parseLong(args[3]) : 8_192) * 1024;
+
+        Random random = new Random(9L);
+        String[][] pairs = new String[pairCount][];
+        for (int i = 0; i < pairCount; i++) {
+            int hub = random.nextInt(side * side / 50) * 50; // buildGridNetwork makes every 50th location a hub
+            pairs[i] = new String[]{BenchmarkSupport.nodeId(hub / side, hub % side),
+                    BenchmarkSupport.nodeId(random.nextInt(side), random.nextInt(side))};
+        }
+        List<int[]> operations = workload(pairCount, queryCount, 2 * side * (side - 1), random);
+
+        BenchmarkSupport.printHeader("Route cache (" + side * side + " nodes, " + queryCount + " queries over "
+                + pairCount + " pairs, Zipf 1.0, " + cacheBytes / 1024 + " KB cache)");
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s %12s %10s%n", "cache", "ms/query", "us/hit",
+                "ms/update", "hit rate", "entries", "evictions", "invalidated", "mismatch");
+        replay("none", side, pairs, operations, null);
+        replay("LRU", side, pairs, operations, new RouteCache(cacheBytes, null, RouteCache.EvictionPolicy.LRU));
+        replay("LFU", side, pairs, operations, new RouteCache(cacheBytes, null, RouteCache.EvictionPolicy.LFU));
+        replay("LRU 1s TTL", side, pairs, operations,
+                new RouteCache(cacheBytes, Duration.ofSeconds(1), RouteCache.EvictionPolicy.LRU));
+    }
+
+    // {0, pair, hour or -1} queries and {1, road number, congestion per mille} updates
+    private static List<int[]> workload(int pairCount, int queryCount, int roadCount, Random random) {
+        double[] cumulative = new double[pairCount];
+        double total = 0.0;
+        for (int i = 0; i < pairCount; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        List<int[]> operations = new ArrayList<>();
+        for (int q = 0; q < queryCount; q++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            int pair = Math.min(index < 0 ? -index - 1 : index, pairCount - 1);
+            int hour = random.nextDouble() < 0.7 ? -1 : HOURS[random.nextInt(HOURS.length)];
+            operations.add(new int[]{0, pair, hour});
+            if (q % 50 == 49) operations.add(new int[]{1, random.nextInt(roadCount), 1000 + random.nextInt(1500)});
+        }
+        return operations;
+    }
+
+    private static void replay(String label, int side, String[][] pairs, List<int[]> operations, RouteCache cache) {
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        LogisticsNetwork reference = cache == null ? null : BenchmarkSupport.buildGridNetwork(side, 42L);
+        network.setRouteCache(cache);
+        network.findPath(pairs[0][0], pairs[0][1], false); // builds the routing graph
+        if (cache != null) cache.clear();
+        long queryNanos = 0;
+        long hitNanos = 0;
+        long updateNanos = 0;
+        int updates = 0;
+        int queries = 0;
+        int mismatches = 0;
+        for (int[] operation : operations) {
+            if (operation[0] == 1) {
+                String roadId = "R" + operation[1];
+                Road road = network.getRoad(roadId);
+                long start = System.nanoTime();
+                network.updateRoad(roadId, road.getDistance(), operation[2] / 1000.0, road.getAverageSpeed());
+                updateNanos += System.nanoTime() - start;
+                updates++;
+                if (reference != null) {
+                    reference.updateRoad(roadId, road.getDistance(), operation[2] / 1000.0, road.getAverageSpeed());
+                }
+                continue;
+            }
+            String[] pair = pairs[operation[1]];
+            LocalDateTime time = operation[2] < 0 ? null : LocalDateTime.of(2024, 1, 15, operation[2], 0);
+            long hitsBefore = cache == null ? 0 : cache.getHits();
+            long start = System.nanoTime();
+            List<String> path = time == null
+                    ? network.findPath(pair[0], pair[1], false)
+                    : network.findAdaptiveRoute(pair[0], pair[1], time);
+            queryNanos += System.nanoTime() - start;
+            if (cache != null && cache.getHits() > hitsBefore) hitNanos += System.nanoTime() - start;
+            queries++;
+            if (reference != null && queries % 10 == 0) {
+                List<String> expected = time == null
+                        ? reference.findPath(pair[0], pair[1], false)
+                        : reference.findAdaptiveRoute(pair[0], pair[1], time);
+                double expectedCost = cost(reference, expected, operation[2]);
+                if (Math.abs(cost(reference, path, operation[2]) - expectedCost) > 1e-9 * Math.max(1.0, expectedCost)) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.printf("%-10s %10.3f %10s %10.3f %10s %10s %10s %12s %10s%n", label, queryNanos / 1e6 / queries,
+                cache == null ? "-" : String.format("%.1f", hitNanos / 1e3 / Math.max(1, cache.getHits())),
+                updateNanos / 1e6 / updates,
+                cache == null ? "-" : String.format("%.1f%%", 100.0 * cache.getHitRate()),
+                cache == null ? "-" : String.valueOf(cache.size()),
+                cache == null ? "-" : String.valueOf(cache.getEvictions()),
+                cache == null ? "-" : String.valueOf(cache.getInvalidations() + cache.getExpirations()),
+                cache == null ? "-" : String.valueOf(mismatches));
+    }
+
+    // travel time, or the adaptive cost at hour when hour >= 0
+    private static double cost(LogisticsNetwork network, List<String> path, int hour) {
+        double total = 0.0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Road road = network.getBestRoad(path.get(i), path.get(i + 1));
+            total += hour < 0 ? road.getTravelTime() : network.getCongestionPredictor().adjustedCost(road, hour);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.bench;
+
+import org.example.Delivery;
+import org.example.DeliveryScheduler;
+import org.example.LogisticsNetwork;
+import org.example.RouteImprover;
+import org.example.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Total travel time of the greedy DeliveryScheduler assignment against RouteImprover on generated
+// instances. The iteration-capped runs are reproducible for a given seed; the time-budget run
+// shows what a fixed budget buys on this machine.
+// Usage: RouteImproverBenchmark [gridSide] [vehicles] [deliveries] [iterations] [budgetMillis]
+public class RouteImproverBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int deliveryCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 300;
+        long budgetMillis = args.length > 4 ? Long.parseLong(args[4]) : 5000;
+
+        BenchmarkSupport.printHeader("Route improvement (" + side * side + " nodes, " + vehicleCount
+                + " vehicles, " + deliveryCount + " deliveries)");
+        System.out.printf("%-10s %-22s %12s %12s %10s %10s%n",
+                "Instance", "Run", "travel h", "late h", "LNS iter", "ms");
+        for (long instance = 1; instance <= 3; instance++) {
+            LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+            LocalDateTime departure = LocalDateTime.of(2024, 1, 15, 8, 0);
+            List<Vehicle> vehicles = BenchmarkSupport.randomVehicles(network, side, vehicleCount,
+                    1.3 * 3.0 * deliveryCount / vehicleCount, instance);
+            List<Delivery> deliveries = BenchmarkSupport.randomDeliveries(side, deliveryCount, departure, instance);
+
+            DeliveryScheduler scheduler = new DeliveryScheduler(network);
+            vehicles.forEach(scheduler::addVehicle);
+            deliveries.forEach(scheduler::addDelivery);
+            Map<String, List<Delivery>> greedy = scheduler.scheduleDeliveries();
+
+            RouteImprover capped = new RouteImprover(network, 0, 7L);
+            capped.setMaxIterations(iterations);
+            long start = System.nanoTime();
+            Map<String, List<Delivery>> improved = capped.improve(vehicles, greedy, departure);
+            double cappedMillis = BenchmarkSupport.millisSince(start);
+
+            RouteImprover budgeted = new RouteImprover(network, budgetMillis, 7L);
+            start = System.nanoTime();
+            Map<String, List<Delivery>> budgetedRoutes = budgeted.improve(vehicles, greedy, departure);
+            double budgetedMillis = BenchmarkSupport.millisSince(start);
+
+            check(network, vehicles, greedy, improved, capped);
+            check(network, vehicles, greedy, budgetedRoutes, budgeted);
+
+            System.out.printf("%-10d %-22s %12.2f %12.2f %10s %10s%n", instance, "greedy findBestVehicle",
+                    capped.getInitialTravelTime(), capped.getInitialLateness(), "-", "-");
+            System.out.printf("%-10d %-22s %12.2f %12.2f %10d %10.0f%n", instance, iterations + " iterations",
+                    capped.getTravelTime(), capped.getLateness(), capped.getIterations(), cappedMillis);
+            System.out.printf("%-10d %-22s %12.2f %12.2f %10d %10.0f%n", instance, budgetMillis + " ms budget",
+                    budgeted.getTravelTime(), budgeted.getLateness(), budgeted.getIterations(), budgetedMillis);
+        }
+        System.out.println("Every improved schedule keeps all deliveries, fits capacities and matches findPath times");
+    }
+
+    // same deliveries, capacities respected, and the reported travel time matches per-leg findPath
+    private static void check(LogisticsNetwork network, List<Vehicle> vehicles, Map<String, List<Delivery>> before,
+                              Map<String, List<Delivery>> after, RouteImprover improver) {
+        Set<String> expected = new HashSet<>();
+        before.values().forEach(route -> route.forEach(d -> expected.add(d.getId())));
+        Set<String> seen = new HashSet<>();
+        double travel = 0.0;
+        for (Vehicle vehicle : vehicles) {
+            double load = 0.0;
+            String at = vehicle.getCurrentLocation().getId();
+            for (Delivery delivery : after.get(vehicle.getId())) {
+                if (!seen.add(delivery.getId())) throw new IllegalStateException("delivery repeated: " + delivery.getId());
+                load += delivery.getLoad();
+                travel += LegacyRouting.pathCost(network, network.findPath(at, delivery.getDestinationId(), false), false);
+                at = delivery.getDestinationId();
+            }
+            if (load > vehicle.getCapacity()) throw new IllegalStateException("over capacity: " + vehicle.getId());
+        }
+        if (!seen.equals(expected)) throw new IllegalStateException("deliveries lost or added");
+        if (Math.abs(travel - improver.getTravelTime()) > 1e-6 * Math.max(1.0, travel)) {
+            throw new IllegalStateException("travel time " + improver.getTravelTime() + " != findPath total " + travel);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.RouteOptimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Held-Karp and branch-and-bound on random delivery sets of growing size, with loads near the
+// capacity and deadlines on half of the stops. Small instances are also solved by trying every
+// permutation (what findOptimalDeliveryRoute used to do) to check the answers.
+// Usage: RouteOptimizerBenchmark [gridSide] [maxStops]
+public class RouteOptimizerBenchmark {
+    private static final int MAX_PERMUTATION_STOPS = 9;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int maxStops = args.length > 1 ? Integer.parseInt(args[1]) : 18;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        Random random = new Random(3L);
+
+        BenchmarkSupport.printHeader("Route optimization (" + side * side + " node grid)");
+        System.out.printf("%-6s %-17s %10s %14s %12s%n", "Stops", "Solver", "cost", "nodes", "ms");
+        for (int stops = 4; stops <= maxStops; stops += 2) {
+            List<String> locations = new ArrayList<>();
+            locations.add(BenchmarkSupport.nodeId(side / 2, side / 2));
+            for (int i = 0; i < stops; i++) {
+                locations.add(BenchmarkSupport.nodeId(random.nextInt(side), random.nextInt(side)));
+            }
+            double[][] legs = network.computeDistanceMatrix(locations, locations.subList(1, locations.size()), false)
+                    .getCosts();
+
+            double[] loads = new double[stops];
+            double[] deadlines = new double[stops];
+            double totalLoad = 0.0;
+            for (int i = 0; i < stops; i++) {
+                loads[i] = 1.0 + random.nextInt(5);
+                totalLoad += loads[i];
+                // half of the stops must be reached within a few times their direct travel time
+                deadlines[i] = i % 2 == 0 ? legs[0][i] * (3.0 + 3.0 * random.nextDouble()) : Double.POSITIVE_INFINITY;
+            }
+
+            RouteOptimizer optimizer = new RouteOptimizer(legs, loads, deadlines, totalLoad);
+            RouteOptimizer.Solution exact = optimizer.solve(RouteOptimizer.Mode.HELD_KARP);
+            RouteOptimizer.Solution bounded = optimizer.solve(RouteOptimizer.Mode.BRANCH_AND_BOUND);
+            print(stops, "Held-Karp", exact.isFeasible(), exact.getCost(), exact.getNodesExplored(), exact.getSolveMillis());
+            print(stops, "branch-and-bound", bounded.isFeasible(), bounded.getCost(), bounded.getNodesExplored(),
+                    bounded.getSolveMillis());
+            check(exact, bounded.isFeasible(), bounded.getCost(), "branch-and-bound", stops);
+
+            if (stops <= MAX_PERMUTATION_STOPS) {
+                long start = System.nanoTime();
+                long[] count = new long[1];
+                double best = permutations(legs, deadlines, new boolean[stops], 0, 0, 0.0, count);
+                print(stops, "permutations", best != Double.POSITIVE_INFINITY, best, count[0],
+                        BenchmarkSupport.millisSince(start));
+                check(exact, best != Double.POSITIVE_INFINITY, best, "permutations", stops);
+            }
+
+            // one stop over capacity: both solvers must report no route
+            RouteOptimizer overloaded = new RouteOptimizer(legs, loads, deadlines, totalLoad - 0.5);
+            if (overloaded.solve(RouteOptimizer.Mode.HELD_KARP).isFeasible()
+                    || overloaded.solve(RouteOptimizer.Mode.BRANCH_AND_BOUND).isFeasible()) {
+                throw new IllegalStateException("route found over capacity with " + stops + " stops");
+            }
+        }
+        System.out.println("All solvers agree on every instance");
+    }
+
+    private static void print(int stops, String solver, boolean feasible, double cost, long nodes, double millis) {
+        System.out.printf("%-6d %-17s %10s %14d %12.2f%n", stops, solver,
+                feasible ? String.format("%.4f", cost) : "none", nodes, millis);
+    }
+
+    private static void check(RouteOptimizer.Solution exact, boolean feasible, double cost, String solver, int stops) {
+        if (exact.isFeasible() != feasible || (feasible && Math.abs(exact.getCost() - cost) > 1e-9)) {
+            throw new IllegalStateException(solver + " disagrees with Held-Karp for " + stops + " stops");
+        }
+    }
+
+    // brute force: best arrival time over all orders that meet the deadlines
+    private static double permutations(double[][] legs, double[] deadlines, boolean[] used, int depth, int row,
+                                       double time, long[] count) {
+        count[0]++;
+        if (depth == used.length) return time;
+        double best = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < used.length; j++) {
+            if (used[j] || time + legs[row][j] > deadlines[j]) continue;
+            used[j] = true;
+            best = Math.min(best, permutations(legs, deadlines, used, depth + 1, j + 1, time + legs[row][j], count));
+            used[j] = false;
+        }
+        return best;
+    }
+}
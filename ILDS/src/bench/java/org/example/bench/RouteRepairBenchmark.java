@@ -0,0 +1,133 @@
+package org.example.bench;
+
+import org.example.ActiveRouteTracker;
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.Road;
+import org.example.RoutingEngine;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Re-routing active vehicles after single-road congestion changes: findAdaptiveRoute for every
+// vehicle against ActiveRouteTracker's incremental repair. Half the updates congest a road on some
+// vehicle's route, half ease a random road. Checks the repaired route costs against Dijkstra.
+// Usage: RouteRepairBenchmark [gridSide] [vehicles] [depots] [updates]
+public class RouteRepairBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int depotCount = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int updateCount = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 15, 8, 0);
+        Random random = new Random(11L);
+        String[] depots = new String[depotCount];
+        for (int i = 0; i < depotCount; i++) {
+            depots[i] = BenchmarkSupport.nodeId(random.nextInt(side), random.nextInt(side));
+        }
+        String[][] trips = new String[vehicleCount][];
+        for (int i = 0; i < vehicleCount; i++) {
+            trips[i] = new String[]{"V" + i, depots[random.nextInt(depotCount)],
+                    BenchmarkSupport.nodeId(random.nextInt(side), random.nextInt(side))};
+        }
+
+        NetworkSnapshot graph = network.freeze();
+        ActiveRouteTracker tracker = new ActiveRouteTracker(network, time);
+        long start = System.nanoTime();
+        for (String[] trip : trips) tracker.track(trip[0], trip[1], trip[2]);
+        double trackMillis = BenchmarkSupport.millisSince(start);
+
+        BenchmarkSupport.printHeader("Route repair (" + side * side + " nodes, " + vehicleCount + " vehicles from "
+                + tracker.getTreeCount() + " origins)");
+        System.out.printf("Initial routing: %.1f ms%n", trackMillis);
+
+        // baseline: every vehicle re-routed after each update
+        int baselineUpdates = Math.min(10, updateCount);
+        List<String> baselineRoads = new ArrayList<>();
+        start = System.nanoTime();
+        for (int u = 0; u < baselineUpdates; u++) {
+            baselineRoads.add(applyRandomUpdate(network, graph, tracker, trips, random, null));
+            for (String[] trip : trips) network.findAdaptiveRoute(trip[1], trip[2], time);
+        }
+        double baselineMillis = BenchmarkSupport.millisSince(start) / baselineUpdates;
+        tracker.onRoadsUpdated(baselineRoads);
+
+        long changedRoutes = 0;
+        long repairNodes = 0;
+        int checkFailures = 0;
+        start = System.nanoTime();
+        for (int u = 0; u < updateCount; u++) {
+            List<String> changed = new ArrayList<>();
+            applyRandomUpdate(network, graph, tracker, trips, random, changed);
+            changedRoutes += changed.size();
+            repairNodes += tracker.getLastRepairCount();
+        }
+        double repairMillis = BenchmarkSupport.millisSince(start) / updateCount;
+
+        // the repaired costs must match a fresh search for every vehicle
+        NetworkSnapshot current = network.freeze();
+        RoutingEngine engine = new RoutingEngine(current);
+        RoutingEngine.EdgeWeight cost = network.getCongestionPredictor().adaptiveWeight(current, time);
+        for (String[] trip : trips) {
+            double expected = pathCost(current, engine.findPath(trip[1], trip[2], cost), cost);
+            if (Math.abs(expected - tracker.getRouteCost(trip[0])) > 1e-9 * Math.max(1.0, expected)) checkFailures++;
+        }
+
+        System.out.printf("%-32s %12s%n", "per single-road update", "ms");
+        System.out.printf("%-32s %12.3f%n", "findAdaptiveRoute, all vehicles", baselineMillis);
+        System.out.printf("%-32s %12.3f%n", "incremental repair", repairMillis);
+        System.out.printf("Routes changed per update: %.2f; nodes re-queued per update: %.0f%n",
+                (double) changedRoutes / updateCount, (double) repairNodes / updateCount);
+        System.out.println("Route costs differing from Dijkstra: " + checkFailures + " of " + vehicleCount);
+    }
+
+    // congests a road on a random vehicle's route or eases a random road; with changed given, the
+    // update goes through the tracker and the re-routed vehicles are added to it. Returns the road id.
+    private static String applyRandomUpdate(LogisticsNetwork network, NetworkSnapshot graph,
+                                            ActiveRouteTracker tracker, String[][] trips, Random random,
+                                            List<String> changed) {
+        Road road;
+        double congestion;
+        List<String> route = tracker.getRoute(trips[random.nextInt(trips.length)][0]);
+        if (random.nextBoolean() && route.size() > 1) {
+            int leg = random.nextInt(route.size() - 1);
+            road = network.getRoad(graph.getRoadId(edgeBetween(graph, route.get(leg), route.get(leg + 1))));
+            congestion = road.getCurrentCongestion() * (1.5 + random.nextDouble() * 1.5);
+        } else {
+            road = network.getRoad(graph.getRoadId(random.nextInt(graph.getEdgeCount())));
+            congestion = 1.0 + random.nextDouble() * 0.5;
+        }
+        if (changed != null) {
+            changed.addAll(tracker.updateRoad(road.getId(), road.getDistance(), congestion, road.getAverageSpeed()));
+        } else {
+            network.updateRoad(road.getId(), road.getDistance(), congestion, road.getAverageSpeed());
+        }
+        return road.getId();
+    }
+
+    private static int edgeBetween(NetworkSnapshot graph, String fromId, String toId) {
+        int from = graph.indexOf(fromId);
+        int to = graph.indexOf(toId);
+        for (int edge = graph.firstEdge(from), last = graph.endEdge(from); edge < last; edge++) {
+            if (graph.getTarget(edge) == to) return edge;
+        }
+        throw new IllegalStateException("No road from " + fromId + " to " + toId);
+    }
+
+    private static double pathCost(NetworkSnapshot graph, List<String> path, RoutingEngine.EdgeWeight cost) {
+        double total = 0.0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int from = graph.indexOf(path.get(i));
+            int to = graph.indexOf(path.get(i + 1));
+            double best = Double.MAX_VALUE;
+            for (int edge = graph.firstEdge(from), last = graph.endEdge(from); edge < last; edge++) {
+                if (graph.getTarget(edge) == to) best = Math.min(best, cost.weight(edge));
+            }
+            total += best;
+        }
+        return total;
+    }
+}
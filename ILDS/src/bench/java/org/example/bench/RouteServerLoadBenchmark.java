@@ -0,0 +1,162 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.RouteServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load generator for RouteServer: starts a server over a grid network, then runs closed-loop
+// clients on virtual threads, each sending its next request as soon as the previous answer
+// arrives. The mix is 70% /path, 20% /adaptive, 8% /matrix (10 x 10) and 2% /schedule
+// (20 vehicles, 50 deliveries). Reports p50/p99 latency per endpoint and overall requests per
+// second, after a warm-up that is not measured.
+// Usage: RouteServerLoadBenchmark [gridSide] [clients] [seconds]
+public class RouteServerLoadBenchmark {
+    private static final String[] ENDPOINTS = {"path", "adaptive", "matrix", "schedule"};
+
+    public static void main(String[] args) throws Exception {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int warmupSeconds = 3;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        RouteServer server = new RouteServer(network, 0);
+        server.start();
+        String base = "http://localhost:" + server.getPort();
+        BenchmarkSupport.printHeader("Route server load (" + side * side + " nodes, " + clients
+                + " clients, " + seconds + " s)");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+        long measureUntil = measureFrom + seconds * 1_000_000_000L;
+        List<List<long[]>> samples = new ArrayList<>(); // per client: {endpoint, nanos}
+        AtomicLong errors = new AtomicLong();
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                List<long[]> mine = new ArrayList<>();
+                samples.add(mine);
+                long seed = c;
+                pool.submit(() -> {
+                    Random random = new Random(seed);
+                    while (System.nanoTime() < measureUntil) {
+                        int endpoint = pickEndpoint(random);
+                        HttpRequest request = request(base, endpoint, side, random);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        long end = System.nanoTime();
+                        if (start >= measureFrom && end <= measureUntil) mine.add(new long[]{endpoint, end - start});
+                    }
+                    return null;
+                });
+            }
+        }
+        server.stop(0);
+
+        System.out.printf("%-12s %10s %12s %12s %12s%n", "Endpoint", "requests", "p50 ms", "p99 ms", "req/s");
+        long[][] byEndpoint = new long[ENDPOINTS.length][];
+        List<Long> all = new ArrayList<>();
+        for (int e = 0; e < ENDPOINTS.length; e++) {
+            List<Long> latencies = new ArrayList<>();
+            for (List<long[]> mine : samples) {
+                for (long[] sample : mine) if (sample[0] == e) latencies.add(sample[1]);
+            }
+            all.addAll(latencies);
+            byEndpoint[e] = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            printRow(ENDPOINTS[e], byEndpoint[e], seconds);
+        }
+        printRow("all", all.stream().mapToLong(Long::longValue).sorted().toArray(), seconds);
+        if (errors.get() > 0) System.out.println("Failed requests: " + errors.get());
+    }
+
+    private static void printRow(String name, long[] sorted, int seconds) {
+        System.out.printf("%-12s %10d %12.2f %12.2f %12.0f%n", name, sorted.length,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted.length / (double) seconds);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return Double.NaN;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    private static int pickEndpoint(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 70) return 0;
+        if (roll < 90) return 1;
+        if (roll < 98) return 2;
+        return 3;
+    }
+
+    private static HttpRequest request(String base, int endpoint, int side, Random random) {
+        switch (endpoint) {
+            case 0:
+                return get(base + "/path?from=" + node(side, random) + "&to=" + node(side, random)
+                        + "&mode=BIDIRECTIONAL");
+            case 1:
+                return get(base + "/adaptive?from=" + node(side, random) + "&to=" + node(side, random)
+                        + "&time=2024-01-01T" + String.format("%02d", random.nextInt(24)) + ":00");
+            case 2:
+                return post(base + "/matrix", "{\"sources\":" + nodes(side, 10, random)
+                        + ",\"targets\":" + nodes(side, 10, random) + ",\"metric\":\"time\"}");
+            default:
+                StringBuilder body = new StringBuilder("{\"vehicles\":[");
+                for (int i = 0; i < 20; i++) {
+                    if (i > 0) body.append(',');
+                    body.append("{\"id\":\"V").append(i).append("\",\"capacity\":30,\"location\":\"")
+                            .append(node(side, random)).append("\"}");
+                }
+                body.append("],\"deliveries\":[");
+                String deadline = LocalDateTime.now().plusHours(6).withNano(0).toString();
+                for (int i = 0; i < 50; i++) {
+                    if (i > 0) body.append(',');
+                    body.append("{\"id\":\"D").append(i).append("\",\"destination\":\"").append(node(side, random))
+                            .append("\",\"load\":").append(1 + random.nextInt(5))
+                            .append(",\"deadline\":\"").append(deadline).append("\"}");
+                }
+                body.append("]}");
+                return post(base + "/schedule", body.toString());
+        }
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String node(int side, Random random) {
+        return BenchmarkSupport.nodeId(random.nextInt(side), random.nextInt(side));
+    }
+
+    private static String nodes(int side, int count, Random random) {
+        StringJoiner list = new StringJoiner("\",\"", "[\"", "\"]");
+        for (int i = 0; i < count; i++) list.add(node(side, random));
+        return list.toString();
+    }
+}
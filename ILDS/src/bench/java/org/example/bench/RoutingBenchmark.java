@@ -0,0 +1,66 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+
+import java.util.*;
+
+// Compares the heap-based RoutingEngine behind LogisticsNetwork.findPath with the original
+// O(V^2) linear-scan Dijkstra on a synthetic grid.
+// Usage: RoutingBenchmark [gridSide] [queries]
+public class RoutingBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        List<String> locationIds = new ArrayList<>();
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                locationIds.add(BenchmarkSupport.nodeId(row, col));
+            }
+        }
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+
+        BenchmarkSupport.printHeader("Dijkstra: heap engine vs linear scan (" + side * side + " locations)");
+
+        // correctness: both implementations must agree on path cost (ties may pick different paths)
+        int identicalPaths = 0;
+        for (String[] query : queries) {
+            for (boolean useDistance : new boolean[]{true, false}) {
+                List<String> legacy = LegacyRouting.findPath(network, locationIds, query[0], query[1], useDistance);
+                List<String> engine = network.findPath(query[0], query[1], useDistance);
+                double legacyCost = LegacyRouting.pathCost(network, legacy, useDistance);
+                double engineCost = LegacyRouting.pathCost(network, engine, useDistance);
+                if (Math.abs(legacyCost - engineCost) > 1e-9) {
+                    throw new IllegalStateException("Cost mismatch for " + Arrays.toString(query)
+                            + ": " + legacyCost + " vs " + engineCost);
+                }
+                if (legacy.equals(engine)) identicalPaths++;
+            }
+        }
+        System.out.println("Identical paths: " + identicalPaths + " / " + queries.length * 2);
+
+        // warm-up
+        for (String[] query : queries) {
+            network.findPath(query[0], query[1], false);
+        }
+
+        long start = System.nanoTime();
+        for (String[] query : queries) {
+            LegacyRouting.findPath(network, locationIds, query[0], query[1], false);
+        }
+        double legacyMillis = BenchmarkSupport.millisSince(start);
+
+        start = System.nanoTime();
+        for (String[] query : queries) {
+            network.findPath(query[0], query[1], false);
+        }
+        double engineMillis = BenchmarkSupport.millisSince(start);
+
+        System.out.printf("%-20s %12s%n", "Implementation", "ms/query");
+        System.out.printf("%-20s %12.3f%n", "Linear scan", legacyMillis / queries.length);
+        System.out.printf("%-20s %12.3f%n", "Heap engine", engineMillis / queries.length);
+        System.out.printf("Speedup: %.1fx%n", legacyMillis / engineMillis);
+    }
+}
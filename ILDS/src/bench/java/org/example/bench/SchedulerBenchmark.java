@@ -0,0 +1,55 @@
+package org.example.bench;
+
+import org.example.Delivery;
+import org.example.DeliveryScheduler;
+import org.example.LogisticsNetwork;
+import org.example.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// scheduleDeliveries with the full fleet scan against nearest-candidate selection: wall time and
+// the average travel time from each vehicle's location to the deliveries it was given.
+// Usage: SchedulerBenchmark [gridSide] [vehicles] [deliveries]
+public class SchedulerBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int deliveryCount = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        LocalDateTime departure = LocalDateTime.now();
+
+        BenchmarkSupport.printHeader("Vehicle selection (" + side * side + " nodes, " + vehicleCount
+                + " vehicles, " + deliveryCount + " deliveries)");
+        System.out.printf("%-20s %10s %12s %18s%n", "Selection", "ms", "assigned", "avg travel h");
+        for (int candidates : new int[]{0, 16, 4}) {
+            List<Vehicle> vehicles = BenchmarkSupport.randomVehicles(network, side, vehicleCount,
+                    1.2 * 3.0 * deliveryCount / vehicleCount, 1L);
+            List<Delivery> deliveries = BenchmarkSupport.randomDeliveries(side, deliveryCount, departure, 2L);
+            DeliveryScheduler scheduler = new DeliveryScheduler(network);
+            scheduler.setCandidateCount(candidates);
+            vehicles.forEach(scheduler::addVehicle);
+            deliveries.forEach(scheduler::addDelivery);
+
+            long start = System.nanoTime();
+            Map<String, List<Delivery>> schedule = scheduler.scheduleDeliveries();
+            double millis = BenchmarkSupport.millisSince(start);
+
+            int assigned = 0;
+            double travel = 0.0;
+            for (Vehicle vehicle : vehicles) {
+                List<String> targets = new ArrayList<>();
+                for (Delivery delivery : schedule.get(vehicle.getId())) targets.add(delivery.getDestinationId());
+                if (targets.isEmpty()) continue;
+                double[] row = network.computeDistanceMatrix(
+                        Collections.singletonList(vehicle.getCurrentLocation().getId()), targets, false).getCosts()[0];
+                for (double cost : row) travel += cost;
+                assigned += targets.size();
+            }
+            System.out.printf("%-20s %10.0f %12d %18.3f%n",
+                    candidates == 0 ? "full scan" : candidates + " nearest", millis, assigned, travel / assigned);
+        }
+    }
+}
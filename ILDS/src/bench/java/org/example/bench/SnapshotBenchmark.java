@@ -0,0 +1,52 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.RoutingEngine;
+
+// Reports the memory footprint of the Map/Set/Road adjacency list against the CSR snapshot
+// produced by freeze(), and the cost of compiling the snapshot.
+// Usage: SnapshotBenchmark [gridSide] [queries]
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        long before = usedMemory();
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        long adjacencyBytes = usedMemory() - before;
+
+        long start = System.nanoTime();
+        NetworkSnapshot snapshot = network.freeze();
+        double freezeMillis = BenchmarkSupport.millisSince(start);
+
+        BenchmarkSupport.printHeader("CSR snapshot (" + snapshot.getNodeCount() + " nodes, "
+                + snapshot.getEdgeCount() + " edges)");
+        System.out.printf("Adjacency list heap (measured):  %,d bytes (%.1f bytes/edge)%n",
+                adjacencyBytes, (double) adjacencyBytes / snapshot.getEdgeCount());
+        System.out.printf("CSR snapshot (estimated):        %,d bytes (%.1f bytes/edge)%n",
+                snapshot.estimateBytes(), (double) snapshot.estimateBytes() / snapshot.getEdgeCount());
+        System.out.printf("freeze(): %.2f ms%n", freezeMillis);
+
+        // queries run directly against the frozen snapshot
+        RoutingEngine engine = new RoutingEngine(snapshot);
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+        for (String[] query : queries) {
+            engine.findPath(query[0], query[1], false);
+        }
+        start = System.nanoTime();
+        for (String[] query : queries) {
+            engine.findPath(query[0], query[1], false);
+        }
+        System.out.printf("Dijkstra on snapshot: %.3f ms/query%n", BenchmarkSupport.millisSince(start) / queryCount);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.TimeDependentRouter;
+import org.example.TrafficData;
+import org.example.TravelTimeProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+// Compares routes costed at the departure hour (findAdaptiveRoute) with time-dependent routes that
+// cost each road at the hour it is reached. The traffic history gives the western half of the grid
+// a morning and evening rush, so trips leaving shortly before one run into it on their later legs.
+// Also checks that the profiles are FIFO and that A* finds the same arrivals as Dijkstra.
+// Usage: TimeDependentRoutingBenchmark [gridSide] [queries]
+public class TimeDependentRoutingBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        NetworkSnapshot graph = network.freeze();
+        recordRushHours(network.getCongestionPredictor().getTrafficData(), graph, side);
+
+        long start = System.nanoTime();
+        TimeDependentRouter router = network.getTimeDependentRouter();
+        double buildMillis = BenchmarkSupport.millisSince(start);
+        TravelTimeProfiles profiles = router.getProfiles();
+
+        BenchmarkSupport.printHeader("Time-dependent routing (" + graph.getNodeCount() + " nodes, "
+                + graph.getEdgeCount() + " edges)");
+        System.out.printf("Profiles: built in %.1f ms, %,d bytes (%.0f bytes/edge)%n", buildMillis,
+                profiles.estimateBytes(), (double) profiles.estimateBytes() / graph.getEdgeCount());
+        System.out.println("FIFO violations: " + fifoViolations(profiles, graph.getEdgeCount()));
+
+        String[][] queries = BenchmarkSupport.randomQueries(side, queryCount, 7L);
+        LocalDateTime departure = LocalDateTime.of(2024, 1, 1, 6, 45);
+
+        // warm-up
+        for (String[] query : queries) {
+            router.findRoute(query[0], query[1], departure, false);
+            router.findRoute(query[0], query[1], departure, true);
+            network.findAdaptiveRoute(query[0], query[1], departure);
+        }
+
+        long dijkstraNanos = 0;
+        long aStarNanos = 0;
+        long dijkstraSettled = 0;
+        long aStarSettled = 0;
+        int mismatches = 0;
+        int improved = 0;
+        double staticHours = 0.0;
+        double dependentHours = 0.0;
+        for (String[] query : queries) {
+            start = System.nanoTime();
+            TimeDependentRouter.Route dijkstra = router.findRoute(query[0], query[1], departure, false);
+            dijkstraNanos += System.nanoTime() - start;
+            dijkstraSettled += router.getLastSettledCount();
+
+            start = System.nanoTime();
+            TimeDependentRouter.Route aStar = router.findRoute(query[0], query[1], departure, true);
+            aStarNanos += System.nanoTime() - start;
+            aStarSettled += router.getLastSettledCount();
+
+            if (Math.abs(dijkstra.getTravelHours() - aStar.getTravelHours()) > 1e-9) mismatches++;
+
+            // the departure-hour route, timed as it would actually be driven
+            List<String> adaptive = network.findAdaptiveRoute(query[0], query[1], departure);
+            double adaptiveHours = Duration.between(departure, router.arrivalAlong(adaptive, departure)).toNanos()
+                    / 3_600_000_000_000.0;
+            staticHours += adaptiveHours;
+            dependentHours += aStar.getTravelHours();
+            if (aStar.getTravelHours() < adaptiveHours - 1e-9) improved++;
+        }
+
+        System.out.printf("%-24s %12s %14s%n", "search", "avg ms", "avg settled");
+        System.out.printf("%-24s %12.3f %,14d%n", "TD Dijkstra", dijkstraNanos / 1e6 / queryCount,
+                dijkstraSettled / queryCount);
+        System.out.printf("%-24s %12.3f %,14d%n", "TD A*", aStarNanos / 1e6 / queryCount,
+                aStarSettled / queryCount);
+        System.out.println("A*/Dijkstra arrival mismatches: " + mismatches);
+        System.out.printf("Departing %s: departure-hour routes take %.1f min on average when driven, "
+                        + "time-dependent routes %.1f min (%d of %d faster)%n",
+                departure.toLocalTime(), staticHours * 60 / queryCount, dependentHours * 60 / queryCount,
+                improved, queryCount);
+
+        // profile queries: best departure between 05:00 and 10:00 in 15 minute steps
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 5, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 1, 10, 0);
+        int profileQueries = Math.min(5, queryCount);
+        start = System.nanoTime();
+        for (int i = 0; i < profileQueries; i++) {
+            TimeDependentRouter.Route best = network.findBestDeparture(queries[i][0], queries[i][1], from, to,
+                    Duration.ofMinutes(15));
+            TimeDependentRouter.Route worst = router.findRoute(queries[i][0], queries[i][1],
+                    LocalDateTime.of(2024, 1, 1, 8, 0), true);
+            System.out.printf("  %s -> %s: leave %s for %.1f min (08:00 takes %.1f min)%n", queries[i][0],
+                    queries[i][1], best.getDeparture().toLocalTime(), best.getTravelHours() * 60,
+                    worst.getTravelHours() * 60);
+        }
+        System.out.printf("Best-departure query (21 departures): %.1f ms avg%n",
+                BenchmarkSupport.millisSince(start) / profileQueries);
+    }
+
+    // free-flowing history everywhere, with congestion 4.0 from 07:00-09:59 and 16:00-18:59 on
+    // roads that start in the western half of the grid
+    private static void recordRushHours(TrafficData trafficData, NetworkSnapshot graph, int side) {
+        LocalDateTime day = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Random random = new Random(3L);
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            String source = graph.getNodeId(graph.getSource(edge));
+            int column = Integer.parseInt(source.substring(source.indexOf('_') + 1));
+            boolean west = column < side / 2;
+            for (int hour = 0; hour < 24; hour++) {
+                boolean rush = (hour >= 7 && hour <= 9) || (hour >= 16 && hour <= 18);
+                double congestion = west && rush ? 4.0 : 1.0 + random.nextDouble() * 0.2;
+                trafficData.recordCongestion(graph.getRoadId(edge), day.plusHours(hour), congestion);
+            }
+        }
+    }
+
+    // departures a minute apart over the whole day on every edge; arriving earlier by leaving
+    // later counts as a violation
+    private static int fifoViolations(TravelTimeProfiles profiles, int edges) {
+        int violations = 0;
+        for (int edge = 0; edge < edges; edge++) {
+            double previousArrival = Double.NEGATIVE_INFINITY;
+            for (int minute = 0; minute < 24 * 60; minute++) {
+                double time = minute / 60.0;
+                double arrival = time + profiles.travelTime(edge, time);
+                if (arrival < previousArrival - 1e-12) violations++;
+                previousArrival = arrival;
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.bench;
+
+import org.example.TrafficData;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Records the same readings into the original list-per-hour TrafficData and the running-statistics
+// one, then reports the heap each holds and the cost of getPredictedCongestion, the call adaptive
+// routing makes for every road it relaxes.
+// Usage: TrafficStatsBenchmark [roads] [readingsPerRoad] [lookups]
+public class TrafficStatsBenchmark {
+
+    public static void main(String[] args) {
+        int roads = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int perRoad = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        String[] roadIds = new String[roads];
+        for (int i = 0; i < roads; i++) roadIds[i] = "R" + i;
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        BenchmarkSupport.printHeader("TrafficData: " + roads + " roads x " + perRoad + " readings");
+
+        long before = usedMemory();
+        long ingestStart = System.nanoTime();
+        LegacyTrafficData legacy = new LegacyTrafficData();
+        Random random = new Random(42L);
+        for (int r = 0; r < perRoad; r++) {
+            LocalDateTime timestamp = start.plusMinutes(17L * r);
+            for (String roadId : roadIds) legacy.recordCongestion(roadId, timestamp, 1.0 + random.nextDouble());
+        }
+        double legacyIngestMillis = BenchmarkSupport.millisSince(ingestStart);
+        long legacyBytes = usedMemory() - before;
+        double legacyNanos = timeLookups(roadIds, lookups, legacy::getPredictedCongestion);
+        legacy = null;
+
+        before = usedMemory();
+        ingestStart = System.nanoTime();
+        TrafficData statistics = new TrafficData();
+        random = new Random(42L);
+        for (int r = 0; r < perRoad; r++) {
+            LocalDateTime timestamp = start.plusMinutes(17L * r);
+            for (String roadId : roadIds) statistics.recordCongestion(roadId, timestamp, 1.0 + random.nextDouble());
+        }
+        double statsIngestMillis = BenchmarkSupport.millisSince(ingestStart);
+        long statsBytes = usedMemory() - before;
+        double statsNanos = timeLookups(roadIds, lookups, statistics::getPredictedCongestion);
+
+        long readings = (long) roads * perRoad;
+        System.out.printf("%-22s %14s %12s %14s %14s%n", "implementation", "heap bytes", "bytes/road",
+                "ingest ms", "predict ns");
+        System.out.printf("%-22s %,14d %,12d %,14.1f %,14.1f%n", "lists (original)", legacyBytes,
+                legacyBytes / roads, legacyIngestMillis, legacyNanos);
+        System.out.printf("%-22s %,14d %,12d %,14.1f %,14.1f%n", "running statistics", statsBytes,
+                statsBytes / roads, statsIngestMillis, statsNanos);
+        System.out.printf("Readings: %,d; running-statistics records (estimated): %,d bytes%n",
+                readings, statistics.estimateBytes());
+        System.out.printf("Sample R0 08:00: mean %.4f, sd %.4f, ewma %.4f%n",
+                statistics.getStatistics("R0", 8).getMean(), statistics.getStatistics("R0", 8).getStandardDeviation(),
+                statistics.getStatistics("R0", 8).getEwma());
+    }
+
+    private interface Predictor {
+        double predict(String roadId, int hour);
+    }
+
+    private static double timeLookups(String[] roadIds, int lookups, Predictor predictor) {
+        double sink = 0.0;
+        int warmup = Math.min(lookups, 200_000);
+        for (int i = 0; i < warmup; i++) sink += predictor.predict(roadIds[i % roadIds.length], i % 24);
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) sink += predictor.predict(roadIds[i % roadIds.length], i % 24);
+        double nanos = (System.nanoTime() - start) / (double) lookups;
+        if (sink == 42.0) System.out.println(sink);
+        return nanos;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.bench;
+
+import org.example.LogisticsNetwork;
+import org.example.Road;
+import org.example.VersionedNetwork;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Routing throughput while a traffic feed streams updateRoad calls.
+// "versioned" readers query VersionedNetwork without locks while the feed's updates are batched
+// into new versions; "global lock" shares one LogisticsNetwork between readers and the feed
+// behind a single lock, the minimum needed since the network has no concurrency control of its own.
+// Each setup runs once without updates and once with the feed at the target rate.
+// Usage: VersionedNetworkBenchmark [gridSide] [readers] [updatesPerSecond] [seconds]
+public class VersionedNetworkBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+        int updatesPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        BenchmarkSupport.printHeader("Versioned network (" + side * side + " nodes, " + readers + " readers, "
+                + updatesPerSecond + " updates/s target, " + seconds + " s per run)");
+        System.out.printf("%-14s %12s %12s %14s %12s %10s%n",
+                "Setup", "feed", "queries/s", "p99 query ms", "updates/s", "versions");
+        String[][] queries = BenchmarkSupport.randomQueries(side, 2000, 7L);
+        for (boolean versioned : new boolean[]{true, false}) {
+            for (int rate : new int[]{0, updatesPerSecond}) {
+                run(side, readers, rate, seconds, queries, versioned);
+            }
+        }
+    }
+
+    private static void run(int side, int readers, int rate, int seconds, String[][] queries, boolean versioned)
+            throws InterruptedException {
+        LogisticsNetwork network = BenchmarkSupport.buildGridNetwork(side, 42L);
+        VersionedNetwork versions = versioned ? new VersionedNetwork(network) : null;
+        Object lock = new Object();
+        List<String> roadIds = new ArrayList<>();
+        for (int i = 0; i < 2 * side * (side - 1); i++) roadIds.add("R" + i);
+        network.findPath(queries[0][0], queries[0][1], false); // builds the routing graph up front
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong updates = new AtomicLong();
+        Thread feed = Thread.ofPlatform().start(() -> {
+            if (rate == 0) return;
+            Random random = new Random(3L);
+            long start = System.nanoTime();
+            long lastPublish = start;
+            while (running.get()) {
+                // keep to the target rate, publishing at least every 20 ms
+                long due = (System.nanoTime() - start) * rate / 1_000_000_000L;
+                while (updates.get() < due && running.get()) {
+                    Road road = network.getRoad(roadIds.get(random.nextInt(roadIds.size())));
+                    double congestion = 1.0 + 2.0 * random.nextDouble();
+                    double speed = 30.0 + 50.0 * random.nextDouble();
+                    if (versioned) {
+                        versions.updateRoad(road.getId(), road.getDistance(), congestion, speed);
+                    } else {
+                        synchronized (lock) {
+                            network.updateRoad(road.getId(), road.getDistance(), congestion, speed);
+                        }
+                    }
+                    updates.incrementAndGet();
+                }
+                if (versioned && System.nanoTime() - lastPublish > 20_000_000L) {
+                    versions.publish();
+                    lastPublish = System.nanoTime();
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        List<long[]> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int r = 0; r < readers; r++) {
+            int first = r;
+            threads.add(Thread.ofPlatform().start(() -> {
+                long[] mine = new long[1 << 16];
+                int count = 0;
+                for (int q = first; System.nanoTime() < end; q++) {
+                    String[] query = queries[q % queries.length];
+                    long start = System.nanoTime();
+                    if (versioned) {
+                        versions.findPath(query[0], query[1], false);
+                    } else {
+                        synchronized (lock) {
+                            network.findPath(query[0], query[1], false);
+                        }
+                    }
+                    if (count == mine.length) mine = Arrays.copyOf(mine, 2 * count);
+                    mine[count++] = System.nanoTime() - start;
+                }
+                latencies.add(Arrays.copyOf(mine, count));
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        running.set(false);
+        feed.join();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double p99 = all.length == 0 ? Double.NaN : all[Math.max(0, (int) Math.ceil(0.99 * all.length) - 1)] / 1e6;
+        System.out.printf("%-14s %12s %12.0f %14.2f %12.0f %10s%n",
+                versioned ? "versioned" : "global lock", rate == 0 ? "off" : "on",
+                all.length / (double) seconds, p99, updates.get() / (double) seconds,
+                versioned ? String.valueOf(versions.current().getNumber()) : "-");
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.bench;
+
+import org.example.AssignmentSolver;
+import org.example.Delivery;
+import org.example.DeliveryScheduler;
+import org.example.Location;
+import org.example.LogisticsNetwork;
+import org.example.NetworkSnapshot;
+import org.example.Road;
+import org.example.Vehicle;
+import org.example.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Write-ahead log: mutations per second with no log and with each durability (single-threaded
+// road updates, then SYNC with concurrent threads adding deliveries, where group commit shares
+// fsyncs), and recovery time from the whole log and from a checkpoint plus a short tail. After
+// each recovery, and after a torn record is appended to the log, the recovered network, schedules
+// and queue are compared with the originals.
+// Usage: WriteAheadLogBenchmark [gridSide] [updates] [syncUpdates] [threads]
+public class WriteAheadLogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int syncUpdates = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        LogisticsNetwork grid = BenchmarkSupport.buildGridNetwork(side, 42L);
+        NetworkSnapshot snapshot = grid.freeze();
+        List<String> roadIds = new ArrayList<>();
+        for (int edge = 0; edge < snapshot.getEdgeCount(); edge++) roadIds.add(snapshot.getRoadId(edge));
+
+        BenchmarkSupport.printHeader(String.format("Write-ahead log (%,d locations, %,d roads)",
+                snapshot.getNodeCount(), snapshot.getEdgeCount()));
+        System.out.printf("%-36s %10s %14s %14s %12s%n", "", "mutations", "mutations/s", "records/fsync", "log MB");
+
+        long start = System.nanoTime();
+        applyUpdates(grid, roadIds, updates, 1L);
+        print("updateRoad, no log", updates, BenchmarkSupport.millisSince(start), 0, 0);
+
+        Path directory = Files.createTempDirectory("wal");
+        try {
+            for (WriteAheadLog.Durability durability : new WriteAheadLog.Durability[]{
+                    WriteAheadLog.Durability.NONE, WriteAheadLog.Durability.BATCHED, WriteAheadLog.Durability.SYNC}) {
+                Path run = Files.createDirectory(directory.resolve(durability.name()));
+                try (WriteAheadLog log = WriteAheadLog.open(run, durability, Duration.ofMillis(10))) {
+                    copyNetwork(grid, snapshot, log.getNetwork());
+                    log.sync();
+                    long before = log.getLastSequence();
+                    long syncs = log.getSyncCount();
+                    int count = durability == WriteAheadLog.Durability.SYNC ? syncUpdates : updates;
+                    start = System.nanoTime();
+                    applyUpdates(log.getNetwork(), roadIds, count, 1L);
+                    log.sync();
+                    print("updateRoad, " + durability, count, BenchmarkSupport.millisSince(start),
+                            log.getLastSequence() - before, log.getSyncCount() - syncs, logBytes(run));
+                }
+            }
+
+            // SYNC with concurrent mutators: each waits for its own record, but they share fsyncs
+            Path concurrent = Files.createDirectory(directory.resolve("SYNC-concurrent"));
+            try (WriteAheadLog log = WriteAheadLog.open(concurrent, WriteAheadLog.Durability.SYNC, Duration.ZERO)) {
+                DeliveryScheduler scheduler = log.getScheduler();
+                List<Delivery> deliveries = BenchmarkSupport.randomDeliveries(side, syncUpdates * 4,
+                        LocalDateTime.of(2025, 1, 6, 8, 0), 3L);
+                long syncs = log.getSyncCount();
+                start = System.nanoTime();
+                List<Future<?>> running = new ArrayList<>();
+                try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+                    for (int t = 0; t < threads; t++) {
+                        int first = t;
+                        running.add(pool.submit(() -> {
+                            for (int i = first; i < deliveries.size(); i += threads) scheduler.addDelivery(deliveries.get(i));
+                        }));
+                    }
+                }
+                for (Future<?> worker : running) worker.get();
+                print("addDelivery, SYNC, " + threads + " threads", deliveries.size(),
+                        BenchmarkSupport.millisSince(start), deliveries.size(), log.getSyncCount() - syncs,
+                        logBytes(concurrent));
+            }
+
+            recovery(side, grid, snapshot, roadIds, updates, directory.resolve("recovery"));
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // builds a network and schedule through the log, then reopens it: from the whole log, after a
+    // torn write at its end, and from a checkpoint plus the records after it
+    private static void recovery(int side, LogisticsNetwork grid, NetworkSnapshot snapshot, List<String> roadIds,
+                                 int updates, Path directory) throws IOException {
+        Files.createDirectory(directory);
+        LogisticsNetwork expected;
+        DeliveryScheduler expectedScheduler;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, WriteAheadLog.Durability.BATCHED, Duration.ofMillis(10))) {
+            expected = log.getNetwork();
+            expectedScheduler = log.getScheduler();
+            copyNetwork(grid, snapshot, expected);
+            applyUpdates(expected, roadIds, updates, 2L);
+            schedule(side, expected, expectedScheduler);
+        }
+        BenchmarkSupport.printHeader("Recovery");
+        System.out.printf("%-36s %10s %12s %12s %12s%n", "", "records", "log MB", "ms", "mismatches");
+        recover("whole log", directory, expected, expectedScheduler);
+
+        // a crash in the middle of a write leaves a partial record behind
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".log")).max(Comparator.naturalOrder())
+                    .orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 0, 0, 0}));
+        }
+        recover("whole log, torn record at the end", directory, expected, expectedScheduler);
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, WriteAheadLog.Durability.BATCHED, Duration.ofMillis(10))) {
+            long start = System.nanoTime();
+            log.checkpoint();
+            System.out.printf("Checkpoint written in %.0f ms%n", BenchmarkSupport.millisSince(start));
+            // a short tail after the snapshot, repeated on the expected state
+            applyUpdates(log.getNetwork(), roadIds, updates / 100, 3L);
+            applyUpdates(expected, roadIds, updates / 100, 3L);
+        }
+        recover("checkpoint + tail", directory, expected, expectedScheduler);
+    }
+
+    private static void recover(String label, Path directory, LogisticsNetwork expected,
+                                DeliveryScheduler expectedScheduler) throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, WriteAheadLog.Durability.BATCHED, Duration.ofMillis(10))) {
+            int mismatches = compare(expected, log.getNetwork()) + compare(expectedScheduler, log.getScheduler());
+            System.out.printf("%-36s %,10d %12.1f %12.0f %12d%n", label, log.getRecoveredRecords(),
+                    logBytes(directory) / 1e6, log.getRecoveryMillis(), mismatches);
+        }
+    }
+
+    private static void print(String label, long mutations, double millis, long records, long syncs, long bytes) {
+        System.out.printf("%-36s %,10d %,14.0f %14s %12.1f%n", label, mutations, mutations / (millis / 1000.0),
+                syncs == 0 ? "-" : String.format("%.1f", (double) records / syncs), bytes / 1e6);
+    }
+
+    private static void print(String label, long mutations, double millis, long records, long syncs) {
+        print(label, mutations, millis, records, syncs, 0);
+    }
+
+    // copies locations and forward roads; addRoad creates the reverse twins
+    private static void copyNetwork(LogisticsNetwork from, NetworkSnapshot snapshot, LogisticsNetwork to) {
+        for (int node = 0; node < snapshot.getNodeCount(); node++) {
+            to.addLocation(from.getLocation(snapshot.getNodeId(node)));
+        }
+        for (int edge = 0; edge < snapshot.getEdgeCount(); edge++) {
+            String id = snapshot.getRoadId(edge);
+            if (id.endsWith("_reverse")) continue;
+            Road road = from.getRoad(id);
+            Road copy = new Road(id, to.getLocation(road.getSource().getId()),
+                    to.getLocation(road.getDestination().getId()), road.getDistance());
+            copy.setAverageSpeed(road.getAverageSpeed());
+            copy.setCurrentCongestion(road.getCurrentCongestion());
+            to.addRoad(copy);
+        }
+    }
+
+    // random congestion and speed changes, as a traffic feed would send them
+    private static void applyUpdates(LogisticsNetwork network, List<String> roadIds, int count, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            String id = roadIds.get(random.nextInt(roadIds.size()));
+            double congestion = 1.0 + random.nextDouble();
+            double speed = 30.0 + random.nextInt(6) * 10.0;
+            network.updateRoad(id, network.getRoad(id).getDistance(), congestion, speed);
+        }
+    }
+
+    // vehicles, moves, deliveries and one scheduling pass, so every scheduler record type is logged
+    private static void schedule(int side, LogisticsNetwork network, DeliveryScheduler scheduler) {
+        List<Vehicle> vehicles = BenchmarkSupport.randomVehicles(network, side, 50, 40.0, 4L);
+        for (Vehicle vehicle : vehicles) scheduler.addVehicle(vehicle);
+        Random random = new Random(5L);
+        for (int i = 0; i < 20; i++) {
+            scheduler.moveVehicle("V" + i, network.getLocation(BenchmarkSupport.nodeId(random.nextInt(side),
+                    random.nextInt(side))));
+        }
+        LocalDateTime departure = LocalDateTime.of(2025, 1, 6, 8, 0);
+        for (Delivery delivery : BenchmarkSupport.randomDeliveries(side, 400, departure, 6L)) {
+            scheduler.addDelivery(delivery);
+        }
+        scheduler.scheduleDeliveriesInBatches(64, AssignmentSolver.Method.HUNGARIAN);
+        // left in the queue for recovery to restore
+        for (Delivery delivery : BenchmarkSupport.randomDeliveries(side, 100, departure, 7L)) {
+            scheduler.addDelivery(new Delivery("P" + delivery.getId(), delivery.getDestinationId(), delivery.getLoad(),
+                    delivery.getDeadline(), delivery.getEstimatedTime(), delivery.getPriority()));
+        }
+    }
+
+    private static int compare(LogisticsNetwork expected, LogisticsNetwork actual) {
+        NetworkSnapshot left = expected.freeze();
+        NetworkSnapshot right = actual.freeze();
+        if (left.getNodeCount() != right.getNodeCount() || left.getEdgeCount() != right.getEdgeCount()) return 1;
+        int mismatches = 0;
+        for (int node = 0; node < left.getNodeCount(); node++) {
+            Location a = expected.getLocation(left.getNodeId(node));
+            Location b = actual.getLocation(a.getId());
+            if (!a.getName().equals(b.getName()) || a.isHub() != b.isHub() || a.getLatitude() != b.getLatitude()
+                    || a.getLongitude() != b.getLongitude()) {
+                mismatches++;
+            }
+        }
+        for (int edge = 0; edge < left.getEdgeCount(); edge++) {
+            Road a = expected.getRoad(left.getRoadId(edge));
+            Road b = actual.getRoad(a.getId());
+            if (!a.getSource().getId().equals(b.getSource().getId())
+                    || !a.getDestination().getId().equals(b.getDestination().getId())
+                    || a.getDistance() != b.getDistance() || a.getCurrentCongestion() != b.getCurrentCongestion()
+                    || a.getAverageSpeed() != b.getAverageSpeed()) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private static int compare(DeliveryScheduler expected, DeliveryScheduler actual) {
+        int mismatches = 0;
+        Map<String, List<Delivery>> left = expected.getScheduledDeliveries();
+        Map<String, List<Delivery>> right = actual.getScheduledDeliveries();
+        if (!left.keySet().equals(right.keySet())) return 1;
+        for (String vehicleId : left.keySet()) {
+            if (!ids(left.get(vehicleId)).equals(ids(right.get(vehicleId)))) mismatches++;
+        }
+        if (!new TreeSet<>(ids(expected.getPendingDeliveries())).equals(new TreeSet<>(ids(actual.getPendingDeliveries())))) {
+            mismatches++;
+        }
+        return mismatches;
+    }
+
+    private static List<String> ids(List<Delivery> deliveries) {
+        synchronized (deliveries) {
+            return deliveries.stream().map(Delivery::getId).collect(Collectors.toList());
+        }
+    }
+
+    private static long logBytes(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.example;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Keeps the adaptive routes (findAdaptiveRoute's congestion-adjusted cost at one hour) of active
+// vehicles current as roads change, repairing shortest-path trees instead of re-routing every
+// vehicle from scratch.
+// Vehicles leaving the same origin share one tree, maintained with Lifelong Planning A* (the
+// incremental search D* Lite builds on, here without a heuristic since a tree serves several
+// destinations): each node keeps its distance g and a one-step lookahead rhs, and a change to an
+// edge only re-queues the nodes whose lookahead it alters. A repair therefore touches the part of
+// the tree the change actually moves, and a tree the change does not reach costs one in-edge scan.
+// The search stops once every destination of the tree is settled, so trees cover only as much of
+// the network as their routes need. Each tree holds about 36 bytes per network node.
+// A topology change (new routing graph) or a different hour rebuilds every tree. Not thread-safe.
+public class ActiveRouteTracker {
+    private final LogisticsNetwork network;
+    private LocalDateTime time;
+    private NetworkSnapshot graph;
+    private RoutingEngine.EdgeWeight cost;
+
+    private final Map<String, Tree> treesByOrigin = new HashMap<>();
+    private final Map<String, TrackedRoute> routesByVehicle = new LinkedHashMap<>();
+    private long lastRepairCount; // nodes taken off the queues by the last repair
+
+    public ActiveRouteTracker(LogisticsNetwork network, LocalDateTime time) {
+        this.network = network;
+        this.time = time;
+    }
+
+    public int getTrackedCount() { return routesByVehicle.size(); }
+
+    public int getTreeCount() { return treesByOrigin.size(); }
+
+    public long getLastRepairCount() { return lastRepairCount; }
+
+    // starts tracking the vehicle's route from originId to destinationId and returns it;
+    // the route is empty when the destination cannot be reached
+    public List<String> track(String vehicleId, String originId, String destinationId) {
+        untrack(vehicleId);
+        if (graph != network.getRoutingEngine().getGraph()) rebuild();
+        int origin = graph.indexOf(originId);
+        int destination = graph.indexOf(destinationId);
+        if (origin < 0) throw new IllegalArgumentException("Location not found: " + originId);
+        if (destination < 0) throw new IllegalArgumentException("Location not found: " + destinationId);
+
+        Tree tree = treesByOrigin.computeIfAbsent(originId, id -> new Tree(origin));
+        TrackedRoute route = new TrackedRoute(vehicleId, tree, originId, destinationId, destination);
+        tree.routes.add(route);
+        routesByVehicle.put(vehicleId, route);
+        tree.computeShortestPaths();
+        route.edges = tree.pathTo(destination);
+        return getRoute(vehicleId);
+    }
+
+    public void untrack(String vehicleId) {
+        TrackedRoute route = routesByVehicle.remove(vehicleId);
+        if (route == null) return;
+        route.tree.routes.remove(route);
+        if (route.tree.routes.isEmpty()) treesByOrigin.remove(route.originId);
+    }
+
+    // current route of a tracked vehicle as location ids, empty when it has none
+    public List<String> getRoute(String vehicleId) {
+        TrackedRoute route = routesByVehicle.get(vehicleId);
+        if (route == null) throw new IllegalArgumentException("Vehicle not found: " + vehicleId);
+        List<String> path = new ArrayList<>();
+        if (route.edges == null) return path;
+        path.add(graph.getNodeId(route.tree.origin));
+        for (int edge : route.edges) path.add(graph.getNodeId(graph.getTarget(edge)));
+        return path;
+    }
+
+    // adaptive cost of the vehicle's current route, +infinity when it has none
+    public double getRouteCost(String vehicleId) {
+        TrackedRoute route = routesByVehicle.get(vehicleId);
+        if (route == null) throw new IllegalArgumentException("Vehicle not found: " + vehicleId);
+        return route.edges == null ? Double.POSITIVE_INFINITY : route.tree.g[route.destination];
+    }
+
+    // updates the road in the network and repairs the routes; returns the vehicles whose route changed
+    public List<String> updateRoad(String roadId, double newDistance, double newCongestion, double newSpeed) {
+        network.updateRoad(roadId, newDistance, newCongestion, newSpeed);
+        return onRoadsUpdated(Collections.singletonList(roadId));
+    }
+
+    // repairs the routes after the given roads changed in the network (updateRoad, or new traffic
+    // history for the tracked hour); returns the vehicles whose route changed
+    public List<String> onRoadsUpdated(Collection<String> roadIds) {
+        if (graph != network.getRoutingEngine().getGraph()) return rebuild();
+        lastRepairCount = 0;
+        List<Integer> edges = new ArrayList<>(roadIds.size());
+        for (String roadId : roadIds) {
+            int edge = graph.indexOfRoad(roadId);
+            if (edge >= 0) edges.add(edge);
+        }
+        List<String> changed = new ArrayList<>();
+        for (Tree tree : treesByOrigin.values()) {
+            for (int edge : edges) tree.updateNode(graph.getTarget(edge));
+            if (tree.heap.isEmpty()) continue;
+            long before = tree.processed;
+            tree.computeShortestPaths();
+            lastRepairCount += tree.processed - before;
+            if (tree.processed > before) tree.collectChanged(changed);
+        }
+        return changed;
+    }
+
+    // routes for another hour of day: every tree is rebuilt when the hour changes
+    public List<String> setTime(LocalDateTime time) {
+        boolean newHour = time.getHour() != this.time.getHour();
+        this.time = time;
+        return newHour && graph != null ? rebuild() : new ArrayList<>();
+    }
+
+    // reloads the network's routing graph and the hour's costs and re-tracks every vehicle;
+    // returns the vehicles whose route (as location ids) changed or no longer exists. A vehicle
+    // whose origin or destination left the network stops being tracked.
+    private List<String> rebuild() {
+        List<TrackedRoute> routes = new ArrayList<>(routesByVehicle.values());
+        Map<String, List<String>> previous = new HashMap<>();
+        for (TrackedRoute route : routes) previous.put(route.vehicleId, getRoute(route.vehicleId));
+
+        graph = network.getRoutingEngine().getGraph();
+        cost = network.getCongestionPredictor().adaptiveWeight(graph, time);
+        treesByOrigin.clear();
+        routesByVehicle.clear();
+        lastRepairCount = 0;
+        List<String> changed = new ArrayList<>();
+        for (TrackedRoute route : routes) {
+            if (graph.indexOf(route.originId) < 0 || graph.indexOf(route.destinationId) < 0) {
+                changed.add(route.vehicleId);
+                continue;
+            }
+            List<String> path = track(route.vehicleId, route.originId, route.destinationId);
+            if (!path.equals(previous.get(route.vehicleId))) changed.add(route.vehicleId);
+        }
+        for (Tree tree : treesByOrigin.values()) lastRepairCount += tree.processed;
+        return changed;
+    }
+
+    private final class TrackedRoute {
+        final String vehicleId;
+        final Tree tree;
+        final String originId;
+        final String destinationId;
+        final int destination;
+        int[] edges; // route as edge ids, null when the destination is unreachable
+
+        TrackedRoute(String vehicleId, Tree tree, String originId, String destinationId, int destination) {
+            this.vehicleId = vehicleId;
+            this.tree = tree;
+            this.originId = originId;
+            this.destinationId = destinationId;
+            this.destination = destination;
+        }
+    }
+
+    // LPA* state for one origin: g = current distance, rhs = min over incoming edges of
+    // g[source] + cost; nodes where they differ are queued by min(g, rhs)
+    private final class Tree {
+        final int origin;
+        final double[] g;
+        final double[] rhs;
+        final int[] rhsEdge; // incoming edge rhs was taken from, -1 for none
+        final IndexedMinHeap heap;
+        final List<TrackedRoute> routes = new ArrayList<>();
+        long processed;
+
+        Tree(int origin) {
+            int n = graph.getNodeCount();
+            this.origin = origin;
+            this.g = new double[n];
+            this.rhs = new double[n];
+            this.rhsEdge = new int[n];
+            this.heap = new IndexedMinHeap(n);
+            Arrays.fill(g, Double.POSITIVE_INFINITY);
+            Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+            Arrays.fill(rhsEdge, -1);
+            rhs[origin] = 0.0;
+            heap.insertOrDecrease(origin, 0.0);
+        }
+
+        // recomputes the node's lookahead from its incoming edges and (re)queues it if inconsistent
+        void updateNode(int node) {
+            if (node != origin) {
+                double best = Double.POSITIVE_INFINITY;
+                int bestEdge = -1;
+                for (int i = graph.firstInEdge(node), last = graph.endInEdge(node); i < last; i++) {
+                    int edge = graph.getInEdge(i);
+                    double candidate = g[graph.getSource(edge)] + cost.weight(edge);
+                    if (candidate < best) {
+                        best = candidate;
+                        bestEdge = edge;
+                    }
+                }
+                rhs[node] = best;
+                rhsEdge[node] = bestEdge;
+            }
+            queue(node);
+        }
+
+        private void queue(int node) {
+            if (g[node] != rhs[node]) {
+                heap.update(node, Math.min(g[node], rhs[node]));
+            } else {
+                heap.remove(node);
+            }
+        }
+
+        // runs until every destination is consistent and nothing queued can still improve one
+        void computeShortestPaths() {
+            double bound = destinationBound();
+            while (!heap.isEmpty()) {
+                if (heap.minKey() >= bound) {
+                    bound = destinationBound();
+                    if (heap.minKey() >= bound) break;
+                }
+                int node = heap.pollMin();
+                processed++;
+                if (g[node] > rhs[node]) {
+                    // overconsistent: the node's distance drops to its lookahead
+                    g[node] = rhs[node];
+                    for (int edge = graph.firstEdge(node), last = graph.endEdge(node); edge < last; edge++) {
+                        int target = graph.getTarget(edge);
+                        double candidate = g[node] + cost.weight(edge);
+                        if (candidate < rhs[target]) {
+                            rhs[target] = candidate;
+                            rhsEdge[target] = edge;
+                            queue(target);
+                        }
+                    }
+                } else {
+                    // underconsistent: the node's distance went up, so it and every successor
+                    // that took its lookahead from it are re-evaluated
+                    g[node] = Double.POSITIVE_INFINITY;
+                    updateNode(node);
+                    for (int edge = graph.firstEdge(node), last = graph.endEdge(node); edge < last; edge++) {
+                        int target = graph.getTarget(edge);
+                        if (rhsEdge[target] == edge) updateNode(target);
+                    }
+                }
+            }
+        }
+
+        // largest destination distance once all destinations are consistent, else +infinity
+        private double destinationBound() {
+            double bound = Double.NEGATIVE_INFINITY;
+            for (TrackedRoute route : routes) {
+                int destination = route.destination;
+                if (g[destination] != rhs[destination]) return Double.POSITIVE_INFINITY;
+                bound = Math.max(bound, g[destination]);
+            }
+            return bound;
+        }
+
+        int[] pathTo(int destination) {
+            if (g[destination] == Double.POSITIVE_INFINITY) return null;
+            int length = 0;
+            for (int node = destination; node != origin; node = graph.getSource(rhsEdge[node])) length++;
+            int[] edges = new int[length];
+            for (int node = destination; node != origin; node = graph.getSource(rhsEdge[node])) {
+                edges[--length] = rhsEdge[node];
+            }
+            return edges;
+        }
+
+        void collectChanged(List<String> changed) {
+            for (TrackedRoute route : routes) {
+                int[] edges = pathTo(route.destination);
+                if (!Arrays.equals(edges, route.edges)) {
+                    route.edges = edges;
+                    changed.add(route.vehicleId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.example;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Min-cost assignment of rows (deliveries) to columns (vehicles) over a sparse cost matrix:
+// row i may only take the columns listed in candidates[i], at costs[i][k] for candidates[i][k].
+// Each column takes at most one row and a row may stay unassigned; leaving a row unassigned costs
+// more than any set of real assignments can save, so as many rows as possible are assigned.
+//
+// HUNGARIAN is exact: the Kuhn-Munkres shortest augmenting path method with potentials on the
+// dense matrix padded with one "unassigned" column per row, O(rows^2 (columns + rows)).
+// AUCTION is Bertsekas' forward auction with epsilon scaling on the same padded problem, made square
+// by a pool of bidders that hold whatever the rows leave over. Row bidding rounds are Jacobi style,
+// so all unassigned rows bid in parallel and each column then takes its highest bid. The result is
+// within a millionth of the cost range of the optimum.
+public final class AssignmentSolver {
+    public enum Method {
+        HUNGARIAN,
+        AUCTION
+    }
+
+    private static final double MIN_EPSILON = 1e-9;
+    private static final int DUMMY = -2;
+
+    private AssignmentSolver() {
+    }
+
+    // returns for each row its column, or -1 when it is left unassigned
+    public static int[] solve(Method method, int columns, int[][] candidates, double[][] costs) {
+        if (candidates.length == 0) return new int[0];
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double[] row : costs) {
+            for (double cost : row) {
+                min = Math.min(min, cost);
+                max = Math.max(max, cost);
+            }
+        }
+        if (min == Double.POSITIVE_INFINITY) {
+            int[] none = new int[candidates.length];
+            Arrays.fill(none, -1);
+            return none;
+        }
+        // large enough that assigning one more row always beats any rearrangement of the others
+        double unassignedCost = max + (max - min + 1.0) * (candidates.length + 1);
+        return method == Method.HUNGARIAN
+                ? hungarian(columns, candidates, costs, unassignedCost)
+                : auction(columns, candidates, costs, unassignedCost, max - min);
+    }
+
+    private static int[] hungarian(int columns, int[][] candidates, double[][] costs, double unassignedCost) {
+        int n = candidates.length;
+        int m = columns + n; // real columns, then one "unassigned" column per row
+        double[][] matrix = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(matrix[i], unassignedCost);
+            for (int k = 0; k < candidates[i].length; k++) {
+                matrix[i][candidates[i][k]] = costs[i][k];
+            }
+        }
+
+        // 1-based potentials and matching as in the classic formulation; owner[j] = row of column j
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] owner = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            owner[0] = i;
+            int column = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int row = owner[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double reduced = matrix[row - 1][j - 1] - u[row] - v[j];
+                    if (reduced < minSlack[j]) {
+                        minSlack[j] = reduced;
+                        way[j] = column;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[owner[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (owner[column] != 0);
+            do {
+                int previous = way[column];
+                owner[column] = owner[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= columns; j++) {
+            int row = owner[j];
+            if (row != 0 && matrix[row - 1][j - 1] < unassignedCost) assignment[row - 1] = j - 1;
+        }
+        return assignment;
+    }
+
+    private static int[] auction(int columns, int[][] candidates, double[][] costs, double unassignedCost,
+                                 double costRange) {
+        int n = candidates.length;
+        // only columns some row can take are bid on, renumbered 0..used-1; column used + i is row
+        // i's private "unassigned" column
+        int[] compact = new int[columns];
+        Arrays.fill(compact, -1);
+        int used = 0;
+        int[][] options = new int[n][];
+        for (int i = 0; i < n; i++) {
+            options[i] = new int[candidates[i].length];
+            for (int k = 0; k < candidates[i].length; k++) {
+                int column = candidates[i][k];
+                if (compact[column] < 0) compact[column] = used++;
+                options[i][k] = compact[column];
+            }
+        }
+        int[] original = new int[used];
+        for (int column = 0; column < columns; column++) {
+            if (compact[column] >= 0) original[compact[column]] = column;
+        }
+
+        // forward auction is only exact on square problems, so a pool of "used" identical bidders
+        // that value every column at 0 takes the real columns no row gets and the private columns
+        // of rows that do get one; owner DUMMY marks a column held by the pool
+        int realColumns = used;
+        int m = used + n;
+        double[] prices = new double[m];
+        int[] owner = new int[m];
+        int[] assignment = new int[n];
+        int[] bidColumn = new int[n];
+        double[] bidPrice = new double[n];
+        double finalEpsilon = Math.max(costRange * 1e-6 / m, MIN_EPSILON);
+        double epsilon = Math.max(costRange / 4.0, finalEpsilon);
+
+        while (true) {
+            Arrays.fill(owner, -1);
+            Arrays.fill(assignment, -1);
+            int[] open = IntStream.range(0, n).toArray();
+            int openDummies = used;
+            double phaseEpsilon = epsilon;
+
+            while (open.length > 0 || openDummies > 0) {
+                // bidding: every open row values each option at -cost - price
+                int[] bidders = open;
+                IntStream.range(0, bidders.length).parallel().forEach(b -> {
+                    int row = bidders[b];
+                    int bestColumn = realColumns + row;
+                    double best = -unassignedCost - prices[bestColumn];
+                    double second = Double.NEGATIVE_INFINITY;
+                    for (int k = 0; k < options[row].length; k++) {
+                        double value = -costs[row][k] - prices[options[row][k]];
+                        if (value > best) {
+                            second = best;
+                            best = value;
+                            bestColumn = options[row][k];
+                        } else if (value > second) {
+                            second = value;
+                        }
+                    }
+                    if (second == Double.NEGATIVE_INFINITY) second = best; // only the private column
+                    bidColumn[row] = bestColumn;
+                    bidPrice[row] = prices[bestColumn] + (best - second) + phaseEpsilon;
+                });
+
+                // assignment: each column goes to its highest bid (lowest row on ties)
+                Map<Integer, Integer> winners = new HashMap<>();
+                for (int row : bidders) {
+                    Integer current = winners.get(bidColumn[row]);
+                    if (current == null || bidPrice[row] > bidPrice[current]) winners.put(bidColumn[row], row);
+                }
+                for (Map.Entry<Integer, Integer> win : winners.entrySet()) {
+                    int column = win.getKey();
+                    int row = win.getValue();
+                    if (owner[column] == DUMMY) {
+                        openDummies++;
+                    } else if (owner[column] >= 0) {
+                        assignment[owner[column]] = -1;
+                    }
+                    owner[column] = row;
+                    assignment[row] = column;
+                    prices[column] = bidPrice[row];
+                }
+
+                // the pool's bidders go one at a time, each taking the cheapest column at the
+                // second cheapest price plus epsilon; prices only rise, so stale heap entries are skipped
+                if (openDummies > 0) {
+                    PriorityQueue<double[]> cheapest = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+                    for (int column = 0; column < m; column++) cheapest.add(new double[]{prices[column], column});
+                    while (openDummies > 0) {
+                        int column = (int) pollCurrent(cheapest, prices)[1];
+                        double[] next = peekCurrent(cheapest, prices);
+                        prices[column] = (next == null ? prices[column] : next[0]) + phaseEpsilon;
+                        cheapest.add(new double[]{prices[column], column});
+                        if (owner[column] == DUMMY) continue;
+                        if (owner[column] >= 0) assignment[owner[column]] = -1;
+                        owner[column] = DUMMY;
+                        openDummies--;
+                    }
+                }
+                open = IntStream.range(0, n).filter(row -> assignment[row] < 0).toArray();
+            }
+
+            if (epsilon <= finalEpsilon) {
+                int[] result = new int[n];
+                for (int i = 0; i < n; i++) result[i] = assignment[i] < used ? original[assignment[i]] : -1;
+                return result;
+            }
+            epsilon = Math.max(epsilon / 4.0, finalEpsilon);
+        }
+    }
+
+    private static double[] pollCurrent(PriorityQueue<double[]> queue, double[] prices) {
+        double[] entry = peekCurrent(queue, prices);
+        queue.poll();
+        return entry;
+    }
+
+    private static double[] peekCurrent(PriorityQueue<double[]> queue, double[] prices) {
+        while (!queue.isEmpty() && queue.peek()[0] != prices[(int) queue.peek()[1]]) queue.poll();
+        return queue.peek();
+    }
+}
@@ -0,0 +1,227 @@
+package org.example;
+
+import java.util.*;
+
+// Metric-independent multilevel partition of a NetworkSnapshot, used by CustomizableRoutePlanner.
+// Level 1 has the smallest cells; each level-l cell is the union of whole level-(l-1) cells.
+// Cells come from recursive bisection: by median coordinate along the wider axis when every node
+// of the part has coordinates, otherwise by breadth-first order. Only the topology is used, so
+// the partition survives any change of edge weights.
+//
+// A node is a boundary node of its level-l cell if one of its roads (in either direction) leads
+// to a node in another level-l cell.
+public class CellPartition {
+    private final NetworkSnapshot graph;
+    private final int levels;
+    private final int[] cellCounts;         // [l - 1] -> number of cells on level l
+    private final int[][] cellOf;           // [l - 1][node] -> cell id on level l
+    private final int[][] cellNodeOffsets;  // [l - 1][cell] -> first slot in cellNodes
+    private final int[][] cellNodes;        // [l - 1] nodes grouped by cell
+    private final int[][] cellPosition;     // [l - 1][node] -> slot of node within its cell
+    private final int[][] boundaryOffsets;  // [l - 1][cell] -> first slot in boundaryNodes
+    private final int[][] boundaryNodes;    // [l - 1] boundary nodes grouped by cell
+    private final int[][] boundaryIndex;    // [l - 1][node] -> index among its cell's boundary nodes, -1 if interior
+
+    // working state while bisecting
+    private final int[] nextCellId;
+    private int[] memberStamp; // == stamp for nodes of the part being ordered
+    private int[] seenStamp;   // == stamp for nodes already placed in the order
+    private int stamp;
+
+    // maxCellSizes[i] bounds the cell size on level i + 1 and must increase with i; levels whose
+    // bound already covers the whole graph are dropped
+    public CellPartition(NetworkSnapshot graph, int[] maxCellSizes) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        int used = 0;
+        while (used < maxCellSizes.length && maxCellSizes[used] < n) used++;
+        this.levels = used;
+
+        this.cellCounts = new int[levels];
+        this.cellOf = new int[levels][n];
+        this.cellNodeOffsets = new int[levels][];
+        this.cellNodes = new int[levels][];
+        this.cellPosition = new int[levels][n];
+        this.boundaryOffsets = new int[levels][];
+        this.boundaryNodes = new int[levels][];
+        this.boundaryIndex = new int[levels][n];
+        this.nextCellId = new int[levels];
+
+        if (levels > 0) {
+            int[] all = new int[n];
+            for (int v = 0; v < n; v++) all[v] = v;
+            assign(all, levels, maxCellSizes);
+        }
+        for (int l = 0; l < levels; l++) {
+            cellCounts[l] = nextCellId[l];
+            groupCells(l);
+            findBoundary(l);
+        }
+    }
+
+    public NetworkSnapshot getGraph() { return graph; }
+
+    public int getLevelCount() { return levels; }
+
+    public int getCellCount(int level) { return cellCounts[level - 1]; }
+
+    public int getCell(int level, int node) { return cellOf[level - 1][node]; }
+
+    public int getCellSize(int level, int cell) {
+        return cellNodeOffsets[level - 1][cell + 1] - cellNodeOffsets[level - 1][cell];
+    }
+
+    public int getCellNode(int level, int cell, int i) {
+        return cellNodes[level - 1][cellNodeOffsets[level - 1][cell] + i];
+    }
+
+    // slot of node within getCellNode(level, getCell(level, node), ...)
+    public int getCellPosition(int level, int node) { return cellPosition[level - 1][node]; }
+
+    public int getBoundaryCount(int level, int cell) {
+        return boundaryOffsets[level - 1][cell + 1] - boundaryOffsets[level - 1][cell];
+    }
+
+    public int getBoundaryNode(int level, int cell, int i) {
+        return boundaryNodes[level - 1][boundaryOffsets[level - 1][cell] + i];
+    }
+
+    // index of node among its level-l cell's boundary nodes, or -1 for interior nodes
+    public int getBoundaryIndex(int level, int node) { return boundaryIndex[level - 1][node]; }
+
+    // splits nodes (one whole cell of level + 1, or the graph) into level cells, then recurses
+    private void assign(int[] nodes, int level, int[] maxCellSizes) {
+        List<int[]> parts = new ArrayList<>();
+        split(nodes, maxCellSizes[level - 1], parts);
+        for (int[] part : parts) {
+            int cell = nextCellId[level - 1]++;
+            for (int v : part) cellOf[level - 1][v] = cell;
+            if (level > 1) assign(part, level - 1, maxCellSizes);
+        }
+    }
+
+    private void split(int[] nodes, int maxSize, List<int[]> parts) {
+        if (nodes.length <= maxSize) {
+            parts.add(nodes);
+            return;
+        }
+        int[][] halves = bisect(nodes);
+        split(halves[0], maxSize, parts);
+        split(halves[1], maxSize, parts);
+    }
+
+    private int[][] bisect(int[] nodes) {
+        int[] ordered = hasCoordinates(nodes) ? byCoordinate(nodes) : byBreadthFirst(nodes);
+        int half = ordered.length / 2;
+        return new int[][]{Arrays.copyOfRange(ordered, 0, half), Arrays.copyOfRange(ordered, half, ordered.length)};
+    }
+
+    private boolean hasCoordinates(int[] nodes) {
+        for (int v : nodes) {
+            if (Double.isNaN(graph.getLatitude(v)) || Double.isNaN(graph.getLongitude(v))) return false;
+        }
+        return true;
+    }
+
+    // nodes sorted along whichever of latitude/longitude has the wider spread
+    private int[] byCoordinate(int[] nodes) {
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int v : nodes) {
+            minLat = Math.min(minLat, graph.getLatitude(v));
+            maxLat = Math.max(maxLat, graph.getLatitude(v));
+            minLon = Math.min(minLon, graph.getLongitude(v));
+            maxLon = Math.max(maxLon, graph.getLongitude(v));
+        }
+        double lonScale = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        boolean byLatitude = (maxLat - minLat) >= (maxLon - minLon) * lonScale;
+
+        Integer[] boxed = new Integer[nodes.length];
+        for (int i = 0; i < nodes.length; i++) boxed[i] = nodes[i];
+        Arrays.sort(boxed, Comparator.comparingDouble(v -> byLatitude ? graph.getLatitude(v) : graph.getLongitude(v)));
+        int[] ordered = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) ordered[i] = boxed[i];
+        return ordered;
+    }
+
+    // breadth-first order over roads in both directions, restricted to nodes; unreached
+    // components are started in turn so every node is included
+    private int[] byBreadthFirst(int[] nodes) {
+        if (memberStamp == null) {
+            memberStamp = new int[graph.getNodeCount()];
+            seenStamp = new int[graph.getNodeCount()];
+        }
+        stamp++;
+        for (int v : nodes) memberStamp[v] = stamp;
+        int[] ordered = new int[nodes.length];
+        int head = 0, tail = 0;
+
+        for (int root : nodes) {
+            if (seenStamp[root] == stamp) continue;
+            seenStamp[root] = stamp;
+            ordered[tail++] = root;
+            while (head < tail) {
+                int current = ordered[head++];
+                for (int e = graph.firstEdge(current); e < graph.endEdge(current); e++) {
+                    tail = visit(graph.getTarget(e), ordered, tail);
+                }
+                for (int i = graph.firstInEdge(current); i < graph.endInEdge(current); i++) {
+                    tail = visit(graph.getSource(graph.getInEdge(i)), ordered, tail);
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private int visit(int node, int[] ordered, int tail) {
+        if (memberStamp[node] != stamp || seenStamp[node] == stamp) return tail;
+        seenStamp[node] = stamp;
+        ordered[tail] = node;
+        return tail + 1;
+    }
+
+    private void groupCells(int l) {
+        int n = graph.getNodeCount();
+        int[] offsets = new int[cellCounts[l] + 1];
+        for (int v = 0; v < n; v++) offsets[cellOf[l][v] + 1]++;
+        for (int c = 0; c < cellCounts[l]; c++) offsets[c + 1] += offsets[c];
+        int[] grouped = new int[n];
+        int[] fill = Arrays.copyOf(offsets, cellCounts[l]);
+        for (int v = 0; v < n; v++) {
+            int cell = cellOf[l][v];
+            cellPosition[l][v] = fill[cell] - offsets[cell];
+            grouped[fill[cell]++] = v;
+        }
+        cellNodeOffsets[l] = offsets;
+        cellNodes[l] = grouped;
+    }
+
+    private void findBoundary(int l) {
+        int n = graph.getNodeCount();
+        Arrays.fill(boundaryIndex[l], -1);
+        int[] counts = new int[cellCounts[l] + 1];
+        boolean[] isBoundary = new boolean[n];
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            int u = graph.getSource(e);
+            int v = graph.getTarget(e);
+            if (cellOf[l][u] != cellOf[l][v]) {
+                isBoundary[u] = true;
+                isBoundary[v] = true;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (isBoundary[v]) counts[cellOf[l][v] + 1]++;
+        }
+        for (int c = 0; c < cellCounts[l]; c++) counts[c + 1] += counts[c];
+        int[] grouped = new int[counts[cellCounts[l]]];
+        int[] fill = Arrays.copyOf(counts, cellCounts[l]);
+        for (int v = 0; v < n; v++) {
+            if (!isBoundary[v]) continue;
+            int cell = cellOf[l][v];
+            boundaryIndex[l][v] = fill[cell] - counts[cell];
+            grouped[fill[cell]++] = v;
+        }
+        boundaryOffsets[l] = counts;
+        boundaryNodes[l] = grouped;
+    }
+}
@@ -0,0 +1,333 @@
+package org.example;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Batched ingestion of congestion readings from sensor feeds.
+// Producers (any number of threads) offer readings into bounded lock-free ring buffers, one per
+// consumer; each road always goes to the same consumer, so its accumulators have a single writer
+// and need no locks. A consumer sums each road's readings in primitive arrays for one flush
+// interval, then records the window in the network's TrafficData (per road, day and hour), which is
+// thread-safe, and queues the window means.
+//
+// LogisticsNetwork is not thread-safe, so the ingestor never changes it from its own threads: the
+// thread that owns the network calls applyPending() at its own pace (between queries, say), which
+// applies every queued window to the roads' current congestion in one updateCongestions call.
+// close() applies the last window the same way and must be called from that thread too.
+//
+// Backpressure: offer() never blocks and returns false when the ring is full; put() waits for
+// space. Rejections, waits, and the largest backlog seen are counted (see the getters).
+// Call close() once producers have stopped, to drain what is left and apply the last window.
+public class CongestionIngestor implements AutoCloseable {
+    private static final int DRAIN_BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LogisticsNetwork network;
+    private final TrafficData trafficData;
+    private final Map<String, Integer> roadIndex = new HashMap<>(); // road id -> road number, fixed at construction
+    private final String[] roadIds;
+    private final Shard[] shards;
+    private final long flushIntervalNanos;
+    private final ConcurrentLinkedQueue<Map<String, Double>> windows = new ConcurrentLinkedQueue<>();
+    private final Thread[] consumers;
+    private volatile boolean running = true;
+    private volatile boolean closed;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder unknownRoads = new LongAdder();
+    private final LongAdder producerWaits = new LongAdder();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong maxBacklog = new AtomicLong();
+    private final AtomicLong networkBatches = new AtomicLong();
+    private final AtomicLong roadUpdates = new AtomicLong();
+
+    // ringCapacity is per consumer and rounded up to a power of two
+    public CongestionIngestor(LogisticsNetwork network, int consumerCount, int ringCapacity, long flushIntervalMillis) {
+        if (consumerCount < 1) throw new IllegalArgumentException("At least one consumer is required");
+        if (ringCapacity < 2) throw new IllegalArgumentException("Ring capacity must be at least 2: " + ringCapacity);
+        if (flushIntervalMillis < 1) throw new IllegalArgumentException("Flush interval must be positive");
+        this.network = network;
+        this.trafficData = network.getCongestionPredictor().getTrafficData();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+        NetworkSnapshot graph = network.getRoutingEngine().getGraph();
+        List<String> ids = new ArrayList<>();
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            if (roadIndex.putIfAbsent(graph.getRoadId(edge), ids.size()) == null) ids.add(graph.getRoadId(edge));
+        }
+        this.roadIds = ids.toArray(new String[0]);
+
+        this.shards = new Shard[consumerCount];
+        this.consumers = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            int owned = (roadIds.length - i + consumerCount - 1) / consumerCount;
+            shards[i] = new Shard(i, Integer.highestOneBit(ringCapacity - 1) << 1, owned);
+            Shard shard = shards[i];
+            consumers[i] = Thread.ofPlatform().name("congestion-consumer-" + i).daemon().start(() -> consume(shard));
+        }
+    }
+
+    public boolean offer(String roadId, LocalDateTime timestamp, double congestion) {
+        return offer(roadId, timestamp.getDayOfWeek(), timestamp.getHour(), congestion);
+    }
+
+    // false when the reading is rejected: the consumer's ring is full, the road is unknown, or
+    // the ingestor is closed
+    public boolean offer(String roadId, DayOfWeek day, int hour, double congestion) {
+        int road = road(roadId, hour);
+        if (road < 0) return false;
+        int slot = slot(day, hour);
+        if (shards[road % shards.length].ring.offer(road, slot, congestion)) {
+            accepted.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // waits while the ring is full; false only for unknown roads or after close()
+    public boolean put(String roadId, DayOfWeek day, int hour, double congestion) {
+        int road = road(roadId, hour);
+        if (road < 0) return false;
+        int slot = slot(day, hour);
+        Ring ring = shards[road % shards.length].ring;
+        if (!ring.offer(road, slot, congestion)) {
+            producerWaits.increment();
+            int spins = 0;
+            while (!ring.offer(road, slot, congestion)) {
+                if (closed) return false;
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+        }
+        accepted.increment();
+        return true;
+    }
+
+    // stops the consumers once their rings are empty and applies the final window; on the
+    // network's owning thread
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        running = false;
+        try {
+            for (Thread consumer : consumers) consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while closing the ingestor", e);
+        }
+        applyPending();
+    }
+
+    public long getAcceptedCount() { return accepted.sum(); }
+    public long getRejectedCount() { return rejected.sum(); } // ring full
+    public long getUnknownRoadCount() { return unknownRoads.sum(); }
+    public long getProducerWaitCount() { return producerWaits.sum(); } // put() calls that found the ring full
+    public long getConsumedCount() { return consumed.get(); }
+    public long getMaxBacklog() { return maxBacklog.get(); }
+    public long getNetworkBatchCount() { return networkBatches.get(); }
+    public long getRoadUpdateCount() { return roadUpdates.get(); }
+
+    // readings waiting in the rings right now
+    public long getBacklog() {
+        long backlog = 0;
+        for (Shard shard : shards) backlog += shard.ring.size();
+        return backlog;
+    }
+
+    private int road(String roadId, int hour) {
+        if (hour < 0 || hour > 23) throw new IllegalArgumentException("Hour must be 0-23: " + hour);
+        if (closed) return -1;
+        Integer road = roadIndex.get(roadId);
+        if (road == null) {
+            unknownRoads.increment();
+            return -1;
+        }
+        return road;
+    }
+
+    // day of week and hour packed into one int
+    private static int slot(DayOfWeek day, int hour) {
+        return (day.getValue() - 1) * 24 + hour;
+    }
+
+    private void consume(Shard shard) {
+        long lastFlush = System.nanoTime();
+        while (true) {
+            long backlog = shard.ring.size();
+            if (backlog > maxBacklog.get()) maxBacklog.accumulateAndGet(backlog, Math::max);
+            int drained = shard.ring.drain(shard, DRAIN_BATCH);
+            if (drained > 0) consumed.addAndGet(drained);
+            long now = System.nanoTime();
+            if (now - lastFlush >= flushIntervalNanos) {
+                flushWindow(shard);
+                lastFlush = now;
+            }
+            if (drained == 0) {
+                if (!running && shard.ring.size() == 0) break;
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        flushWindow(shard);
+    }
+
+    // records the shard's window in TrafficData, in one batch with any hours closed since the last
+    // flush, and queues its per-road means for the network
+    private void flushWindow(Shard shard) {
+        if (shard.dirtyCount == 0) return;
+        Map<String, Double> window = new HashMap<>(shard.dirtyCount * 2);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < shard.dirtyCount; i++) {
+            int local = shard.dirtyRoads[i];
+            String roadId = roadIds[local * shards.length + shard.index];
+            if (shard.counts[local] > 0) {
+                shard.record(roadId, local, now);
+                window.put(roadId, shard.sums[local] / shard.counts[local]);
+            }
+            shard.sums[local] = 0.0;
+            shard.squares[local] = 0.0;
+            shard.counts[local] = 0;
+            shard.dirty[local] = false;
+        }
+        shard.dirtyCount = 0;
+        trafficData.recordAggregates(shard.history);
+        shard.history.clear();
+        windows.add(window);
+    }
+
+    // merges the windows queued since the last call (later ones win) into one network update and
+    // returns how many roads it set; must run on the thread that owns the network
+    public int applyPending() {
+        Map<String, Double> merged = new HashMap<>();
+        Map<String, Double> window;
+        while ((window = windows.poll()) != null) merged.putAll(window);
+        if (merged.isEmpty()) return 0;
+        network.updateCongestions(merged);
+        networkBatches.incrementAndGet();
+        roadUpdates.addAndGet(merged.size());
+        return merged.size();
+    }
+
+    // one consumer's ring and window accumulators, indexed by road / consumer count
+    private final class Shard {
+        private final int index;
+        private final Ring ring;
+        private final double[] sums;
+        private final double[] squares;
+        private final long[] counts;
+        private final int[] slots;
+        private final boolean[] dirty;
+        private final int[] dirtyRoads;
+        private int dirtyCount;
+        private final TrafficData.AggregateBatch history = new TrafficData.AggregateBatch(); // recorded at flush
+
+        Shard(int index, int ringCapacity, int owned) {
+            this.index = index;
+            this.ring = new Ring(ringCapacity);
+            this.sums = new double[owned];
+            this.squares = new double[owned];
+            this.counts = new long[owned];
+            this.slots = new int[owned];
+            this.dirty = new boolean[owned];
+            this.dirtyRoads = new int[owned];
+        }
+
+        void accept(int road, int slot, double congestion) {
+            int local = road / shards.length;
+            if (counts[local] > 0 && slots[local] != slot) {
+                // the window spans an hour boundary: the earlier hour's readings go to history at the flush
+                record(roadIds[road], local, System.currentTimeMillis());
+                sums[local] = 0.0;
+                squares[local] = 0.0;
+                counts[local] = 0;
+            }
+            if (!dirty[local]) {
+                dirty[local] = true;
+                dirtyRoads[dirtyCount++] = local;
+            }
+            slots[local] = slot;
+            sums[local] += congestion;
+            squares[local] += congestion * congestion;
+            counts[local]++;
+        }
+
+        void record(String roadId, int local, long epochMillis) {
+            history.add(roadId, DayOfWeek.of(slots[local] / 24 + 1), slots[local] % 24,
+                    counts[local], sums[local], squares[local], epochMillis);
+        }
+    }
+
+    // bounded multi-producer, single-consumer ring (Vyukov's sequence-per-slot queue) over
+    // primitive columns; a producer claims a slot by CAS on the tail and publishes it by advancing
+    // the slot's sequence, which is what the consumer waits on
+    private static final class Ring {
+        private final int mask;
+        private final AtomicLongArray sequences;
+        private final int[] roads;
+        private final int[] slots;
+        private final double[] values;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong(); // written by the consumer only
+
+        Ring(int capacity) {
+            this.mask = capacity - 1;
+            this.sequences = new AtomicLongArray(capacity);
+            this.roads = new int[capacity];
+            this.slots = new int[capacity];
+            this.values = new double[capacity];
+            for (int i = 0; i < capacity; i++) sequences.set(i, i);
+        }
+
+        boolean offer(int road, int slot, double value) {
+            long position = tail.get();
+            while (true) {
+                long sequence = sequences.getAcquire((int) position & mask);
+                if (sequence == position) {
+                    if (tail.weakCompareAndSetVolatile(position, position + 1)) break;
+                    position = tail.get();
+                } else if (sequence < position) {
+                    return false; // full: the slot still holds an unconsumed reading
+                } else {
+                    position = tail.get(); // another producer took this slot
+                }
+            }
+            int index = (int) position & mask;
+            roads[index] = road;
+            slots[index] = slot;
+            values[index] = value;
+            sequences.setRelease(index, position + 1);
+            return true;
+        }
+
+        int drain(Shard shard, int max) {
+            long position = head.get();
+            int drained = 0;
+            while (drained < max) {
+                int index = (int) position & mask;
+                if (sequences.getAcquire(index) != position + 1) break;
+                shard.accept(roads[index], slots[index], values[index]);
+                sequences.setRelease(index, position + mask + 1);
+                position++;
+                drained++;
+            }
+            head.setRelease(position);
+            return drained;
+        }
+
+        long size() {
+            return Math.max(0, tail.get() - head.getAcquire());
+        }
+    }
+}
@@ -3,16 +3,33 @@ package org.example;
 import java.time.*;
 import java.util.*;
 
-public class CongestionPredictor {
+public final class CongestionPredictor {
     private TrafficData trafficData;
     private Map<String, Double> congestionThresholds;
+
+    // adjustedCost of every edge of a graph, one array per hour of day, so the adaptive search's
+    // inner loop is a single array read. Kept per graph (weakly, so dropped snapshots are freed);
+    // an hour's array is filled on first use and single entries are recomputed when the traffic
+    // history of that road and hour changes or when onEdgeUpdated reports a changed edge.
+    private final Map<NetworkSnapshot, double[][]> costTables = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // told about new history once the cost tables reflect it (see LogisticsNetwork)
+    private volatile TrafficData.UpdateListener historyListener;
+
+    // bumped once a history batch is in the cost tables, so a copy taken after reading it is no older
+    private volatile long historyVersion;
     
     public CongestionPredictor() {
         this.trafficData = new TrafficData();
         this.congestionThresholds = new HashMap<>();
         initializeDefaultThresholds();
+        trafficData.setUpdateListener(this::onHistoryUpdated);
     }
     
+    public TrafficData getTrafficData() {
+        return trafficData;
+    }
+
     private void initializeDefaultThresholds() {
         // define congestion thresholds for different road types
         congestionThresholds.put("MAIN", 2.0);
@@ -21,9 +38,12 @@ public class CongestionPredictor {
     }
     
     public double predictCongestion(Road road, LocalDateTime time) {
-        double historicalCongestion = trafficData.getPredictedCongestion(road.getId(), time.getHour());
-        double currentCongestion = road.getCurrentCongestion();
-        
+        return predictCongestion(road.getId(), road.getCurrentCongestion(), time.getHour());
+    }
+
+    public double predictCongestion(String roadId, double currentCongestion, int hour) {
+        double historicalCongestion = trafficData.getPredictedCongestion(roadId, hour);
+
         // weight current conditions more heavily than historical data
         double weightCurrent = 0.7;
         double weightHistorical = 0.3;
@@ -33,14 +53,131 @@ public class CongestionPredictor {
     
     public boolean isLikelyBottleneck(Road road, LocalDateTime time) {
         double predictedCongestion = predictCongestion(road, time);
-        String roadType = determineRoadType(road);
+        return isBottleneck(predictedCongestion, road.getAverageSpeed());
+    }
+
+    private boolean isBottleneck(double predictedCongestion, double averageSpeed) {
+        String roadType = determineRoadType(averageSpeed);
         return predictedCongestion > congestionThresholds.getOrDefault(roadType, 1.5);
     }
-    
-    private String determineRoadType(Road road) {
+
+    // congestion-adjusted cost of an edge as used by LogisticsNetwork.findAdaptiveRoute
+    public double adjustedCost(NetworkSnapshot graph, int edge, int hour) {
+        // consider both current congestion and predicted congestion
+        double predictedCongestion = predictCongestion(graph.getRoadId(edge), graph.getCongestion(edge), hour);
+        double adjustedCost = graph.getDistance(edge) * predictedCongestion;
+
+        // if this is likely to be a bottleneck, increase the cost
+        if (isBottleneck(predictedCongestion, graph.getAverageSpeed(edge))) {
+            adjustedCost *= 1.5; // Penalty for potential bottlenecks
+        }
+        return adjustedCost;
+    }
+
+    // the same cost for a road that may not be part of a snapshot yet
+    public double adjustedCost(Road road, int hour) {
+        double predictedCongestion = predictCongestion(road.getId(), road.getCurrentCongestion(), hour);
+        double adjustedCost = road.getDistance() * predictedCongestion;
+        if (isBottleneck(predictedCongestion, road.getAverageSpeed())) {
+            adjustedCost *= 1.5;
+        }
+        return adjustedCost;
+    }
+
+    // adjustedCost at that hour, read from the graph's cost table
+    public RoutingEngine.EdgeWeight adaptiveWeight(NetworkSnapshot graph, LocalDateTime time) {
+        double[] costs = adjustedCosts(graph, time.getHour());
+        return edge -> costs[edge];
+    }
+
+    // recomputes one edge's cached costs after its distance, speed or congestion changed in place
+    public void onEdgeUpdated(NetworkSnapshot graph, int edge) {
+        double[][] table = costTables.get(graph);
+        if (table == null) return;
+        synchronized (table) {
+            for (int hour = 0; hour < table.length; hour++) {
+                if (table[hour] != null) table[hour][edge] = adjustedCost(graph, edge, hour);
+            }
+        }
+    }
+
+    // gives a snapshot made by base.withUpdatedEdges the base's cost tables, with the changed edges
+    // (edges[0..count)) recomputed, so a new version does not start with an empty table
+    public void onSnapshotDerived(NetworkSnapshot base, NetworkSnapshot derived, int[] edges, int count) {
+        // holding the map lock keeps history updates out until the copy is registered
+        synchronized (costTables) {
+            double[][] table = costTables.get(base);
+            if (table == null) return;
+            double[][] copy = new double[table.length][];
+            synchronized (table) {
+                for (int hour = 0; hour < table.length; hour++) {
+                    if (table[hour] != null) copy[hour] = table[hour].clone();
+                }
+            }
+            for (int hour = 0; hour < copy.length; hour++) {
+                if (copy[hour] == null) continue;
+                for (int i = 0; i < count; i++) copy[hour][edges[i]] = adjustedCost(derived, edges[i], hour);
+            }
+            costTables.putIfAbsent(derived, copy);
+        }
+    }
+
+    // a copy of the graph's cost table for that hour, which later updates do not touch
+    double[] copyAdjustedCosts(NetworkSnapshot graph, int hour) {
+        double[][] table = costTables.computeIfAbsent(graph, g -> new double[24][]);
+        synchronized (table) {
+            return adjustedCosts(graph, hour).clone();
+        }
+    }
+
+    long getHistoryVersion() {
+        return historyVersion;
+    }
+
+    private double[] adjustedCosts(NetworkSnapshot graph, int hour) {
+        double[][] table = costTables.computeIfAbsent(graph, g -> new double[24][]);
+        synchronized (table) {
+            if (table[hour] == null) {
+                double[] costs = new double[graph.getEdgeCount()];
+                for (int edge = 0; edge < costs.length; edge++) {
+                    costs[edge] = adjustedCost(graph, edge, hour);
+                }
+                table[hour] = costs;
+            }
+            return table[hour];
+        }
+    }
+
+    void setHistoryListener(TrafficData.UpdateListener historyListener) {
+        this.historyListener = historyListener;
+    }
+
+    // readings changed these roads' history for those hours, and with it those hours' costs;
+    // a batch takes the locks once, however many readings it carries
+    private void onHistoryUpdated(String[] roadIds, int[] hours, boolean[] lowered, int count) {
+        synchronized (costTables) {
+            for (Map.Entry<NetworkSnapshot, double[][]> entry : costTables.entrySet()) {
+                NetworkSnapshot graph = entry.getKey();
+                double[][] table = entry.getValue();
+                if (graph == null) continue;
+                synchronized (table) {
+                    for (int i = 0; i < count; i++) {
+                        if (table[hours[i]] == null) continue;
+                        int edge = graph.indexOfRoad(roadIds[i]);
+                        if (edge >= 0) table[hours[i]][edge] = adjustedCost(graph, edge, hours[i]);
+                    }
+                }
+            }
+            historyVersion++;
+        }
+        TrafficData.UpdateListener listener = historyListener;
+        if (listener != null) listener.onUpdated(roadIds, hours, lowered, count);
+    }
+
+    private String determineRoadType(double averageSpeed) {
         // simple logic to determine road type based on average speed
-        if (road.getAverageSpeed() > 80) return "MAIN";
-        if (road.getAverageSpeed() > 50) return "SECONDARY";
+        if (averageSpeed > 80) return "MAIN";
+        if (averageSpeed > 50) return "SECONDARY";
         return "LOCAL";
     }
 } 
\ No newline at end of file
@@ -0,0 +1,488 @@
+package org.example;
+
+import java.util.*;
+
+// Contraction Hierarchies over a NetworkSnapshot for one static edge metric.
+//
+// Preprocessing contracts nodes one at a time in order of importance (edge difference plus the
+// number of already contracted neighbours, re-evaluated lazily). Contracting v adds a shortcut
+// u -> w for every pair of neighbours whose shortest path runs through v, which a bounded
+// witness search checks. A query then runs Dijkstra forward from the start and backward from the
+// end, each only along edges that lead to higher-ranked nodes, and meets at the top.
+// Shortcuts remember the two edges they replace so paths unpack back to original locations.
+//
+// The hierarchy is fixed to the weights it was built with; rebuild it when they change.
+// Query state is reused between calls, so an instance is not thread-safe.
+public class ContractionHierarchy {
+    // witness searches settle at most this many nodes; priority estimates use the smaller limit
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    private final NetworkSnapshot graph;
+    private final int[] rank;          // contraction order, higher = more important
+    private final int shortcutCount;
+    private final long preprocessingNanos;
+
+    // every edge of the hierarchy, original edges first, then shortcuts
+    private final double[] edgeWeight;
+    private final int[] edgeTarget;    // head of the edge in its original direction
+    private final int[] edgeFirst;     // first half of a shortcut, -1 for original edges
+    private final int[] edgeSecond;    // second half of a shortcut, -1 for original edges
+
+    // upward search graphs in CSR form: forward holds u -> w with rank[w] > rank[u];
+    // backward holds, at w, edges u -> w with rank[u] > rank[w]
+    private final int[] upOffsets;
+    private final int[] upEdges;
+    private final int[] downOffsets;
+    private final int[] downEdges;
+    private final int[] edgeSource;
+
+    // query state
+    private final double[] forwardCost;
+    private final double[] backwardCost;
+    private final int[] forwardEdge;
+    private final int[] backwardEdge;
+    private final int[] touched;
+    private int touchedCount;
+    private final IndexedMinHeap forwardQueue;
+    private final IndexedMinHeap backwardQueue;
+    private int lastSettledCount;
+
+    private ContractionHierarchy(NetworkSnapshot graph, Builder builder, long preprocessingNanos) {
+        this.graph = graph;
+        this.rank = builder.rank;
+        this.preprocessingNanos = preprocessingNanos;
+
+        int edgeCount = builder.edgeCount;
+        int shortcuts = 0;
+        for (int e = builder.originalEdgeCount; e < edgeCount; e++) {
+            if (!builder.detached[e]) shortcuts++;
+        }
+        this.shortcutCount = shortcuts;
+        this.edgeWeight = Arrays.copyOf(builder.weight, edgeCount);
+        this.edgeTarget = Arrays.copyOf(builder.target, edgeCount);
+        this.edgeSource = Arrays.copyOf(builder.source, edgeCount);
+        this.edgeFirst = Arrays.copyOf(builder.first, edgeCount);
+        this.edgeSecond = Arrays.copyOf(builder.second, edgeCount);
+
+        int n = graph.getNodeCount();
+        this.upOffsets = new int[n + 1];
+        this.downOffsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            if (builder.detached[e]) continue;
+            if (rank[edgeTarget[e]] > rank[edgeSource[e]]) upOffsets[edgeSource[e] + 1]++;
+            else downOffsets[edgeTarget[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        this.upEdges = new int[upOffsets[n]];
+        this.downEdges = new int[downOffsets[n]];
+        int[] upFill = Arrays.copyOf(upOffsets, n);
+        int[] downFill = Arrays.copyOf(downOffsets, n);
+        for (int e = 0; e < edgeCount; e++) {
+            if (builder.detached[e]) continue;
+            if (rank[edgeTarget[e]] > rank[edgeSource[e]]) upEdges[upFill[edgeSource[e]]++] = e;
+            else downEdges[downFill[edgeTarget[e]]++] = e;
+        }
+
+        this.forwardCost = new double[n];
+        this.backwardCost = new double[n];
+        this.forwardEdge = new int[n];
+        this.backwardEdge = new int[n];
+        this.touched = new int[n];
+        this.forwardQueue = new IndexedMinHeap(n);
+        this.backwardQueue = new IndexedMinHeap(n);
+        Arrays.fill(forwardCost, Double.POSITIVE_INFINITY);
+        Arrays.fill(backwardCost, Double.POSITIVE_INFINITY);
+        Arrays.fill(forwardEdge, -1);
+        Arrays.fill(backwardEdge, -1);
+    }
+
+    public static ContractionHierarchy build(NetworkSnapshot graph, RoutingEngine.EdgeWeight edgeWeight) {
+        long start = System.nanoTime();
+        Builder builder = new Builder(graph, edgeWeight);
+        builder.contractAll();
+        return new ContractionHierarchy(graph, builder, System.nanoTime() - start);
+    }
+
+    public NetworkSnapshot getGraph() { return graph; }
+
+    public int getShortcutCount() { return shortcutCount; }
+
+    public double getPreprocessingMillis() { return preprocessingNanos / 1_000_000.0; }
+
+    // number of nodes settled by both directions of the most recent query
+    public int getLastSettledCount() { return lastSettledCount; }
+
+    public List<String> findPath(String startId, String endId) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return new ArrayList<>();
+        }
+
+        try {
+            int meeting = search(start, end);
+            if (meeting < 0) {
+                return new ArrayList<>(); // Return empty list if no path found
+            }
+            List<String> path = new ArrayList<>();
+            path.add(graph.getNodeId(start));
+            List<Integer> forward = new ArrayList<>();
+            for (int e = forwardEdge[meeting]; e >= 0; e = forwardEdge[edgeSource[e]]) {
+                forward.add(e);
+            }
+            for (int i = forward.size() - 1; i >= 0; i--) {
+                unpack(forward.get(i), path);
+            }
+            for (int e = backwardEdge[meeting]; e >= 0; e = backwardEdge[edgeTarget[e]]) {
+                unpack(e, path);
+            }
+            return path;
+        } finally {
+            reset();
+        }
+    }
+
+    // returns the node where the cheapest forward and backward costs meet, or -1
+    private int search(int start, int end) {
+        lastSettledCount = 0;
+        touch(start);
+        forwardCost[start] = 0.0;
+        forwardQueue.insertOrDecrease(start, 0.0);
+        if (end != start) touch(end);
+        backwardCost[end] = 0.0;
+        backwardQueue.insertOrDecrease(end, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (!forwardQueue.isEmpty() || !backwardQueue.isEmpty()) {
+            double forwardMin = forwardQueue.isEmpty() ? Double.POSITIVE_INFINITY : forwardQueue.minKey();
+            double backwardMin = backwardQueue.isEmpty() ? Double.POSITIVE_INFINITY : backwardQueue.minKey();
+            // a direction whose smallest key already reaches the best meeting cost is done
+            if (Math.min(forwardMin, backwardMin) >= best) break;
+
+            boolean forward = forwardMin <= backwardMin;
+            IndexedMinHeap queue = forward ? forwardQueue : backwardQueue;
+            double[] cost = forward ? forwardCost : backwardCost;
+            double[] otherCost = forward ? backwardCost : forwardCost;
+            int[] parent = forward ? forwardEdge : backwardEdge;
+
+            int current = queue.pollMin();
+            lastSettledCount++;
+            if (cost[current] + otherCost[current] < best) {
+                best = cost[current] + otherCost[current];
+                meeting = current;
+            }
+
+            int first = forward ? upOffsets[current] : downOffsets[current];
+            int last = forward ? upOffsets[current + 1] : downOffsets[current + 1];
+            for (int i = first; i < last; i++) {
+                int edge = forward ? upEdges[i] : downEdges[i];
+                int neighbor = forward ? edgeTarget[edge] : edgeSource[edge];
+                double newCost = cost[current] + edgeWeight[edge];
+                if (newCost < cost[neighbor]) {
+                    if (forwardCost[neighbor] == Double.POSITIVE_INFINITY
+                            && backwardCost[neighbor] == Double.POSITIVE_INFINITY) touch(neighbor);
+                    cost[neighbor] = newCost;
+                    parent[neighbor] = edge;
+                    queue.insertOrDecrease(neighbor, newCost);
+                    if (newCost + otherCost[neighbor] < best) {
+                        best = newCost + otherCost[neighbor];
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    // appends the head nodes of the original edges behind edge, in travel order
+    private void unpack(int edge, List<String> path) {
+        if (edgeFirst[edge] < 0) {
+            path.add(graph.getNodeId(edgeTarget[edge]));
+            return;
+        }
+        unpack(edgeFirst[edge], path);
+        unpack(edgeSecond[edge], path);
+    }
+
+    private void touch(int node) {
+        touched[touchedCount++] = node;
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            forwardCost[node] = Double.POSITIVE_INFINITY;
+            backwardCost[node] = Double.POSITIVE_INFINITY;
+            forwardEdge[node] = -1;
+            backwardEdge[node] = -1;
+        }
+        touchedCount = 0;
+        forwardQueue.clear();
+        backwardQueue.clear();
+    }
+
+    // mutable graph used while contracting
+    private static final class Builder {
+        private final int n;
+        private final int[] rank;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+        private final int[] level;
+        private final int[][] outEdges;
+        private final int[] outCount;
+        private final int[][] inEdges;
+        private final int[] inCount;
+
+        private int edgeCount;
+        private final int originalEdgeCount;
+        private int[] source;
+        private int[] target;
+        private double[] weight;
+        private int[] first;
+        private int[] second;
+        private boolean[] detached; // superseded edges, kept only for unpacking
+
+        // witness search state
+        private final double[] witnessCost;
+        private final boolean[] isTarget;
+        private final int[] witnessTouched;
+        private int witnessTouchedCount;
+        private final IndexedMinHeap witnessQueue;
+
+        Builder(NetworkSnapshot graph, RoutingEngine.EdgeWeight edgeWeight) {
+            this.n = graph.getNodeCount();
+            this.rank = new int[n];
+            this.contracted = new boolean[n];
+            this.contractedNeighbors = new int[n];
+            this.level = new int[n];
+            this.outEdges = new int[n][];
+            this.outCount = new int[n];
+            this.inEdges = new int[n][];
+            this.inCount = new int[n];
+            for (int v = 0; v < n; v++) {
+                outEdges[v] = new int[4];
+                inEdges[v] = new int[4];
+            }
+
+            int capacity = Math.max(16, graph.getEdgeCount() * 2);
+            this.source = new int[capacity];
+            this.target = new int[capacity];
+            this.weight = new double[capacity];
+            this.first = new int[capacity];
+            this.second = new int[capacity];
+            this.detached = new boolean[capacity];
+
+            // keep only the cheapest of any parallel edges, and no self-loops
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.firstEdge(u), last = graph.endEdge(u); e < last; e++) {
+                    int v = graph.getTarget(e);
+                    if (v == u) continue;
+                    double w = edgeWeight.weight(e);
+                    int existing = findEdge(u, v);
+                    if (existing < 0) {
+                        addEdge(u, v, w, -1, -1);
+                    } else if (w < weight[existing]) {
+                        weight[existing] = w;
+                    }
+                }
+            }
+            this.originalEdgeCount = edgeCount;
+
+            this.witnessCost = new double[n];
+            this.isTarget = new boolean[n];
+            this.witnessTouched = new int[n];
+            this.witnessQueue = new IndexedMinHeap(n);
+            Arrays.fill(witnessCost, Double.POSITIVE_INFINITY);
+        }
+
+        void contractAll() {
+            IndexedMinHeap order = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.insertOrDecrease(v, priority(v));
+            }
+
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int v = order.pollMin();
+                // lazy update: priorities go stale as neighbours are contracted, so re-check on removal
+                double current = priority(v);
+                if (!order.isEmpty() && current > order.minKey()) {
+                    order.insertOrDecrease(v, current);
+                    continue;
+                }
+                contract(v, true);
+                contracted[v] = true;
+                rank[v] = nextRank++;
+
+            }
+        }
+
+        // edge difference, weighted double, plus contracted neighbours and hierarchy depth,
+        // which spreads contraction evenly over the graph
+        private double priority(int v) {
+            int shortcuts = contract(v, false);
+            int degree = 0;
+            for (int i = 0; i < inCount[v]; i++) if (!contracted[source[inEdges[v][i]]]) degree++;
+            for (int i = 0; i < outCount[v]; i++) if (!contracted[target[outEdges[v][i]]]) degree++;
+            return 2.0 * (shortcuts - degree) + contractedNeighbors[v] + level[v];
+        }
+
+        // adds (or, when simulating, only counts) the shortcuts needed to contract v
+        private int contract(int v, boolean apply) {
+            int shortcuts = 0;
+            double maxOut = 0.0;
+            for (int j = 0; j < outCount[v]; j++) {
+                int out = outEdges[v][j];
+                if (!contracted[target[out]]) maxOut = Math.max(maxOut, weight[out]);
+            }
+
+            for (int i = 0; i < inCount[v]; i++) {
+                int in = inEdges[v][i];
+                int u = source[in];
+                if (contracted[u]) continue;
+
+                int targets = 0;
+                for (int j = 0; j < outCount[v]; j++) {
+                    int w = target[outEdges[v][j]];
+                    if (!contracted[w] && w != u && !isTarget[w]) {
+                        isTarget[w] = true;
+                        targets++;
+                    }
+                }
+                witnessSearch(u, v, weight[in] + maxOut, targets,
+                        apply ? WITNESS_SETTLE_LIMIT : SIMULATION_SETTLE_LIMIT);
+                for (int j = 0; j < outCount[v]; j++) {
+                    isTarget[target[outEdges[v][j]]] = false;
+                }
+
+                for (int j = 0; j < outCount[v]; j++) {
+                    int out = outEdges[v][j];
+                    int w = target[out];
+                    if (contracted[w] || w == u) continue;
+                    double viaV = weight[in] + weight[out];
+                    if (witnessCost[w] <= viaV) continue;
+
+                    // a direct edge the truncated witness search missed can still make it redundant
+                    int existing = findEdge(u, w);
+                    if (existing >= 0 && weight[existing] <= viaV) continue;
+
+                    shortcuts++;
+                    if (apply) {
+                        addEdge(u, w, viaV, in, out);
+                        if (existing >= 0) {
+                            // the old edge stays on record, since other shortcuts may unpack through it
+                            detach(existing);
+                        }
+                    }
+                }
+                clearWitness();
+            }
+
+            if (apply) {
+                for (int i = 0; i < inCount[v]; i++) {
+                    int u = source[inEdges[v][i]];
+                    if (!contracted[u]) {
+                        contractedNeighbors[u]++;
+                        level[u] = Math.max(level[u], level[v] + 1);
+                    }
+                }
+                for (int j = 0; j < outCount[v]; j++) {
+                    int w = target[outEdges[v][j]];
+                    if (!contracted[w]) {
+                        contractedNeighbors[w]++;
+                        level[w] = Math.max(level[w], level[v] + 1);
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        // bounded Dijkstra from u over uncontracted nodes, skipping the node being contracted;
+        // stops once every target is settled, the cost limit is passed or settleLimit is reached
+        private void witnessSearch(int u, int skip, double limit, int targets, int settleLimit) {
+            witnessCost[u] = 0.0;
+            witnessTouched[witnessTouchedCount++] = u;
+            witnessQueue.insertOrDecrease(u, 0.0);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && targets > 0 && settled++ < settleLimit) {
+                int current = witnessQueue.pollMin();
+                if (witnessCost[current] > limit) break;
+                if (isTarget[current]) targets--;
+                for (int i = 0; i < outCount[current]; i++) {
+                    int e = outEdges[current][i];
+                    int next = target[e];
+                    if (next == skip || contracted[next]) continue;
+                    double cost = witnessCost[current] + weight[e];
+                    if (cost < witnessCost[next]) {
+                        if (witnessCost[next] == Double.POSITIVE_INFINITY) {
+                            witnessTouched[witnessTouchedCount++] = next;
+                        }
+                        witnessCost[next] = cost;
+                        witnessQueue.insertOrDecrease(next, cost);
+                    }
+                }
+            }
+        }
+
+        private void clearWitness() {
+            for (int i = 0; i < witnessTouchedCount; i++) {
+                witnessCost[witnessTouched[i]] = Double.POSITIVE_INFINITY;
+            }
+            witnessTouchedCount = 0;
+            witnessQueue.clear();
+        }
+
+        private int findEdge(int u, int v) {
+            for (int i = 0; i < outCount[u]; i++) {
+                if (target[outEdges[u][i]] == v) return outEdges[u][i];
+            }
+            return -1;
+        }
+
+        private int addEdge(int u, int v, double w, int firstHalf, int secondHalf) {
+            if (edgeCount == source.length) {
+                int capacity = edgeCount * 2;
+                source = Arrays.copyOf(source, capacity);
+                target = Arrays.copyOf(target, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                detached = Arrays.copyOf(detached, capacity);
+            }
+            int e = edgeCount++;
+            source[e] = u;
+            target[e] = v;
+            weight[e] = w;
+            first[e] = firstHalf;
+            second[e] = secondHalf;
+
+            if (outCount[u] == outEdges[u].length) outEdges[u] = Arrays.copyOf(outEdges[u], outCount[u] * 2);
+            outEdges[u][outCount[u]++] = e;
+            if (inCount[v] == inEdges[v].length) inEdges[v] = Arrays.copyOf(inEdges[v], inCount[v] * 2);
+            inEdges[v][inCount[v]++] = e;
+            return e;
+        }
+
+        // takes an edge superseded by a cheaper shortcut out of the adjacency lists
+        private void detach(int e) {
+            detached[e] = true;
+            outCount[source[e]] = remove(outEdges[source[e]], outCount[source[e]], e);
+            inCount[target[e]] = remove(inEdges[target[e]], inCount[target[e]], e);
+        }
+
+        private static int remove(int[] edges, int count, int e) {
+            for (int i = 0; i < count; i++) {
+                if (edges[i] == e) {
+                    edges[i] = edges[count - 1];
+                    return count - 1;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package org.example;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Customizable Route Planning on top of a CellPartition.
+// Customization computes, for every cell on every level, the cost between each pair of its
+// boundary nodes: level-1 cells search their own roads, higher levels search the overlay formed by
+// their subcells' boundary cliques plus the roads between those subcells. Cells on one level are
+// independent, so they are customized in parallel, bottom-up.
+//
+// A weight change only affects the cells that contain both ends of the road, so onEdgeUpdated
+// marks those cells dirty and the next query re-customizes just them.
+//
+// A query is Dijkstra in which every node is scanned on the highest level where its cell holds
+// neither the start nor the end: there it jumps across its cell's boundary clique or leaves the
+// cell by a road. Clique jumps are unpacked with a search inside the cell.
+// Query state is reused between calls, so an instance is not thread-safe.
+public final class CustomizableRoutePlanner {
+    private final CellPartition partition;
+    private final NetworkSnapshot graph;
+    private final RoutingEngine.EdgeWeight edgeWeight;
+    private final int levels;
+
+    private final double[][][] cliques; // [l - 1][cell] -> boundary x boundary costs, row-major
+    private final boolean[][] dirty;    // [l - 1][cell]
+    private boolean anyDirty;
+    private int lastCustomizedCells;
+    private long lastCustomizationNanos;
+
+    // query state
+    private final double[] costs;
+    private final int[] parent;        // predecessor node, -1 for none
+    private final int[] parentLevel;   // 0 when reached by a road, l when by a level-l clique
+    private final boolean[] settled;
+    private final int[] touched;
+    private int touchedCount;
+    private final IndexedMinHeap heap;
+    private int lastSettledCount;
+
+    public CustomizableRoutePlanner(CellPartition partition, RoutingEngine.EdgeWeight edgeWeight) {
+        this.partition = partition;
+        this.graph = partition.getGraph();
+        this.edgeWeight = edgeWeight;
+        this.levels = partition.getLevelCount();
+
+        this.cliques = new double[levels][][];
+        this.dirty = new boolean[levels][];
+        for (int l = 1; l <= levels; l++) {
+            cliques[l - 1] = new double[partition.getCellCount(l)][];
+            dirty[l - 1] = new boolean[partition.getCellCount(l)];
+            Arrays.fill(dirty[l - 1], true);
+        }
+        this.anyDirty = levels > 0;
+
+        int n = graph.getNodeCount();
+        this.costs = new double[n];
+        this.parent = new int[n];
+        this.parentLevel = new int[n];
+        this.settled = new boolean[n];
+        this.touched = new int[n];
+        this.heap = new IndexedMinHeap(n);
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+
+        customize();
+    }
+
+    public CellPartition getPartition() { return partition; }
+
+    public int getLastSettledCount() { return lastSettledCount; }
+
+    // cells customized by the most recent customization pass, and how long it took
+    public int getLastCustomizedCells() { return lastCustomizedCells; }
+
+    public double getLastCustomizationMillis() { return lastCustomizationNanos / 1_000_000.0; }
+
+    // called after the weight of edge has changed in the graph
+    public void onEdgeUpdated(int edge) {
+        int u = graph.getSource(edge);
+        int v = graph.getTarget(edge);
+        for (int l = 1; l <= levels; l++) {
+            int cell = partition.getCell(l, u);
+            if (cell == partition.getCell(l, v)) {
+                dirty[l - 1][cell] = true;
+                anyDirty = true;
+            }
+        }
+    }
+
+    // recomputes the cliques of every dirty cell; queries call this automatically
+    public void customize() {
+        if (!anyDirty) return;
+        long start = System.nanoTime();
+        int customized = 0;
+        for (int l = 1; l <= levels; l++) {
+            boolean[] levelDirty = dirty[l - 1];
+            int[] pending = IntStream.range(0, levelDirty.length).filter(c -> levelDirty[c]).toArray();
+            int level = l;
+            Arrays.stream(pending).parallel().forEach(c -> cliques[level - 1][c] = customizeCell(level, c));
+            for (int c : pending) levelDirty[c] = false;
+            customized += pending.length;
+        }
+        anyDirty = false;
+        lastCustomizedCells = customized;
+        lastCustomizationNanos = System.nanoTime() - start;
+    }
+
+    // boundary-to-boundary costs of one cell; only reads lower-level cliques and the graph
+    private double[] customizeCell(int level, int cell) {
+        int k = partition.getBoundaryCount(level, cell);
+        int size = partition.getCellSize(level, cell);
+        double[] clique = new double[k * k];
+        double[] local = new double[size];
+        IndexedMinHeap queue = new IndexedMinHeap(size);
+
+        for (int i = 0; i < k; i++) {
+            Arrays.fill(local, Double.POSITIVE_INFINITY);
+            int source = partition.getBoundaryNode(level, cell, i);
+            local[partition.getCellPosition(level, source)] = 0.0;
+            queue.insertOrDecrease(partition.getCellPosition(level, source), 0.0);
+
+            while (!queue.isEmpty()) {
+                int slot = queue.pollMin();
+                int node = partition.getCellNode(level, cell, slot);
+                double cost = local[slot];
+
+                int subcell = -1;
+                if (level > 1) {
+                    // overlay node: jump across its subcell's clique
+                    subcell = partition.getCell(level - 1, node);
+                    int from = partition.getBoundaryIndex(level - 1, node);
+                    int ks = partition.getBoundaryCount(level - 1, subcell);
+                    double[] sub = cliques[level - 2][subcell];
+                    for (int j = 0; j < ks; j++) {
+                        int next = partition.getBoundaryNode(level - 1, subcell, j);
+                        relaxLocal(local, queue, partition.getCellPosition(level, next), cost + sub[from * ks + j]);
+                    }
+                }
+                for (int e = graph.firstEdge(node), last = graph.endEdge(node); e < last; e++) {
+                    int next = graph.getTarget(e);
+                    if (partition.getCell(level, next) != cell) continue;
+                    if (level > 1 && partition.getCell(level - 1, next) == subcell) continue; // covered by the clique
+                    relaxLocal(local, queue, partition.getCellPosition(level, next), cost + edgeWeight.weight(e));
+                }
+            }
+
+            for (int j = 0; j < k; j++) {
+                clique[i * k + j] = local[partition.getCellPosition(level, partition.getBoundaryNode(level, cell, j))];
+            }
+        }
+        return clique;
+    }
+
+    private static void relaxLocal(double[] local, IndexedMinHeap queue, int slot, double cost) {
+        if (cost < local[slot]) {
+            local[slot] = cost;
+            queue.insertOrDecrease(slot, cost);
+        }
+    }
+
+    public List<String> findPath(String startId, String endId) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return new ArrayList<>();
+        }
+        customize();
+
+        try {
+            search(start, end);
+            if (!settled[end]) {
+                return new ArrayList<>(); // Return empty list if no path found
+            }
+            return buildPath(end);
+        } finally {
+            reset();
+        }
+    }
+
+    private void search(int start, int end) {
+        lastSettledCount = 0;
+        touch(start);
+        costs[start] = 0.0;
+        heap.insertOrDecrease(start, 0.0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            settled[current] = true;
+            lastSettledCount++;
+            if (current == end) break;
+
+            double cost = costs[current];
+            int level = queryLevel(current, start, end);
+            int boundary = level > 0 ? partition.getBoundaryIndex(level, current) : -1;
+            if (boundary < 0) {
+                // inside the start or end cell: plain road relaxation
+                for (int e = graph.firstEdge(current), last = graph.endEdge(current); e < last; e++) {
+                    relax(current, graph.getTarget(e), cost + edgeWeight.weight(e), 0);
+                }
+                continue;
+            }
+
+            int cell = partition.getCell(level, current);
+            // a node that was itself reached across this clique cannot improve on it
+            if (parentLevel[current] != level || partition.getCell(level, parent[current]) != cell) {
+                int k = partition.getBoundaryCount(level, cell);
+                double[] clique = cliques[level - 1][cell];
+                for (int j = 0; j < k; j++) {
+                    if (j == boundary) continue;
+                    relax(current, partition.getBoundaryNode(level, cell, j), cost + clique[boundary * k + j], level);
+                }
+            }
+            for (int e = graph.firstEdge(current), last = graph.endEdge(current); e < last; e++) {
+                int next = graph.getTarget(e);
+                if (partition.getCell(level, next) != cell) {
+                    relax(current, next, cost + edgeWeight.weight(e), 0);
+                }
+            }
+        }
+    }
+
+    // highest level on which node's cell contains neither start nor end (0 if none)
+    private int queryLevel(int node, int start, int end) {
+        for (int l = levels; l >= 1; l--) {
+            int cell = partition.getCell(l, node);
+            if (cell != partition.getCell(l, start) && cell != partition.getCell(l, end)) return l;
+        }
+        return 0;
+    }
+
+    private void relax(int from, int to, double cost, int level) {
+        if (settled[to] || !(cost < costs[to])) return;
+        if (costs[to] == Double.POSITIVE_INFINITY) touch(to);
+        costs[to] = cost;
+        parent[to] = from;
+        parentLevel[to] = level;
+        heap.insertOrDecrease(to, cost);
+    }
+
+    private List<String> buildPath(int end) {
+        List<String> reversed = new ArrayList<>();
+        int at = end;
+        while (parent[at] >= 0) {
+            if (parentLevel[at] == 0) {
+                reversed.add(graph.getNodeId(at));
+            } else {
+                List<Integer> inside = pathInCell(parent[at], at, parentLevel[at]);
+                for (int i = inside.size() - 1; i >= 1; i--) {
+                    reversed.add(graph.getNodeId(inside.get(i)));
+                }
+            }
+            at = parent[at];
+        }
+        reversed.add(graph.getNodeId(at));
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    // cheapest road path from one boundary node to another within their shared level-l cell
+    private List<Integer> pathInCell(int from, int to, int level) {
+        int cell = partition.getCell(level, from);
+        int size = partition.getCellSize(level, cell);
+        double[] local = new double[size];
+        int[] previous = new int[size];
+        Arrays.fill(local, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        IndexedMinHeap queue = new IndexedMinHeap(size);
+        int target = partition.getCellPosition(level, to);
+        local[partition.getCellPosition(level, from)] = 0.0;
+        queue.insertOrDecrease(partition.getCellPosition(level, from), 0.0);
+
+        while (!queue.isEmpty()) {
+            int slot = queue.pollMin();
+            if (slot == target) break;
+            int node = partition.getCellNode(level, cell, slot);
+            for (int e = graph.firstEdge(node), last = graph.endEdge(node); e < last; e++) {
+                int next = graph.getTarget(e);
+                if (partition.getCell(level, next) != cell) continue;
+                int nextSlot = partition.getCellPosition(level, next);
+                double cost = local[slot] + edgeWeight.weight(e);
+                if (cost < local[nextSlot]) {
+                    local[nextSlot] = cost;
+                    previous[nextSlot] = slot;
+                    queue.insertOrDecrease(nextSlot, cost);
+                }
+            }
+        }
+
+        List<Integer> path = new ArrayList<>();
+        for (int slot = target; slot >= 0; slot = previous[slot]) {
+            path.add(partition.getCellNode(level, cell, slot));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void touch(int node) {
+        touched[touchedCount++] = node;
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            costs[node] = Double.POSITIVE_INFINITY;
+            parent[node] = -1;
+            settled[node] = false;
+        }
+        touchedCount = 0;
+        heap.clear();
+    }
+}
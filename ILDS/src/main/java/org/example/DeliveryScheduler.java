@@ -3,19 +3,38 @@ package org.example;
 import org.example.Location;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.time.format.DateTimeFormatter;
+import java.util.function.Predicate;
 
+// Deliveries may be added from any thread, including while a schedule is being built: the intake
+// queue is a PriorityBlockingQueue and the per-vehicle schedules are synchronized lists.
+// scheduleDeliveries and scheduleDeliveriesInBatches run on the calling thread;
+// scheduleDeliveriesConcurrently assigns with several workers, reserving vehicle capacity by
+// compare-and-set (see Vehicle.tryAssignDelivery) so no vehicle is ever over-committed.
 public class DeliveryScheduler {
-    private PriorityQueue<Delivery> deliveryQueue;
+    private BlockingQueue<Delivery> deliveryQueue;
     private Map<String, Vehicle> availableVehicles;
     private Map<String, List<Delivery>> scheduledDeliveries;
     private LogisticsNetwork logisticsNetwork;
 
+    // vehicles that can still take deliveries, by location; each delivery scores only the
+    // candidateCount nearest of them that can carry it (0 scores the whole fleet)
+    private VehicleIndex vehicleIndex;
+    private int candidateCount = 16;
+    private boolean warnUnassigned = true; // print a warning for each delivery no vehicle can take
+
+    // when set, every delivery, vehicle and assignment change is logged (see WriteAheadLog)
+    private WriteAheadLog writeAheadLog;
+
+    // batch mode adds the network travel time from vehicle to destination to the assignment score
+    private static final double TRAVEL_TIME_WEIGHT = 20.0; // score points per hour
+
     
     public DeliveryScheduler(LogisticsNetwork logisticsNetwork) {
         this.logisticsNetwork = logisticsNetwork;
         // initialize with custom comparator for delivery prioritization
-        this.deliveryQueue = new PriorityQueue<>((d1, d2) -> {
+        this.deliveryQueue = new PriorityBlockingQueue<>(11, (d1, d2) -> {
             int priorityCompare = d2.getPriority().getValue() - d1.getPriority().getValue();
             if (priorityCompare != 0) return priorityCompare;
             
@@ -23,40 +42,297 @@ public class DeliveryScheduler {
             return d1.getDeadline().compareTo(d2.getDeadline());
         });
         
-        this.availableVehicles = new HashMap<>();
-        this.scheduledDeliveries = new HashMap<>();
+        this.availableVehicles = new ConcurrentHashMap<>();
+        this.scheduledDeliveries = new ConcurrentHashMap<>();
+        this.vehicleIndex = new VehicleIndex(logisticsNetwork);
     }
     
     public void addDelivery(Delivery delivery) {
-        deliveryQueue.offer(delivery);
+        WriteAheadLog log = beginChange();
+        try {
+            if (writeAheadLog != null) writeAheadLog.logAddDelivery(delivery);
+            deliveryQueue.offer(delivery);
+        } finally {
+            endChange(log);
+        }
     }
     
     public void addVehicle(Vehicle vehicle) {
-        availableVehicles.put(vehicle.getId(), vehicle);
-        scheduledDeliveries.put(vehicle.getId(), new ArrayList<>());
+        WriteAheadLog log = beginChange();
+        try {
+            if (writeAheadLog != null) writeAheadLog.logAddVehicle(vehicle);
+            availableVehicles.put(vehicle.getId(), vehicle);
+            scheduledDeliveries.put(vehicle.getId(), Collections.synchronizedList(new ArrayList<>()));
+            refreshIndex(vehicle);
+        } finally {
+            endChange(log);
+        }
+    }
+
+    public void setCandidateCount(int candidateCount) {
+        this.candidateCount = candidateCount;
+    }
+
+    // servers and other callers that report unassigned deliveries themselves turn the warnings off
+    public void setWarnUnassigned(boolean warnUnassigned) {
+        this.warnUnassigned = warnUnassigned;
+    }
+
+    // records that a vehicle has moved, so candidate selection sees its new position
+    public void moveVehicle(String vehicleId, Location location) {
+        WriteAheadLog log = beginChange();
+        try {
+            Vehicle vehicle = availableVehicles.get(vehicleId);
+            if (vehicle == null) {
+                System.out.println("Vehicle not found: " + vehicleId);
+                return;
+            }
+            vehicle.moveTo(location);
+            if (writeAheadLog != null) writeAheadLog.logMoveVehicle(vehicleId, location);
+            refreshIndex(vehicle);
+        } finally {
+            endChange(log);
+        }
     }
     
     public Map<String, List<Delivery>> scheduleDeliveries() {
         while (!deliveryQueue.isEmpty()) {
-            Delivery delivery = deliveryQueue.poll();
-            Vehicle bestVehicle = findBestVehicle(delivery);
-            
-            if (bestVehicle != null) {
-                bestVehicle.assignDelivery(delivery);
-                scheduledDeliveries.get(bestVehicle.getId()).add(delivery);
-            } else {
-                System.out.println("Warning: Could not assign delivery " + delivery.getId() + 
-                                 " - No suitable vehicle available");
+            WriteAheadLog log = beginChange();
+            try {
+                Delivery delivery = deliveryQueue.poll();
+                Vehicle bestVehicle = findBestVehicle(delivery);
+
+                if (bestVehicle != null) {
+                    bestVehicle.assignDelivery(delivery);
+                    schedule(bestVehicle, delivery);
+                    if (!bestVehicle.isAvailable()) vehicleIndex.remove(bestVehicle);
+                } else {
+                    drop(delivery);
+                }
+            } finally {
+                endChange(log);
             }
         }
         return scheduledDeliveries;
     }
     
+    // concurrent mode: worker threads take deliveries from the queue in priority order and each
+    // reserves capacity on the best-scoring candidate vehicle that still has room, moving on to
+    // the next candidate when another worker filled it first. Returns once the queue is empty;
+    // deliveries added later wait for the next call.
+    public Map<String, List<Delivery>> scheduleDeliveriesConcurrently(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("Worker count must be positive: " + workers);
+        // the network builds its routing graph lazily and unsynchronized, so the workers share
+        // one built here; submitting them publishes it safely
+        NetworkSnapshot graph = logisticsNetwork.getRoutingEngine().getGraph();
+        List<Future<?>> running = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(workers)) {
+            for (int i = 0; i < workers; i++) {
+                running.add(pool.submit(() -> drainQueue(graph)));
+            }
+        }
+        for (Future<?> worker : running) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Scheduling worker failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while scheduling", e);
+            }
+        }
+        return scheduledDeliveries;
+    }
+
+    private void drainQueue(NetworkSnapshot graph) {
+        while (true) {
+            WriteAheadLog log = beginChange();
+            try {
+                Delivery delivery = deliveryQueue.poll();
+                if (delivery == null) return;
+                if (!reserveBestVehicle(delivery, graph)) {
+                    drop(delivery);
+                }
+            } finally {
+                endChange(log);
+            }
+        }
+    }
+
+    private boolean reserveBestVehicle(Delivery delivery, NetworkSnapshot graph) {
+        while (true) {
+            List<Vehicle> ranked = new ArrayList<>();
+            for (Vehicle vehicle : candidatesFor(delivery, graph)) {
+                if (vehicle.canAcceptDelivery(delivery)) ranked.add(vehicle);
+            }
+            if (ranked.isEmpty()) return false;
+            Map<Vehicle, Double> scores = new HashMap<>();
+            for (Vehicle vehicle : ranked) scores.put(vehicle, calculateAssignmentScore(vehicle, delivery));
+            ranked.sort(Comparator.comparingDouble(scores::get)); // stable: nearest first on ties
+
+            for (Vehicle vehicle : ranked) {
+                if (vehicle.tryAssignDelivery(delivery)) {
+                    schedule(vehicle, delivery);
+                    if (!vehicle.isAvailable()) vehicleIndex.remove(vehicle);
+                    return true;
+                }
+            }
+            // every candidate filled up under us; their loads only grow, so this terminates
+        }
+    }
+
+    // batch mode: takes up to batchSize deliveries at a time from the queue and assigns each
+    // priority tier of the batch (HIGH first) with a min-cost assignment over the candidate
+    // vehicles, scored by calculateAssignmentScore plus travel time. A vehicle takes at most one
+    // delivery per assignment round; rounds repeat, with capacities and scores updated, until
+    // every delivery of the tier is placed or none of the rest fits any vehicle.
+    public Map<String, List<Delivery>> scheduleDeliveriesInBatches(int batchSize, AssignmentSolver.Method method) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        while (!deliveryQueue.isEmpty()) {
+            // a batch is one change: its deliveries are off the queue until all are placed
+            WriteAheadLog log = beginChange();
+            try {
+                List<Delivery> batch = new ArrayList<>();
+                while (batch.size() < batchSize && !deliveryQueue.isEmpty()) {
+                    batch.add(deliveryQueue.poll());
+                }
+                Delivery.DeliveryPriority[] tiers = Delivery.DeliveryPriority.values();
+                for (int t = tiers.length - 1; t >= 0; t--) {
+                    List<Delivery> tier = new ArrayList<>();
+                    for (Delivery delivery : batch) {
+                        if (delivery.getPriority() == tiers[t]) tier.add(delivery);
+                    }
+                    while (!tier.isEmpty()) {
+                        tier = assignRound(tier, method);
+                    }
+                }
+            } finally {
+                endChange(log);
+            }
+        }
+        return scheduledDeliveries;
+    }
+
+    // one assignment round; returns the deliveries still waiting for a vehicle
+    private List<Delivery> assignRound(List<Delivery> pending, AssignmentSolver.Method method) {
+        Map<Vehicle, Integer> columnOf = new HashMap<>();
+        List<Vehicle> columns = new ArrayList<>();
+        int[][] candidates = new int[pending.size()][];
+        double[][] costs = new double[pending.size()][];
+        for (int i = 0; i < pending.size(); i++) {
+            Delivery delivery = pending.get(i);
+            List<Vehicle> options = new ArrayList<>();
+            double[] travel;
+            if (candidateCount > 0) {
+                options = vehicleIndex.nearest(delivery.getDestinationId(), candidateCount,
+                        vehicle -> vehicle.canAcceptDelivery(delivery));
+            }
+            if (!options.isEmpty()) {
+                travel = new double[options.size()];
+                for (int k = 0; k < travel.length; k++) travel[k] = vehicleIndex.getLastCost(k);
+            } else {
+                // same fallback as findBestVehicle: the whole fleet, without a travel term
+                for (Vehicle vehicle : availableVehicles.values()) {
+                    if (vehicle.canAcceptDelivery(delivery)) options.add(vehicle);
+                }
+                travel = new double[options.size()];
+            }
+            candidates[i] = new int[options.size()];
+            costs[i] = new double[options.size()];
+            for (int k = 0; k < options.size(); k++) {
+                Vehicle vehicle = options.get(k);
+                Integer column = columnOf.get(vehicle);
+                if (column == null) {
+                    column = columns.size();
+                    columnOf.put(vehicle, column);
+                    columns.add(vehicle);
+                }
+                candidates[i][k] = column;
+                costs[i][k] = calculateAssignmentScore(vehicle, delivery) + TRAVEL_TIME_WEIGHT * travel[k];
+            }
+        }
+
+        int[] assignment = AssignmentSolver.solve(method, columns.size(), candidates, costs);
+        boolean progress = Arrays.stream(assignment).anyMatch(column -> column >= 0);
+        List<Delivery> waiting = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            Delivery delivery = pending.get(i);
+            if (assignment[i] >= 0) {
+                Vehicle vehicle = columns.get(assignment[i]);
+                vehicle.assignDelivery(delivery);
+                schedule(vehicle, delivery);
+                if (!vehicle.isAvailable()) vehicleIndex.remove(vehicle);
+            } else if (candidates[i].length == 0 || !progress) {
+                drop(delivery);
+            } else {
+                waiting.add(delivery); // lost its vehicles to other deliveries this round
+            }
+        }
+        return waiting;
+    }
+
+    // reorders and rebalances the scheduled deliveries to cut total travel time (see RouteImprover);
+    // deadlines are measured from now. The run stops at the time budget, so how far it gets depends
+    // on machine speed; the same seed gives the same sequence of moves up to that point
+    public Map<String, List<Delivery>> improveSchedule(long timeBudgetMillis, long seed) {
+        if (timeBudgetMillis < 1) throw new IllegalArgumentException("Time budget must be positive: " + timeBudgetMillis);
+        return improveSchedule(timeBudgetMillis, Long.MAX_VALUE, seed);
+    }
+
+    // as above, but also stops after maxIterations LNS iterations; timeBudgetMillis 0 means no time
+    // limit, in which case the same seed and schedule always give the same result
+    public Map<String, List<Delivery>> improveSchedule(long timeBudgetMillis, long maxIterations, long seed) {
+        if (timeBudgetMillis < 0) throw new IllegalArgumentException("Time budget cannot be negative: " + timeBudgetMillis);
+        if (maxIterations < 1) throw new IllegalArgumentException("Iteration limit must be positive: " + maxIterations);
+        if (timeBudgetMillis == 0 && maxIterations == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Needs a time budget or an iteration limit");
+        }
+        List<Vehicle> vehicles = new ArrayList<>(availableVehicles.values());
+        vehicles.sort(Comparator.comparing(Vehicle::getId));
+        RouteImprover improver = new RouteImprover(logisticsNetwork, timeBudgetMillis, seed);
+        improver.setMaxIterations(maxIterations);
+        Map<String, List<Delivery>> improved = improver.improve(vehicles, scheduledDeliveries, LocalDateTime.now());
+        WriteAheadLog log = beginChange();
+        try {
+            for (Vehicle vehicle : vehicles) {
+                List<Delivery> route = improved.get(vehicle.getId());
+                vehicle.reassignDeliveries(route);
+                scheduledDeliveries.put(vehicle.getId(), Collections.synchronizedList(new ArrayList<>(route)));
+                if (writeAheadLog != null) writeAheadLog.logReschedule(vehicle.getId(), route);
+                refreshIndex(vehicle);
+            }
+        } finally {
+            endChange(log);
+        }
+        System.out.printf("Schedule improved: travel time %.2f -> %.2f hours in %d LNS iterations%n",
+                improver.getInitialTravelTime(), improver.getTravelTime(), improver.getIterations());
+        return scheduledDeliveries;
+    }
+
+    // nearest candidates first, so equal scores go to the closer vehicle; falls back to the
+    // whole fleet when none can reach the destination
+    private Collection<Vehicle> candidatesFor(Delivery delivery) {
+        return candidatesFor(delivery, null);
+    }
+
+    // graph null searches the network's current routing graph
+    private Collection<Vehicle> candidatesFor(Delivery delivery, NetworkSnapshot graph) {
+        if (candidateCount > 0) {
+            Predicate<Vehicle> fits = vehicle -> vehicle.canAcceptDelivery(delivery);
+            List<Vehicle> nearest = graph == null
+                    ? vehicleIndex.nearest(delivery.getDestinationId(), candidateCount, fits)
+                    : vehicleIndex.nearest(graph, delivery.getDestinationId(), candidateCount, fits);
+            if (!nearest.isEmpty()) return nearest;
+        }
+        return availableVehicles.values();
+    }
+
     private Vehicle findBestVehicle(Delivery delivery) {
+        Collection<Vehicle> candidates = candidatesFor(delivery);
         Vehicle bestVehicle = null;
         double bestScore = Double.MAX_VALUE;
         
-        for (Vehicle vehicle : availableVehicles.values()) {
+        for (Vehicle vehicle : candidates) {
             if (vehicle.canAcceptDelivery(delivery)) {
                 double score = calculateAssignmentScore(vehicle, delivery);
                 if (score < bestScore) {
@@ -67,6 +343,73 @@ public class DeliveryScheduler {
         }
         return bestVehicle;
     }
+
+    // a delivery left the queue without a vehicle
+    private void drop(Delivery delivery) {
+        if (writeAheadLog != null) writeAheadLog.logDrop(delivery.getId());
+        if (warnUnassigned) {
+            System.out.println("Warning: Could not assign delivery " + delivery.getId() +
+                             " - No suitable vehicle available");
+        }
+    }
+
+    // appends to the vehicle's schedule once its capacity is reserved
+    private void schedule(Vehicle vehicle, Delivery delivery) {
+        scheduledDeliveries.get(vehicle.getId()).add(delivery);
+        if (writeAheadLog != null) writeAheadLog.logAssignment(vehicle.getId(), delivery.getId());
+    }
+
+    void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    // keeps WriteAheadLog.checkpoint() out until the change and its records are done
+    private WriteAheadLog beginChange() {
+        WriteAheadLog log = writeAheadLog;
+        if (log != null) log.beginChange();
+        return log;
+    }
+
+    private static void endChange(WriteAheadLog log) {
+        if (log != null) log.endChange();
+    }
+
+    // replaces the fleet, schedules and queue with recovered ones; loads follow the schedules
+    void restore(Collection<Vehicle> vehicles, Map<String, List<Delivery>> schedules, Collection<Delivery> pending) {
+        availableVehicles.clear();
+        scheduledDeliveries.clear();
+        deliveryQueue.clear();
+        vehicleIndex = new VehicleIndex(logisticsNetwork);
+        for (Vehicle vehicle : vehicles) {
+            List<Delivery> schedule = schedules.getOrDefault(vehicle.getId(), List.of());
+            vehicle.reassignDeliveries(schedule);
+            availableVehicles.put(vehicle.getId(), vehicle);
+            scheduledDeliveries.put(vehicle.getId(), Collections.synchronizedList(new ArrayList<>(schedule)));
+            refreshIndex(vehicle);
+        }
+        deliveryQueue.addAll(pending);
+    }
+
+    Collection<Vehicle> getVehicles() {
+        return availableVehicles.values();
+    }
+
+    public Map<String, List<Delivery>> getScheduledDeliveries() {
+        return Collections.unmodifiableMap(scheduledDeliveries);
+    }
+
+    // deliveries still waiting in the queue, in no particular order
+    public List<Delivery> getPendingDeliveries() {
+        return new ArrayList<>(deliveryQueue);
+    }
+
+    private void refreshIndex(Vehicle vehicle) {
+        if (vehicle.isAvailable()) {
+            vehicleIndex.add(vehicle);
+        } else {
+            vehicleIndex.remove(vehicle);
+        }
+    }
     
     private double calculateAssignmentScore(Vehicle vehicle, Delivery delivery) {
         // Lower score is better
@@ -115,7 +458,17 @@ public class DeliveryScheduler {
                 //     "ID", "Load", "Destination", "Deadline", "Est.Time", "Priority");
                 System.out.printf("%-6s %-8s %-12s %-25s %-8s %-10s %-30s%n", 
                     "ID", "Load", "Destination", "Deadline", "Est.Time", "Priority", "Route");
+
+                // all of this vehicle's legs in one batch: leg i runs from legStarts[i] to stop i
+                List<String> legStarts = new ArrayList<>();
+                List<String> stops = new ArrayList<>();
                 String currentLocation = vehicle.getCurrentLocation().getId();
+                for (Delivery d : deliveries) {
+                    legStarts.add(currentLocation);
+                    stops.add(d.getDestinationId());
+                    currentLocation = d.getDestinationId();
+                }
+                DistanceMatrix legs = logisticsNetwork.computeDistanceMatrix(legStarts, stops, false, true);
 
 
                 System.out.println("--------------------------------------------------------------------------------");
@@ -123,7 +476,7 @@ public class DeliveryScheduler {
 
                 for (int i = 0; i < deliveries.size(); i++) {
                     Delivery d = deliveries.get(i);
-                    List<String> route = logisticsNetwork.findPath(currentLocation, d.getDestinationId(), false);
+                    List<String> route = legs.getPath(i, i);
                     String routeStr = String.join(" > ", route);
 
                     // calculate actual travel time using the network
@@ -144,7 +497,6 @@ public class DeliveryScheduler {
                         travelTime,
                         d.getPriority(),
                         routeStr);
-                    currentLocation = d.getDestinationId();
 
                 }
             }
@@ -0,0 +1,182 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Source x target shortest-path costs over a NetworkSnapshot.
+// Runs one Dijkstra per source that stops as soon as every target is settled; the sources are
+// searched in parallel on a fork-join pool, each worker thread reusing its own search arrays.
+// Optionally keeps each source's predecessor edges so the paths can be rebuilt with getPath.
+// Unreachable pairs and unknown ids have cost +infinity.
+public class DistanceMatrix {
+    private final NetworkSnapshot graph;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[][] costs;        // [source][target]
+    private final int[][] predecessors;    // [source][node] -> edge used to reach node, -1 for none; null if not kept
+    private final long settledCount;
+
+    private DistanceMatrix(NetworkSnapshot graph, int[] sources, int[] targets, double[][] costs,
+                           int[][] predecessors, long settledCount) {
+        this.graph = graph;
+        this.sources = sources;
+        this.targets = targets;
+        this.costs = costs;
+        this.predecessors = predecessors;
+        this.settledCount = settledCount;
+    }
+
+    public static DistanceMatrix compute(NetworkSnapshot graph, List<String> sourceIds, List<String> targetIds,
+                                         RoutingEngine.EdgeWeight edgeWeight, boolean keepPredecessors) {
+        return compute(graph, sourceIds, targetIds, edgeWeight, keepPredecessors, ForkJoinPool.commonPool());
+    }
+
+    public static DistanceMatrix compute(NetworkSnapshot graph, List<String> sourceIds, List<String> targetIds,
+                                         RoutingEngine.EdgeWeight edgeWeight, boolean keepPredecessors,
+                                         ForkJoinPool pool) {
+        int[] sources = new int[sourceIds.size()];
+        for (int i = 0; i < sources.length; i++) sources[i] = graph.indexOf(sourceIds.get(i));
+        int[] targets = new int[targetIds.size()];
+        boolean[] isTarget = new boolean[graph.getNodeCount()];
+        int distinctTargets = 0;
+        for (int j = 0; j < targets.length; j++) {
+            targets[j] = graph.indexOf(targetIds.get(j));
+            if (targets[j] >= 0 && !isTarget[targets[j]]) {
+                isTarget[targets[j]] = true;
+                distinctTargets++;
+            }
+        }
+
+        double[][] costs = new double[sources.length][];
+        int[][] predecessors = keepPredecessors ? new int[sources.length][] : null;
+        long[] settled = new long[sources.length];
+        int targetCount = distinctTargets;
+        ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(graph.getNodeCount()));
+
+        pool.submit(() -> IntStream.range(0, sources.length).parallel().forEach(i -> {
+            double[] row = new double[targets.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            costs[i] = row;
+            if (sources[i] < 0) return;
+
+            Search search = searches.get();
+            settled[i] = search.run(graph, sources[i], edgeWeight, isTarget, targetCount);
+            for (int j = 0; j < targets.length; j++) {
+                if (targets[j] >= 0) row[j] = search.costOf(targets[j]);
+            }
+            if (keepPredecessors) predecessors[i] = search.copyPredecessors();
+            search.reset();
+        })).join();
+
+        return new DistanceMatrix(graph, sources, targets, costs, predecessors, Arrays.stream(settled).sum());
+    }
+
+    public int getSourceCount() { return sources.length; }
+
+    public int getTargetCount() { return targets.length; }
+
+    public double getCost(int source, int target) { return costs[source][target]; }
+
+    // the matrix itself, [source][target]; not copied
+    public double[][] getCosts() { return costs; }
+
+    public boolean hasPredecessors() { return predecessors != null; }
+
+    // nodes settled over all the searches that built this matrix
+    public long getSettledCount() { return settledCount; }
+
+    // location ids along the cheapest path, or an empty list if there is none
+    public List<String> getPath(int source, int target) {
+        if (predecessors == null) {
+            throw new IllegalStateException("Distance matrix was computed without predecessors");
+        }
+        if (costs[source][target] == Double.POSITIVE_INFINITY) {
+            return new ArrayList<>();
+        }
+        int[] previousEdge = predecessors[source];
+        ArrayList<String> path = new ArrayList<>();
+        path.add(graph.getNodeId(targets[target]));
+        for (int edge = previousEdge[targets[target]]; edge >= 0; edge = previousEdge[graph.getSource(edge)]) {
+            path.add(graph.getNodeId(graph.getSource(edge)));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // one worker thread's Dijkstra state, reset through the touched list between sources
+    private static final class Search {
+        private final double[] distances;
+        private final int[] previousEdge;
+        private final boolean[] settled;
+        private final int[] touched;
+        private int touchedCount;
+        private final IndexedMinHeap heap;
+
+        Search(int nodeCount) {
+            distances = new double[nodeCount];
+            previousEdge = new int[nodeCount];
+            settled = new boolean[nodeCount];
+            touched = new int[nodeCount];
+            heap = new IndexedMinHeap(nodeCount);
+            Arrays.fill(distances, Double.MAX_VALUE);
+            Arrays.fill(previousEdge, -1);
+        }
+
+        // returns the number of nodes settled
+        int run(NetworkSnapshot graph, int source, RoutingEngine.EdgeWeight edgeWeight,
+                boolean[] isTarget, int targetCount) {
+            int remaining = targetCount;
+            int settledCount = 0;
+            touched[touchedCount++] = source;
+            distances[source] = 0.0;
+            heap.insertOrDecrease(source, 0.0);
+
+            while (!heap.isEmpty() && remaining > 0) {
+                int current = heap.pollMin();
+                settled[current] = true;
+                settledCount++;
+                if (isTarget[current]) remaining--;
+
+                double currentDistance = distances[current];
+                for (int edge = graph.firstEdge(current), last = graph.endEdge(current); edge < last; edge++) {
+                    int neighbor = graph.getTarget(edge);
+                    if (settled[neighbor]) continue;
+                    double newDistance = currentDistance + edgeWeight.weight(edge);
+                    if (newDistance < distances[neighbor]) {
+                        if (distances[neighbor] == Double.MAX_VALUE) touched[touchedCount++] = neighbor;
+                        distances[neighbor] = newDistance;
+                        previousEdge[neighbor] = edge;
+                        heap.insertOrDecrease(neighbor, newDistance);
+                    }
+                }
+            }
+            return settledCount;
+        }
+
+        double costOf(int node) {
+            return settled[node] ? distances[node] : Double.POSITIVE_INFINITY;
+        }
+
+        int[] copyPredecessors() {
+            int[] copy = new int[previousEdge.length];
+            Arrays.fill(copy, -1);
+            for (int i = 0; i < touchedCount; i++) {
+                int node = touched[i];
+                if (settled[node]) copy[node] = previousEdge[node];
+            }
+            return copy;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                int node = touched[i];
+                distances[node] = Double.MAX_VALUE;
+                previousEdge[node] = -1;
+                settled[node] = false;
+            }
+            touchedCount = 0;
+            heap.clear();
+        }
+    }
+}
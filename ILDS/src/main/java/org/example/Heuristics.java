@@ -0,0 +1,61 @@
+package org.example;
+
+// Lower-bound estimates of the remaining cost to a target, used by A* in RoutingEngine.
+// Road distances are taken to be kilometres that are never shorter than the straight line
+// between their endpoints, which makes the great-circle estimates consistent as well as
+// admissible: RoutingEngine never re-opens a settled node, so it needs both. On a snapshot
+// where any location lacks coordinates they fall back to none() for every query, since an
+// estimate of 0 at some nodes next to real estimates at their neighbours is not consistent.
+public final class Heuristics {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private Heuristics() {
+    }
+
+    // Dijkstra: no estimate
+    public static RoutingEngine.Heuristic none() {
+        return node -> 0.0;
+    }
+
+    // distance mode: great-circle kilometres to the target
+    public static RoutingEngine.Heuristic greatCircle(NetworkSnapshot graph, int target) {
+        return scaledGreatCircle(graph, target, 1.0);
+    }
+
+    // travel-time mode: great-circle distance covered at the fastest speed / congestion ratio in the graph
+    public static RoutingEngine.Heuristic travelTime(NetworkSnapshot graph, int target) {
+        double maxSpeed = graph.getMaxEffectiveSpeed();
+        return maxSpeed > 0 ? scaledGreatCircle(graph, target, 1.0 / maxSpeed) : none();
+    }
+
+    // adaptive mode: the predicted congestion is 0.7 * current + 0.3 * historical, so it is at
+    // least 0.7 times the smallest current congestion factor (historical readings are non-negative)
+    public static RoutingEngine.Heuristic adaptive(NetworkSnapshot graph, int target) {
+        return scaledGreatCircle(graph, target, 0.7 * Math.max(graph.getMinCongestion(), 0.0));
+    }
+
+    // multiplies another lower bound by a factor no larger than the ratio between the two metrics
+    public static RoutingEngine.Heuristic scaled(RoutingEngine.Heuristic heuristic, double factor) {
+        if (factor <= 0.0) return none();
+        return node -> heuristic.estimate(node) * factor;
+    }
+
+    private static RoutingEngine.Heuristic scaledGreatCircle(NetworkSnapshot graph, int target, double scale) {
+        if (!graph.hasAllCoordinates() || scale == 0.0) {
+            return none();
+        }
+        double targetLat = graph.getLatitude(target);
+        double targetLon = graph.getLongitude(target);
+        return node -> greatCircleKm(graph.getLatitude(node), graph.getLongitude(node), targetLat, targetLon) * scale;
+    }
+
+    // haversine distance between two coordinates in kilometres
+    public static double greatCircleKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Binary min-heap over int node ids 0..capacity-1 with decrease-key support.
+// pos[node] holds the node's slot in the heap array, or -1 when the node is not queued,
+// so contains/decreaseKey are O(1) lookups instead of a linear search.
+public class IndexedMinHeap {
+    private int[] heap;      // heap slot -> node
+    private int[] pos;       // node -> heap slot (-1 if absent)
+    private double[] keys;   // node -> current key
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[Math.max(capacity, 1)];
+        this.pos = new int[Math.max(capacity, 1)];
+        this.keys = new double[Math.max(capacity, 1)];
+        Arrays.fill(pos, -1);
+    }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int size() { return size; }
+
+    public boolean contains(int node) { return pos[node] >= 0; }
+
+    public double minKey() { return keys[heap[0]]; }
+
+    public double keyOf(int node) { return keys[node]; }
+
+    // inserts the node, or lowers its key if it is already queued with a larger one
+    public void insertOrDecrease(int node, double key) {
+        int slot = pos[node];
+        if (slot < 0) {
+            heap[size] = node;
+            pos[node] = size;
+            keys[node] = key;
+            siftUp(size++);
+        } else if (key < keys[node]) {
+            keys[node] = key;
+            siftUp(slot);
+        }
+    }
+
+    // inserts the node, or moves it to the new key in either direction
+    public void update(int node, double key) {
+        int slot = pos[node];
+        if (slot < 0) {
+            insertOrDecrease(node, key);
+        } else if (key < keys[node]) {
+            keys[node] = key;
+            siftUp(slot);
+        } else if (key > keys[node]) {
+            keys[node] = key;
+            siftDown(slot);
+        }
+    }
+
+    // takes the node out of the heap if it is queued
+    public void remove(int node) {
+        int slot = pos[node];
+        if (slot < 0) return;
+        pos[node] = -1;
+        size--;
+        if (slot == size) return;
+        int last = heap[size];
+        heap[slot] = last;
+        pos[last] = slot;
+        siftUp(slot);
+        siftDown(pos[last]);
+    }
+
+    public int pollMin() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    // empties the heap in O(size) so the arrays can be reused by the next query
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        double key = keys[node];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentNode = heap[parent];
+            if (keys[parentNode] <= key) break;
+            heap[slot] = parentNode;
+            pos[parentNode] = slot;
+            slot = parent;
+        }
+        heap[slot] = node;
+        pos[node] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        double key = keys[node];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (key <= keys[heap[child]]) break;
+            heap[slot] = heap[child];
+            pos[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = node;
+        pos[node] = slot;
+    }
+}
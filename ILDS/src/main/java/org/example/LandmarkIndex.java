@@ -0,0 +1,190 @@
+package org.example;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// ALT (A*, Landmarks, Triangle inequality) preprocessing for one edge metric.
+// For every landmark L it stores d(L, v) and d(v, L) for all nodes v; by the triangle inequality
+//   d(v, t) >= d(L, t) - d(L, v)   and   d(v, t) >= d(v, L) - d(t, L)
+// so the largest of these over all landmarks is a consistent A* heuristic.
+//
+// Landmarks are picked by farthest-point selection, taking hubs first for up to half of them.
+// Tables stay valid while weights only grow, so updates are handled per landmark:
+// a decrease is pushed through the affected tables immediately, and a large increase on an edge
+// that lies on a landmark's shortest-path tree marks that landmark stale. Stale landmarks are
+// recomputed in parallel the next time a heuristic is requested.
+public class LandmarkIndex {
+    private final NetworkSnapshot graph;
+    private final RoutingEngine.EdgeWeight edgeWeight;
+    private final double rebuildThreshold; // relative weight increase that triggers a rebuild
+
+    private final int[] landmarks;
+    private final double[][] fromLandmark; // [l][v] = d(L, v)
+    private final double[][] toLandmark;   // [l][v] = d(v, L)
+    private final boolean[] stale;
+    private int rebuildCount;
+    private IndexedMinHeap repairQueue; // reused by propagateDecrease
+
+    private LandmarkIndex(NetworkSnapshot graph, RoutingEngine.EdgeWeight edgeWeight, double rebuildThreshold,
+                          int[] landmarks, double[][] fromLandmark, double[][] toLandmark) {
+        this.graph = graph;
+        this.edgeWeight = edgeWeight;
+        this.rebuildThreshold = rebuildThreshold;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+        this.stale = new boolean[landmarks.length];
+    }
+
+    public static LandmarkIndex build(NetworkSnapshot graph, RoutingEngine.EdgeWeight edgeWeight,
+                                      int landmarkCount, double rebuildThreshold) {
+        int n = graph.getNodeCount();
+        int count = Math.min(landmarkCount, n);
+        int[] landmarks = new int[count];
+        double[][] fromLandmark = new double[count][];
+
+        // farthest-point selection; each pick needs the previous picks' forward tables
+        double[] closest = new double[n];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        int hubQuota = count / 2;
+        for (int l = 0; l < count; l++) {
+            int next = l == 0 ? firstLandmark(graph) : farthest(graph, closest, l < hubQuota);
+            landmarks[l] = next;
+            fromLandmark[l] = RoutingEngine.shortestDistances(graph, next, edgeWeight, false);
+            for (int v = 0; v < n; v++) {
+                closest[v] = Math.min(closest[v], fromLandmark[l][v]);
+            }
+        }
+
+        double[][] toLandmark = new double[count][];
+        IntStream.range(0, count).parallel().forEach(l ->
+                toLandmark[l] = RoutingEngine.shortestDistances(graph, landmarks[l], edgeWeight, true));
+
+        return new LandmarkIndex(graph, edgeWeight, rebuildThreshold, landmarks, fromLandmark, toLandmark);
+    }
+
+    private static int firstLandmark(NetworkSnapshot graph) {
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            if (graph.isHub(v)) return v;
+        }
+        return 0;
+    }
+
+    // node furthest from every landmark chosen so far, restricted to hubs when preferHubs is set
+    // and any hub is left; nodes not reached from any landmark are picked first
+    private static int farthest(NetworkSnapshot graph, double[] closest, boolean preferHubs) {
+        int best = -1;
+        int bestHub = -1;
+        for (int v = 0; v < closest.length; v++) {
+            if (closest[v] == 0.0) continue; // already a landmark
+            if (best < 0 || closest[v] > closest[best]) best = v;
+            if (graph.isHub(v) && (bestHub < 0 || closest[v] > closest[bestHub])) bestHub = v;
+        }
+        if (preferHubs && bestHub >= 0) return bestHub;
+        return best < 0 ? 0 : best;
+    }
+
+    public int getLandmarkCount() { return landmarks.length; }
+
+    public String getLandmarkId(int l) { return graph.getNodeId(landmarks[l]); }
+
+    // number of single-landmark rebuilds done since the index was built
+    public int getRebuildCount() { return rebuildCount; }
+
+    // heuristic towards target; recomputes stale landmarks first
+    public RoutingEngine.Heuristic heuristic(int target) {
+        refreshStaleLandmarks();
+        int count = landmarks.length;
+        double[] targetFrom = new double[count];
+        double[] targetTo = new double[count];
+        for (int l = 0; l < count; l++) {
+            targetFrom[l] = fromLandmark[l][target];
+            targetTo[l] = toLandmark[l][target];
+        }
+
+        return node -> {
+            double best = 0.0;
+            for (int l = 0; l < count; l++) {
+                double forward = targetFrom[l] - fromLandmark[l][node];
+                double backward = toLandmark[l][node] - targetTo[l];
+                // infinite entries carry no bound (inf - inf is NaN, and NaN > best is false)
+                if (forward > best && forward != Double.POSITIVE_INFINITY) best = forward;
+                if (backward > best && backward != Double.POSITIVE_INFINITY) best = backward;
+            }
+            return best;
+        };
+    }
+
+    // lower bound on d(from, to) from the landmarks that are up to date (stale tables miss later
+    // decreases); stale landmarks are only recomputed once they are more than half of them, so
+    // frequent callers do not pay for a rebuild after every increase. 0 when no landmark applies.
+    public double lowerBound(int from, int to) {
+        int staleCount = 0;
+        for (boolean s : stale) {
+            if (s) staleCount++;
+        }
+        if (2 * staleCount > landmarks.length) refreshStaleLandmarks();
+        double best = 0.0;
+        for (int l = 0; l < landmarks.length; l++) {
+            if (stale[l]) continue;
+            double forward = fromLandmark[l][to] - fromLandmark[l][from];
+            double backward = toLandmark[l][from] - toLandmark[l][to];
+            if (forward > best && forward != Double.POSITIVE_INFINITY) best = forward;
+            if (backward > best && backward != Double.POSITIVE_INFINITY) best = backward;
+        }
+        return best;
+    }
+
+    // called after the graph's weight for edge has changed from oldWeight to newWeight
+    public void onEdgeUpdated(int edge, double oldWeight, double newWeight) {
+        if (newWeight == oldWeight) return;
+        int u = graph.getSource(edge);
+        int v = graph.getTarget(edge);
+        boolean bigIncrease = newWeight > oldWeight && (newWeight - oldWeight) > rebuildThreshold * oldWeight;
+
+        for (int l = 0; l < landmarks.length; l++) {
+            if (stale[l]) continue;
+            double[] from = fromLandmark[l];
+            double[] to = toLandmark[l];
+
+            if (newWeight < oldWeight) {
+                if (from[u] + newWeight < from[v]) {
+                    from[v] = from[u] + newWeight;
+                    propagateDecrease(from, v, false);
+                }
+                if (to[v] + newWeight < to[u]) {
+                    to[u] = to[v] + newWeight;
+                    propagateDecrease(to, u, true);
+                }
+            } else if (bigIncrease && (isTight(from[u] + oldWeight, from[v]) || isTight(to[v] + oldWeight, to[u]))) {
+                // still admissible, but the bounds through this edge are now too weak to be useful
+                stale[l] = true;
+            }
+        }
+    }
+
+    private static boolean isTight(double viaEdge, double current) {
+        return current != Double.POSITIVE_INFINITY && Math.abs(viaEdge - current) <= 1e-9 * Math.max(1.0, current);
+    }
+
+    private void propagateDecrease(double[] table, int start, boolean backward) {
+        if (repairQueue == null) {
+            repairQueue = new IndexedMinHeap(graph.getNodeCount());
+        }
+        repairQueue.insertOrDecrease(start, table[start]);
+        RoutingEngine.relaxAll(graph, edgeWeight, backward, table, repairQueue);
+    }
+
+    private void refreshStaleLandmarks() {
+        int[] pending = IntStream.range(0, landmarks.length).filter(l -> stale[l]).toArray();
+        if (pending.length == 0) return;
+        Arrays.stream(pending).parallel().forEach(l -> {
+            fromLandmark[l] = RoutingEngine.shortestDistances(graph, landmarks[l], edgeWeight, false);
+            toLandmark[l] = RoutingEngine.shortestDistances(graph, landmarks[l], edgeWeight, true);
+        });
+        for (int l : pending) {
+            stale[l] = false;
+        }
+        rebuildCount += pending.length;
+    }
+}
@@ -5,11 +5,19 @@ public class Location {
     private String id;
     private String name;
     private boolean isHub;    // true if Node is Hub and false if node is customer location
+    private double latitude;  // degrees, NaN when the location has no coordinates
+    private double longitude; // degrees, NaN when the location has no coordinates
 
     public Location(String id, String name, boolean isHub) {
+        this(id, name, isHub, Double.NaN, Double.NaN);
+    }
+
+    public Location(String id, String name, boolean isHub, double latitude, double longitude) {
         this.id = id;
         this.name = name;
         this.isHub = isHub;
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 
     // Getters and setters
@@ -20,4 +28,20 @@ public class Location {
     public String getName() {
         return name;
     }
+
+    public boolean isHub() {
+        return isHub;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
 }
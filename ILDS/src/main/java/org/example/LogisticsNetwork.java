@@ -1,9 +1,23 @@
 package org.example;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
 import java.time.*;
 
 public class LogisticsNetwork {
 
+    // search strategy used by findPath and findAdaptiveRoute
+    public enum SearchMode {
+        DIJKSTRA,
+        BIDIRECTIONAL, // Dijkstra from both ends at once over the reverse edge index
+        ASTAR,    // goal-directed by great-circle distance; needs location coordinates to help
+        ALT,      // goal-directed by precomputed landmark distances (see LandmarkIndex)
+        CH,       // contraction hierarchy query; for static metrics, not findAdaptiveRoute
+        CRP       // customizable route planning; cheap to keep current as weights change
+    }
+
     // LocationID = key, Location = value      ["H1": ("H1", "Hub1", true), "L1": ("L1", "Location1", False).....]
     private Map<String, Location> locations; // Nodes of the graph : O(V)
 
@@ -18,25 +32,88 @@ public class LogisticsNetwork {
     //          )]
     private Map<String, Set<Road>> adjacencyList; // Adjacency list for edges O(V + E)
 
+    // secondary indexes kept in step with adjacencyList so lookups never scan it
+    // RoadID = key, Road = value, covering each road and its "_reverse" twin   ["R1": (...), "R1_reverse": (...)]
+    private Map<String, Road> roadsById;
+    // source LocationID -> destination LocationID -> roads between them (parallel roads are rare)
+    private Map<String, Map<String, List<Road>>> roadsBetween;
+    // destination LocationID -> roads arriving there, so removeLocation only touches its own roads
+    private Map<String, Set<Road>> incomingRoads;
+
     private CongestionPredictor congestionPredictor;
 
+    // CSR copy of the network used for routing, rebuilt lazily after the topology changes;
+    // updateRoad patches its weights in place
+    private NetworkSnapshot routingGraph;
+    private RoutingEngine routingEngine;
+
+    // ALT landmark tables per metric, built on first ALT query and kept in step by updateRoad
+    private LandmarkIndex distanceLandmarks;
+    private LandmarkIndex travelTimeLandmarks;
+    private int landmarkCount = 8;
+    private double landmarkRebuildThreshold = 0.25;
+
+    // contraction hierarchies per metric, built on first CH query and dropped when that
+    // metric's weight changes
+    private ContractionHierarchy distanceHierarchy;
+    private ContractionHierarchy travelTimeHierarchy;
+
+    // customizable route planning: one topology partition shared by per-metric customizations;
+    // updateRoad marks the affected cells, which are re-customized on the next CRP query
+    private static final int[] PARTITION_CELL_SIZES = {128, 2048, 32768};
+    private CellPartition cellPartition;
+    private CustomizableRoutePlanner distancePlanner;
+    private CustomizableRoutePlanner travelTimePlanner;
+    private Map<Integer, CustomizableRoutePlanner> adaptivePlanners = new HashMap<>(); // by hour
+
+    // per-hour travel-time profiles for time-dependent routing, sampled from the congestion
+    // predictor on first use; updateRoad re-samples the road's edge
+    private TimeDependentRouter timeDependentRouter;
+
+    // optional cache of findPath / findAdaptiveRoute results; every change to the network bumps
+    // version, and roads that change or disappear drop the cached routes they could affect
+    private RouteCache routeCache;
+    private long version;
+    // roads shorter than the great-circle distance between their ends (e.g. lengths in miles);
+    // while there are any, invalidateShortcuts cannot bound routes by straight-line distance
+    private int shorterThanStraightLine;
+
+    // traffic history recorded since the network last took it in (see applyHistory): road id ->
+    // hours of day whose history changed (bits 0-23) and hours whose predicted congestion fell
+    // (bits 32-55). Filled by whichever threads record history, drained by the network's owner.
+    private final Map<String, Long> pendingHistory = new ConcurrentHashMap<>();
+
+    // when set, every successful change to locations and roads is logged (see WriteAheadLog)
+    private WriteAheadLog writeAheadLog;
 
     public LogisticsNetwork() {
         this.locations = new HashMap<>();
         this.adjacencyList = new HashMap<>();
+        this.roadsById = new HashMap<>();
+        this.roadsBetween = new HashMap<>();
+        this.incomingRoads = new HashMap<>();
         this.congestionPredictor = new CongestionPredictor();
+        congestionPredictor.setHistoryListener(this::onHistoryRecorded);
     }
 
 
     // adds a new location (node) to the network
     public void addLocation(Location location) {
-        if (locations.containsKey(location.getId())) {
-            System.out.println("Location already exists: " + location.getId());
-            return;
-        }
-        locations.put(location.getId(), location);
-        adjacencyList.put(location.getId(), new HashSet<>());
+        WriteAheadLog log = beginChange();
+        try {
+            if (locations.containsKey(location.getId())) {
+                System.out.println("Location already exists: " + location.getId());
+                return;
+            }
+            locations.put(location.getId(), location);
+            adjacencyList.put(location.getId(), new HashSet<>());
+            incomingRoads.put(location.getId(), new HashSet<>());
+            invalidateRoutingGraph();
+            if (writeAheadLog != null) writeAheadLog.logAddLocation(location);
 //        System.out.println("Node " + location.getId() + " added to adjacency list");
+        } finally {
+            endChange(log);
+        }
     }
 
     public Location getLocation(String locationId) {
@@ -50,60 +127,397 @@ public class LogisticsNetwork {
 
     // removes a location (node) and its associated roads
     public void removeLocation(String locationId) {
-        if (!locations.containsKey(locationId)) {
-            System.out.println("Location not found: " + locationId);
-            return;
-        }
-        locations.remove(locationId);
-        adjacencyList.remove(locationId);
+        WriteAheadLog log = beginChange();
+        try {
+            if (!locations.containsKey(locationId)) {
+                System.out.println("Location not found: " + locationId);
+                return;
+            }
+            // removes roads connected to this location
+            for (Road road : new ArrayList<>(adjacencyList.get(locationId))) {
+                unindexRoad(road);
+            }
+            for (Road road : new ArrayList<>(incomingRoads.get(locationId))) {
+                unindexRoad(road);
+            }
 
-        // removes roads connected to this location
-        for (Set<Road> roads : adjacencyList.values()) {
-            roads.removeIf(road -> road.getSource().getId().equals(locationId) || road.getDestination().getId().equals(locationId));
-        }
+            locations.remove(locationId);
+            adjacencyList.remove(locationId);
+            incomingRoads.remove(locationId);
+            roadsBetween.remove(locationId);
+            invalidateRoutingGraph();
+            if (writeAheadLog != null) writeAheadLog.logRemoveLocation(locationId);
 //        System.out.println("Node " + locationId + " removed from adjacency list");
+        } finally {
+            endChange(log);
+        }
     }
 
     // adds a new road (edge) to the network
     public void addRoad(Road road) {
-        if (road == null) throw new IllegalArgumentException("Road cannot be null");
-        String sourceId = road.getSource().getId();
-        String destinationId = road.getDestination().getId();
+        WriteAheadLog log = beginChange();
+        try {
+            if (road == null) throw new IllegalArgumentException("Road cannot be null");
+            String sourceId = road.getSource().getId();
+            String destinationId = road.getDestination().getId();
+
+            if (!locations.containsKey(sourceId) || !locations.containsKey(destinationId)) {
+                System.out.println("Source or destination location not found");
+                return;
+            }
+            String reverseId = road.getId() + "_reverse";
+            if (roadsById.containsKey(road.getId()) || roadsById.containsKey(reverseId)) {
+                System.out.println("Road already exists: " + road.getId());
+                return;
+            }
 
-        if (!locations.containsKey(sourceId) || !locations.containsKey(destinationId)) {
-            System.out.println("Source or destination location not found");
-            return;
+            indexRoad(road);
+
+            // For undirected graph, add reverse edge
+            Road reverseRoad = new Road(reverseId, road.getDestination(), road.getSource(), road.getDistance());
+            reverseRoad.setAverageSpeed(road.getAverageSpeed());
+            reverseRoad.setCurrentCongestion(road.getCurrentCongestion());
+            indexRoad(reverseRoad);
+            if (routeCache != null) {
+                invalidateShortcuts(List.of(new RoadChange(road, null), new RoadChange(reverseRoad, null)));
+            }
+            invalidateRoutingGraph();
+            if (writeAheadLog != null) writeAheadLog.logAddRoad(road);
+        } finally {
+            endChange(log);
         }
+    }
 
-        adjacencyList.get(sourceId).add(road);
+    public Road getRoad(String roadId) {
+        Road road = roadsById.get(roadId);
+        if (road == null) {
+            throw new IllegalArgumentException("Road not found: " + roadId);
+        }
+        return road;
+    }
 
-        // For undirected graph, add reverse edge
-        Road reverseRoad = new Road(road.getId() + "_reverse", road.getDestination(), road.getSource(), road.getDistance());
-        reverseRoad.setAverageSpeed(road.getAverageSpeed());
-        reverseRoad.setCurrentCongestion(road.getCurrentCongestion());
-        adjacencyList.get(destinationId).add(reverseRoad);
+    // fastest road leading directly from sourceId to destinationId, or null if they are not adjacent
+    public Road getBestRoad(String sourceId, String destinationId) {
+        Map<String, List<Road>> fromSource = roadsBetween.get(sourceId);
+        List<Road> roads = fromSource == null ? null : fromSource.get(destinationId);
+        if (roads == null) {
+            return null;
+        }
+        Road best = null;
+        for (Road road : roads) {
+            if (best == null || road.getTravelTime() < best.getTravelTime()) {
+                best = road;
+            }
+        }
+        return best;
     }
 
     // removes a road (edge) from the network
     public void removeRoad(String roadId) {
-        for (Set<Road> roads : adjacencyList.values()) {
-            roads.removeIf(road -> road.getId().equals(roadId));
+        WriteAheadLog log = beginChange();
+        try {
+            Road road = roadsById.get(roadId);
+            if (road == null) {
+                return;
+            }
+            unindexRoad(road);
+            invalidateRoutingGraph();
+            if (writeAheadLog != null) writeAheadLog.logRemoveRoad(roadId);
+        } finally {
+            endChange(log);
         }
     }
 
     // updates the attributes of an existing road
     public void updateRoad(String roadId, double newDistance, double newCongestion, double newSpeed) {
-        for (Set<Road> roads : adjacencyList.values()) {
-            for (Road road : roads) {
-                if (road.getId().equals(roadId)) {
-                    road.setDistance(newDistance);
-                    road.setCurrentCongestion(newCongestion);
-                    road.setAverageSpeed(newSpeed);
-                    return;
+        WriteAheadLog log = beginChange();
+        try {
+            Road road = roadsById.get(roadId);
+            if (road == null) {
+                System.out.println("Road not found: " + roadId);
+                return;
+            }
+            applyHistory();
+            RoadChange change = patchRoad(road, newDistance, newCongestion, newSpeed);
+            version++;
+            if (change != null) invalidateShortcuts(List.of(change));
+            if (writeAheadLog != null) writeAheadLog.logUpdateRoad(roadId, newDistance, newCongestion, newSpeed);
+        } finally {
+            endChange(log);
+        }
+    }
+
+    // sets the road's attributes and patches the routing graph and everything derived from it;
+    // returns what invalidateShortcuts needs when a route cache is attached, else null
+    private RoadChange patchRoad(Road road, double newDistance, double newCongestion, double newSpeed) {
+        String roadId = road.getId();
+        Road before = null;
+        if (routeCache != null) {
+            before = new Road(road.getId(), road.getSource(), road.getDestination(), road.getDistance());
+            before.setCurrentCongestion(road.getCurrentCongestion());
+            before.setAverageSpeed(road.getAverageSpeed());
+        }
+        if (isShorterThanStraightLine(road)) shorterThanStraightLine--;
+        road.assign(newDistance, newCongestion, newSpeed);
+        if (isShorterThanStraightLine(road)) shorterThanStraightLine++;
+        if (routingGraph != null) {
+            int edge = routingGraph.indexOfRoad(roadId);
+            if (edge >= 0) {
+                double oldDistance = routingGraph.getDistance(edge);
+                double oldTime = routingGraph.getTravelTime(edge);
+                routingGraph.updateEdge(edge, newDistance, newCongestion, newSpeed);
+                if (distanceLandmarks != null) {
+                    distanceLandmarks.onEdgeUpdated(edge, oldDistance, newDistance);
+                }
+                if (travelTimeLandmarks != null) {
+                    travelTimeLandmarks.onEdgeUpdated(edge, oldTime, routingGraph.getTravelTime(edge));
+                }
+                if (oldDistance != newDistance) distanceHierarchy = null;
+                if (oldTime != routingGraph.getTravelTime(edge)) travelTimeHierarchy = null;
+                if (distancePlanner != null && oldDistance != newDistance) distancePlanner.onEdgeUpdated(edge);
+                if (travelTimePlanner != null && oldTime != routingGraph.getTravelTime(edge)) {
+                    travelTimePlanner.onEdgeUpdated(edge);
+                }
+                for (CustomizableRoutePlanner planner : adaptivePlanners.values()) {
+                    planner.onEdgeUpdated(edge);
+                }
+                if (timeDependentRouter != null) timeDependentRouter.getProfiles().onEdgeUpdated(edge);
+                congestionPredictor.onEdgeUpdated(routingGraph, edge);
+            }
+        }
+        if (routeCache == null) return null;
+        routeCache.invalidateRoad(roadId);
+        return new RoadChange(road, before);
+    }
+
+    // a road that is new (previous null) or whose weights changed, as invalidateShortcuts sees it;
+    // adaptive costs are computed per hour on first use, since most hours have no cached routes
+    private final class RoadChange {
+        final Road road;
+        final Road previous;
+        final boolean distanceDropped;
+        final boolean timeDropped;
+        private final double[] adaptive = new double[24];
+        private final byte[] adaptiveState = new byte[24]; // 0 unknown, 1 dropped, 2 not dropped
+
+        RoadChange(Road road, Road previous) {
+            this.road = road;
+            this.previous = previous;
+            this.distanceDropped = previous == null || road.getDistance() < previous.getDistance();
+            this.timeDropped = previous == null || road.getTravelTime() < previous.getTravelTime();
+        }
+
+        // a road whose traffic history lowered its adaptive cost in the hours set in droppedHours
+        RoadChange(Road road, long droppedHours) {
+            this.road = road;
+            this.previous = road;
+            this.distanceDropped = false;
+            this.timeDropped = false;
+            for (int hour = 0; hour < 24; hour++) {
+                if ((droppedHours >>> hour & 1) != 0) {
+                    adaptive[hour] = congestionPredictor.adjustedCost(road, hour);
+                    adaptiveState[hour] = 1;
+                } else {
+                    adaptiveState[hour] = 2;
                 }
             }
         }
-        System.out.println("Road not found: " + roadId);
+
+        boolean adaptiveDropped(int hour) {
+            if (adaptiveState[hour] == 0) {
+                adaptive[hour] = congestionPredictor.adjustedCost(road, hour);
+                boolean dropped = previous == null || adaptive[hour] < congestionPredictor.adjustedCost(previous, hour);
+                adaptiveState[hour] = (byte) (dropped ? 1 : 2);
+            }
+            return adaptiveState[hour] == 1;
+        }
+
+        double adaptiveCost(int hour) {
+            adaptiveDropped(hour);
+            return adaptive[hour];
+        }
+    }
+
+    // bound evaluations one invalidateShortcuts pass may spend per metric (cached routes x changed
+    // roads); beyond it the metric's cached routes are dropped outright
+    private static final long SHORTCUT_CHECK_BUDGET = 4_000_000;
+
+    // drops cached routes the changed roads may now beat, in one pass over the cache: for each
+    // metric whose weight on a road is new or lower than before, those whose cost exceeds a lower
+    // bound on the best route through the road. The bounds to and from the road are great-circle
+    // distances (see Heuristics) and, for a road already in the routing graph, the ALT landmark
+    // bounds. Great-circle distances only bound routes whose roads are at least that long, in
+    // kilometres; while any road is shorter, only the landmark bounds are used, so a road new to
+    // the graph drops every cached route of the metrics it improves.
+    private void invalidateShortcuts(List<RoadChange> changes) {
+        boolean straightLine = shorterThanStraightLine == 0;
+        List<Shortcut> all = new ArrayList<>();
+        List<Shortcut> distance = new ArrayList<>();
+        List<Shortcut> time = new ArrayList<>();
+        for (RoadChange change : changes) {
+            boolean inGraph = change.previous != null && routingGraph != null
+                    && routingGraph.indexOfRoad(change.road.getId()) >= 0;
+            Shortcut shortcut = new Shortcut(change, inGraph);
+            all.add(shortcut);
+            if (change.distanceDropped) distance.add(shortcut);
+            if (change.timeDropped) time.add(shortcut);
+        }
+        // built on first use: roads whose adaptive cost dropped, per hour, and the landmark indexes
+        List<List<Shortcut>> adaptive = new ArrayList<>(Collections.nCopies(24, null));
+        LandmarkIndex[] landmarkIndexes = new LandmarkIndex[2]; // distance, travel time
+        long maxCandidates = SHORTCUT_CHECK_BUDGET / Math.max(1, routeCache.size());
+        routeCache.invalidateIf(route -> {
+            String metric = route.getMetric();
+            int hour = route.getHourBucket();
+            List<Shortcut> candidates;
+            if (metric.equals(RouteCache.DISTANCE)) {
+                candidates = distance;
+            } else if (metric.equals(RouteCache.TIME)) {
+                candidates = time;
+            } else {
+                candidates = adaptive.get(hour);
+                if (candidates == null) {
+                    candidates = new ArrayList<>();
+                    for (Shortcut shortcut : all) {
+                        if (shortcut.change.adaptiveDropped(hour)) candidates.add(shortcut);
+                    }
+                    adaptive.set(hour, candidates);
+                }
+            }
+            if (candidates.isEmpty()) return false;
+            if (candidates.size() > maxCandidates) return true;
+            Location start = locations.get(route.getStartId());
+            Location end = locations.get(route.getEndId());
+            for (Shortcut shortcut : candidates) {
+                Road road = shortcut.change.road;
+                double weight;
+                double scale;
+                boolean useDistance = true;
+                double landmarkScale = 1.0;
+                if (metric.equals(RouteCache.DISTANCE)) {
+                    weight = road.getDistance();
+                    scale = 1.0;
+                } else if (metric.equals(RouteCache.TIME)) {
+                    weight = road.getTravelTime();
+                    scale = shortcut.timeScale;
+                    useDistance = false;
+                } else {
+                    weight = shortcut.change.adaptiveCost(hour);
+                    scale = shortcut.adaptiveScale;
+                    landmarkScale = shortcut.adaptiveScale; // as in findAdaptiveRoute's ALT mode
+                }
+                double before = straightLine ? scale * straightLineKm(start, road.getSource()) : 0.0;
+                double after = straightLine ? scale * straightLineKm(road.getDestination(), end) : 0.0;
+                int startNode = shortcut.inGraph ? routingGraph.indexOf(route.getStartId()) : -1;
+                int endNode = shortcut.inGraph ? routingGraph.indexOf(route.getEndId()) : -1;
+                if (startNode >= 0 && endNode >= 0) {
+                    int slot = useDistance ? 0 : 1;
+                    if (landmarkIndexes[slot] == null) landmarkIndexes[slot] = getLandmarks(useDistance);
+                    LandmarkIndex landmarks = landmarkIndexes[slot];
+                    before = Math.max(before, landmarkScale * landmarks.lowerBound(startNode, shortcut.sourceNode));
+                    after = Math.max(after, landmarkScale * landmarks.lowerBound(shortcut.targetNode, endNode));
+                }
+                if (weight + before + after < route.getCost()) return true;
+            }
+            return false;
+        });
+    }
+
+    // a changed road with the bound factors invalidateShortcuts applies to it
+    private final class Shortcut {
+        final RoadChange change;
+        final boolean inGraph;
+        final int sourceNode;
+        final int targetNode;
+        final double timeScale;     // least hours per straight-line kilometre; 0 where unknown
+        final double adaptiveScale; // least adaptive cost per straight-line kilometre
+
+        Shortcut(RoadChange change, boolean inGraph) {
+            this.change = change;
+            this.inGraph = inGraph;
+            Road road = change.road;
+            this.sourceNode = inGraph ? routingGraph.indexOf(road.getSource().getId()) : -1;
+            this.targetNode = inGraph ? routingGraph.indexOf(road.getDestination().getId()) : -1;
+            if (routingGraph != null && routingGraph.getMaxEffectiveSpeed() > 0) {
+                double maxSpeed = Math.max(routingGraph.getMaxEffectiveSpeed(), road.getAverageSpeed() / road.getCurrentCongestion());
+                this.timeScale = 1.0 / maxSpeed;
+                this.adaptiveScale = 0.7 * Math.max(0.0, Math.min(routingGraph.getMinCongestion(), road.getCurrentCongestion()));
+            } else {
+                this.timeScale = 0.0;
+                this.adaptiveScale = 0.0;
+            }
+        }
+    }
+
+    private static boolean isShorterThanStraightLine(Road road) {
+        // with a little slack for rounding in the stored lengths
+        return road.getDistance() < straightLineKm(road.getSource(), road.getDestination()) * (1 - 1e-9);
+    }
+
+    private static double straightLineKm(Location from, Location to) {
+        if (from == null || to == null || !from.hasCoordinates() || !to.hasCoordinates()) return 0.0;
+        return Heuristics.greatCircleKm(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+
+    // sets the current congestion of many roads in one call, keeping their distance and speed;
+    // unknown road ids are skipped. The roads are patched first, then the version is bumped once
+    // and the route cache is checked against all of them in a single pass.
+    public void updateCongestions(Map<String, Double> congestionByRoad) {
+        WriteAheadLog log = beginChange();
+        try {
+            applyHistory();
+            List<RoadChange> changes = new ArrayList<>();
+            boolean updated = false;
+            for (Map.Entry<String, Double> entry : congestionByRoad.entrySet()) {
+                Road road = roadsById.get(entry.getKey());
+                if (road == null) continue;
+                RoadChange change = patchRoad(road, road.getDistance(), entry.getValue(), road.getAverageSpeed());
+                if (change != null) changes.add(change);
+                updated = true;
+                if (writeAheadLog != null) {
+                    writeAheadLog.logUpdateRoad(road.getId(), road.getDistance(), entry.getValue(), road.getAverageSpeed());
+                }
+            }
+            if (updated) version++;
+            if (!changes.isEmpty()) invalidateShortcuts(changes);
+        } finally {
+            endChange(log);
+        }
+    }
+
+    // adds a road to the adjacency list and every secondary index
+    private void indexRoad(Road road) {
+        String sourceId = road.getSource().getId();
+        String destinationId = road.getDestination().getId();
+        adjacencyList.get(sourceId).add(road);
+        incomingRoads.get(destinationId).add(road);
+        roadsById.put(road.getId(), road);
+        road.attach(this);
+        if (isShorterThanStraightLine(road)) shorterThanStraightLine++;
+        roadsBetween.computeIfAbsent(sourceId, k -> new HashMap<>())
+                .computeIfAbsent(destinationId, k -> new ArrayList<>(1))
+                .add(road);
+    }
+
+    // removes a road from the adjacency list and every secondary index
+    private void unindexRoad(Road road) {
+        // removing a road can only make routes that used it worse
+        if (routeCache != null) routeCache.invalidateRoad(road.getId());
+        String sourceId = road.getSource().getId();
+        String destinationId = road.getDestination().getId();
+        adjacencyList.get(sourceId).remove(road);
+        incomingRoads.get(destinationId).remove(road);
+        roadsById.remove(road.getId());
+        road.attach(null);
+        if (isShorterThanStraightLine(road)) shorterThanStraightLine--;
+
+        Map<String, List<Road>> fromSource = roadsBetween.get(sourceId);
+        List<Road> parallel = fromSource.get(destinationId);
+        parallel.remove(road);
+        if (parallel.isEmpty()) {
+            fromSource.remove(destinationId);
+            if (fromSource.isEmpty()) roadsBetween.remove(sourceId);
+        }
     }
 
     // retrives all roads connected to a location
@@ -193,265 +607,423 @@ public class LogisticsNetwork {
 
 
     public List<String> findPath(String startId, String endId, boolean useDistance) {
+        return findPath(startId, endId, useDistance, SearchMode.DIJKSTRA);
+    }
+
+    public List<String> findPath(String startId, String endId, boolean useDistance, SearchMode mode) {
         if (!locations.containsKey(startId) || !locations.containsKey(endId)) {
             return new ArrayList<>();
         }
+        if (routeCache == null) return searchPath(startId, endId, useDistance, mode);
+        String metric = useDistance ? RouteCache.DISTANCE : RouteCache.TIME;
+        RouteCache.CachedRoute cached = routeCache.get(startId, endId, metric, -1);
+        if (cached != null) return cached.getPath();
+        List<String> path = searchPath(startId, endId, useDistance, mode);
+        NetworkSnapshot graph = getRoutingGraph();
+        cacheRoute(startId, endId, metric, -1, path, graph, useDistance ? graph::getDistance : graph::getTravelTime);
+        return path;
+    }
 
-        // initializing distances and previous nodes
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, String> previousNode = new HashMap<>();
-        Set<String> unvisited = new HashSet<>(locations.keySet());
+    private List<String> searchPath(String startId, String endId, boolean useDistance, SearchMode mode) {
+        RoutingEngine engine = getRoutingEngine();
+        NetworkSnapshot graph = engine.getGraph();
+
+        // whether to use distance or time as cost
+        RoutingEngine.EdgeWeight cost = useDistance ? graph::getDistance : graph::getTravelTime;
+        if (mode == SearchMode.ASTAR) {
+            int target = graph.indexOf(endId);
+            RoutingEngine.Heuristic heuristic = useDistance
+                    ? Heuristics.greatCircle(graph, target)
+                    : Heuristics.travelTime(graph, target);
+            return engine.findPath(startId, endId, cost, heuristic);
+        }
+        if (mode == SearchMode.ALT) {
+            LandmarkIndex landmarks = getLandmarks(useDistance);
+            return engine.findPath(startId, endId, cost, landmarks.heuristic(graph.indexOf(endId)));
+        }
+        if (mode == SearchMode.CH) {
+            return getHierarchy(useDistance).findPath(startId, endId);
+        }
+        if (mode == SearchMode.CRP) {
+            return getRoutePlanner(useDistance).findPath(startId, endId);
+        }
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            return engine.findPathBidirectional(startId, endId, cost);
+        }
+        return engine.findPath(startId, endId, cost);
+    }
 
-        // set initial distances to infinity except start node
-        for (String locationId : locations.keySet()) {
-            distances.put(locationId, Double.MAX_VALUE);
+    // method to find alternative routes avoiding congested areas
+    public List<String> findAdaptiveRoute(String startId, String endId, LocalDateTime time) {
+        return findAdaptiveRoute(startId, endId, time, SearchMode.DIJKSTRA);
+    }
+
+    public List<String> findAdaptiveRoute(String startId, String endId, LocalDateTime time, SearchMode mode) {
+        if (!locations.containsKey(startId) || !locations.containsKey(endId)) {
+            return new ArrayList<>();
         }
-        distances.put(startId, 0.0);
+        applyHistory();
+        if (routeCache == null || mode == SearchMode.CH) return searchAdaptiveRoute(startId, endId, time, mode);
+        RouteCache.CachedRoute cached = routeCache.get(startId, endId, RouteCache.ADAPTIVE, time.getHour());
+        if (cached != null) return cached.getPath();
+        List<String> path = searchAdaptiveRoute(startId, endId, time, mode);
+        NetworkSnapshot graph = getRoutingGraph();
+        cacheRoute(startId, endId, RouteCache.ADAPTIVE, time.getHour(), path, graph,
+                congestionPredictor.adaptiveWeight(graph, time));
+        return path;
+    }
 
+    private List<String> searchAdaptiveRoute(String startId, String endId, LocalDateTime time, SearchMode mode) {
+        RoutingEngine engine = getRoutingEngine();
+        NetworkSnapshot graph = engine.getGraph();
 
-        while (!unvisited.isEmpty()) {
-            // closest unvisited node
-            String current = findClosestNode(unvisited, distances);
+        RoutingEngine.EdgeWeight cost = congestionPredictor.adaptiveWeight(graph, time);
+        if (mode == SearchMode.ASTAR) {
+            return engine.findPath(startId, endId, cost, Heuristics.adaptive(graph, graph.indexOf(endId)));
+        }
+        if (mode == SearchMode.ALT) {
+            // the adaptive cost is at least 0.7 x the smallest congestion factor times the distance
+            RoutingEngine.Heuristic distanceBound = getLandmarks(true).heuristic(graph.indexOf(endId));
+            double factor = 0.7 * graph.getMinCongestion();
+            return engine.findPath(startId, endId, cost, Heuristics.scaled(distanceBound, factor));
+        }
+        if (mode == SearchMode.CH) {
+            throw new IllegalArgumentException("Contraction hierarchies need a static metric; use findPath");
+        }
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            return engine.findPathBidirectional(startId, endId, cost);
+        }
+        if (mode == SearchMode.CRP) {
+            // one customization per hour of day, since the predicted congestion depends on it
+            CustomizableRoutePlanner planner = adaptivePlanners.computeIfAbsent(time.getHour(),
+                    hour -> new CustomizableRoutePlanner(getCellPartition(), cost));
+            return planner.findPath(startId, endId);
+        }
+        return engine.findPath(startId, endId, cost);
+    }
 
-            if (current == null || current.equals(endId)) {
-                break;
+    // serves findPath and findAdaptiveRoute from the cache (null turns caching off); the cache is
+    // cleared, since it cannot know what changed while it was not attached
+    public void setRouteCache(RouteCache routeCache) {
+        applyHistory();
+        if (routeCache != null) routeCache.clear();
+        this.routeCache = routeCache;
+    }
+
+    // runs on the recording thread once the congestion predictor has taken the history in
+    private void onHistoryRecorded(String[] roadIds, int[] hours, boolean[] lowered, int count) {
+        for (int i = 0; i < count; i++) {
+            long bits = (1L << hours[i]) | (lowered[i] ? 1L << (32 + hours[i]) : 0L);
+            pendingHistory.merge(roadIds[i], bits, (a, b) -> a | b);
+        }
+    }
+
+    // takes in the traffic history recorded since the last call, which changes adaptive costs:
+    // bumps the version and drops the cached adaptive routes of each changed hour that use the
+    // road, then those a road whose cost fell may now beat (see invalidateShortcuts)
+    private void applyHistory() {
+        if (pendingHistory.isEmpty()) return;
+        version++;
+        List<RoadChange> lowered = new ArrayList<>();
+        for (String roadId : new ArrayList<>(pendingHistory.keySet())) {
+            Long bits = pendingHistory.remove(roadId);
+            Road road = roadsById.get(roadId);
+            if (bits == null || road == null || routeCache == null) continue;
+            for (int hour = 0; hour < 24; hour++) {
+                if ((bits >>> hour & 1) != 0) routeCache.invalidateRoad(roadId, RouteCache.ADAPTIVE, hour);
             }
+            if (bits >>> 32 != 0) lowered.add(new RoadChange(road, bits >>> 32));
+        }
+        if (!lowered.isEmpty()) invalidateShortcuts(lowered);
+    }
 
-            unvisited.remove(current);
+    void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
 
-            // updateing distances to all neighbors
-            for (Road road : getConnectedRoads(current)) {
-                String neighbor = road.getDestination().getId();
-                if (!unvisited.contains(neighbor)) {
-                    continue;
-                }
+    // keeps WriteAheadLog.checkpoint() out until the change and its record are done
+    private WriteAheadLog beginChange() {
+        WriteAheadLog log = writeAheadLog;
+        if (log != null) log.beginChange();
+        return log;
+    }
 
+    private static void endChange(WriteAheadLog log) {
+        if (log != null) log.endChange();
+    }
 
-                // whether to use distance or time as cost
-                double cost = useDistance ? road.getDistance() : road.getTravelTime();
-                double newDistance = distances.get(current) + cost;
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
 
-                if (newDistance < distances.get(neighbor)) {
-                    distances.put(neighbor, newDistance);
-                    previousNode.put(neighbor, current);
-                }
+    // incremented by every change to the locations, roads or road attributes, and by new traffic history
+    public long getVersion() {
+        applyHistory();
+        return version;
+    }
+
+    // records a route with its cost and the roads it uses (every road between consecutive stops)
+    private void cacheRoute(String startId, String endId, String metric, int hourBucket, List<String> path,
+                            NetworkSnapshot graph, RoutingEngine.EdgeWeight cost) {
+        double total = path.isEmpty() ? Double.POSITIVE_INFINITY : 0.0;
+        List<String> roadIds = new ArrayList<>(path.size());
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int from = graph.indexOf(path.get(i));
+            int to = graph.indexOf(path.get(i + 1));
+            double best = Double.POSITIVE_INFINITY;
+            for (int edge = graph.firstEdge(from), last = graph.endEdge(from); edge < last; edge++) {
+                if (graph.getTarget(edge) != to) continue;
+                best = Math.min(best, cost.weight(edge));
+                roadIds.add(graph.getRoadId(edge));
             }
+            total += best;
         }
-
-        return buildPath(startId, endId, previousNode);
+        routeCache.put(startId, endId, metric, hourBucket, path, total, roadIds, version);
     }
 
-    // method to find alternative routes avoiding congested areas
-    public List<String> findAdaptiveRoute(String startId, String endId, LocalDateTime time) {
+    // earliest-arrival route leaving at departure, with every road costed at the hour the vehicle
+    // reaches it (see TimeDependentRouter); null when there is no route
+    public TimeDependentRouter.Route findTimeDependentRoute(String startId, String endId, LocalDateTime departure) {
         if (!locations.containsKey(startId) || !locations.containsKey(endId)) {
-            return new ArrayList<>();
-        }
-        
-        // initializing data structures for Dijkstra's algorithm
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, String> previousNode = new HashMap<>();
-        Set<String> unvisited = new HashSet<>(locations.keySet());
-        
-        // setting initial distances
-        for (String locationId : locations.keySet()) {
-            distances.put(locationId, Double.MAX_VALUE);
+            return null;
         }
-        distances.put(startId, 0.0);
-
-//        System.out.println("===========================> DEBUG  <===========================");
-//        System.out.println("LocalDateTime: " + time );
-//        System.out.println("================================================================\n");
+        return getTimeDependentRouter().findRoute(startId, endId, departure, true);
+    }
 
+    // the departure in [from, to], tried every step, with the shortest time-dependent trip
+    public TimeDependentRouter.Route findBestDeparture(String startId, String endId, LocalDateTime from,
+                                                       LocalDateTime to, Duration step) {
+        if (!locations.containsKey(startId) || !locations.containsKey(endId)) {
+            return null;
+        }
+        return getTimeDependentRouter().findBestDeparture(startId, endId, from, to, step);
+    }
 
-        while (!unvisited.isEmpty()) {
-            String current = findClosestNode(unvisited, distances);
-            if (current == null || current.equals(endId)) break;
-            
-            unvisited.remove(current);
-            
-            // checking each neighbor
-            for (Road road : getConnectedRoads(current)) {
-                String neighbor = road.getDestination().getId();
-                if (!unvisited.contains(neighbor)) continue;
-                
-                // consider both current congestion and predicted congestion
-                double predictedCongestion = congestionPredictor.predictCongestion(road, time);
-                double adjustedCost = road.getDistance() * predictedCongestion;
-                
-                // if this is likely to be a bottleneck, increase the cost
-                if (congestionPredictor.isLikelyBottleneck(road, time)) {
-                    adjustedCost *= 1.5; // Penalty for potential bottlenecks
-                }
-                
-                double newDistance = distances.get(current) + adjustedCost;
-                if (newDistance < distances.get(neighbor)) {
-                    distances.put(neighbor, newDistance);
-                    previousNode.put(neighbor, current);
-                }
-            }
+    public TimeDependentRouter getTimeDependentRouter() {
+        if (timeDependentRouter == null) {
+            timeDependentRouter = new TimeDependentRouter(TravelTimeProfiles.build(getRoutingGraph(), congestionPredictor));
         }
-        
-        return buildPath(startId, endId, previousNode);
+        return timeDependentRouter;
     }
 
+    // re-samples the travel-time profiles, e.g. after new readings were added to the traffic history
+    public void refreshTravelTimeProfiles() {
+        timeDependentRouter = null;
+    }
 
-    private String findClosestNode(Set<String> unvisited, Map<String, Double> distances) {
-        String closest = null;
-        double minDistance = Double.MAX_VALUE;
+    // cheapest cost from every source to every target, by distance or travel time; one search per
+    // source, run in parallel (see DistanceMatrix). Keep predecessors to rebuild paths with getPath.
+    public DistanceMatrix computeDistanceMatrix(List<String> sources, List<String> targets, boolean useDistance) {
+        return computeDistanceMatrix(sources, targets, useDistance, false);
+    }
 
-        for (String node : unvisited) {
-            double distance = distances.get(node);
-            if (distance < minDistance) {
-                minDistance = distance;
-                closest = node;
-            }
-        }
-        return closest;
+    public DistanceMatrix computeDistanceMatrix(List<String> sources, List<String> targets, boolean useDistance,
+                                                boolean keepPredecessors) {
+        NetworkSnapshot graph = getRoutingGraph();
+        RoutingEngine.EdgeWeight cost = useDistance ? graph::getDistance : graph::getTravelTime;
+        return DistanceMatrix.compute(graph, sources, targets, cost, keepPredecessors);
     }
 
+    // same with the congestion-adjusted cost of findAdaptiveRoute
+    public DistanceMatrix computeAdaptiveDistanceMatrix(List<String> sources, List<String> targets, LocalDateTime time,
+                                                        boolean keepPredecessors) {
+        NetworkSnapshot graph = getRoutingGraph();
+        return DistanceMatrix.compute(graph, sources, targets, congestionPredictor.adaptiveWeight(graph, time),
+                keepPredecessors);
+    }
 
-    private List<String> buildPath(String startId, String endId, Map<String, String> previousNode) {
-        List<String> path = new ArrayList<>();
-        String current = endId;
+    // number of ALT landmarks, and the relative weight increase on a landmark's shortest-path
+    // tree that makes it rebuild; takes effect on the next ALT query
+    public void setLandmarkOptions(int landmarkCount, double rebuildThreshold) {
+        if (landmarkCount < 1) throw new IllegalArgumentException("At least one landmark is required");
+        this.landmarkCount = landmarkCount;
+        this.landmarkRebuildThreshold = rebuildThreshold;
+        distanceLandmarks = null;
+        travelTimeLandmarks = null;
+    }
 
-        while (current != null) {
-            path.add(0, current);
-            if (current.equals(startId)) {
-                return path;
+    public LandmarkIndex getLandmarks(boolean useDistance) {
+        NetworkSnapshot graph = getRoutingGraph();
+        if (useDistance) {
+            if (distanceLandmarks == null) {
+                distanceLandmarks = LandmarkIndex.build(graph, graph::getDistance, landmarkCount, landmarkRebuildThreshold);
             }
-            current = previousNode.get(current);
+            return distanceLandmarks;
+        }
+        if (travelTimeLandmarks == null) {
+            travelTimeLandmarks = LandmarkIndex.build(graph, graph::getTravelTime, landmarkCount, landmarkRebuildThreshold);
         }
+        return travelTimeLandmarks;
+    }
 
-        return new ArrayList<>(); // Return empty list if no path found
+    // compiles the current locations and roads into an immutable CSR snapshot;
+    // later changes to the network are not visible through the returned snapshot
+    public NetworkSnapshot freeze() {
+        return getRoutingGraph().copy();
     }
 
+    // writes the locations and roads to a binary NetworkFile; traffic history is not included
+    public void export(Path path) throws IOException {
+        NetworkFile.write(this, path);
+    }
 
-    public List<String> findOptimalDeliveryRoute(
-            String startId,
-            Map<String, Double> deliveryLoads,
-            Map<String, Double> deadlines,
-            double vehicleCapacity) {
+    // network holding the locations and roads of a NetworkFile. Roads are indexed as stored,
+    // reverse twins included, and the routing graph is taken from the file instead of compiled
+    public static LogisticsNetwork load(Path path) throws IOException {
+        NetworkFile file = NetworkFile.open(path);
+        return fromSnapshot(file.toSnapshot(), file::getName);
+    }
 
-        // Initialize route planning
-        List<String> bestRoute = new ArrayList<>();
-        double[] bestRouteCost = {Double.MAX_VALUE};
-        List<String> deliveryLocations = new ArrayList<>(deliveryLoads.keySet());
+    // network holding the locations and roads of CSV extracts read by NetworkImporter; for inputs
+    // too large for Location and Road objects, use the importer's snapshot or save it as a NetworkFile
+    public static LogisticsNetwork importCsv(Path locationsCsv, Path roadsCsv) throws IOException {
+        NetworkImporter.Result result = new NetworkImporter().importCsv(locationsCsv, roadsCsv);
+        return fromSnapshot(result.getSnapshot(), result::getName);
+    }
 
-        System.out.println("\n\nStarting route optimization:");
-        System.out.println("\tDelivery locations: " + deliveryLocations);
-        System.out.println("\tVehicle capacity: " + vehicleCapacity);
-        System.out.println("\tStarting from: " + startId + "\n");
+    private static LogisticsNetwork fromSnapshot(NetworkSnapshot graph, IntFunction<String> names) {
+        int n = graph.getNodeCount();
+        int m = graph.getEdgeCount();
+        LogisticsNetwork network = new LogisticsNetwork();
+        network.locations = new HashMap<>(n * 2);
+        network.adjacencyList = new HashMap<>(n * 2);
+        network.incomingRoads = new HashMap<>(n * 2);
+        network.roadsBetween = new HashMap<>(n * 2);
+        network.roadsById = new HashMap<>(m * 2);
+
+        Location[] locations = new Location[n];
+        for (int node = 0; node < n; node++) {
+            String id = graph.getNodeId(node);
+            locations[node] = new Location(id, names.apply(node), graph.isHub(node),
+                    graph.getLatitude(node), graph.getLongitude(node));
+            network.locations.put(id, locations[node]);
+            network.adjacencyList.put(id, new HashSet<>());
+            network.incomingRoads.put(id, new HashSet<>());
+        }
+        for (int edge = 0; edge < m; edge++) {
+            Road road = new Road(graph.getRoadId(edge), locations[graph.getSource(edge)],
+                    locations[graph.getTarget(edge)], graph.getDistance(edge));
+            road.setAverageSpeed(graph.getAverageSpeed(edge));
+            road.setCurrentCongestion(graph.getCongestion(edge));
+            network.indexRoad(road);
+        }
+        network.routingGraph = graph;
+        return network;
+    }
 
-        generatePermutations(deliveryLocations, 0, startId, vehicleCapacity,
-                deliveryLoads, deadlines, bestRoute, bestRouteCost);
+    public CongestionPredictor getCongestionPredictor() {
+        return congestionPredictor;
+    }
 
-        if (bestRoute.isEmpty()) {
-            System.out.println("No valid route found. Checking constraints:");
-            // Check total load
-            double totalLoad = deliveryLoads.values().stream().mapToDouble(Double::doubleValue).sum();
-            System.out.println("Total load: " + totalLoad + " / Capacity: " + vehicleCapacity);
+    // engine over the network's own routing graph
+    public RoutingEngine getRoutingEngine() {
+        if (routingEngine == null) {
+            routingEngine = new RoutingEngine(getRoutingGraph());
+        }
+        return routingEngine;
+    }
 
-            // Check connectivity
-            for (String location : deliveryLocations) {
-                List<String> path = findPath(startId, location, false);
-                System.out.println("Path to " + location + ": " + (path.isEmpty() ? "No path found" : "Path exists"));
+    public ContractionHierarchy getHierarchy(boolean useDistance) {
+        NetworkSnapshot graph = getRoutingGraph();
+        if (useDistance) {
+            if (distanceHierarchy == null) {
+                distanceHierarchy = ContractionHierarchy.build(graph, graph::getDistance);
             }
+            return distanceHierarchy;
         }
-        return bestRoute;
+        if (travelTimeHierarchy == null) {
+            travelTimeHierarchy = ContractionHierarchy.build(graph, graph::getTravelTime);
+        }
+        return travelTimeHierarchy;
     }
 
-    private void generatePermutations(
-            List<String> locations,
-            int start,
-            String startId,
-            double vehicleCapacity,
-            Map<String, Double> deliveryLoads,
-            Map<String, Double> deadlines,
-            List<String> bestRoute,
-            double[] bestRouteCost) {
-
-        if (start == locations.size()) {
-            evaluateRoute(locations, startId, vehicleCapacity,
-                    deliveryLoads, deadlines, bestRoute, bestRouteCost);
-            return;
+    public CustomizableRoutePlanner getRoutePlanner(boolean useDistance) {
+        NetworkSnapshot graph = getRoutingGraph();
+        if (useDistance) {
+            if (distancePlanner == null) {
+                distancePlanner = new CustomizableRoutePlanner(getCellPartition(), graph::getDistance);
+            }
+            return distancePlanner;
         }
+        if (travelTimePlanner == null) {
+            travelTimePlanner = new CustomizableRoutePlanner(getCellPartition(), graph::getTravelTime);
+        }
+        return travelTimePlanner;
+    }
 
-        for (int i = start; i < locations.size(); i++) {
-            // Swap elements to create new permutation
-            Collections.swap(locations, start, i);
-
-            System.out.println("Testing permutation: " + locations);
-
-            generatePermutations(locations, start + 1, startId, vehicleCapacity,
-                    deliveryLoads, deadlines, bestRoute, bestRouteCost);
+    private CellPartition getCellPartition() {
+        if (cellPartition == null) {
+            cellPartition = new CellPartition(getRoutingGraph(), PARTITION_CELL_SIZES);
+        }
+        return cellPartition;
+    }
 
-            Collections.swap(locations, start, i);
+    private NetworkSnapshot getRoutingGraph() {
+        if (routingGraph == null) {
+            routingGraph = NetworkSnapshot.build(locations, adjacencyList);
         }
+        return routingGraph;
     }
 
+    private void invalidateRoutingGraph() {
+        version++;
+        routingGraph = null;
+        routingEngine = null;
+        distanceLandmarks = null;
+        travelTimeLandmarks = null;
+        distanceHierarchy = null;
+        travelTimeHierarchy = null;
+        cellPartition = null;
+        distancePlanner = null;
+        travelTimePlanner = null;
+        adaptivePlanners.clear();
+        timeDependentRouter = null;
+    }
 
 
-    private void evaluateRoute(
-            List<String> route,
+    public List<String> findOptimalDeliveryRoute(
             String startId,
-            double vehicleCapacity,
             Map<String, Double> deliveryLoads,
             Map<String, Double> deadlines,
-            List<String> bestRoute,
-            double[] bestRouteCost) {
-
-        double currentLoad = 0;
-        double currentTime = 0;
-        String currentLocation = startId;
-        boolean isValidRoute = true;
-
-        System.out.println("\nEvaluating route: " + route);
-
-        // check if route is feasible
-        for (String nextLocation : route) {
-            // check capacity constraint
-            currentLoad += deliveryLoads.get(nextLocation);
-            if (currentLoad > vehicleCapacity) {
-                System.out.println("Capacity exceeded at " + nextLocation +
-                        ": " + currentLoad + " > " + vehicleCapacity);
-                isValidRoute = false;
-                break;
-            }
-
-            // fastest path to next location
-            List<String> pathToNext = findPath(currentLocation, nextLocation, false);
-            if (pathToNext.isEmpty()) {
-                System.out.println("No path found from " + currentLocation + " to " + nextLocation);
-                isValidRoute = false;
-                break;
-            }
+            double vehicleCapacity) {
+        RouteOptimizer.Mode mode = deliveryLoads.size() <= RouteOptimizer.MAX_HELD_KARP_STOPS
+                ? RouteOptimizer.Mode.HELD_KARP
+                : RouteOptimizer.Mode.BRANCH_AND_BOUND;
+        return findOptimalDeliveryRoute(startId, deliveryLoads, deadlines, vehicleCapacity, mode);
+    }
 
-            // time to reach next location
-            double timeToNext = calculatePathTime(pathToNext);
-            currentTime += timeToNext;
+    // visits every delivery location once, within the vehicle capacity and each location's
+    // deadline (hours from departure), minimising the total travel time; see RouteOptimizer.
+    // Empty when no route meets the constraints
+    public List<String> findOptimalDeliveryRoute(
+            String startId,
+            Map<String, Double> deliveryLoads,
+            Map<String, Double> deadlines,
+            double vehicleCapacity,
+            RouteOptimizer.Mode mode) {
 
-            // deadline constraint
-            if (deadlines.containsKey(nextLocation) && currentTime > deadlines.get(nextLocation)) {
-                System.out.println("Deadline missed at " + nextLocation +
-                        ": " + currentTime + " > " + deadlines.get(nextLocation));
-                isValidRoute = false;
-                break;
-            }
+        // Initialize route planning
+        List<String> bestRoute = new ArrayList<>();
+        List<String> deliveryLocations = new ArrayList<>(deliveryLoads.keySet());
 
-            System.out.println("Reached " + nextLocation +
-                    " at time " + currentTime +
-                    " with load " + currentLoad);
-            currentLocation = nextLocation;
+        // travel time of every leg, computed once: row 0 is startId, row i + 1 is delivery location i
+        List<String> legSources = new ArrayList<>();
+        legSources.add(startId);
+        legSources.addAll(deliveryLocations);
+        double[][] legTimes = computeDistanceMatrix(legSources, deliveryLocations, false).getCosts();
+
+        double[] loads = new double[deliveryLocations.size()];
+        double[] latest = new double[deliveryLocations.size()];
+        for (int i = 0; i < deliveryLocations.size(); i++) {
+            loads[i] = deliveryLoads.get(deliveryLocations.get(i));
+            latest[i] = deadlines.getOrDefault(deliveryLocations.get(i), Double.POSITIVE_INFINITY);
         }
 
-        // best route if this route is valid and better than current best
-        if (isValidRoute && currentTime < bestRouteCost[0]) {
-            bestRouteCost[0] = currentTime;
-            bestRoute.clear();
-            bestRoute.addAll(route);
-            System.out.println("New best route found: " + route +
-                    " with total time: " + currentTime);
+        RouteOptimizer.Solution solution = new RouteOptimizer(legTimes, loads, latest, vehicleCapacity).solve(mode);
+        for (int stop : solution.getOrder()) {
+            bestRoute.add(deliveryLocations.get(stop));
         }
+        return bestRoute;
     }
 
     public double calculatePathTime(List<String> path) {
@@ -461,11 +1033,9 @@ public class LogisticsNetwork {
             String nextId = path.get(i + 1);
 
             // the road connecting these locations
-            for (Road road : getConnectedRoads(currentId)) {
-                if (road.getDestination().getId().equals(nextId)) {
-                    totalTime += road.getTravelTime();
-                    break;
-                }
+            Road road = getBestRoad(currentId, nextId);
+            if (road != null) {
+                totalTime += road.getTravelTime();
             }
         }
         return totalTime;
@@ -175,6 +175,11 @@ public class Main {
 
         double vehicleCapacity = 30.0;  // Maximum vehicle capacity
 
+        System.out.println("\n\nStarting route optimization:");
+        System.out.println("\tDelivery locations: " + deliveryLoads.keySet());
+        System.out.println("\tVehicle capacity: " + vehicleCapacity);
+        System.out.println("\tStarting from: H3\n");
+
         // Find optimal delivery route
         List<String> optimalRoute = network.findOptimalDeliveryRoute(
                 "H3",           // Start from Hub 1
@@ -184,6 +189,9 @@ public class Main {
         );
 
         System.out.println("Optimal delivery route: " + optimalRoute);
+        if (optimalRoute.isEmpty()) {
+            System.out.println("No valid route found; check the total load against the capacity and that every location is reachable");
+        }
 */
 
 
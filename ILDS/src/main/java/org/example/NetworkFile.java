@@ -0,0 +1,343 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+// Versioned binary file holding a road network as the columns of a NetworkSnapshot: the node
+// table (ids, names, hub flags, coordinates), the CSR edges with their reverse index, and the
+// distance, speed and congestion columns.
+//
+// Layout (little-endian): a header of magic, format version, node count, edge count and
+// section count, then one (offset, length) pair per section; every section starts 8-byte
+// aligned. Ids and names are string tables: int offsets into a UTF-8 blob, and for ids a
+// permutation sorted by their bytes, so an id is found by binary search without building a map.
+//
+// open() maps each section with FileChannel.map, which takes milliseconds whatever the file
+// size; the string tables are read straight from the mapping, so a snapshot from toSnapshot()
+// holds no id strings on the heap. Its numeric columns are bulk-copied out of the mapping,
+// since routing patches weights in place and reads them in tight loops.
+public final class NetworkFile {
+    public static final int MAGIC = 0x4E444C49; // "ILDN"
+    public static final int VERSION = 1;
+
+    // section order in the file; new sections go at the end with a new VERSION
+    private static final int NODE_ID_OFFSETS = 0;
+    private static final int NODE_ID_BYTES = 1;
+    private static final int NODE_ID_ORDER = 2;
+    private static final int NODE_NAME_OFFSETS = 3;
+    private static final int NODE_NAME_BYTES = 4;
+    private static final int HUBS = 5;
+    private static final int LATITUDES = 6;
+    private static final int LONGITUDES = 7;
+    private static final int OFFSETS = 8;
+    private static final int SOURCES = 9;
+    private static final int TARGETS = 10;
+    private static final int IN_OFFSETS = 11;
+    private static final int IN_EDGES = 12;
+    private static final int DISTANCES = 13;
+    private static final int SPEEDS = 14;
+    private static final int CONGESTIONS = 15;
+    private static final int ROAD_ID_OFFSETS = 16;
+    private static final int ROAD_ID_BYTES = 17;
+    private static final int ROAD_ID_ORDER = 18;
+    private static final int SECTION_COUNT = 19;
+
+    private static final int HEADER_BYTES = 24 + 16 * SECTION_COUNT;
+
+    private final Path path;
+    private final long fileSize;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final ByteBuffer[] sections;
+    private final Utf8IdTable nodeIds;
+    private final Utf8IdTable roadIds;
+    private final Utf8IdTable nodeNames;
+
+    private NetworkFile(Path path, long fileSize, int nodeCount, int edgeCount, ByteBuffer[] sections) {
+        this.path = path;
+        this.fileSize = fileSize;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.sections = sections;
+        this.nodeIds = new Utf8IdTable(nodeCount, intView(NODE_ID_OFFSETS), sections[NODE_ID_BYTES],
+                intView(NODE_ID_ORDER));
+        this.roadIds = new Utf8IdTable(edgeCount, intView(ROAD_ID_OFFSETS), sections[ROAD_ID_BYTES],
+                intView(ROAD_ID_ORDER));
+        this.nodeNames = new Utf8IdTable(nodeCount, intView(NODE_NAME_OFFSETS), sections[NODE_NAME_BYTES], null);
+    }
+
+    // writes the network's locations and roads; location names are kept, a null name is written as ""
+    public static void write(LogisticsNetwork network, Path path) throws IOException {
+        NetworkSnapshot snapshot = network.freeze();
+        write(snapshot, node -> network.getLocation(snapshot.getNodeId(node)).getName(), path);
+    }
+
+    // writes the snapshot, with nameOf giving the name of each node; the file is written next to
+    // path and moved into place, so readers never see it half written
+    public static void write(NetworkSnapshot snapshot, IntFunction<String> nameOf, Path path) throws IOException {
+        int n = snapshot.getNodeCount();
+        int m = snapshot.getEdgeCount();
+        StringTable nodeIds = new StringTable(n, snapshot::getNodeId);
+        StringTable names = new StringTable(n, nameOf);
+        StringTable roadIds = new StringTable(m, snapshot::getRoadId);
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SectionWriter out = new SectionWriter(channel);
+            out.skip(HEADER_BYTES);
+
+            out.begin(NODE_ID_OFFSETS);
+            for (int offset : nodeIds.offsets) out.putInt(offset);
+            out.begin(NODE_ID_BYTES);
+            out.putBytes(nodeIds.bytes);
+            out.begin(NODE_ID_ORDER);
+            for (int node : nodeIds.sortedOrder()) out.putInt(node);
+            out.begin(NODE_NAME_OFFSETS);
+            for (int offset : names.offsets) out.putInt(offset);
+            out.begin(NODE_NAME_BYTES);
+            out.putBytes(names.bytes);
+
+            out.begin(HUBS);
+            for (int node = 0; node < n; node++) out.putByte(snapshot.isHub(node) ? 1 : 0);
+            out.begin(LATITUDES);
+            for (int node = 0; node < n; node++) out.putDouble(snapshot.getLatitude(node));
+            out.begin(LONGITUDES);
+            for (int node = 0; node < n; node++) out.putDouble(snapshot.getLongitude(node));
+
+            out.begin(OFFSETS);
+            for (int node = 0; node < n; node++) out.putInt(snapshot.firstEdge(node));
+            out.putInt(m);
+            out.begin(SOURCES);
+            for (int edge = 0; edge < m; edge++) out.putInt(snapshot.getSource(edge));
+            out.begin(TARGETS);
+            for (int edge = 0; edge < m; edge++) out.putInt(snapshot.getTarget(edge));
+            out.begin(IN_OFFSETS);
+            for (int node = 0; node < n; node++) out.putInt(snapshot.firstInEdge(node));
+            out.putInt(m);
+            out.begin(IN_EDGES);
+            for (int slot = 0; slot < m; slot++) out.putInt(snapshot.getInEdge(slot));
+
+            out.begin(DISTANCES);
+            for (int edge = 0; edge < m; edge++) out.putDouble(snapshot.getDistance(edge));
+            out.begin(SPEEDS);
+            for (int edge = 0; edge < m; edge++) out.putDouble(snapshot.getAverageSpeed(edge));
+            out.begin(CONGESTIONS);
+            for (int edge = 0; edge < m; edge++) out.putDouble(snapshot.getCongestion(edge));
+
+            out.begin(ROAD_ID_OFFSETS);
+            for (int offset : roadIds.offsets) out.putInt(offset);
+            out.begin(ROAD_ID_BYTES);
+            out.putBytes(roadIds.bytes);
+            out.begin(ROAD_ID_ORDER);
+            for (int edge : roadIds.sortedOrder()) out.putInt(edge);
+            out.finish(n, m);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // maps a file written by write(); throws IOException if it is not a network file or uses
+    // another format version
+    public static NetworkFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) throw new IOException("Not a network file: " + path);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("Not a network file: " + path);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("Not a network file: " + path);
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported network file version " + version + ": " + path);
+            int n = header.getInt();
+            int m = header.getInt();
+            int sectionCount = header.getInt();
+            header.getInt(); // reserved
+            if (n < 0 || m < 0 || sectionCount != SECTION_COUNT) throw new IOException("Corrupt network file: " + path);
+
+            ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+            for (int section = 0; section < SECTION_COUNT; section++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                if (offset < HEADER_BYTES || length < 0 || length > Integer.MAX_VALUE || offset + length > size
+                        || (expectedLength(section, n, m) >= 0 && length != expectedLength(section, n, m))) {
+                    throw new IOException("Corrupt network file: " + path);
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                sections[section] = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new NetworkFile(path, size, n, m, sections);
+        }
+    }
+
+    public Path getPath() { return path; }
+
+    public long getFileSize() { return fileSize; }
+
+    public int getNodeCount() { return nodeCount; }
+
+    public int getEdgeCount() { return edgeCount; }
+
+    public String getName(int node) { return nodeNames.get(node); }
+
+    // snapshot over the file: numeric columns are copied to the heap, ids stay in the mapping
+    public NetworkSnapshot toSnapshot() {
+        boolean[] hubs = new boolean[nodeCount];
+        ByteBuffer hubFlags = sections[HUBS];
+        for (int node = 0; node < nodeCount; node++) hubs[node] = hubFlags.get(node) != 0;
+        return new NetworkSnapshot(nodeIds, hubs,
+                doubles(LATITUDES, nodeCount), doubles(LONGITUDES, nodeCount),
+                ints(OFFSETS, nodeCount + 1), ints(SOURCES, edgeCount), ints(TARGETS, edgeCount), roadIds,
+                ints(IN_OFFSETS, nodeCount + 1), ints(IN_EDGES, edgeCount),
+                doubles(DISTANCES, edgeCount), doubles(SPEEDS, edgeCount), doubles(CONGESTIONS, edgeCount));
+    }
+
+    private IntBuffer intView(int section) {
+        return sections[section].duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private int[] ints(int section, int count) {
+        int[] values = new int[count];
+        intView(section).get(values);
+        return values;
+    }
+
+    private double[] doubles(int section, int count) {
+        double[] values = new double[count];
+        sections[section].duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+        return values;
+    }
+
+    // byte length of a fixed-size section, -1 for string blobs
+    private static long expectedLength(int section, int n, int m) {
+        switch (section) {
+            case NODE_ID_OFFSETS, NODE_NAME_OFFSETS, OFFSETS, IN_OFFSETS: return 4L * (n + 1);
+            case NODE_ID_ORDER: return 4L * n;
+            case HUBS: return n;
+            case LATITUDES, LONGITUDES: return 8L * n;
+            case SOURCES, TARGETS, IN_EDGES, ROAD_ID_ORDER: return 4L * m;
+            case DISTANCES, SPEEDS, CONGESTIONS: return 8L * m;
+            case ROAD_ID_OFFSETS: return 4L * (m + 1);
+            default: return -1;
+        }
+    }
+
+    // UTF-8 string table: offsets[i] .. offsets[i + 1] is value i within bytes
+    private static final class StringTable {
+        final int[] offsets;
+        final byte[] bytes;
+
+        StringTable(int count, IntFunction<String> values) {
+            byte[][] encoded = new byte[count][];
+            long length = 0;
+            for (int i = 0; i < count; i++) {
+                String value = values.apply(i);
+                encoded[i] = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+                length += encoded[i].length;
+            }
+            if (length > Integer.MAX_VALUE) throw new IllegalArgumentException("String table exceeds 2 GB");
+            offsets = new int[count + 1];
+            bytes = new byte[(int) length];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(encoded[i], 0, bytes, offsets[i], encoded[i].length);
+                offsets[i + 1] = offsets[i] + encoded[i].length;
+            }
+        }
+
+        int[] sortedOrder() {
+            return Utf8IdTable.sortedOrder(offsets.length - 1, offsets, bytes);
+        }
+    }
+
+    // buffered little-endian writer that records where each section starts and ends
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final long[] sectionOffsets = new long[SECTION_COUNT];
+        private final long[] sectionLengths = new long[SECTION_COUNT];
+        private long position;
+        private int section = -1;
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) putByte(0);
+        }
+
+        // closes the current section and starts the next, padded to 8 bytes
+        void begin(int next) throws IOException {
+            end();
+            while (position % 8 != 0) putByte(0);
+            section = next;
+            sectionOffsets[next] = position;
+        }
+
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+            position++;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            for (int from = 0; from < values.length; ) {
+                ensure(1);
+                int count = Math.min(buffer.remaining(), values.length - from);
+                buffer.put(values, from, count);
+                from += count;
+                position += count;
+            }
+        }
+
+        // flushes the sections and fills in the header
+        void finish(int nodeCount, int edgeCount) throws IOException {
+            end();
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(edgeCount).putInt(SECTION_COUNT).putInt(0);
+            for (int i = 0; i < SECTION_COUNT; i++) header.putLong(sectionOffsets[i]).putLong(sectionLengths[i]);
+            header.flip();
+            long at = 0;
+            while (header.hasRemaining()) at += channel.write(header, at);
+        }
+
+        private void end() {
+            if (section >= 0) sectionLengths[section] = position - sectionOffsets[section];
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,709 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Bulk import of locations and roads from CSV extracts straight into a NetworkSnapshot, for
+// networks too large to build with addLocation/addRoad.
+//
+//   locations: id,name,hub[,latitude,longitude]       hub is true/false or 1/0
+//   roads:     id,source,destination,distance[,averageSpeed[,congestion]]
+//
+// A first row whose first field is "id" is taken as a header. Fields may be double-quoted, with
+// "" for a quote inside; a field cannot span lines. Missing coordinates are NaN, and a missing
+// speed or congestion gets Road's defaults (50 km/h, 1.0). As with addRoad, every road also
+// gets a "<id>_reverse" twin with the same attributes.
+//
+// Each file is split into one byte range per worker, at line boundaries, and the ranges are read
+// in parallel through FileChannel in fixed-size chunks. Rows are parsed in place in the chunk
+// buffer: ids are copied as bytes into one UTF-8 table, numbers are parsed from the bytes, and
+// road endpoints are resolved through a hash index over the location id bytes, so no String is
+// made per field. A cheap first pass counts lines, so parsed columns are allocated once at
+// their final size. Edges are then placed into CSR order in a single pass over the rows.
+// Memory is bounded by the compact result, about 60 bytes per road plus its id bytes, not by
+// the input's size. Roads with an unknown endpoint are skipped and counted; duplicate location
+// or road ids fail the import.
+public final class NetworkImporter {
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_FIELDS = 8;
+    private static final byte[] REVERSE_SUFFIX = "_reverse".getBytes(StandardCharsets.UTF_8);
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+    }
+
+    private final int parallelism;
+
+    public NetworkImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public NetworkImporter(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    // what an import produced, with its row counts and timing
+    public static final class Result {
+        private final NetworkSnapshot snapshot;
+        private final Utf8IdTable names;
+        private final long locationRows;
+        private final long roadRows;
+        private final long skippedRows;
+        private final long bytesRead;
+        private final long nanos;
+
+        private Result(NetworkSnapshot snapshot, Utf8IdTable names, long locationRows, long roadRows,
+                       long skippedRows, long bytesRead, long nanos) {
+            this.snapshot = snapshot;
+            this.names = names;
+            this.locationRows = locationRows;
+            this.roadRows = roadRows;
+            this.skippedRows = skippedRows;
+            this.bytesRead = bytesRead;
+            this.nanos = nanos;
+        }
+
+        public NetworkSnapshot getSnapshot() { return snapshot; }
+        public String getName(int node) { return names.get(node); }
+        public long getLocationRows() { return locationRows; }
+        public long getRoadRows() { return roadRows; } // roads imported, not counting reverse twins
+        public long getSkippedRows() { return skippedRows; } // roads with an unknown endpoint
+        public long getBytesRead() { return bytesRead; }
+        public double getSeconds() { return nanos / 1e9; }
+
+        public double getRowsPerSecond() {
+            return (locationRows + roadRows + skippedRows) / Math.max(getSeconds(), 1e-9);
+        }
+
+        // saves the imported network as a NetworkFile
+        public void writeTo(Path path) throws IOException {
+            NetworkFile.write(snapshot, this::getName, path);
+        }
+    }
+
+    public Result importCsv(Path locationsCsv, Path roadsCsv) throws IOException {
+        long start = System.nanoTime();
+        Locations locations = readLocations(locationsCsv);
+        Roads roads = readRoads(roadsCsv, locations);
+
+        int n = locations.count;
+        Utf8IdTable nodeIds = new Utf8IdTable(n, IntBuffer.wrap(locations.ids.offsets),
+                ByteBuffer.wrap(locations.ids.bytes), IntBuffer.wrap(locations.ids.sortedOrder()));
+        Utf8IdTable names = new Utf8IdTable(n, IntBuffer.wrap(locations.names.offsets),
+                ByteBuffer.wrap(locations.names.bytes), null);
+        Utf8IdTable roadIds = new Utf8IdTable(roads.count, IntBuffer.wrap(roads.ids.offsets),
+                ByteBuffer.wrap(roads.ids.bytes), IntBuffer.wrap(roads.ids.sortedOrder()));
+        checkRoadIds(roadIds, roads.ids);
+
+        // one pass over the rows places each road and its twin at its source's next CSR slot
+        int m = 2 * roads.count;
+        int[] offsets = new int[n + 1];
+        for (int r = 0; r < roads.count; r++) {
+            offsets[roads.sources[r] + 1]++;
+            offsets[roads.targets[r] + 1]++;
+        }
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        double[] distances = new double[m];
+        double[] speeds = new double[m];
+        double[] congestions = new double[m];
+        int[] edgeRoad = new int[m];     // edge -> road row * 2 (+1 for the twin)
+        int[] roadEdge = new int[m];     // road row * 2 (+1 for the twin) -> edge
+        for (int r = 0; r < roads.count; r++) {
+            for (int twin = 0; twin < 2; twin++) {
+                int from = twin == 0 ? roads.sources[r] : roads.targets[r];
+                int to = twin == 0 ? roads.targets[r] : roads.sources[r];
+                int edge = cursor[from]++;
+                sources[edge] = from;
+                targets[edge] = to;
+                distances[edge] = roads.distances[r];
+                speeds[edge] = roads.speeds[r];
+                congestions[edge] = roads.congestions[r];
+                edgeRoad[edge] = 2 * r + twin;
+                roadEdge[2 * r + twin] = edge;
+            }
+        }
+
+        NetworkSnapshot snapshot = NetworkSnapshot.fromArrays(nodeIds, locations.hubs, locations.latitudes,
+                locations.longitudes, offsets, sources, targets, new TwinRoadIdTable(roadIds, edgeRoad, roadEdge),
+                distances, speeds, congestions);
+        return new Result(snapshot, names, n, roads.count, roads.skipped, locations.bytesRead + roads.bytesRead,
+                System.nanoTime() - start);
+    }
+
+    // duplicate road ids, or a road named like another road's reverse twin, fail the import
+    private static void checkRoadIds(Utf8IdTable roadIds, StringTable ids) {
+        int duplicate = roadIds.findDuplicate();
+        if (duplicate >= 0) throw new IllegalArgumentException("Road already exists: " + roadIds.get(duplicate));
+        int suffix = REVERSE_SUFFIX.length;
+        for (int r = 0; r < roadIds.size(); r++) {
+            int from = ids.offsets[r];
+            int to = ids.offsets[r + 1];
+            if (to - from > suffix && Arrays.equals(ids.bytes, to - suffix, to, REVERSE_SUFFIX, 0, suffix)
+                    && roadIds.indexOf(ids.bytes, from, to - suffix) >= 0) {
+                throw new IllegalArgumentException("Road already exists: " + roadIds.get(r));
+            }
+        }
+    }
+
+    private Locations readLocations(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitAtLines(channel, parallelism);
+            int parts = bounds.length - 1;
+            int[] capacity = countLines(channel, bounds);
+            int total = Arrays.stream(capacity).sum();
+
+            Locations locations = new Locations(total);
+            StringTable.Builder[] ids = new StringTable.Builder[parts];
+            StringTable.Builder[] names = new StringTable.Builder[parts];
+            int[] base = prefixSums(capacity);
+            int[] counts = new int[parts];
+            forEachPart(parts, part -> {
+                ids[part] = new StringTable.Builder(capacity[part]);
+                names[part] = new StringTable.Builder(capacity[part]);
+                LineReader lines = new LineReader(channel, bounds[part], bounds[part + 1]);
+                int[] starts = new int[MAX_FIELDS];
+                int[] ends = new int[MAX_FIELDS];
+                boolean first = part == 0;
+                while (lines.next()) {
+                    byte[] b = lines.buffer;
+                    int fields = splitFields(b, lines.lineStart, lines.lineEnd, starts, ends);
+                    if (fields == 0 || (first && isHeader(b, starts[0], ends[0]))) {
+                        first = false;
+                        continue;
+                    }
+                    first = false;
+                    if (fields < 3) throw invalidRow(path, b, lines);
+                    int row = base[part] + counts[part]++;
+                    ids[part].add(b, starts[0], ends[0]);
+                    names[part].add(b, starts[1], ends[1]);
+                    locations.hubs[row] = parseBoolean(b, starts[2], ends[2], path, lines);
+                    locations.latitudes[row] = fields > 3 && ends[3] > starts[3]
+                            ? parseDouble(b, starts[3], ends[3], path, lines) : Double.NaN;
+                    locations.longitudes[row] = fields > 4 && ends[4] > starts[4]
+                            ? parseDouble(b, starts[4], ends[4], path, lines) : Double.NaN;
+                }
+            });
+
+            int n = compact(base, counts, locations.hubs, locations.latitudes, locations.longitudes);
+            locations.count = n;
+            locations.hubs = Arrays.copyOf(locations.hubs, n);
+            locations.latitudes = Arrays.copyOf(locations.latitudes, n);
+            locations.longitudes = Arrays.copyOf(locations.longitudes, n);
+            locations.ids = StringTable.concat(ids);
+            locations.names = StringTable.concat(names);
+            locations.index = new IdHashIndex(locations.ids);
+            locations.bytesRead = channel.size();
+            return locations;
+        }
+    }
+
+    private Roads readRoads(Path path, Locations locations) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitAtLines(channel, parallelism);
+            int parts = bounds.length - 1;
+            int[] capacity = countLines(channel, bounds);
+            int total = Arrays.stream(capacity).sum();
+
+            Roads roads = new Roads(total);
+            StringTable.Builder[] ids = new StringTable.Builder[parts];
+            int[] base = prefixSums(capacity);
+            int[] counts = new int[parts];
+            int[] skipped = new int[parts];
+            IdHashIndex index = locations.index;
+            forEachPart(parts, part -> {
+                ids[part] = new StringTable.Builder(capacity[part]);
+                LineReader lines = new LineReader(channel, bounds[part], bounds[part + 1]);
+                int[] starts = new int[MAX_FIELDS];
+                int[] ends = new int[MAX_FIELDS];
+                boolean first = part == 0;
+                while (lines.next()) {
+                    byte[] b = lines.buffer;
+                    int fields = splitFields(b, lines.lineStart, lines.lineEnd, starts, ends);
+                    if (fields == 0 || (first && isHeader(b, starts[0], ends[0]))) {
+                        first = false;
+                        continue;
+                    }
+                    first = false;
+                    if (fields < 4) throw invalidRow(path, b, lines);
+                    int source = index.find(b, starts[1], ends[1]);
+                    int target = index.find(b, starts[2], ends[2]);
+                    if (source < 0 || target < 0) {
+                        skipped[part]++;
+                        continue;
+                    }
+                    int row = base[part] + counts[part]++;
+                    ids[part].add(b, starts[0], ends[0]);
+                    roads.sources[row] = source;
+                    roads.targets[row] = target;
+                    roads.distances[row] = parseDouble(b, starts[3], ends[3], path, lines);
+                    roads.speeds[row] = fields > 4 && ends[4] > starts[4]
+                            ? parseDouble(b, starts[4], ends[4], path, lines) : 50.0;
+                    roads.congestions[row] = fields > 5 && ends[5] > starts[5]
+                            ? parseDouble(b, starts[5], ends[5], path, lines) : 1.0;
+                }
+            });
+
+            roads.count = compact(base, counts, roads.sources, roads.targets, roads.distances, roads.speeds,
+                    roads.congestions);
+            roads.ids = StringTable.concat(ids);
+            roads.skipped = Arrays.stream(skipped).sum();
+            roads.bytesRead = channel.size();
+            return roads;
+        }
+    }
+
+    private interface PartTask {
+        void run(int part) throws IOException;
+    }
+
+    private static void forEachPart(int parts, PartTask task) throws IOException {
+        try {
+            IntStream.range(0, parts).parallel().forEach(part -> {
+                try {
+                    task.run(part);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // byte offsets splitting the file into up to parts ranges, each starting at a line
+    private static long[] splitAtLines(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        parts = (int) Math.max(1, Math.min(parts, size / CHUNK_BYTES));
+        long[] bounds = new long[parts + 1];
+        bounds[parts] = size;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int part = 1; part < parts; part++) {
+            long position = Math.max(bounds[part - 1], size * part / parts);
+            long boundary = size;
+            while (position < size && boundary == size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        boundary = position + i + 1;
+                        break;
+                    }
+                }
+                position += read;
+            }
+            bounds[part] = boundary;
+        }
+        return bounds;
+    }
+
+    // lines in each range (an upper bound on its rows), counted in parallel
+    private static int[] countLines(FileChannel channel, long[] bounds) throws IOException {
+        int[] counts = new int[bounds.length - 1];
+        forEachPart(counts.length, part -> {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+            byte[] b = chunk.array();
+            long count = 0;
+            long position = bounds[part];
+            while (position < bounds[part + 1]) {
+                chunk.clear();
+                chunk.limit((int) Math.min(CHUNK_BYTES, bounds[part + 1] - position));
+                int read = channel.read(chunk, position);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    if (b[i] == '\n') count++;
+                }
+                position += read;
+            }
+            if (count + 1 > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many rows in one file");
+            counts[part] = (int) count + 1; // a last line may lack its newline
+        });
+        return counts;
+    }
+
+    private static int[] prefixSums(int[] counts) {
+        int[] sums = new int[counts.length];
+        for (int i = 1; i < counts.length; i++) sums[i] = sums[i - 1] + counts[i - 1];
+        return sums;
+    }
+
+    // moves each part's rows down so the rows of all parts are contiguous; returns the row count
+    private static int compact(int[] base, int[] counts, Object... columns) {
+        int next = 0;
+        for (int part = 0; part < base.length; part++) {
+            if (base[part] != next) {
+                for (Object column : columns) System.arraycopy(column, base[part], column, next, counts[part]);
+            }
+            next += counts[part];
+        }
+        return next;
+    }
+
+    // splits b[from, to) at commas into fields; quoted fields are unescaped in place. Returns the
+    // field count, 0 for a blank line; fields beyond MAX_FIELDS are ignored
+    private static int splitFields(byte[] b, int from, int to, int[] starts, int[] ends) {
+        if (from == to) return 0;
+        int fields = 0;
+        int i = from;
+        while (true) {
+            int start;
+            int end;
+            if (i < to && b[i] == '"') {
+                start = i + 1;
+                int write = start;
+                int read = start;
+                while (read < to) {
+                    if (b[read] == '"') {
+                        if (read + 1 < to && b[read + 1] == '"') {
+                            b[write++] = '"';
+                            read += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    b[write++] = b[read++];
+                }
+                end = write;
+                i = read + 1;
+                while (i < to && b[i] != ',') i++;
+            } else {
+                start = i;
+                while (i < to && b[i] != ',') i++;
+                end = i;
+            }
+            if (fields < MAX_FIELDS) {
+                starts[fields] = start;
+                ends[fields] = end;
+            }
+            fields++;
+            if (i >= to) break;
+            i++; // the comma
+        }
+        return Math.min(fields, MAX_FIELDS);
+    }
+
+    private static boolean isHeader(byte[] b, int from, int to) {
+        return to - from == 2 && b[from] == 'i' && b[from + 1] == 'd';
+    }
+
+    private static boolean parseBoolean(byte[] b, int from, int to, Path path, LineReader lines) {
+        if (to - from == 1 && (b[from] == '1' || b[from] == '0')) return b[from] == '1';
+        String text = new String(b, from, to - from, StandardCharsets.UTF_8).trim();
+        if (text.equalsIgnoreCase("true")) return true;
+        if (text.equalsIgnoreCase("false")) return false;
+        throw invalidRow(path, b, lines);
+    }
+
+    // plain decimals of up to 15 significant digits and 22 fraction digits are exact doubles
+    // divided by an exact power of ten, a single correctly rounded operation, so the result
+    // equals Double.parseDouble's; anything else falls back to it
+    private static double parseDouble(byte[] b, int from, int to, Path path, LineReader lines) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (b[i] == '-' || b[i] == '+')) negative = b[i++] == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            int c = b[i];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa != 0 || c != '0') digits++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (dot) scale++;
+                if (digits > 15 || scale >= POWERS_OF_TEN.length) return parseSlow(b, from, to, path, lines);
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return parseSlow(b, from, to, path, lines);
+            }
+        }
+        if (!any) return parseSlow(b, from, to, path, lines);
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(byte[] b, int from, int to, Path path, LineReader lines) {
+        try {
+            return Double.parseDouble(new String(b, from, to - from, StandardCharsets.UTF_8).trim());
+        } catch (NumberFormatException e) {
+            throw invalidRow(path, b, lines);
+        }
+    }
+
+    private static IllegalArgumentException invalidRow(Path path, byte[] b, LineReader lines) {
+        return new IllegalArgumentException("Invalid row in " + path + ": "
+                + new String(b, lines.lineStart, lines.lineEnd - lines.lineStart, StandardCharsets.UTF_8));
+    }
+
+    private static final class Locations {
+        int count;
+        boolean[] hubs;
+        double[] latitudes;
+        double[] longitudes;
+        StringTable ids;
+        StringTable names;
+        IdHashIndex index;
+        long bytesRead;
+
+        Locations(int capacity) {
+            hubs = new boolean[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+        }
+    }
+
+    private static final class Roads {
+        int count;
+        final int[] sources;
+        final int[] targets;
+        final double[] distances;
+        final double[] speeds;
+        final double[] congestions;
+        StringTable ids;
+        long skipped;
+        long bytesRead;
+
+        Roads(int capacity) {
+            sources = new int[capacity];
+            targets = new int[capacity];
+            distances = new double[capacity];
+            speeds = new double[capacity];
+            congestions = new double[capacity];
+        }
+    }
+
+    // UTF-8 values back to back: value i is bytes[offsets[i] .. offsets[i + 1])
+    private static final class StringTable {
+        final int[] offsets;
+        final byte[] bytes;
+
+        StringTable(int[] offsets, byte[] bytes) {
+            this.offsets = offsets;
+            this.bytes = bytes;
+        }
+
+        int[] sortedOrder() {
+            return Utf8IdTable.sortedOrder(offsets.length - 1, offsets, bytes);
+        }
+
+        // the parts' tables joined in order
+        static StringTable concat(Builder[] parts) {
+            long length = 0;
+            int count = 0;
+            for (Builder part : parts) {
+                length += part.size;
+                count += part.count;
+            }
+            if (length > Integer.MAX_VALUE) throw new IllegalArgumentException("String table exceeds 2 GB");
+            int[] offsets = new int[count + 1];
+            byte[] bytes = new byte[(int) length];
+            int row = 0;
+            int at = 0;
+            for (Builder part : parts) {
+                for (int i = 0; i < part.count; i++) offsets[row++] = at + part.offsets[i];
+                System.arraycopy(part.bytes, 0, bytes, at, part.size);
+                at += part.size;
+            }
+            offsets[count] = at;
+            return new StringTable(offsets, bytes);
+        }
+
+        static final class Builder {
+            final int[] offsets;
+            byte[] bytes = new byte[4096];
+            int size;
+            int count;
+
+            Builder(int capacity) {
+                offsets = new int[capacity];
+            }
+
+            void add(byte[] b, int from, int to) {
+                int length = to - from;
+                if (size + length > bytes.length) {
+                    long grown = Math.max((long) bytes.length * 2, (long) size + length);
+                    if (grown > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("String table exceeds 2 GB");
+                    bytes = Arrays.copyOf(bytes, (int) grown);
+                }
+                System.arraycopy(b, from, bytes, size, length);
+                offsets[count++] = size;
+                size += length;
+            }
+        }
+    }
+
+    // open-addressing hash from location id bytes to row, so road endpoints resolve without Strings
+    private static final class IdHashIndex {
+        private final StringTable ids;
+        private final int[] slots; // row + 1, 0 = empty
+        private final int mask;
+
+        IdHashIndex(StringTable ids) {
+            this.ids = ids;
+            int count = ids.offsets.length - 1;
+            int capacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            for (int row = 0; row < count; row++) {
+                int from = ids.offsets[row];
+                int to = ids.offsets[row + 1];
+                int slot = hash(ids.bytes, from, to) & mask;
+                while (slots[slot] != 0) {
+                    if (matches(slots[slot] - 1, ids.bytes, from, to)) {
+                        throw new IllegalArgumentException("Location already exists: "
+                                + new String(ids.bytes, from, to - from, StandardCharsets.UTF_8));
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = row + 1;
+            }
+        }
+
+        // row of the id b[from, to), or -1; read-only, so any number of threads may look up
+        int find(byte[] b, int from, int to) {
+            int slot = hash(b, from, to) & mask;
+            while (slots[slot] != 0) {
+                if (matches(slots[slot] - 1, b, from, to)) return slots[slot] - 1;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private boolean matches(int row, byte[] b, int from, int to) {
+            return Arrays.equals(ids.bytes, ids.offsets[row], ids.offsets[row + 1], b, from, to);
+        }
+
+        // FNV-1a, then a finalizer so that sequential ids spread over the table
+        private static int hash(byte[] b, int from, int to) {
+            int h = 0x811C9DC5;
+            for (int i = from; i < to; i++) h = (h ^ (b[i] & 0xFF)) * 0x01000193;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            return h ^ (h >>> 13);
+        }
+    }
+
+    // road ids of imported edges: each road row has two edges, the road and its "_reverse" twin,
+    // so only the rows' ids are stored and the twin's id is derived
+    private static final class TwinRoadIdTable implements NetworkSnapshot.IdTable {
+        private static final String REVERSE = "_reverse";
+
+        private final Utf8IdTable roads;
+        private final int[] edgeRoad;
+        private final int[] roadEdge;
+
+        TwinRoadIdTable(Utf8IdTable roads, int[] edgeRoad, int[] roadEdge) {
+            this.roads = roads;
+            this.edgeRoad = edgeRoad;
+            this.roadEdge = roadEdge;
+        }
+
+        @Override
+        public int size() { return edgeRoad.length; }
+
+        @Override
+        public String get(int edge) {
+            int code = edgeRoad[edge];
+            String id = roads.get(code >>> 1);
+            return (code & 1) == 0 ? id : id + REVERSE;
+        }
+
+        @Override
+        public int indexOf(String id) {
+            int road = roads.indexOf(id);
+            if (road >= 0) return roadEdge[2 * road];
+            if (!id.endsWith(REVERSE)) return -1;
+            road = roads.indexOf(id.substring(0, id.length() - REVERSE.length()));
+            return road >= 0 ? roadEdge[2 * road + 1] : -1;
+        }
+
+        @Override
+        public long estimateBytes() {
+            return roads.estimateBytes() + 4L * (edgeRoad.length + roadEdge.length);
+        }
+    }
+
+    // lines of one byte range, read in chunks; a line is buffer[lineStart, lineEnd) without its
+    // line break, valid until the next call
+    private static final class LineReader {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+        byte[] buffer = new byte[CHUNK_BYTES];
+        private int start;
+        private int limit;
+        private int scan;
+        int lineStart;
+        int lineEnd;
+
+        LineReader(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        boolean next() throws IOException {
+            while (true) {
+                for (int i = scan; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        setLine(start, i);
+                        start = i + 1;
+                        scan = start;
+                        return true;
+                    }
+                }
+                scan = limit;
+                if (position >= end) {
+                    if (start == limit) return false;
+                    setLine(start, limit); // last line without a newline
+                    start = limit;
+                    return true;
+                }
+                fill();
+            }
+        }
+
+        private void setLine(int from, int to) {
+            lineStart = from;
+            lineEnd = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+        }
+
+        // keeps the unfinished line and reads the next chunk after it, growing for long lines
+        private void fill() throws IOException {
+            int pending = limit - start;
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, pending);
+            } else if (pending == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            start = 0;
+            limit = pending;
+            scan = pending;
+            ByteBuffer target = ByteBuffer.wrap(buffer, limit, (int) Math.min(buffer.length - limit, end - position));
+            int read = channel.read(target, position);
+            if (read < 0) {
+                position = end;
+                return;
+            }
+            position += read;
+            limit += read;
+        }
+    }
+}
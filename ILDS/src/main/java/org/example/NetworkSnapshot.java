@@ -0,0 +1,311 @@
+package org.example;
+
+import java.util.*;
+
+// Compressed-sparse-row (CSR) view of the road network.
+// Locations become int ids 0..V-1; the outgoing roads of node v are the edge ids
+// offsets[v] .. offsets[v + 1] - 1, and each edge's attributes live in parallel primitive arrays.
+// A reverse index (inOffsets/inEdges) lists the incoming edge ids of every node for backward searches.
+//
+// Location and road ids sit behind an IdTable: String arrays with hash lookups for snapshots
+// compiled from a network, or string tables left in a memory-mapped NetworkFile.
+//
+// Snapshots returned by LogisticsNetwork.freeze() are never modified. The network keeps one
+// private instance for its own queries and patches its weight columns in place on updateRoad.
+public class NetworkSnapshot {
+    private final IdTable nodeIds; // int id <-> location id
+    private final boolean[] hubs;
+    private final double[] latitudes;  // NaN when the location has no coordinates
+    private final double[] longitudes;
+    private byte coordinates; // 0 not checked yet, 1 every location has them, 2 some do not
+
+    private final int[] offsets;    // node -> first outgoing edge, length V + 1
+    private final int[] sources;    // edge -> source node
+    private final int[] targets;    // edge -> destination node
+    private final IdTable roadIds;  // edge id <-> road id
+    private final int[] inOffsets;  // node -> first slot in inEdges, length V + 1
+    private final int[] inEdges;    // incoming edge ids grouped by destination node
+
+    private final double[] distances;
+    private final double[] speeds;
+    private final double[] congestions;
+
+    // bounds used by A* heuristics; updateEdge only ever loosens them, so they stay admissible
+    private double minCongestion;     // smallest congestion factor on any edge
+    private double maxEffectiveSpeed; // largest speed / congestion on any edge
+
+    NetworkSnapshot(IdTable nodeIds, boolean[] hubs,
+                    double[] latitudes, double[] longitudes, int[] offsets, int[] sources, int[] targets, IdTable roadIds,
+                    int[] inOffsets, int[] inEdges,
+                    double[] distances, double[] speeds, double[] congestions) {
+        this.nodeIds = nodeIds;
+        this.hubs = hubs;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.roadIds = roadIds;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+        this.distances = distances;
+        this.speeds = speeds;
+        this.congestions = congestions;
+
+        this.minCongestion = Double.MAX_VALUE;
+        this.maxEffectiveSpeed = 0.0;
+        for (int e = 0; e < targets.length; e++) {
+            loosenBounds(speeds[e], congestions[e]);
+        }
+    }
+
+    // compiles the given locations and adjacency sets into CSR arrays
+    static NetworkSnapshot build(Map<String, Location> locations, Map<String, Set<Road>> adjacencyList) {
+        int n = locations.size();
+        String[] nodeIds = new String[n];
+        Map<String, Integer> nodeIndex = new HashMap<>(n * 2);
+        boolean[] hubs = new boolean[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+
+        int next = 0;
+        for (Location location : locations.values()) {
+            nodeIds[next] = location.getId();
+            hubs[next] = location.isHub();
+            latitudes[next] = location.getLatitude();
+            longitudes[next] = location.getLongitude();
+            nodeIndex.put(location.getId(), next++);
+        }
+
+        int edgeCount = 0;
+        for (String locationId : nodeIds) {
+            for (Road road : adjacencyList.getOrDefault(locationId, Collections.emptySet())) {
+                if (nodeIndex.containsKey(road.getDestination().getId())) edgeCount++;
+            }
+        }
+
+        int[] offsets = new int[n + 1];
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        String[] roadIds = new String[edgeCount];
+        double[] distances = new double[edgeCount];
+        double[] speeds = new double[edgeCount];
+        double[] congestions = new double[edgeCount];
+
+        int edge = 0;
+        for (int node = 0; node < n; node++) {
+            offsets[node] = edge;
+            for (Road road : adjacencyList.getOrDefault(nodeIds[node], Collections.emptySet())) {
+                Integer target = nodeIndex.get(road.getDestination().getId());
+                if (target == null) continue;
+                sources[edge] = node;
+                targets[edge] = target;
+                roadIds[edge] = road.getId();
+                distances[edge] = road.getDistance();
+                speeds[edge] = road.getAverageSpeed();
+                congestions[edge] = road.getCurrentCongestion();
+                edge++;
+            }
+        }
+        offsets[n] = edge;
+
+        return fromArrays(new ArrayIdTable(nodeIds, nodeIndex), hubs, latitudes, longitudes, offsets, sources, targets,
+                new ArrayIdTable(roadIds, null),
+                distances, speeds, congestions);
+    }
+
+    // assembles a snapshot from raw CSR columns, deriving the reverse index
+    static NetworkSnapshot fromArrays(IdTable nodeIds, boolean[] hubs,
+                                      double[] latitudes, double[] longitudes, int[] offsets, int[] sources, int[] targets, IdTable roadIds,
+                                      double[] distances, double[] speeds, double[] congestions) {
+        int n = nodeIds.size();
+        int edgeCount = targets.length;
+
+        // counting sort of edges by destination
+        int[] inOffsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            inOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        int[] inEdges = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            inEdges[fill[targets[e]]++] = e;
+        }
+
+        return new NetworkSnapshot(nodeIds, hubs, latitudes, longitudes, offsets, sources, targets,
+                roadIds, inOffsets, inEdges, distances, speeds, congestions);
+    }
+
+    // independent copy: topology arrays are shared (never written), weight columns are cloned
+    NetworkSnapshot copy() {
+        return new NetworkSnapshot(nodeIds, hubs, latitudes, longitudes, offsets,
+                sources, targets, roadIds, inOffsets, inEdges,
+                distances.clone(), speeds.clone(), congestions.clone());
+    }
+
+    // new snapshot that shares this one's topology, reverse index and road lookup, with the weights
+    // of edges[0..count) replaced; the weight columns are copied, everything else is shared
+    NetworkSnapshot withUpdatedEdges(int count, int[] edges, double[] newDistances, double[] newCongestions,
+                                     double[] newSpeeds) {
+        double[] distanceColumn = distances.clone();
+        double[] speedColumn = speeds.clone();
+        double[] congestionColumn = congestions.clone();
+        for (int i = 0; i < count; i++) {
+            distanceColumn[edges[i]] = newDistances[i];
+            congestionColumn[edges[i]] = newCongestions[i];
+            speedColumn[edges[i]] = newSpeeds[i];
+        }
+        return new NetworkSnapshot(nodeIds, hubs, latitudes, longitudes, offsets,
+                sources, targets, roadIds, inOffsets, inEdges, distanceColumn, speedColumn, congestionColumn);
+    }
+
+    // true when both snapshots have the same nodes and edges (one was derived from the other by
+    // withUpdatedEdges or copy), so search state sized and indexed for one also fits the other
+    boolean sharesTopologyWith(NetworkSnapshot other) {
+        return offsets == other.offsets && targets == other.targets;
+    }
+
+    // overwrites the weights of one edge; only used on the network's private routing copy
+    void updateEdge(int edge, double distance, double congestion, double speed) {
+        distances[edge] = distance;
+        congestions[edge] = congestion;
+        speeds[edge] = speed;
+        loosenBounds(speed, congestion);
+    }
+
+    private void loosenBounds(double speed, double congestion) {
+        minCongestion = Math.min(minCongestion, congestion);
+        maxEffectiveSpeed = Math.max(maxEffectiveSpeed, speed / congestion);
+    }
+
+    public int getNodeCount() { return nodeIds.size(); }
+
+    public int getEdgeCount() { return targets.length; }
+
+    // int id of a location, or -1 if it is not part of this snapshot
+    public int indexOf(String locationId) {
+        return nodeIds.indexOf(locationId);
+    }
+
+    // edge id of a road, or -1 if it is not part of this snapshot
+    public int indexOfRoad(String roadId) {
+        return roadIds.indexOf(roadId);
+    }
+
+    public String getNodeId(int node) { return nodeIds.get(node); }
+
+    public boolean isHub(int node) { return hubs[node]; }
+
+    public double getLatitude(int node) { return latitudes[node]; }
+
+    public double getLongitude(int node) { return longitudes[node]; }
+
+    // whether every location has coordinates; checked once, as they never change
+    public boolean hasAllCoordinates() {
+        if (coordinates == 0) {
+            byte complete = 1;
+            for (int node = 0; node < latitudes.length; node++) {
+                if (Double.isNaN(latitudes[node]) || Double.isNaN(longitudes[node])) {
+                    complete = 2;
+                    break;
+                }
+            }
+            coordinates = complete;
+        }
+        return coordinates == 1;
+    }
+
+    public double getMinCongestion() { return minCongestion; }
+
+    public double getMaxEffectiveSpeed() { return maxEffectiveSpeed; }
+
+    // outgoing edges of node are firstEdge(node) .. endEdge(node) - 1
+    public int firstEdge(int node) { return offsets[node]; }
+
+    public int endEdge(int node) { return offsets[node + 1]; }
+
+    // incoming edges of node are getInEdge(i) for i in firstInEdge(node) .. endInEdge(node) - 1
+    public int firstInEdge(int node) { return inOffsets[node]; }
+
+    public int endInEdge(int node) { return inOffsets[node + 1]; }
+
+    public int getInEdge(int slot) { return inEdges[slot]; }
+
+    public int getSource(int edge) { return sources[edge]; }
+
+    public int getTarget(int edge) { return targets[edge]; }
+
+    public String getRoadId(int edge) { return roadIds.get(edge); }
+
+    public double getDistance(int edge) { return distances[edge]; }
+
+    public double getAverageSpeed(int edge) { return speeds[edge]; }
+
+    public double getCongestion(int edge) { return congestions[edge]; }
+
+    // same formula as Road.getTravelTime()
+    public double getTravelTime(int edge) { return (distances[edge] / speeds[edge]) * congestions[edge]; }
+
+    // approximate heap footprint of the CSR arrays (excluding the shared id strings)
+    public long estimateBytes() {
+        long n = nodeIds.size();
+        long m = targets.length;
+        return 2 * 4 * (n + 1)     // offsets, inOffsets
+                + n                // hub flags
+                + n * 8 * 2        // latitude, longitude
+                + nodeIds.estimateBytes()
+                + m * (4 * 3)      // sources, targets, inEdges
+                + roadIds.estimateBytes()
+                + m * 8 * 3;       // distance, speed, congestion
+    }
+
+    // ids of the nodes or edges of a snapshot, by int id and back
+    interface IdTable {
+        int size();
+
+        String get(int index);
+
+        // int id of the given id, or -1 if the table does not contain it
+        int indexOf(String id);
+
+        // heap bytes held by the table, excluding the id strings themselves
+        long estimateBytes();
+    }
+
+    // ids held in a String array; the reverse lookup is a HashMap, built on first use if not given
+    static final class ArrayIdTable implements IdTable {
+        private final String[] ids;
+        private volatile Map<String, Integer> index;
+
+        ArrayIdTable(String[] ids, Map<String, Integer> index) {
+            this.ids = ids;
+            this.index = index;
+        }
+
+        @Override
+        public int size() { return ids.length; }
+
+        @Override
+        public String get(int i) { return ids[i]; }
+
+        @Override
+        public int indexOf(String id) {
+            Map<String, Integer> lookup = index;
+            if (lookup == null) {
+                lookup = new HashMap<>(ids.length * 2);
+                for (int i = 0; i < ids.length; i++) {
+                    lookup.put(ids[i], i);
+                }
+                index = lookup;
+            }
+            Integer i = lookup.get(id);
+            return i == null ? -1 : i;
+        }
+
+        @Override
+        public long estimateBytes() { return 8L * ids.length; } // references only
+    }
+}
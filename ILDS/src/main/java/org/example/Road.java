@@ -8,6 +8,7 @@ public class Road {
     private double distance;
     private double currentCongestion;
     private double averageSpeed;
+    private LogisticsNetwork network; // set while a network indexes this road, so setters reach its routing graph
 
     public Road(String id, Location source, Location destination, double distance) {
         this.id = id;
@@ -33,16 +34,31 @@ public class Road {
     public double getAverageSpeed() { return averageSpeed; }
 
 
+    // once the road is in a network the setters go through updateRoad, so routing sees the change
     public void setDistance(double distance) {
-        this.distance = distance;
+        if (network != null) network.updateRoad(id, distance, currentCongestion, averageSpeed);
+        else this.distance = distance;
     }
 
     public void setCurrentCongestion(double currentCong) {
-        this.currentCongestion = currentCong;
+        if (network != null) network.updateRoad(id, distance, currentCong, averageSpeed);
+        else this.currentCongestion = currentCong;
     }
 
     public void setAverageSpeed(double avgSpeed) {
+        if (network != null) network.updateRoad(id, distance, currentCongestion, avgSpeed);
+        else this.averageSpeed = avgSpeed;
+    }
+
+    // called by the owning network, which has already patched its routing graph
+    void assign(double distance, double currentCong, double avgSpeed) {
+        this.distance = distance;
+        this.currentCongestion = currentCong;
         this.averageSpeed = avgSpeed;
     }
+
+    void attach(LogisticsNetwork network) {
+        this.network = network;
+    }
 }
 
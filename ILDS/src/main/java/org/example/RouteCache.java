@@ -0,0 +1,234 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Predicate;
+
+// Bounded cache of route results for LogisticsNetwork.findPath and findAdaptiveRoute, keyed by
+// (start, end, metric, hour bucket). Entries are tagged with the network version they were computed
+// at. Every road on a cached path is indexed, so the network can drop exactly the entries that use
+// a road it changes or removes.
+// Capacity is a byte budget, estimated per entry from its path length. When it is exceeded,
+// entries are evicted least recently used (LRU) or least frequently used, oldest first among
+// equal counts (LFU). Entries older than the time to live count as misses.
+// Paths handed out are copies. All methods are synchronized, so one cache may serve several threads.
+public class RouteCache {
+    public enum EvictionPolicy {
+        LRU,
+        LFU
+    }
+
+    public static final String DISTANCE = "distance";
+    public static final String TIME = "time";
+    public static final String ADAPTIVE = "adaptive";
+
+    private static final long ENTRY_OVERHEAD_BYTES = 240; // entry, key, map nodes
+    private static final long BYTES_PER_STOP = 56;        // path slot plus road index node
+
+    private final long maxBytes;
+    private final long ttlNanos; // 0 = entries never expire
+    private final EvictionPolicy policy;
+
+    private final LinkedHashMap<Key, CachedRoute> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByRoad = new HashMap<>();
+    // LFU bookkeeping: use count -> keys with that count in insertion order
+    private final TreeMap<Long, LinkedHashSet<Key>> keysByUses = new TreeMap<>();
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public RouteCache(long maxBytes, Duration ttl, EvictionPolicy policy) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+        if (ttl != null && ttl.isNegative()) throw new IllegalArgumentException("Time to live cannot be negative: " + ttl);
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.policy = policy;
+    }
+
+    // cached route, or null on a miss
+    public synchronized CachedRoute get(String startId, String endId, String metric, int hourBucket) {
+        Key key = new Key(startId, endId, metric, hourBucket);
+        CachedRoute route = entries.get(key);
+        if (route == null) {
+            misses++;
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - route.createdNanos > ttlNanos) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        if (policy == EvictionPolicy.LFU) touch(key, route);
+        return route;
+    }
+
+    // caches a route found at network version; roadIds are the roads along its path
+    public synchronized void put(String startId, String endId, String metric, int hourBucket, List<String> path,
+                                 double cost, Collection<String> roadIds, long version) {
+        Key key = new Key(startId, endId, metric, hourBucket);
+        remove(key);
+        CachedRoute route = new CachedRoute(key, new ArrayList<>(path), cost, roadIds.toArray(new String[0]), version);
+        if (route.bytes > maxBytes) return;
+        entries.put(key, route);
+        bytes += route.bytes;
+        for (String roadId : route.roadIds) keysByRoad.computeIfAbsent(roadId, k -> new HashSet<>()).add(key);
+        if (policy == EvictionPolicy.LFU) keysByUses.computeIfAbsent(route.uses, k -> new LinkedHashSet<>()).add(key);
+        while (bytes > maxBytes) {
+            remove(policy == EvictionPolicy.LRU
+                    ? entries.keySet().iterator().next()
+                    : keysByUses.firstEntry().getValue().iterator().next());
+            evictions++;
+        }
+    }
+
+    // drops every entry whose path uses the road; returns how many were dropped
+    public synchronized int invalidateRoad(String roadId) {
+        Set<Key> keys = keysByRoad.get(roadId);
+        if (keys == null) return 0;
+        int count = 0;
+        for (Key key : new ArrayList<>(keys)) {
+            remove(key);
+            count++;
+        }
+        invalidations += count;
+        return count;
+    }
+
+    // drops the entries of that metric and hour bucket whose path uses the road; returns how many
+    public synchronized int invalidateRoad(String roadId, String metric, int hourBucket) {
+        Set<Key> keys = keysByRoad.get(roadId);
+        if (keys == null) return 0;
+        List<Key> matches = new ArrayList<>();
+        for (Key key : keys) {
+            if (key.hourBucket == hourBucket && key.metric.equals(metric)) matches.add(key);
+        }
+        for (Key key : matches) remove(key);
+        invalidations += matches.size();
+        return matches.size();
+    }
+
+    // drops every entry the predicate accepts; a scan over the whole cache
+    public synchronized int invalidateIf(Predicate<CachedRoute> predicate) {
+        List<Key> matches = new ArrayList<>();
+        for (CachedRoute route : entries.values()) {
+            if (predicate.test(route)) matches.add(route.key);
+        }
+        for (Key key : matches) remove(key);
+        invalidations += matches.size();
+        return matches.size();
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        keysByRoad.clear();
+        keysByUses.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized long getExpirations() { return expirations; }
+
+    public synchronized long getInvalidations() { return invalidations; }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized long getEstimatedBytes() { return bytes; }
+
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    private void remove(Key key) {
+        CachedRoute route = entries.remove(key);
+        if (route == null) return;
+        bytes -= route.bytes;
+        for (String roadId : route.roadIds) {
+            Set<Key> keys = keysByRoad.get(roadId);
+            if (keys == null) continue;
+            keys.remove(key);
+            if (keys.isEmpty()) keysByRoad.remove(roadId);
+        }
+        if (policy == EvictionPolicy.LFU) unlinkUses(key, route.uses);
+    }
+
+    private void touch(Key key, CachedRoute route) {
+        unlinkUses(key, route.uses);
+        route.uses++;
+        keysByUses.computeIfAbsent(route.uses, k -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void unlinkUses(Key key, long uses) {
+        LinkedHashSet<Key> keys = keysByUses.get(uses);
+        if (keys == null) return;
+        keys.remove(key);
+        if (keys.isEmpty()) keysByUses.remove(uses);
+    }
+
+    private static final class Key {
+        final String startId;
+        final String endId;
+        final String metric;
+        final int hourBucket;
+        final int hash;
+
+        Key(String startId, String endId, String metric, int hourBucket) {
+            this.startId = startId;
+            this.endId = endId;
+            this.metric = metric;
+            this.hourBucket = hourBucket;
+            this.hash = Objects.hash(startId, endId, metric, hourBucket);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return hourBucket == key.hourBucket && startId.equals(key.startId) && endId.equals(key.endId)
+                    && metric.equals(key.metric);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+    }
+
+    // one cached result; the path is never modified, callers get copies
+    public static final class CachedRoute {
+        private final Key key;
+        private final List<String> path;
+        private final double cost;
+        private final String[] roadIds;
+        private final long version;
+        private final long createdNanos = System.nanoTime();
+        private final long bytes;
+        private long uses = 1;
+
+        CachedRoute(Key key, List<String> path, double cost, String[] roadIds, long version) {
+            this.key = key;
+            this.path = path;
+            this.cost = cost;
+            this.roadIds = roadIds;
+            this.version = version;
+            this.bytes = ENTRY_OVERHEAD_BYTES + BYTES_PER_STOP * path.size();
+        }
+
+        public String getStartId() { return key.startId; }
+        public String getEndId() { return key.endId; }
+        public String getMetric() { return key.metric; }
+        public int getHourBucket() { return key.hourBucket; } // -1 for metrics that do not depend on the hour
+        public List<String> getPath() { return new ArrayList<>(path); }
+        public double getCost() { return cost; }
+        public long getVersion() { return version; }
+    }
+}
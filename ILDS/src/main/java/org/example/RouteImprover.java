@@ -0,0 +1,559 @@
+package org.example;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Improves a multi-vehicle delivery schedule (as produced by DeliveryScheduler.scheduleDeliveries)
+// by local search and Large Neighbourhood Search, minimising total travel time.
+// Each vehicle drives from its current location through its deliveries in order (an open route).
+// Loads must fit Vehicle.capacity (hard) and every delivery should be reached by its deadline;
+// lateness is penalised heavily rather than forbidden, so a schedule that starts late can still
+// be repaired.
+//
+// Moves: 2-opt and Or-opt (segments of 1-3 stops) within a route, relocate and exchange between
+// routes. Every move is evaluated in O(1) by concatenating route pieces summarised as
+// (first stop, last stop, duration, slack), where slack is the smallest margin to a deadline
+// inside the piece measured from its first stop; each route keeps prefix and suffix summaries.
+// LNS removes random or mutually close stops, reinserts them at their cheapest feasible position
+// and keeps the result only if the total improves. Runs stop at the time budget or the iteration
+// limit, whichever comes first. A run that hits the time budget depends on machine speed; with a
+// budget of 0 (none) and an iteration limit, the same seed gives the same result.
+public class RouteImprover {
+    private static final double LATENESS_PENALTY = 1000.0; // per hour of the worst lateness on a route
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;              // longest segment moved by Or-opt
+
+    private final LogisticsNetwork network;
+    private final long timeBudgetMillis;
+    private final long seed;
+    private long maxIterations = Long.MAX_VALUE;
+
+    // problem, rebuilt by every improve call
+    private double[][] legs;        // [location][location] travel time in hours
+    private int[] stopLocation;     // per delivery
+    private double[] stopLoad;
+    private double[] stopDeadline;  // hours after departure
+    private int[] depotLocation;    // per vehicle
+    private double[] capacity;
+
+    // current solution and the per-route summaries the moves are evaluated against
+    private int[][] routes;
+    private int[] routeSize;
+    private double[][] arrival;     // [route][position] hours after departure
+    private double[][] prefixSlack; // [route][position] min over positions <= p of deadline - arrival
+    private double[][] suffixSlack; // [route][position] min over positions >= p of deadline - arrival
+    private double[] routeLoad;
+    private double[] routeObjective;
+
+    // piece being assembled by the chain methods
+    private int chainLocation;
+    private double chainTime;
+    private double chainSlack;
+
+    private Random random;
+    private long startNanos;
+    private long iterations;
+    private long acceptedIterations;
+    private long improvingMoves;
+    private double initialTravelTime;
+    private double initialLateness;
+
+    // timeBudgetMillis 0 means no time limit; setMaxIterations must then bound the run
+    public RouteImprover(LogisticsNetwork network, long timeBudgetMillis, long seed) {
+        if (timeBudgetMillis < 0) throw new IllegalArgumentException("Time budget cannot be negative: " + timeBudgetMillis);
+        this.network = network;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.seed = seed;
+    }
+
+    // caps the number of LNS iterations; without a time budget this makes runs reproducible
+    // regardless of machine speed
+    public void setMaxIterations(long maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public long getIterations() { return iterations; }
+    public long getAcceptedIterations() { return acceptedIterations; }
+    public long getImprovingMoves() { return improvingMoves; }
+    public double getInitialTravelTime() { return initialTravelTime; }
+    public double getInitialLateness() { return initialLateness; }
+    public double getTravelTime() { return totalTravelTime(); }
+
+    // sum over deliveries of hours past the deadline
+    public double getLateness() { return totalLateness(); }
+
+    // returns vehicle id -> deliveries in their new visiting order; every vehicle in vehicles gets
+    // an entry, and deliveries are only moved between those vehicles
+    public Map<String, List<Delivery>> improve(List<Vehicle> vehicles, Map<String, List<Delivery>> schedule,
+                                               LocalDateTime departure) {
+        if (timeBudgetMillis == 0 && maxIterations == Long.MAX_VALUE) {
+            throw new IllegalStateException("RouteImprover needs a time budget or an iteration limit");
+        }
+        List<Delivery> deliveries = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            deliveries.addAll(schedule.getOrDefault(vehicle.getId(), Collections.emptyList()));
+        }
+        load(vehicles, schedule, deliveries, departure);
+
+        random = new Random(seed);
+        startNanos = System.nanoTime();
+        iterations = 0;
+        acceptedIterations = 0;
+        improvingMoves = 0;
+        initialTravelTime = totalTravelTime();
+        initialLateness = totalLateness();
+
+        localSearch();
+        while (iterations < maxIterations && !outOfTime() && deliveries.size() > 1) {
+            iterations++;
+            if (largeNeighbourhoodStep()) acceptedIterations++;
+        }
+
+        Map<String, List<Delivery>> improved = new LinkedHashMap<>();
+        for (int r = 0; r < vehicles.size(); r++) {
+            List<Delivery> route = new ArrayList<>();
+            for (int i = 0; i < routeSize[r]; i++) route.add(deliveries.get(routes[r][i]));
+            improved.put(vehicles.get(r).getId(), route);
+        }
+        return improved;
+    }
+
+    private void load(List<Vehicle> vehicles, Map<String, List<Delivery>> schedule, List<Delivery> deliveries,
+                      LocalDateTime departure) {
+        // one leg-time matrix over every distinct location involved
+        Map<String, Integer> locationIndex = new LinkedHashMap<>();
+        for (Vehicle vehicle : vehicles) locationIndex.putIfAbsent(vehicle.getCurrentLocation().getId(), locationIndex.size());
+        for (Delivery delivery : deliveries) locationIndex.putIfAbsent(delivery.getDestinationId(), locationIndex.size());
+        List<String> locationIds = new ArrayList<>(locationIndex.keySet());
+        legs = network.computeDistanceMatrix(locationIds, locationIds, false).getCosts();
+
+        int n = deliveries.size();
+        stopLocation = new int[n];
+        stopLoad = new double[n];
+        stopDeadline = new double[n];
+        for (int s = 0; s < n; s++) {
+            Delivery delivery = deliveries.get(s);
+            stopLocation[s] = locationIndex.get(delivery.getDestinationId());
+            stopLoad[s] = delivery.getLoad();
+            stopDeadline[s] = Duration.between(departure, delivery.getDeadline()).toMillis() / 3_600_000.0;
+        }
+
+        int v = vehicles.size();
+        depotLocation = new int[v];
+        capacity = new double[v];
+        routes = new int[v][];
+        routeSize = new int[v];
+        arrival = new double[v][];
+        prefixSlack = new double[v][];
+        suffixSlack = new double[v][];
+        routeLoad = new double[v];
+        routeObjective = new double[v];
+        int next = 0;
+        for (int r = 0; r < v; r++) {
+            Vehicle vehicle = vehicles.get(r);
+            depotLocation[r] = locationIndex.get(vehicle.getCurrentLocation().getId());
+            capacity[r] = vehicle.getCapacity();
+            int size = schedule.getOrDefault(vehicle.getId(), Collections.emptyList()).size();
+            routes[r] = new int[Math.max(size, 4)];
+            for (int i = 0; i < size; i++) routes[r][i] = next++;
+            routeSize[r] = size;
+            refresh(r);
+        }
+    }
+
+
+    private void refresh(int r) {
+        int size = routeSize[r];
+        if (arrival[r] == null || arrival[r].length < routes[r].length) {
+            arrival[r] = new double[routes[r].length];
+            prefixSlack[r] = new double[routes[r].length];
+            suffixSlack[r] = new double[routes[r].length];
+        }
+        double time = 0.0;
+        double slack = Double.POSITIVE_INFINITY;
+        double load = 0.0;
+        int location = depotLocation[r];
+        for (int i = 0; i < size; i++) {
+            int stop = routes[r][i];
+            time += legs[location][stopLocation[stop]];
+            location = stopLocation[stop];
+            slack = Math.min(slack, stopDeadline[stop] - time);
+            load += stopLoad[stop];
+            arrival[r][i] = time;
+            prefixSlack[r][i] = slack;
+        }
+        slack = Double.POSITIVE_INFINITY;
+        for (int i = size - 1; i >= 0; i--) {
+            slack = Math.min(slack, stopDeadline[routes[r][i]] - arrival[r][i]);
+            suffixSlack[r][i] = slack;
+        }
+        routeLoad[r] = load;
+        routeObjective[r] = objective(time, size == 0 ? Double.POSITIVE_INFINITY : prefixSlack[r][size - 1]);
+    }
+
+    private static double objective(double travelTime, double slack) {
+        return travelTime + LATENESS_PENALTY * Math.max(0.0, -slack);
+    }
+
+    // chain := route r up to and including position last (-1 for just the vehicle's start)
+    private void startChain(int r, int last) {
+        if (last < 0) {
+            chainLocation = depotLocation[r];
+            chainTime = 0.0;
+            chainSlack = Double.POSITIVE_INFINITY;
+        } else {
+            chainLocation = stopLocation[routes[r][last]];
+            chainTime = arrival[r][last];
+            chainSlack = prefixSlack[r][last];
+        }
+    }
+
+    private void appendStop(int stop) {
+        chainTime += legs[chainLocation][stopLocation[stop]];
+        chainSlack = Math.min(chainSlack, stopDeadline[stop] - chainTime);
+        chainLocation = stopLocation[stop];
+    }
+
+    // appends a piece that starts at firstLocation, takes duration and has the given slack
+    // measured from its own start
+    private void appendPiece(int firstLocation, int lastLocation, double duration, double slack) {
+        chainTime += legs[chainLocation][firstLocation];
+        chainSlack = Math.min(chainSlack, slack - chainTime);
+        chainTime += duration;
+        chainLocation = lastLocation;
+    }
+
+    // appends positions from..end of route r unchanged
+    private void appendSuffix(int r, int from) {
+        int size = routeSize[r];
+        if (from >= size) return;
+        appendPiece(stopLocation[routes[r][from]], stopLocation[routes[r][size - 1]],
+                arrival[r][size - 1] - arrival[r][from], suffixSlack[r][from] + arrival[r][from]);
+    }
+
+    private double chainObjective() {
+        return objective(chainTime, chainSlack);
+    }
+
+
+    private void localSearch() {
+        boolean improved = true;
+        while (improved && !outOfTime()) {
+            improved = false;
+            for (int r = 0; r < routes.length; r++) {
+                while (!outOfTime() && (twoOpt(r) || orOpt(r))) improved = true;
+            }
+            for (int a = 0; a < routes.length && !outOfTime(); a++) {
+                for (int b = 0; b < routes.length; b++) {
+                    if (a != b && relocate(a, b)) improved = true;
+                    if (a < b && exchange(a, b)) improved = true;
+                }
+            }
+        }
+    }
+
+    // reverses positions i..j of one route; the reversed piece is grown one stop at a time
+    private boolean twoOpt(int r) {
+        int size = routeSize[r];
+        for (int i = 0; i < size - 1; i++) {
+            int first = routes[r][i];
+            double duration = 0.0;
+            double slack = stopDeadline[first];
+            for (int j = i + 1; j < size; j++) {
+                // prepend stop j to the reversed piece (currently j - 1 .. i)
+                int stop = routes[r][j];
+                int head = routes[r][j - 1];
+                double leg = legs[stopLocation[stop]][stopLocation[head]];
+                slack = Math.min(stopDeadline[stop], slack - leg);
+                duration += leg;
+
+                startChain(r, i - 1);
+                appendPiece(stopLocation[stop], stopLocation[first], duration, slack);
+                appendSuffix(r, j + 1);
+                if (chainObjective() < routeObjective[r] - EPSILON) {
+                    reverse(routes[r], i, j);
+                    refresh(r);
+                    improvingMoves++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // moves a segment of 1..MAX_SEGMENT stops to another place in the same route
+    private boolean orOpt(int r) {
+        int size = routeSize[r];
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            for (int p = 0; p + length <= size; p++) {
+                int end = p + length - 1;
+                int segmentFirst = stopLocation[routes[r][p]];
+                int segmentLast = stopLocation[routes[r][end]];
+                double segmentDuration = arrival[r][end] - arrival[r][p];
+                double segmentSlack = Double.POSITIVE_INFINITY;
+                for (int k = p; k <= end; k++) {
+                    segmentSlack = Math.min(segmentSlack, stopDeadline[routes[r][k]] - arrival[r][k]);
+                }
+                segmentSlack += arrival[r][p];
+
+                // later: the stops between the segment and q move up in front of it; the middle
+                // piece is unchanged, so its smallest deadline margin is kept as it grows
+                double middleMargin = Double.POSITIVE_INFINITY;
+                for (int q = end + 1; q < size; q++) {
+                    middleMargin = Math.min(middleMargin, stopDeadline[routes[r][q]] - arrival[r][q]);
+                    int middleFirst = stopLocation[routes[r][end + 1]];
+                    double middleDuration = arrival[r][q] - arrival[r][end + 1];
+                    double middleSlack = middleMargin + arrival[r][end + 1];
+                    startChain(r, p - 1);
+                    appendPiece(middleFirst, stopLocation[routes[r][q]], middleDuration, middleSlack);
+                    appendPiece(segmentFirst, segmentLast, segmentDuration, segmentSlack);
+                    appendSuffix(r, q + 1);
+                    if (chainObjective() < routeObjective[r] - EPSILON) {
+                        rotateLeft(routes[r], p, q, length);
+                        refresh(r);
+                        improvingMoves++;
+                        return true;
+                    }
+                }
+                // earlier: the segment goes in front of position q
+                middleMargin = Double.POSITIVE_INFINITY;
+                for (int q = p - 1; q >= 0; q--) {
+                    middleMargin = Math.min(middleMargin, stopDeadline[routes[r][q]] - arrival[r][q]);
+                    double middleDuration = arrival[r][p - 1] - arrival[r][q];
+                    double middleSlack = middleMargin + arrival[r][q];
+                    startChain(r, q - 1);
+                    appendPiece(segmentFirst, segmentLast, segmentDuration, segmentSlack);
+                    appendPiece(stopLocation[routes[r][q]], stopLocation[routes[r][p - 1]], middleDuration, middleSlack);
+                    appendSuffix(r, end + 1);
+                    if (chainObjective() < routeObjective[r] - EPSILON) {
+                        rotateLeft(routes[r], q, end, p - q);
+                        refresh(r);
+                        improvingMoves++;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // moves one stop from route a to its best position in route b
+    private boolean relocate(int a, int b) {
+        for (int p = 0; p < routeSize[a]; p++) {
+            int stop = routes[a][p];
+            if (routeLoad[b] + stopLoad[stop] > capacity[b]) continue;
+            startChain(a, p - 1);
+            appendSuffix(a, p + 1);
+            double withoutStop = chainObjective();
+            double before = routeObjective[a] + routeObjective[b];
+
+            for (int q = 0; q <= routeSize[b]; q++) {
+                startChain(b, q - 1);
+                appendStop(stop);
+                appendSuffix(b, q);
+                if (withoutStop + chainObjective() < before - EPSILON) {
+                    remove(a, p);
+                    insert(b, q, stop);
+                    improvingMoves++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // swaps one stop of route a with one stop of route b, each taking the other's position
+    private boolean exchange(int a, int b) {
+        for (int p = 0; p < routeSize[a]; p++) {
+            int x = routes[a][p];
+            for (int q = 0; q < routeSize[b]; q++) {
+                int y = routes[b][q];
+                if (routeLoad[a] - stopLoad[x] + stopLoad[y] > capacity[a]
+                        || routeLoad[b] - stopLoad[y] + stopLoad[x] > capacity[b]) continue;
+                startChain(a, p - 1);
+                appendStop(y);
+                appendSuffix(a, p + 1);
+                double newA = chainObjective();
+                startChain(b, q - 1);
+                appendStop(x);
+                appendSuffix(b, q + 1);
+                if (newA + chainObjective() < routeObjective[a] + routeObjective[b] - EPSILON) {
+                    routes[a][p] = y;
+                    routes[b][q] = x;
+                    refresh(a);
+                    refresh(b);
+                    improvingMoves++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    // destroy and repair once, then local search; keeps the result only if the total improved
+    private boolean largeNeighbourhoodStep() {
+        int[][] savedRoutes = new int[routes.length][];
+        int[] savedSizes = routeSize.clone();
+        for (int r = 0; r < routes.length; r++) savedRoutes[r] = Arrays.copyOf(routes[r], routeSize[r]);
+        double before = totalObjective();
+
+        int[] removed = random.nextBoolean() ? removeRelated() : removeRandom();
+        if (repair(removed)) {
+            localSearch();
+            if (totalObjective() < before - EPSILON) return true;
+        }
+
+        for (int r = 0; r < routes.length; r++) {
+            routes[r] = Arrays.copyOf(savedRoutes[r], Math.max(savedRoutes[r].length, 4));
+            routeSize[r] = savedSizes[r];
+            refresh(r);
+        }
+        return false;
+    }
+
+    private int removalCount() {
+        int stops = stopLocation.length;
+        int most = Math.max(2, Math.min(stops / 5, 40));
+        return Math.min(stops, 2 + random.nextInt(most - 1));
+    }
+
+    private int[] removeRandom() {
+        int count = removalCount();
+        boolean[] chosen = new boolean[stopLocation.length];
+        int[] removed = new int[count];
+        for (int i = 0; i < count; i++) {
+            int stop;
+            do {
+                stop = random.nextInt(stopLocation.length);
+            } while (chosen[stop]);
+            chosen[stop] = true;
+            removed[i] = stop;
+        }
+        removeAll(chosen);
+        return removed;
+    }
+
+    // a random stop and the stops closest to it, which are the ones worth reshuffling together
+    private int[] removeRelated() {
+        int count = removalCount();
+        int seedStop = random.nextInt(stopLocation.length);
+        Integer[] byCloseness = new Integer[stopLocation.length];
+        for (int s = 0; s < byCloseness.length; s++) byCloseness[s] = s;
+        int from = stopLocation[seedStop];
+        Arrays.sort(byCloseness, Comparator.comparingDouble(s -> legs[from][stopLocation[s]]));
+        boolean[] chosen = new boolean[stopLocation.length];
+        int[] removed = new int[count];
+        for (int i = 0; i < count; i++) {
+            removed[i] = byCloseness[i];
+            chosen[removed[i]] = true;
+        }
+        removeAll(chosen);
+        return removed;
+    }
+
+    private void removeAll(boolean[] chosen) {
+        for (int r = 0; r < routes.length; r++) {
+            int kept = 0;
+            for (int i = 0; i < routeSize[r]; i++) {
+                if (!chosen[routes[r][i]]) routes[r][kept++] = routes[r][i];
+            }
+            if (kept != routeSize[r]) {
+                routeSize[r] = kept;
+                refresh(r);
+            }
+        }
+    }
+
+    // cheapest insertion of each removed stop in random order; fails if one no longer fits anywhere
+    private boolean repair(int[] removed) {
+        for (int i = removed.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = removed[i];
+            removed[i] = removed[j];
+            removed[j] = swap;
+        }
+        for (int stop : removed) {
+            int bestRoute = -1;
+            int bestPosition = -1;
+            double bestIncrease = Double.POSITIVE_INFINITY;
+            for (int r = 0; r < routes.length; r++) {
+                if (routeLoad[r] + stopLoad[stop] > capacity[r]) continue;
+                for (int q = 0; q <= routeSize[r]; q++) {
+                    startChain(r, q - 1);
+                    appendStop(stop);
+                    appendSuffix(r, q);
+                    double increase = chainObjective() - routeObjective[r];
+                    if (increase < bestIncrease) {
+                        bestIncrease = increase;
+                        bestRoute = r;
+                        bestPosition = q;
+                    }
+                }
+            }
+            if (bestRoute < 0) return false;
+            insert(bestRoute, bestPosition, stop);
+        }
+        return true;
+    }
+
+
+    private void remove(int r, int position) {
+        System.arraycopy(routes[r], position + 1, routes[r], position, routeSize[r] - position - 1);
+        routeSize[r]--;
+        refresh(r);
+    }
+
+    private void insert(int r, int position, int stop) {
+        if (routeSize[r] == routes[r].length) routes[r] = Arrays.copyOf(routes[r], routes[r].length * 2);
+        System.arraycopy(routes[r], position, routes[r], position + 1, routeSize[r] - position);
+        routes[r][position] = stop;
+        routeSize[r]++;
+        refresh(r);
+    }
+
+    private static void reverse(int[] values, int from, int to) {
+        for (; from < to; from++, to--) {
+            int swap = values[from];
+            values[from] = values[to];
+            values[to] = swap;
+        }
+    }
+
+    // rotates values[from..to] left by shift places
+    private static void rotateLeft(int[] values, int from, int to, int shift) {
+        reverse(values, from, from + shift - 1);
+        reverse(values, from + shift, to);
+        reverse(values, from, to);
+    }
+
+    private boolean outOfTime() {
+        if (timeBudgetMillis == 0) return false;
+        return System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+    }
+
+    private double totalObjective() {
+        double total = 0.0;
+        for (double objective : routeObjective) total += objective;
+        return total;
+    }
+
+    private double totalTravelTime() {
+        double total = 0.0;
+        for (int r = 0; r < routes.length; r++) {
+            if (routeSize[r] > 0) total += arrival[r][routeSize[r] - 1];
+        }
+        return total;
+    }
+
+    private double totalLateness() {
+        double total = 0.0;
+        for (int r = 0; r < routes.length; r++) {
+            for (int i = 0; i < routeSize[r]; i++) {
+                total += Math.max(0.0, arrival[r][i] - stopDeadline[routes[r][i]]);
+            }
+        }
+        return total;
+    }
+}
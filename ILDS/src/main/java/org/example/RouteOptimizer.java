@@ -0,0 +1,262 @@
+package org.example;
+
+import java.util.*;
+
+// Exact single-vehicle stop ordering over a precomputed leg-cost matrix.
+// legCosts[0][j] is the cost from the start to stop j and legCosts[i + 1][j] the cost from stop i
+// to stop j (the layout of LogisticsNetwork.computeDistanceMatrix with the start prepended to the
+// sources). A route visits every stop once, the loads of all stops must fit the capacity, and
+// each stop must be reached no later than its deadline (+infinity for none). The objective is
+// the arrival time at the last stop.
+//
+// HELD_KARP is dynamic programming over (visited set, last stop): O(2^k k^2) time and about
+// 9 k 2^(k-1) bytes, so it is limited to MAX_HELD_KARP_STOPS. BRANCH_AND_BOUND is depth-first
+// search from a greedy initial route, pruned on load, on deadlines (including stops that can no
+// longer be reached in time) and on a lower bound made of each remaining stop's cheapest
+// incoming leg.
+public class RouteOptimizer {
+    public static final int MAX_HELD_KARP_STOPS = 20;
+
+    public enum Mode {
+        HELD_KARP,
+        BRANCH_AND_BOUND
+    }
+
+    // best route found, or an infeasible solution when no order satisfies the constraints
+    public static class Solution {
+        private final Mode mode;
+        private final int[] order;
+        private final double cost;
+        private final long nodesExplored;
+        private final double solveMillis;
+
+        Solution(Mode mode, int[] order, double cost, long nodesExplored, double solveMillis) {
+            this.mode = mode;
+            this.order = order;
+            this.cost = cost;
+            this.nodesExplored = nodesExplored;
+            this.solveMillis = solveMillis;
+        }
+
+        public Mode getMode() { return mode; }
+        public boolean isFeasible() { return order != null; }
+        public int[] getOrder() { return order == null ? new int[0] : order.clone(); } // stop indices in visiting order
+        public double getCost() { return cost; }
+        public long getNodesExplored() { return nodesExplored; }
+        public double getSolveMillis() { return solveMillis; }
+    }
+
+    private final double[][] legCosts;
+    private final double[] loads;
+    private final double[] deadlines;
+    private final double capacity;
+    private final int stops;
+
+    // branch-and-bound state
+    private int[] bestOrder;
+    private double bestCost;
+    private long nodesExplored;
+    private int[] currentOrder;
+    private boolean[] visited;
+
+    public RouteOptimizer(double[][] legCosts, double[] loads, double[] deadlines, double capacity) {
+        this.stops = loads.length;
+        if (deadlines.length != stops || legCosts.length != stops + 1) {
+            throw new IllegalArgumentException("Leg costs, loads and deadlines must cover the same " + stops + " stops");
+        }
+        this.legCosts = legCosts;
+        this.loads = loads;
+        this.deadlines = deadlines;
+        this.capacity = capacity;
+    }
+
+    // HELD_KARP when it fits, BRANCH_AND_BOUND otherwise
+    public Solution solve() {
+        return solve(stops <= MAX_HELD_KARP_STOPS ? Mode.HELD_KARP : Mode.BRANCH_AND_BOUND);
+    }
+
+    public Solution solve(Mode mode) {
+        long start = System.nanoTime();
+        nodesExplored = 0;
+        bestOrder = null;
+        bestCost = Double.POSITIVE_INFINITY;
+
+        double totalLoad = 0.0;
+        for (double load : loads) totalLoad += load;
+        if (totalLoad <= capacity) {
+            if (mode == Mode.HELD_KARP) {
+                heldKarp();
+            } else {
+                branchAndBound();
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        return new Solution(mode, bestOrder, bestCost, nodesExplored, millis);
+    }
+
+    private void heldKarp() {
+        if (stops > MAX_HELD_KARP_STOPS) {
+            throw new IllegalArgumentException("Held-Karp supports at most " + MAX_HELD_KARP_STOPS
+                    + " stops, got " + stops);
+        }
+        if (stops == 0) {
+            bestOrder = new int[0];
+            bestCost = 0.0;
+            return;
+        }
+        // best[last][S'] = earliest arrival at last having visited S, where S' is S without last's
+        // bit squeezed out; +infinity when S cannot end at last within the deadlines
+        int half = 1 << (stops - 1);
+        double[][] best = new double[stops][half];
+        byte[][] previous = new byte[stops][half];
+        double[] subsetLoad = new double[1 << stops];
+        for (double[] row : best) Arrays.fill(row, Double.POSITIVE_INFINITY);
+
+        for (int set = 1; set < (1 << stops); set++) {
+            int low = Integer.numberOfTrailingZeros(set);
+            subsetLoad[set] = subsetLoad[set & (set - 1)] + loads[low];
+            if (subsetLoad[set] > capacity) continue; // no route may carry this set of stops
+
+            for (int rest = set; rest != 0; rest &= rest - 1) {
+                int last = Integer.numberOfTrailingZeros(rest);
+                int without = set & ~(1 << last);
+                double arrival;
+                int from = -1;
+                if (without == 0) {
+                    arrival = legCosts[0][last];
+                } else {
+                    arrival = Double.POSITIVE_INFINITY;
+                    for (int options = without; options != 0; options &= options - 1) {
+                        int prior = Integer.numberOfTrailingZeros(options);
+                        double reached = best[prior][squeeze(without, prior)];
+                        if (reached == Double.POSITIVE_INFINITY) continue;
+                        double candidate = reached + legCosts[prior + 1][last];
+                        if (candidate < arrival) {
+                            arrival = candidate;
+                            from = prior;
+                        }
+                    }
+                }
+                if (arrival == Double.POSITIVE_INFINITY || arrival > deadlines[last]) continue;
+                nodesExplored++;
+                best[last][squeeze(set, last)] = arrival;
+                previous[last][squeeze(set, last)] = (byte) from;
+            }
+        }
+
+        int all = (1 << stops) - 1;
+        int last = -1;
+        for (int j = 0; j < stops; j++) {
+            double cost = best[j][squeeze(all, j)];
+            if (cost < bestCost) {
+                bestCost = cost;
+                last = j;
+            }
+        }
+        if (last < 0) return;
+
+        int[] order = new int[stops];
+        int set = all;
+        for (int position = stops - 1; position >= 0; position--) {
+            order[position] = last;
+            int from = previous[last][squeeze(set, last)];
+            set &= ~(1 << last);
+            last = from;
+        }
+        bestOrder = order;
+    }
+
+    // set with bit removed and the higher bits shifted down one place
+    private static int squeeze(int set, int bit) {
+        int lower = set & ((1 << bit) - 1);
+        return lower | ((set >>> (bit + 1)) << bit);
+    }
+
+    private void branchAndBound() {
+        currentOrder = new int[stops];
+        visited = new boolean[stops];
+        greedyRoute();
+        extend(0, 0, 0.0);
+    }
+
+    // nearest feasible stop first; gives the search an initial bound when it succeeds
+    private void greedyRoute() {
+        boolean[] used = new boolean[stops];
+        int[] order = new int[stops];
+        int row = 0;
+        double time = 0.0;
+        for (int position = 0; position < stops; position++) {
+            int next = -1;
+            for (int j = 0; j < stops; j++) {
+                double arrival = time + legCosts[row][j];
+                if (used[j] || arrival == Double.POSITIVE_INFINITY || arrival > deadlines[j]) continue;
+                if (next < 0 || legCosts[row][j] < legCosts[row][next]) next = j;
+            }
+            if (next < 0) return;
+            used[next] = true;
+            order[position] = next;
+            time += legCosts[row][next];
+            row = next + 1;
+        }
+        bestOrder = order;
+        bestCost = time;
+    }
+
+    private void extend(int depth, int row, double time) {
+        nodesExplored++;
+        if (depth == stops) {
+            if (time < bestCost) {
+                bestCost = time;
+                bestOrder = currentOrder.clone();
+            }
+            return;
+        }
+        if (time + lowerBound(row) >= bestCost) return;
+
+        // children in order of leg cost, so good routes tighten the bound early
+        int[] candidates = new int[stops - depth];
+        int count = 0;
+        for (int j = 0; j < stops; j++) {
+            if (visited[j]) continue;
+            // a remaining stop that can't be reached in time even directly ends this branch
+            if (time + legCosts[row][j] > deadlines[j]) return;
+            candidates[count++] = j;
+        }
+        sortByLegCost(candidates, count, row);
+
+        for (int i = 0; i < count; i++) {
+            int next = candidates[i];
+            visited[next] = true;
+            currentOrder[depth] = next;
+            extend(depth + 1, next + 1, time + legCosts[row][next]);
+            visited[next] = false;
+        }
+    }
+
+    // every remaining stop still needs one incoming leg, from the current position or from
+    // another remaining stop
+    private double lowerBound(int row) {
+        double bound = 0.0;
+        for (int j = 0; j < stops; j++) {
+            if (visited[j]) continue;
+            double cheapest = legCosts[row][j];
+            for (int i = 0; i < stops; i++) {
+                if (i != j && !visited[i]) cheapest = Math.min(cheapest, legCosts[i + 1][j]);
+            }
+            bound += cheapest;
+        }
+        return bound;
+    }
+
+    private void sortByLegCost(int[] candidates, int count, int row) {
+        for (int i = 1; i < count; i++) {
+            int stop = candidates[i];
+            int j = i - 1;
+            while (j >= 0 && legCosts[row][candidates[j]] > legCosts[row][stop]) {
+                candidates[j + 1] = candidates[j];
+                j--;
+            }
+            candidates[j + 1] = stop;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// HTTP/JSON front end for routing and scheduling queries; every request runs on its own virtual
+// thread. Routing and distance-matrix queries are answered from a snapshot of the network frozen
+// when the server is created, shared read-only by all requests; routing engines (which hold
+// per-query search arrays) are pooled and reused rather than allocated per request.
+// Schedule requests build their own DeliveryScheduler over the network, so the network should
+// not be modified while the server runs.
+//
+//   GET  /path?from=A&to=B[&metric=time|distance][&mode=DIJKSTRA|BIDIRECTIONAL|ASTAR]
+//   GET  /adaptive?from=A&to=B[&time=2024-01-01T08:00][&mode=...]
+//   POST /matrix    {"sources": [...], "targets": [...], "metric": "time|distance|adaptive", "time": "..."}
+//   POST /schedule  {"vehicles": [{"id", "capacity", "location"}],
+//                    "deliveries": [{"id", "destination", "load", "deadline", "priority", "estimatedTime"}]}
+//
+// Bad requests get status 400 and {"error": "..."}.
+public class RouteServer {
+    private final LogisticsNetwork network;
+    private final NetworkSnapshot snapshot;
+    private final CongestionPredictor congestionPredictor;
+    private final BlockingQueue<RoutingEngine> engines = new LinkedBlockingQueue<>();
+    private final HttpServer server;
+    private ExecutorService executor;
+
+    // port 0 picks a free port; see getPort
+    public RouteServer(LogisticsNetwork network, int port) throws IOException {
+        this.network = network;
+        this.snapshot = network.freeze();
+        this.congestionPredictor = network.getCongestionPredictor();
+        network.getRoutingEngine(); // builds the live routing graph before schedule requests share it
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/path", exchange -> handle(exchange, "GET", this::path));
+        server.createContext("/adaptive", exchange -> handle(exchange, "GET", this::adaptive));
+        server.createContext("/matrix", exchange -> handle(exchange, "POST", this::matrix));
+        server.createContext("/schedule", exchange -> handle(exchange, "POST", this::schedule));
+    }
+
+    public void start() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    // stops accepting requests and waits up to delaySeconds for those in progress
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        if (executor != null) executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Handler {
+        Object respond(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        int status = 200;
+        Object body;
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                status = 405;
+                body = Map.of("error", "Use " + method);
+            } else {
+                body = handler.respond(exchange);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            status = 400;
+            body = Map.of("error", String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            status = 500;
+            body = Map.of("error", String.valueOf(e));
+        }
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Object path(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String from = required(query, "from");
+        String to = required(query, "to");
+        boolean useDistance = useDistance(query.getOrDefault("metric", "time"));
+        RoutingEngine.EdgeWeight cost = useDistance ? snapshot::getDistance : snapshot::getTravelTime;
+        RoutingEngine.Heuristic heuristic = Heuristics.none();
+        int target = snapshot.indexOf(to);
+        if (target >= 0) {
+            heuristic = useDistance ? Heuristics.greatCircle(snapshot, target) : Heuristics.travelTime(snapshot, target);
+        }
+        return route(from, to, cost, heuristic, mode(query));
+    }
+
+    private Object adaptive(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String from = required(query, "from");
+        String to = required(query, "to");
+        LocalDateTime time = query.containsKey("time") ? LocalDateTime.parse(query.get("time")) : LocalDateTime.now();
+        RoutingEngine.EdgeWeight cost = congestionPredictor.adaptiveWeight(snapshot, time);
+        int target = snapshot.indexOf(to);
+        RoutingEngine.Heuristic heuristic = target < 0 ? Heuristics.none() : Heuristics.adaptive(snapshot, target);
+        return route(from, to, cost, heuristic, mode(query));
+    }
+
+    private Object route(String from, String to, RoutingEngine.EdgeWeight cost, RoutingEngine.Heuristic heuristic,
+                         LogisticsNetwork.SearchMode mode) {
+        RoutingEngine engine = engines.poll();
+        if (engine == null) engine = new RoutingEngine(snapshot);
+        List<String> path;
+        try {
+            if (mode == LogisticsNetwork.SearchMode.BIDIRECTIONAL) {
+                path = engine.findPathBidirectional(from, to, cost);
+            } else if (mode == LogisticsNetwork.SearchMode.ASTAR) {
+                path = engine.findPath(from, to, cost, heuristic);
+            } else {
+                path = engine.findPath(from, to, cost);
+            }
+        } finally {
+            engines.offer(engine);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", from);
+        response.put("to", to);
+        response.put("path", path);
+        response.put("cost", path.isEmpty() ? null : pathCost(path, cost));
+        return response;
+    }
+
+    // sum of the cheapest edge between each consecutive pair of the path
+    private double pathCost(List<String> path, RoutingEngine.EdgeWeight cost) {
+        double total = 0.0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int node = snapshot.indexOf(path.get(i));
+            int next = snapshot.indexOf(path.get(i + 1));
+            double cheapest = Double.POSITIVE_INFINITY;
+            for (int edge = snapshot.firstEdge(node), last = snapshot.endEdge(node); edge < last; edge++) {
+                if (snapshot.getTarget(edge) == next) cheapest = Math.min(cheapest, cost.weight(edge));
+            }
+            total += cheapest;
+        }
+        return total;
+    }
+
+    private Object matrix(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = body(exchange);
+        List<String> sources = strings(request, "sources");
+        List<String> targets = strings(request, "targets");
+        String metric = request.getOrDefault("metric", "time").toString();
+        RoutingEngine.EdgeWeight cost;
+        if (metric.equals("adaptive")) {
+            Object time = request.get("time");
+            cost = congestionPredictor.adaptiveWeight(snapshot,
+                    time == null ? LocalDateTime.now() : LocalDateTime.parse(time.toString()));
+        } else {
+            cost = useDistance(metric) ? snapshot::getDistance : snapshot::getTravelTime;
+        }
+        DistanceMatrix matrix = DistanceMatrix.compute(snapshot, sources, targets, cost, false);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("sources", sources);
+        response.put("targets", targets);
+        response.put("costs", Arrays.asList(matrix.getCosts()));
+        return response;
+    }
+
+    private Object schedule(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = body(exchange);
+        DeliveryScheduler scheduler = new DeliveryScheduler(network);
+        scheduler.setWarnUnassigned(false); // reported in the response instead
+        for (Map<String, Object> fields : objects(request, "vehicles")) {
+            Location location = network.getLocation(text(fields, "location")); // throws for unknown ids
+            scheduler.addVehicle(new Vehicle(text(fields, "id"), number(fields, "capacity"), location));
+        }
+        Set<String> deliveryIds = new LinkedHashSet<>();
+        for (Map<String, Object> fields : objects(request, "deliveries")) {
+            Object deadline = fields.get("deadline");
+            Object priority = fields.get("priority");
+            Delivery delivery = new Delivery(text(fields, "id"), text(fields, "destination"), number(fields, "load"),
+                    deadline == null ? LocalDateTime.now().plusHours(4) : LocalDateTime.parse(deadline.toString()),
+                    fields.containsKey("estimatedTime") ? number(fields, "estimatedTime") : 1.0,
+                    priority == null ? Delivery.DeliveryPriority.MEDIUM
+                            : Delivery.DeliveryPriority.valueOf(priority.toString().toUpperCase()));
+            deliveryIds.add(delivery.getId());
+            scheduler.addDelivery(delivery);
+        }
+
+        Map<String, Object> assignments = new TreeMap<>();
+        for (Map.Entry<String, List<Delivery>> entry : scheduler.scheduleDeliveries().entrySet()) {
+            List<String> ids = new ArrayList<>();
+            for (Delivery delivery : entry.getValue()) {
+                ids.add(delivery.getId());
+                deliveryIds.remove(delivery.getId());
+            }
+            assignments.put(entry.getKey(), ids);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("schedule", assignments);
+        response.put("unassigned", new ArrayList<>(deliveryIds));
+        return response;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        String text;
+        try (InputStream in = exchange.getRequestBody()) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Object parsed = Json.parse(text);
+        if (!(parsed instanceof Map)) throw new IllegalArgumentException("Request body must be a JSON object");
+        return (Map<String, Object>) parsed;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing parameter: " + name);
+        return value;
+    }
+
+    private static LogisticsNetwork.SearchMode mode(Map<String, String> query) {
+        LogisticsNetwork.SearchMode mode = LogisticsNetwork.SearchMode.valueOf(
+                query.getOrDefault("mode", "DIJKSTRA").toUpperCase());
+        if (mode != LogisticsNetwork.SearchMode.DIJKSTRA && mode != LogisticsNetwork.SearchMode.BIDIRECTIONAL
+                && mode != LogisticsNetwork.SearchMode.ASTAR) {
+            throw new IllegalArgumentException("Unsupported search mode: " + mode);
+        }
+        return mode;
+    }
+
+    private static boolean useDistance(String metric) {
+        if (metric.equals("distance")) return true;
+        if (metric.equals("time")) return false;
+        throw new IllegalArgumentException("Unknown metric: " + metric);
+    }
+
+    private static String text(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing field: " + name);
+        return value.toString();
+    }
+
+    private static double number(Map<String, Object> fields, String name) {
+        if (!(fields.get(name) instanceof Number value)) {
+            throw new IllegalArgumentException("Missing or non-numeric field: " + name);
+        }
+        return value.doubleValue();
+    }
+
+    private static List<String> strings(Map<String, Object> request, String name) {
+        if (!(request.get(name) instanceof List<?> values)) {
+            throw new IllegalArgumentException("Missing list: " + name);
+        }
+        List<String> strings = new ArrayList<>();
+        for (Object value : values) strings.add(String.valueOf(value));
+        return strings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> objects(Map<String, Object> request, String name) {
+        if (!(request.get(name) instanceof List<?> values)) {
+            throw new IllegalArgumentException("Missing list: " + name);
+        }
+        List<Map<String, Object>> objects = new ArrayList<>();
+        for (Object value : values) {
+            if (!(value instanceof Map)) throw new IllegalArgumentException("Entries of " + name + " must be objects");
+            objects.add((Map<String, Object>) value);
+        }
+        return objects;
+    }
+}
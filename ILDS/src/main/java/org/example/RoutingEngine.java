@@ -0,0 +1,285 @@
+package org.example;
+
+import java.util.*;
+
+// Dijkstra, A* and bidirectional Dijkstra over a NetworkSnapshot.
+// The distance/predecessor arrays are allocated once per engine and reset only for the nodes
+// a query touched, so repeated queries don't allocate per node. An engine is not thread-safe;
+// use one per thread (they can share the same snapshot).
+public class RoutingEngine {
+
+    // cost of travelling along a single edge of the snapshot
+    public interface EdgeWeight {
+        double weight(int edge);
+    }
+
+    // lower bound on the remaining cost from a node to the current target (see Heuristics)
+    public interface Heuristic {
+        double estimate(int node);
+    }
+
+    private final NetworkSnapshot graph;
+
+    private final double[] distances;
+    private final int[] previousEdge;            // edge used to reach each node, -1 for none
+    private final boolean[] settled;
+    private final int[] touched;                 // nodes whose entries must be reset after a query
+    private int touchedCount;
+    private final IndexedMinHeap heap;
+
+    // backward half of the bidirectional search, allocated on first use
+    private double[] backwardDistances;
+    private int[] nextEdge;                      // edge leaving each node towards the target, -1 for none
+    private boolean[] backwardSettled;
+    private int[] backwardTouched;
+    private int backwardTouchedCount;
+    private IndexedMinHeap backwardHeap;
+
+    private int lastSettledCount;
+
+    public RoutingEngine(NetworkSnapshot graph) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        this.distances = new double[n];
+        this.previousEdge = new int[n];
+        this.settled = new boolean[n];
+        this.touched = new int[n];
+        this.heap = new IndexedMinHeap(n);
+        Arrays.fill(distances, Double.MAX_VALUE);
+        Arrays.fill(previousEdge, -1);
+    }
+
+    public NetworkSnapshot getGraph() { return graph; }
+
+    // number of nodes taken off the queue by the most recent query
+    public int getLastSettledCount() { return lastSettledCount; }
+
+    public List<String> findPath(String startId, String endId, boolean useDistance) {
+        // whether to use distance or time as cost
+        return findPath(startId, endId, useDistance ? graph::getDistance : graph::getTravelTime);
+    }
+
+    public List<String> findPath(String startId, String endId, EdgeWeight edgeWeight) {
+        return findPath(startId, endId, edgeWeight, Heuristics.none());
+    }
+
+    // A* when the heuristic is non-zero; it must be consistent for the edge weight used
+    public List<String> findPath(String startId, String endId, EdgeWeight edgeWeight, Heuristic heuristic) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return new ArrayList<>();
+        }
+
+        try {
+            search(start, end, edgeWeight, heuristic);
+            return buildPath(end);
+        } finally {
+            reset();
+        }
+    }
+
+    // bidirectional Dijkstra: a forward search from start over outgoing edges and a backward
+    // search from end over incoming edges, always advancing the side with the smaller queue key.
+    // Stops once the two smallest keys together reach the best start-end cost seen so far
+    // (where both searches have labelled the same node), which is then optimal.
+    public List<String> findPathBidirectional(String startId, String endId, EdgeWeight edgeWeight) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return new ArrayList<>();
+        }
+        if (backwardHeap == null) {
+            int n = graph.getNodeCount();
+            backwardDistances = new double[n];
+            nextEdge = new int[n];
+            backwardSettled = new boolean[n];
+            backwardTouched = new int[n];
+            backwardHeap = new IndexedMinHeap(n);
+            Arrays.fill(backwardDistances, Double.MAX_VALUE);
+            Arrays.fill(nextEdge, -1);
+        }
+
+        try {
+            int meeting = searchBidirectional(start, end, edgeWeight);
+            return meeting < 0 ? new ArrayList<>() : buildPath(meeting, true);
+        } finally {
+            reset();
+        }
+    }
+
+    // returns the node where the best forward and backward paths meet, or -1 if end is unreachable
+    private int searchBidirectional(int start, int end, EdgeWeight edgeWeight) {
+        lastSettledCount = 0;
+        touch(start);
+        distances[start] = 0.0;
+        heap.insertOrDecrease(start, 0.0);
+        backwardTouched[backwardTouchedCount++] = end;
+        backwardDistances[end] = 0.0;
+        backwardHeap.insertOrDecrease(end, 0.0);
+
+        double best = start == end ? 0.0 : Double.MAX_VALUE;
+        int meeting = start == end ? start : -1;
+        while (!heap.isEmpty() && !backwardHeap.isEmpty()) {
+            if (heap.minKey() + backwardHeap.minKey() >= best) break;
+            lastSettledCount++;
+
+            if (heap.minKey() <= backwardHeap.minKey()) {
+                int current = heap.pollMin();
+                settled[current] = true;
+                double currentDistance = distances[current];
+                for (int edge = graph.firstEdge(current), last = graph.endEdge(current); edge < last; edge++) {
+                    int neighbor = graph.getTarget(edge);
+                    if (settled[neighbor]) continue;
+                    double newDistance = currentDistance + edgeWeight.weight(edge);
+                    if (newDistance < distances[neighbor]) {
+                        if (distances[neighbor] == Double.MAX_VALUE) touch(neighbor);
+                        distances[neighbor] = newDistance;
+                        previousEdge[neighbor] = edge;
+                        heap.insertOrDecrease(neighbor, newDistance);
+                    }
+                    if (backwardDistances[neighbor] != Double.MAX_VALUE
+                            && distances[neighbor] + backwardDistances[neighbor] < best) {
+                        best = distances[neighbor] + backwardDistances[neighbor];
+                        meeting = neighbor;
+                    }
+                }
+            } else {
+                int current = backwardHeap.pollMin();
+                backwardSettled[current] = true;
+                double currentDistance = backwardDistances[current];
+                for (int i = graph.firstInEdge(current), last = graph.endInEdge(current); i < last; i++) {
+                    int edge = graph.getInEdge(i);
+                    int neighbor = graph.getSource(edge);
+                    if (backwardSettled[neighbor]) continue;
+                    double newDistance = currentDistance + edgeWeight.weight(edge);
+                    if (newDistance < backwardDistances[neighbor]) {
+                        if (backwardDistances[neighbor] == Double.MAX_VALUE) {
+                            backwardTouched[backwardTouchedCount++] = neighbor;
+                        }
+                        backwardDistances[neighbor] = newDistance;
+                        nextEdge[neighbor] = edge;
+                        backwardHeap.insertOrDecrease(neighbor, newDistance);
+                    }
+                    if (distances[neighbor] != Double.MAX_VALUE
+                            && distances[neighbor] + backwardDistances[neighbor] < best) {
+                        best = distances[neighbor] + backwardDistances[neighbor];
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    private void search(int start, int end, EdgeWeight edgeWeight, Heuristic heuristic) {
+        lastSettledCount = 0;
+        touch(start);
+        distances[start] = 0.0;
+        heap.insertOrDecrease(start, heuristic.estimate(start));
+
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            settled[current] = true;
+            lastSettledCount++;
+            if (current == end) break;
+
+            double currentDistance = distances[current];
+            for (int edge = graph.firstEdge(current), last = graph.endEdge(current); edge < last; edge++) {
+                int neighbor = graph.getTarget(edge);
+                if (settled[neighbor]) continue;
+
+                double newDistance = currentDistance + edgeWeight.weight(edge);
+                if (newDistance < distances[neighbor]) {
+                    if (distances[neighbor] == Double.MAX_VALUE) touch(neighbor);
+                    distances[neighbor] = newDistance;
+                    previousEdge[neighbor] = edge;
+                    heap.insertOrDecrease(neighbor, newDistance + heuristic.estimate(neighbor));
+                }
+            }
+        }
+    }
+
+    private List<String> buildPath(int end) {
+        if (!settled[end]) {
+            return new ArrayList<>(); // Return empty list if no path found
+        }
+        return buildPath(end, false);
+    }
+
+    // forward predecessors back to the start, then (for a bidirectional query) the backward
+    // search's edges on to the end
+    private List<String> buildPath(int node, boolean continueToEnd) {
+        ArrayList<String> path = new ArrayList<>();
+        path.add(graph.getNodeId(node));
+        for (int edge = previousEdge[node]; edge >= 0; edge = previousEdge[graph.getSource(edge)]) {
+            path.add(graph.getNodeId(graph.getSource(edge)));
+        }
+        Collections.reverse(path);
+        if (continueToEnd) {
+            for (int edge = nextEdge[node]; edge >= 0; edge = nextEdge[graph.getTarget(edge)]) {
+                path.add(graph.getNodeId(graph.getTarget(edge)));
+            }
+        }
+        return path;
+    }
+
+    // one-to-all costs from source, following outgoing edges (or incoming edges when backward,
+    // which gives the cost from every node to source); unreachable nodes stay at +infinity.
+    // Allocates its own arrays, so it is safe to call from several threads on one snapshot.
+    public static double[] shortestDistances(NetworkSnapshot graph, int source, EdgeWeight edgeWeight, boolean backward) {
+        double[] result = new double[graph.getNodeCount()];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        result[source] = 0.0;
+        IndexedMinHeap queue = new IndexedMinHeap(graph.getNodeCount());
+        queue.insertOrDecrease(source, 0.0);
+        relaxAll(graph, edgeWeight, backward, result, queue);
+        return result;
+    }
+
+    // continues a one-to-all search over existing costs: every queued node is expanded and any
+    // neighbour whose cost improves is queued again. Also used to push a single decrease through
+    // a precomputed table.
+    static void relaxAll(NetworkSnapshot graph, EdgeWeight edgeWeight, boolean backward,
+                         double[] costs, IndexedMinHeap queue) {
+        while (!queue.isEmpty()) {
+            int current = queue.pollMin();
+            double currentCost = costs[current];
+            int first = backward ? graph.firstInEdge(current) : graph.firstEdge(current);
+            int last = backward ? graph.endInEdge(current) : graph.endEdge(current);
+            for (int i = first; i < last; i++) {
+                int edge = backward ? graph.getInEdge(i) : i;
+                int neighbor = backward ? graph.getSource(edge) : graph.getTarget(edge);
+                double newCost = currentCost + edgeWeight.weight(edge);
+                if (newCost < costs[neighbor]) {
+                    costs[neighbor] = newCost;
+                    queue.insertOrDecrease(neighbor, newCost);
+                }
+            }
+        }
+    }
+
+    private void touch(int node) {
+        touched[touchedCount++] = node;
+    }
+
+    // restores the per-node arrays for the nodes this query wrote to
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            distances[node] = Double.MAX_VALUE;
+            previousEdge[node] = -1;
+            settled[node] = false;
+        }
+        touchedCount = 0;
+        heap.clear();
+        for (int i = 0; i < backwardTouchedCount; i++) {
+            int node = backwardTouched[i];
+            backwardDistances[node] = Double.MAX_VALUE;
+            nextEdge[node] = -1;
+            backwardSettled[node] = false;
+        }
+        backwardTouchedCount = 0;
+        if (backwardHeap != null) backwardHeap.clear();
+    }
+}
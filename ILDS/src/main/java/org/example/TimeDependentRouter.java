@@ -0,0 +1,182 @@
+package org.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Earliest-arrival routing over TravelTimeProfiles: each edge is costed at the time the vehicle
+// actually reaches it, not at the departure time. The queue key is the arrival time, and since
+// the profiles are FIFO a plain Dijkstra (or A* with the great-circle bound at the fastest speed
+// any edge reaches) stays exact.
+// findBestDeparture answers profile queries by running the search for departures spaced step
+// apart across the window and keeping the shortest trip.
+// Like RoutingEngine, a router reuses its arrays between queries and is not thread-safe.
+public class TimeDependentRouter {
+    private final TravelTimeProfiles profiles;
+    private final NetworkSnapshot graph;
+
+    private final double[] arrivals;       // hours after midnight of the departure day
+    private final int[] previousEdge;
+    private final boolean[] settled;
+    private final int[] touched;
+    private int touchedCount;
+    private final IndexedMinHeap heap;
+
+    private int lastSettledCount;
+
+    public TimeDependentRouter(TravelTimeProfiles profiles) {
+        this.profiles = profiles;
+        this.graph = profiles.getGraph();
+        int n = graph.getNodeCount();
+        this.arrivals = new double[n];
+        this.previousEdge = new int[n];
+        this.settled = new boolean[n];
+        this.touched = new int[n];
+        this.heap = new IndexedMinHeap(n);
+        Arrays.fill(arrivals, Double.MAX_VALUE);
+        Arrays.fill(previousEdge, -1);
+    }
+
+    public TravelTimeProfiles getProfiles() { return profiles; }
+
+    // number of nodes taken off the queue by the most recent search
+    public int getLastSettledCount() { return lastSettledCount; }
+
+    // earliest-arrival route leaving startId at departure, or null if endId cannot be reached
+    public Route findRoute(String startId, String endId, LocalDateTime departure, boolean useAStar) {
+        int start = graph.indexOf(startId);
+        int end = graph.indexOf(endId);
+        if (start < 0 || end < 0) return null;
+        try {
+            double departureHours = hoursOfDay(departure);
+            search(start, end, departureHours, useAStar ? heuristic(end) : Heuristics.none());
+            if (!settled[end]) return null;
+            return new Route(buildPath(end), departure, toDateTime(departure, arrivals[end] - departureHours));
+        } finally {
+            reset();
+        }
+    }
+
+    // among departures from, from + step, ... up to to, the one with the shortest trip
+    // (the earliest on ties), or null if endId cannot be reached
+    public Route findBestDeparture(String startId, String endId, LocalDateTime from, LocalDateTime to,
+                                   Duration step) {
+        if (step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("Departure step must be positive: " + step);
+        }
+        if (to.isBefore(from)) throw new IllegalArgumentException("Departure window ends before it starts");
+        Route best = null;
+        for (LocalDateTime departure = from; !departure.isAfter(to); departure = departure.plus(step)) {
+            Route route = findRoute(startId, endId, departure, true);
+            if (route == null) return null;
+            if (best == null || route.getTravelHours() < best.getTravelHours()) best = route;
+        }
+        return best;
+    }
+
+    // arrival time when following path (consecutive location ids) from departure, taking the
+    // fastest road between each pair at the time it is reached; null if a leg has no road
+    public LocalDateTime arrivalAlong(List<String> path, LocalDateTime departure) {
+        double departureHours = hoursOfDay(departure);
+        double time = departureHours;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int from = graph.indexOf(path.get(i));
+            int to = graph.indexOf(path.get(i + 1));
+            if (from < 0 || to < 0) return null;
+            double best = Double.MAX_VALUE;
+            for (int edge = graph.firstEdge(from), last = graph.endEdge(from); edge < last; edge++) {
+                if (graph.getTarget(edge) == to) best = Math.min(best, profiles.travelTime(edge, time % 24.0));
+            }
+            if (best == Double.MAX_VALUE) return null;
+            time += best;
+        }
+        return toDateTime(departure, time - departureHours);
+    }
+
+    private void search(int start, int end, double departureHours, RoutingEngine.Heuristic heuristic) {
+        lastSettledCount = 0;
+        touch(start);
+        arrivals[start] = departureHours;
+        heap.insertOrDecrease(start, departureHours + heuristic.estimate(start));
+
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            settled[current] = true;
+            lastSettledCount++;
+            if (current == end) break;
+
+            double arrival = arrivals[current];
+            double hourOfDay = arrival % 24.0;
+            for (int edge = graph.firstEdge(current), last = graph.endEdge(current); edge < last; edge++) {
+                int neighbor = graph.getTarget(edge);
+                if (settled[neighbor]) continue;
+
+                double newArrival = arrival + profiles.travelTime(edge, hourOfDay);
+                if (newArrival < arrivals[neighbor]) {
+                    if (arrivals[neighbor] == Double.MAX_VALUE) touch(neighbor);
+                    arrivals[neighbor] = newArrival;
+                    previousEdge[neighbor] = edge;
+                    heap.insertOrDecrease(neighbor, newArrival + heuristic.estimate(neighbor));
+                }
+            }
+        }
+    }
+
+    // great-circle kilometres at the fastest speed any edge reaches at any hour
+    private RoutingEngine.Heuristic heuristic(int target) {
+        double maxSpeed = profiles.getMaxEffectiveSpeed();
+        if (!(maxSpeed > 0.0) || Double.isInfinite(maxSpeed)) return Heuristics.none();
+        return Heuristics.scaled(Heuristics.greatCircle(graph, target), 1.0 / maxSpeed);
+    }
+
+    private List<String> buildPath(int end) {
+        ArrayList<String> path = new ArrayList<>();
+        path.add(graph.getNodeId(end));
+        for (int edge = previousEdge[end]; edge >= 0; edge = previousEdge[graph.getSource(edge)]) {
+            path.add(graph.getNodeId(graph.getSource(edge)));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static double hoursOfDay(LocalDateTime time) {
+        return time.toLocalTime().toNanoOfDay() / 3_600_000_000_000.0;
+    }
+
+    private static LocalDateTime toDateTime(LocalDateTime departure, double travelHours) {
+        return departure.plusNanos(Math.round(travelHours * 3_600_000_000_000.0));
+    }
+
+    private void touch(int node) {
+        touched[touchedCount++] = node;
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            arrivals[node] = Double.MAX_VALUE;
+            previousEdge[node] = -1;
+            settled[node] = false;
+        }
+        touchedCount = 0;
+        heap.clear();
+    }
+
+    // a route with the times it leaves and arrives
+    public static final class Route {
+        private final List<String> path;
+        private final LocalDateTime departure;
+        private final LocalDateTime arrival;
+
+        Route(List<String> path, LocalDateTime departure, LocalDateTime arrival) {
+            this.path = path;
+            this.departure = departure;
+            this.arrival = arrival;
+        }
+
+        public List<String> getPath() { return path; }
+        public LocalDateTime getDeparture() { return departure; }
+        public LocalDateTime getArrival() { return arrival; }
+        public double getTravelHours() { return Duration.between(departure, arrival).toNanos() / 3_600_000_000_000.0; }
+    }
+}
@@ -1,40 +1,375 @@
 package org.example;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Running congestion statistics per road, day of week and hour of day, in constant memory.
+// Each road has a primitive record with a slot per (day, hour) plus one per hour across all days;
+// a slot keeps the reading count, mean and variance (Welford), an EWMA and, when a half-life is
+// set, an exponentially time-decayed mean. Slots are allocated when their hour first gets a
+// reading, so a road costs a few hundred bytes plus about 40 per hour it has readings for.
+// Recording merges into the slot and predictions are a single read, however many readings have
+// been ingested.
+// Writes to a road are serialized on its record; reads take no lock and may see the value from
+// just before a concurrent write.
 public class TrafficData {
-    // Store historical congestion data: roadId -> hour -> congestion records
-    private Map<String, Map<Integer, List<Double>>> historicalCongestion;
+    private static final int HOURS = 24;
+    private static final int ALL_DAYS = 7 * HOURS; // first slot of the all-days hourly records
+    private static final int SLOTS = ALL_DAYS + HOURS;
+
+    // roadId -> its statistics record
+    private final Map<String, RoadRecord> historicalCongestion;
 
     // Store current traffic patterns: roadId -> current congestion
-    private Map<String, Double> currentTrafficPatterns;
+    private final Map<String, Double> currentTrafficPatterns;
+
+    private volatile double ewmaAlpha = 0.1;
+    private volatile long decayHalfLifeMillis; // 0 = no decayed window
+
+    // told after each recording which roads and hours of day changed, roadIds[i] at hours[i] for
+    // i < count, and whether that hour's predicted congestion fell (lowered[i]); a batch is reported
+    // in one call, with arrays only valid during it (see CongestionPredictor)
+    interface UpdateListener {
+        void onUpdated(String[] roadIds, int[] hours, boolean[] lowered, int count);
+    }
+
+    private volatile UpdateListener updateListener;
     
     public TrafficData() {
-        this.historicalCongestion = new HashMap<>();
-        this.currentTrafficPatterns = new HashMap<>();
+        this.historicalCongestion = new ConcurrentHashMap<>();
+        this.currentTrafficPatterns = new ConcurrentHashMap<>();
+    }
+
+    // weight of each new reading in the EWMA
+    public void setEwmaAlpha(double ewmaAlpha) {
+        if (!(ewmaAlpha > 0.0 && ewmaAlpha <= 1.0)) {
+            throw new IllegalArgumentException("EWMA alpha must be in (0, 1]: " + ewmaAlpha);
+        }
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    // enables the decayed window: a reading's weight halves every halfLife of reading time;
+    // null or zero turns it off. Only readings recorded while it is on are counted.
+    public void setDecayHalfLife(Duration halfLife) {
+        if (halfLife != null && halfLife.isNegative()) {
+            throw new IllegalArgumentException("Half-life cannot be negative: " + halfLife);
+        }
+        this.decayHalfLifeMillis = halfLife == null ? 0 : halfLife.toMillis();
     }
     
     public void recordCongestion(String roadId, LocalDateTime timestamp, double congestionLevel) {
-        int hour = timestamp.getHour();
-        historicalCongestion
-            .computeIfAbsent(roadId, k -> new HashMap<>())
-            .computeIfAbsent(hour, k -> new ArrayList<>())
-            .add(congestionLevel);
-        
-        currentTrafficPatterns.put(roadId, congestionLevel);
+        long epochMillis = timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        recordAggregate(roadId, timestamp.getDayOfWeek(), timestamp.getHour(), 1,
+                congestionLevel, congestionLevel * congestionLevel, epochMillis);
+    }
+
+    // records count readings taken on the given day and hour, with their sum and sum of squares,
+    // e.g. one window of a CongestionIngestor; epochMillis is their time for the decayed window.
+    // Their mean becomes the road's current congestion.
+    public void recordAggregate(String roadId, DayOfWeek day, int hour, long count, double sum, double sumOfSquares,
+                                long epochMillis) {
+        checkHour(hour);
+        if (count <= 0) return;
+        boolean lowered = merge(roadId, (day.getValue() - 1) * HOURS + hour, count, sum, sumOfSquares, epochMillis);
+        UpdateListener listener = updateListener;
+        if (listener != null) listener.onUpdated(new String[] {roadId}, new int[] {hour}, new boolean[] {lowered}, 1);
+    }
+
+    // records every aggregate of the batch as recordAggregate does, telling the listener once
+    public void recordAggregates(AggregateBatch batch) {
+        if (batch.size == 0) return;
+        boolean[] lowered = new boolean[batch.size];
+        for (int i = 0; i < batch.size; i++) {
+            lowered[i] = merge(batch.roadIds[i], batch.slots[i], batch.counts[i], batch.sums[i], batch.squares[i],
+                    batch.times[i]);
+        }
+        UpdateListener listener = updateListener;
+        if (listener == null) return;
+        int[] hours = new int[batch.size];
+        for (int i = 0; i < hours.length; i++) hours[i] = batch.slots[i] % HOURS;
+        listener.onUpdated(batch.roadIds, hours, lowered, hours.length);
+    }
+
+    // merges into the slot and its all-days hour; returns whether the hour's predicted congestion fell
+    private boolean merge(String roadId, int slot, long count, double sum, double sumOfSquares, long epochMillis) {
+        RoadRecord record = historicalCongestion.computeIfAbsent(roadId, k -> new RoadRecord());
+        double alpha = ewmaAlpha;
+        long halfLife = decayHalfLifeMillis;
+        int hourSlot = ALL_DAYS + slot % HOURS;
+        boolean lowered;
+        synchronized (record) {
+            double before = record.mean(hourSlot);
+            record.merge(slot, count, sum, sumOfSquares, alpha, halfLife, epochMillis);
+            record.merge(hourSlot, count, sum, sumOfSquares, alpha, halfLife, epochMillis);
+            lowered = record.mean(hourSlot) < (Double.isNaN(before) ? 1.0 : before);
+        }
+        currentTrafficPatterns.put(roadId, sum / count);
+        return lowered;
+    }
+
+    void setUpdateListener(UpdateListener updateListener) {
+        this.updateListener = updateListener;
     }
     
+    // mean congestion in that hour of day over all days, or 1.0 with no readings
     public double getPredictedCongestion(String roadId, int hour) {
-        Map<Integer, List<Double>> roadData = historicalCongestion.get(roadId);
-        if (roadData == null || !roadData.containsKey(hour)) {
-            return 1.0;
-        }
-        
-        List<Double> hourlyData = roadData.get(hour);
-        return hourlyData.stream()
-            .mapToDouble(Double::doubleValue)
-            .average()
-            .orElse(1.0);
-    }
-} 
+        RoadRecord roadData = historicalCongestion.get(roadId);
+        if (roadData == null || hour < 0 || hour >= HOURS) return 1.0;
+        double mean = roadData.mean(ALL_DAYS + hour);
+        return Double.isNaN(mean) ? 1.0 : mean;
+    }
+
+    // mean congestion on that day and hour, falling back to the hour over all days
+    public double getPredictedCongestion(String roadId, DayOfWeek day, int hour) {
+        RoadRecord roadData = historicalCongestion.get(roadId);
+        if (roadData == null || hour < 0 || hour >= HOURS) return 1.0;
+        double mean = roadData.mean((day.getValue() - 1) * HOURS + hour);
+        return Double.isNaN(mean) ? getPredictedCongestion(roadId, hour) : mean;
+    }
+
+    // statistics for that hour of day over all days
+    public CongestionStats getStatistics(String roadId, int hour) {
+        checkHour(hour);
+        return statistics(roadId, ALL_DAYS + hour);
+    }
+
+    public CongestionStats getStatistics(String roadId, DayOfWeek day, int hour) {
+        checkHour(hour);
+        return statistics(roadId, (day.getValue() - 1) * HOURS + hour);
+    }
+
+    // number of readings recorded for the road in that hour of day
+    public long getReadingCount(String roadId, int hour) {
+        RoadRecord roadData = historicalCongestion.get(roadId);
+        return roadData == null || hour < 0 || hour >= HOURS ? 0 : roadData.count(ALL_DAYS + hour);
+    }
+
+    // latest reading (or aggregate mean) for the road, or 1.0 if none has been recorded
+    public double getCurrentCongestion(String roadId) {
+        return currentTrafficPatterns.getOrDefault(roadId, 1.0);
+    }
+
+    // bytes held by the statistics records; grows with the number of roads, not readings
+    public long estimateBytes() {
+        long bytes = 0;
+        for (RoadRecord record : historicalCongestion.values()) bytes += record.estimateBytes();
+        return bytes;
+    }
+
+    private static void checkHour(int hour) {
+        if (hour < 0 || hour >= HOURS) throw new IllegalArgumentException("Hour must be 0-23: " + hour);
+    }
+
+    private CongestionStats statistics(String roadId, int slot) {
+        RoadRecord record = historicalCongestion.get(roadId);
+        if (record == null) return new CongestionStats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        synchronized (record) {
+            RoadRecord.Slots slots = record.slots;
+            int position = slots.position(slot);
+            if (position < 0) return new CongestionStats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+            long count = slots.counts[position];
+            int base = position * RoadRecord.FIELDS;
+            double decayed = Double.NaN;
+            if (slots.decay != null && slots.decay[position * 3 + 1] > 0.0) {
+                decayed = slots.decay[position * 3] / slots.decay[position * 3 + 1];
+            }
+            if (count == 0) return new CongestionStats(0, Double.NaN, Double.NaN, Double.NaN, decayed);
+            return new CongestionStats(count, slots.stats[base + RoadRecord.MEAN],
+                    count > 1 ? slots.stats[base + RoadRecord.M2] / (count - 1) : 0.0,
+                    slots.stats[base + RoadRecord.EWMA], decayed);
+        }
+    }
+
+    // values of one slot at the time it was read; NaN where there is nothing to report
+    public static final class CongestionStats {
+        private final long count;
+        private final double mean;
+        private final double variance;
+        private final double ewma;
+        private final double decayedMean;
+
+        CongestionStats(long count, double mean, double variance, double ewma, double decayedMean) {
+            this.count = count;
+            this.mean = mean;
+            this.variance = variance;
+            this.ewma = ewma;
+            this.decayedMean = decayedMean;
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public double getVariance() { return variance; } // sample variance
+        public double getStandardDeviation() { return Math.sqrt(variance); }
+        public double getEwma() { return ewma; }
+        public double getDecayedMean() { return decayedMean; } // NaN unless the decayed window is on
+    }
+
+    // aggregates collected by one thread for a single recordAggregates call, in primitive columns;
+    // reusable after clear()
+    public static final class AggregateBatch {
+        private String[] roadIds = new String[16];
+        private int[] slots = new int[16];
+        private long[] counts = new long[16];
+        private double[] sums = new double[16];
+        private double[] squares = new double[16];
+        private long[] times = new long[16];
+        private int size;
+
+        // same arguments as recordAggregate; empty aggregates are skipped
+        public void add(String roadId, DayOfWeek day, int hour, long count, double sum, double sumOfSquares,
+                        long epochMillis) {
+            checkHour(hour);
+            if (count <= 0) return;
+            if (size == roadIds.length) {
+                int capacity = size * 2;
+                roadIds = Arrays.copyOf(roadIds, capacity);
+                slots = Arrays.copyOf(slots, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                sums = Arrays.copyOf(sums, capacity);
+                squares = Arrays.copyOf(squares, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            roadIds[size] = roadId;
+            slots[size] = (day.getValue() - 1) * HOURS + hour;
+            counts[size] = count;
+            sums[size] = sum;
+            squares[size] = sumOfSquares;
+            times[size] = epochMillis;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            Arrays.fill(roadIds, 0, size, null);
+            size = 0;
+        }
+    }
+
+    // one road's slots, stored only for slots that have readings: position maps a slot to its
+    // index in the counts / stats (mean, sum of squared deviations (M2), EWMA) / decay (weighted
+    // sum, weight, latest time) columns. Writers hold the record's lock; the columns only grow by
+    // appending, into a new Slots when full, and a slot's position is published after its values,
+    // so lock-free readers see either nothing or a complete slot.
+    private static final class RoadRecord {
+        static final int FIELDS = 3;
+        static final int MEAN = 0;
+        static final int M2 = 1;
+        static final int EWMA = 2;
+        private static final VarHandle POSITION = MethodHandles.arrayElementVarHandle(byte[].class);
+
+        volatile Slots slots = new Slots(new byte[SLOTS], 0, 2);
+
+        static final class Slots {
+            final byte[] positions; // slot -> index + 1, 0 when the slot has no readings
+            final long[] counts;
+            final double[] stats;
+            double[] decay;
+            int size;
+
+            Slots(byte[] positions, int size, int capacity) {
+                this.positions = positions;
+                this.size = size;
+                this.counts = new long[capacity];
+                this.stats = new double[capacity * FIELDS];
+            }
+
+            // index of the slot's values, or -1 when it has no readings
+            int position(int slot) {
+                return ((byte) POSITION.getAcquire(positions, slot) & 0xFF) - 1;
+            }
+        }
+
+        long count(int slot) {
+            Slots current = slots;
+            int position = current.position(slot);
+            return position < 0 ? 0 : current.counts[position];
+        }
+
+        // mean of the slot, NaN without readings
+        double mean(int slot) {
+            Slots current = slots;
+            int position = current.position(slot);
+            return position < 0 ? Double.NaN : current.stats[position * FIELDS + MEAN];
+        }
+
+        // folds in a batch of readings with Chan's parallel update of mean and M2
+        void merge(int slot, long count, double sum, double sumOfSquares, double alpha, long halfLife,
+                   long epochMillis) {
+            Slots current = slots;
+            int position = current.position(slot);
+            boolean added = position < 0;
+            if (added) {
+                if (current.size == current.counts.length) current = grow(current);
+                position = current.size++;
+            }
+            int base = position * FIELDS;
+            long previous = current.counts[position];
+            double batchMean = sum / count;
+            double batchM2 = Math.max(0.0, sumOfSquares - sum * batchMean);
+            long total = previous + count;
+            double[] stats = current.stats;
+            double delta = batchMean - stats[base + MEAN];
+            if (previous == 0) {
+                stats[base + MEAN] = batchMean;
+                stats[base + M2] = batchM2;
+                stats[base + EWMA] = batchMean;
+            } else {
+                stats[base + MEAN] += delta * count / total;
+                stats[base + M2] += batchM2 + delta * delta * previous * count / total;
+                // count readings at alpha each move the average like one step of 1 - (1 - alpha)^count
+                double weight = count == 1 ? alpha : 1.0 - Math.pow(1.0 - alpha, count);
+                stats[base + EWMA] += weight * (batchMean - stats[base + EWMA]);
+            }
+            current.counts[position] = total;
+            if (halfLife > 0) mergeDecayed(current, position, count, sum, halfLife, epochMillis);
+            if (added) POSITION.setRelease(current.positions, slot, (byte) (position + 1));
+        }
+
+        // copies the columns into a Slots twice the size (at most SLOTS) and publishes it
+        private Slots grow(Slots current) {
+            int capacity = Math.min(SLOTS, current.counts.length * 2);
+            Slots grown = new Slots(current.positions.clone(), current.size, capacity);
+            System.arraycopy(current.counts, 0, grown.counts, 0, current.size);
+            System.arraycopy(current.stats, 0, grown.stats, 0, current.size * FIELDS);
+            if (current.decay != null) grown.decay = Arrays.copyOf(current.decay, capacity * 3);
+            slots = grown;
+            return grown;
+        }
+
+        private static void mergeDecayed(Slots slots, int position, long count, double sum, long halfLife,
+                                         long epochMillis) {
+            if (slots.decay == null) slots.decay = new double[slots.counts.length * 3];
+            double[] decay = slots.decay;
+            int base = position * 3;
+            double latest = decay[base + 2];
+            if (decay[base + 1] == 0.0) {
+                decay[base] = sum;
+                decay[base + 1] = count;
+                decay[base + 2] = epochMillis;
+            } else if (epochMillis >= latest) {
+                double factor = Math.pow(0.5, (epochMillis - latest) / halfLife);
+                decay[base] = decay[base] * factor + sum;
+                decay[base + 1] = decay[base + 1] * factor + count;
+                decay[base + 2] = epochMillis;
+            } else {
+                // an older reading arriving late counts as already decayed
+                double factor = Math.pow(0.5, (latest - epochMillis) / halfLife);
+                decay[base] += sum * factor;
+                decay[base + 1] += count * factor;
+            }
+        }
+
+        long estimateBytes() {
+            Slots current = slots;
+            int capacity = current.counts.length;
+            return 16 + 8 + (16 + 4 * 8) + (16 + SLOTS) + (16 + 8L * capacity) + (16 + 8L * capacity * FIELDS)
+                    + (current.decay == null ? 0 : 16 + 8L * capacity * 3);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Travel time of every edge as a piecewise-linear function of the time of day, for
+// TimeDependentRouter. Each edge has one breakpoint per hour, at half past, holding
+// distance / speed x the congestion CongestionPredictor predicts for that hour; times in between
+// are interpolated and the profile wraps around midnight. All edges share one flat double[]
+// (edge * 24 + hour), so a lookup is two array reads.
+// Profiles are made FIFO: leaving later never means arriving earlier, which keeps a
+// time-dependent Dijkstra exact. Where the predicted time drops faster than the clock advances,
+// the earlier breakpoint's arrival is kept (as if the vehicle waited).
+public class TravelTimeProfiles {
+    public static final int HOURS = 24;
+
+    private final NetworkSnapshot graph;
+    private final CongestionPredictor predictor;
+    private final double[] times; // hours, edge * HOURS + hour
+    private double maxEffectiveSpeed; // largest distance / travel time at any hour; only ever raised
+
+    private TravelTimeProfiles(NetworkSnapshot graph, CongestionPredictor predictor) {
+        this.graph = graph;
+        this.predictor = predictor;
+        this.times = new double[graph.getEdgeCount() * HOURS];
+    }
+
+    // samples the predictor for every edge of the graph and hour of day
+    public static TravelTimeProfiles build(NetworkSnapshot graph, CongestionPredictor predictor) {
+        TravelTimeProfiles profiles = new TravelTimeProfiles(graph, predictor);
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            profiles.sample(edge);
+        }
+        return profiles;
+    }
+
+    public NetworkSnapshot getGraph() { return graph; }
+
+    // travel time in hours of an edge entered at hourOfDay (0 <= hourOfDay < 24, fractional)
+    public double travelTime(int edge, double hourOfDay) {
+        double x = hourOfDay - 0.5;
+        if (x < 0.0) x += HOURS;
+        int hour = (int) x;
+        double fraction = x - hour;
+        int base = edge * HOURS;
+        double from = times[base + hour];
+        double to = times[base + (hour == HOURS - 1 ? 0 : hour + 1)];
+        return from + (to - from) * fraction;
+    }
+
+    // travel time at the breakpoint of that hour (half past)
+    public double getBreakpoint(int edge, int hour) {
+        return times[edge * HOURS + hour];
+    }
+
+    // kilometres per hour no edge beats at any time of day, for A* bounds
+    public double getMaxEffectiveSpeed() { return maxEffectiveSpeed; }
+
+    // re-samples one edge after its road or its traffic history changed
+    public void onEdgeUpdated(int edge) {
+        sample(edge);
+    }
+
+    public long estimateBytes() {
+        return 16 + 8L * times.length;
+    }
+
+    private void sample(int edge) {
+        int base = edge * HOURS;
+        double freeFlow = graph.getDistance(edge) / graph.getAverageSpeed(edge);
+        String roadId = graph.getRoadId(edge);
+        double congestion = graph.getCongestion(edge);
+        for (int hour = 0; hour < HOURS; hour++) {
+            times[base + hour] = freeFlow * predictor.predictCongestion(roadId, congestion, hour);
+        }
+        // FIFO: between breakpoints an hour apart the time may fall by at most an hour; raising a
+        // breakpoint can only break the next pair, so two passes settle the wrap-around too
+        for (int pass = 0; pass < 2; pass++) {
+            for (int hour = 0; hour < HOURS; hour++) {
+                int next = base + (hour + 1) % HOURS;
+                times[next] = Math.max(times[next], times[base + hour] - 1.0);
+            }
+        }
+        double fastest = Arrays.stream(times, base, base + HOURS).min().orElse(0.0);
+        if (fastest > 0.0) {
+            maxEffectiveSpeed = Math.max(maxEffectiveSpeed, graph.getDistance(edge) / fastest);
+        } else if (graph.getDistance(edge) > 0.0) {
+            maxEffectiveSpeed = Double.POSITIVE_INFINITY; // a free edge: A* falls back to Dijkstra
+        }
+    }
+}
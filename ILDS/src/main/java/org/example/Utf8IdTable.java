@@ -0,0 +1,148 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Ids kept as UTF-8 bytes instead of Strings: value i is bytes[offsets[i] .. offsets[i + 1]), and
+// order lists the values sorted by their bytes, so lookups are a binary search and no map is
+// built. The buffers may be mapped from a NetworkFile or wrap heap arrays filled by
+// NetworkImporter. Only absolute reads are used, so one table can serve any number of threads.
+final class Utf8IdTable implements NetworkSnapshot.IdTable {
+    private final int count;
+    private final IntBuffer offsets;
+    private final ByteBuffer bytes;
+    private final IntBuffer order; // null for tables that are never searched, like names
+
+    Utf8IdTable(int count, IntBuffer offsets, ByteBuffer bytes, IntBuffer order) {
+        this.count = count;
+        this.offsets = offsets;
+        this.bytes = bytes;
+        this.order = order;
+    }
+
+    @Override
+    public int size() { return count; }
+
+    @Override
+    public String get(int index) {
+        int start = offsets.get(index);
+        byte[] value = new byte[offsets.get(index + 1) - start];
+        bytes.get(start, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int indexOf(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        return indexOf(key, 0, key.length);
+    }
+
+    // index of the value equal to key[from, to), or -1
+    int indexOf(byte[] key, int from, int to) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = order.get(mid);
+            int comparison = compare(index, key, from, to);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    // heap bytes of the table's arrays; mapped buffers count as 0
+    @Override
+    public long estimateBytes() {
+        if (bytes.isDirect()) return 0;
+        return 4L * (count + 1) + bytes.capacity() + (order == null ? 0 : 4L * count);
+    }
+
+    // first value that occurs twice, or -1; the table must be sorted
+    int findDuplicate() {
+        for (int i = 1; i < count; i++) {
+            int previous = order.get(i - 1);
+            int start = offsets.get(previous);
+            int length = offsets.get(previous + 1) - start;
+            byte[] value = new byte[length];
+            bytes.get(start, value);
+            if (compare(order.get(i), value, 0, length) == 0) return order.get(i);
+        }
+        return -1;
+    }
+
+    // compares value index with key[from, to), byte by byte as unsigned values (code point order)
+    private int compare(int index, byte[] key, int from, int to) {
+        int start = offsets.get(index);
+        int length = offsets.get(index + 1) - start;
+        int keyLength = to - from;
+        int common = Math.min(length, keyLength);
+        for (int i = 0; i < common; i++) {
+            int difference = (bytes.get(start + i) & 0xFF) - (key[from + i] & 0xFF);
+            if (difference != 0) return difference;
+        }
+        return length - keyLength;
+    }
+
+    // indexes 0..count-1 sorted by the bytes of their values: runs of the index array are merge
+    // sorted in parallel, then merged pairwise, each round in parallel
+    static int[] sortedOrder(int count, int[] offsets, byte[] bytes) {
+        int[] order = new int[count];
+        int[] buffer = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        int runs = Math.max(1, Math.min(count / 4096, 4 * Runtime.getRuntime().availableProcessors()));
+        int runLength = (count + runs - 1) / Math.max(1, runs);
+        if (runLength == 0) return order;
+        IntStream.range(0, runs).parallel().forEach(r -> {
+            int from = r * runLength;
+            int to = Math.min(count, from + runLength);
+            if (from < to) mergeSort(order, buffer, from, to, offsets, bytes);
+        });
+        for (int width = runLength; width < count; width *= 2) {
+            int half = width;
+            int step = width * 2;
+            IntStream.range(0, (count + step - 1) / step).parallel().forEach(p -> {
+                int from = p * step;
+                int mid = Math.min(count, from + half);
+                int to = Math.min(count, from + step);
+                merge(order, buffer, from, mid, to, offsets, bytes);
+                System.arraycopy(buffer, from, order, from, to - from);
+            });
+        }
+        return order;
+    }
+
+    private static void mergeSort(int[] order, int[] buffer, int from, int to, int[] offsets, byte[] bytes) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, from, mid, offsets, bytes);
+        mergeSort(order, buffer, mid, to, offsets, bytes);
+        if (compare(order[mid - 1], order[mid], offsets, bytes) <= 0) return;
+        merge(order, buffer, from, mid, to, offsets, bytes);
+        System.arraycopy(buffer, from, order, from, to - from);
+    }
+
+    private static void merge(int[] order, int[] buffer, int from, int mid, int to, int[] offsets, byte[] bytes) {
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && compare(order[left], order[right], offsets, bytes) <= 0)) {
+                buffer[i] = order[left++];
+            } else {
+                buffer[i] = order[right++];
+            }
+        }
+    }
+
+    private static int compare(int a, int b, int[] offsets, byte[] bytes) {
+        return Arrays.compareUnsigned(bytes, offsets[a], offsets[a + 1], bytes, offsets[b], offsets[b + 1]);
+    }
+}
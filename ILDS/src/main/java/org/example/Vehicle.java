@@ -2,46 +2,75 @@ package org.example;
 
 import org.example.Location;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Load is reserved with compare-and-set, so concurrent scheduler workers can assign deliveries to
+// the same vehicle without ever taking it over capacity.
 public class Vehicle {
     private String id;
     private double capacity;
-    private double currentLoad;
-    private Location currentLocation;
+    private final AtomicLong currentLoadBits; // Double.doubleToLongBits of the current load
+    private volatile Location currentLocation;
     private List<Delivery> assignedDeliveries;
-    private boolean available;
+    private volatile boolean available;
     
     public Vehicle(String id, double capacity, Location startLocation) {
         this.id = id;
         this.capacity = capacity;
-        this.currentLoad = 0.0;
+        this.currentLoadBits = new AtomicLong(Double.doubleToLongBits(0.0));
         this.currentLocation = startLocation;
-        this.assignedDeliveries = new ArrayList<>();
+        this.assignedDeliveries = Collections.synchronizedList(new ArrayList<>());
         this.available = true;
     }
     
     public boolean canAcceptDelivery(Delivery delivery) {
-        return available && (currentLoad + delivery.getLoad() <= capacity);
+        return available && (getCurrentLoad() + delivery.getLoad() <= capacity);
     }
     
     public void assignDelivery(Delivery delivery) {
-        if (canAcceptDelivery(delivery)) {
-            assignedDeliveries.add(delivery);
-            currentLoad += delivery.getLoad();
-            if (currentLoad >= capacity) {
-                available = false;
+        tryAssignDelivery(delivery);
+    }
+
+    // reserves the delivery's load and records it; false when it no longer fits, e.g. because
+    // another thread filled the vehicle first
+    public boolean tryAssignDelivery(Delivery delivery) {
+        while (true) {
+            long bits = currentLoadBits.get();
+            double load = Double.longBitsToDouble(bits) + delivery.getLoad();
+            if (!available || load > capacity) return false;
+            if (currentLoadBits.compareAndSet(bits, Double.doubleToLongBits(load))) {
+                assignedDeliveries.add(delivery);
+                if (load >= capacity) {
+                    available = false;
+                }
+                return true;
             }
         }
     }
 
+    public void moveTo(Location location) {
+        this.currentLocation = location;
+    }
+
+    // replaces the assigned deliveries, e.g. after RouteImprover has reordered the schedule
+    public void reassignDeliveries(List<Delivery> deliveries) {
+        assignedDeliveries = Collections.synchronizedList(new ArrayList<>(deliveries));
+        double load = 0.0;
+        for (Delivery delivery : deliveries) {
+            load += delivery.getLoad();
+        }
+        currentLoadBits.set(Double.doubleToLongBits(load));
+        available = load < capacity;
+    }
+
     public void getDetailsTable() {
         System.out.printf("Vehicle %s (Load: %.2f/%.2f, Available: %b)\n",
-                id, currentLoad, capacity, available);
+                id, getCurrentLoad(), capacity, available);
     }
     
     public String getId() { return id; }
     public double getCapacity() { return capacity; }
-    public double getCurrentLoad() { return currentLoad; }
+    public double getCurrentLoad() { return Double.longBitsToDouble(currentLoadBits.get()); }
     public Location getCurrentLocation() { return currentLocation; }
     public List<Delivery> getAssignedDeliveries() { return assignedDeliveries; }
     public boolean isAvailable() { return available; }
@@ -0,0 +1,149 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+// Finds the vehicles nearest to a location by network travel time, so DeliveryScheduler only
+// scores a handful of candidates per delivery instead of the whole fleet.
+// Vehicles are indexed by the location they are parked at; a query runs Dijkstra backwards from
+// the destination over incoming roads (so costs are vehicle -> destination travel times) and
+// stops once it has collected the requested number of vehicles that pass the filter.
+// Full vehicles should be removed and moved vehicles re-added so the index stays current.
+// Queries may run concurrently with each other and with add/remove: each thread keeps its own
+// search arrays, and getLastSettledCount/getLastCost describe the calling thread's last query.
+public class VehicleIndex {
+    private final LogisticsNetwork network;
+    private final Map<String, List<Vehicle>> vehiclesByLocation = new ConcurrentHashMap<>();
+    private final Map<String, String> locationOfVehicle = new ConcurrentHashMap<>(); // vehicle id -> indexed location id
+    private final ThreadLocal<Search> searches;
+
+    public VehicleIndex(LogisticsNetwork network) {
+        this.network = network;
+        this.searches = ThreadLocal.withInitial(Search::new);
+    }
+
+    public int size() { return locationOfVehicle.size(); }
+
+    public boolean contains(Vehicle vehicle) { return locationOfVehicle.containsKey(vehicle.getId()); }
+
+    // nodes settled by this thread's most recent nearest() call
+    public int getLastSettledCount() { return searches.get().settledCount; }
+
+    // travel time in hours from the i-th vehicle of this thread's most recent nearest() result
+    // to its destination
+    public double getLastCost(int i) { return searches.get().foundCosts[i]; }
+
+    // indexes the vehicle at its current location, replacing any earlier entry for it
+    public synchronized void add(Vehicle vehicle) {
+        remove(vehicle);
+        String locationId = vehicle.getCurrentLocation().getId();
+        vehiclesByLocation.computeIfAbsent(locationId, id -> new CopyOnWriteArrayList<>()).add(vehicle);
+        locationOfVehicle.put(vehicle.getId(), locationId);
+    }
+
+    public synchronized void remove(Vehicle vehicle) {
+        String locationId = locationOfVehicle.remove(vehicle.getId());
+        if (locationId == null) return;
+        List<Vehicle> parked = vehiclesByLocation.get(locationId);
+        parked.removeIf(v -> v.getId().equals(vehicle.getId()));
+        if (parked.isEmpty()) vehiclesByLocation.remove(locationId);
+    }
+
+    // up to count indexed vehicles accepted by filter, nearest first by travel time to
+    // destinationId; vehicles that cannot reach it are never returned
+    public List<Vehicle> nearest(String destinationId, int count, Predicate<Vehicle> filter) {
+        return nearest(network.getRoutingEngine().getGraph(), destinationId, count, filter);
+    }
+
+    // same over a routing graph the caller already holds. The network builds its graph lazily and
+    // unsynchronized, so threads running concurrently must share one fetched before they start
+    public List<Vehicle> nearest(NetworkSnapshot graph, String destinationId, int count, Predicate<Vehicle> filter) {
+        Search search = searches.get();
+        search.prepare(graph);
+        return search.run(destinationId, count, filter);
+    }
+
+    // one thread's Dijkstra state, reallocated when the network's routing graph is rebuilt
+    private final class Search {
+        private NetworkSnapshot graph;
+        private double[] costs;
+        private boolean[] settled;
+        private int[] touched;
+        private int touchedCount;
+        private IndexedMinHeap heap;
+        private int settledCount;
+        private double[] foundCosts = new double[0]; // travel times of the vehicles run() returned
+
+        void prepare(NetworkSnapshot current) {
+            if (current == graph) return;
+            graph = current;
+            int n = graph.getNodeCount();
+            costs = new double[n];
+            settled = new boolean[n];
+            touched = new int[n];
+            touchedCount = 0;
+            heap = new IndexedMinHeap(n);
+            Arrays.fill(costs, Double.MAX_VALUE);
+        }
+
+        List<Vehicle> run(String destinationId, int count, Predicate<Vehicle> filter) {
+            List<Vehicle> found = new ArrayList<>();
+            settledCount = 0;
+            int target = graph.indexOf(destinationId);
+            if (target < 0 || count <= 0 || vehiclesByLocation.isEmpty()) return found;
+
+            try {
+                touched[touchedCount++] = target;
+                costs[target] = 0.0;
+                heap.insertOrDecrease(target, 0.0);
+                while (!heap.isEmpty()) {
+                    int current = heap.pollMin();
+                    settled[current] = true;
+                    settledCount++;
+
+                    List<Vehicle> parked = vehiclesByLocation.get(graph.getNodeId(current));
+                    if (parked != null) {
+                        for (Vehicle vehicle : parked) {
+                            if (filter.test(vehicle)) {
+                                if (found.size() == foundCosts.length) {
+                                    foundCosts = Arrays.copyOf(foundCosts, Math.max(8, 2 * foundCosts.length));
+                                }
+                                foundCosts[found.size()] = costs[current];
+                                found.add(vehicle);
+                                if (found.size() == count) return found;
+                            }
+                        }
+                    }
+
+                    double currentCost = costs[current];
+                    for (int i = graph.firstInEdge(current), last = graph.endInEdge(current); i < last; i++) {
+                        int edge = graph.getInEdge(i);
+                        int neighbor = graph.getSource(edge);
+                        if (settled[neighbor]) continue;
+                        double newCost = currentCost + graph.getTravelTime(edge);
+                        if (newCost < costs[neighbor]) {
+                            if (costs[neighbor] == Double.MAX_VALUE) touched[touchedCount++] = neighbor;
+                            costs[neighbor] = newCost;
+                            heap.insertOrDecrease(neighbor, newCost);
+                        }
+                    }
+                }
+                return found;
+            } finally {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                int node = touched[i];
+                costs[node] = Double.MAX_VALUE;
+                settled[node] = false;
+            }
+            touchedCount = 0;
+            heap.clear();
+        }
+    }
+}
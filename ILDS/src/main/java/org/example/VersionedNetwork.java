@@ -0,0 +1,201 @@
+package org.example;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Copy-on-write versions of a LogisticsNetwork for concurrent readers and writers.
+// Readers take the current Version (a volatile read, no lock) and query its NetworkSnapshot,
+// which never changes, so a query always sees one consistent network however many updates land
+// meanwhile. Writers queue mutations; publish() applies the queued batch to the underlying
+// network under the writer lock and swaps in a new version atomically. When a batch only
+// updates road weights, the new snapshot shares the old one's topology, reverse index and road
+// lookup and copies just the three weight columns; batches that add or remove roads or
+// locations rebuild the snapshot. Either way a version costs O(E) however small the batch: the
+// weight columns are cloned in full, and so is every hour of adaptive costs the old version
+// held (up to 24 more columns). The batch is published automatically once it reaches
+// maxPending mutations, so a streaming feed pays that copy once per batch, not per update.
+//
+// findAdaptiveRoute reads those frozen costs, so it is lock-free too, except for the first query
+// at an hour the version does not hold yet: that one computes the hour through the
+// CongestionPredictor, which takes its locks, and stores it in the version for the others.
+// Traffic history recorded after a version was published reaches adaptive queries at the next
+// publish(), which publishes a version for that alone when no mutations are queued.
+//
+// If a mutation throws, the ones before it stay applied and are published with a rebuilt
+// snapshot, the ones after it are discarded, and publish() rethrows.
+//
+// Once wrapped, the network should only be changed through this class.
+public class VersionedNetwork {
+
+    // one published state of the network
+    public static final class Version {
+        private final long number;
+        private final NetworkSnapshot snapshot;
+        // findAdaptiveRoute's cost of every edge, per hour of day; null until frozen
+        private final AtomicReferenceArray<double[]> adaptiveCosts = new AtomicReferenceArray<>(24);
+        private final long historyVersion; // the predictor's history the frozen costs include
+
+        private Version(long number, NetworkSnapshot snapshot, long historyVersion) {
+            this.number = number;
+            this.snapshot = snapshot;
+            this.historyVersion = historyVersion;
+        }
+
+        public long getNumber() { return number; }
+        public NetworkSnapshot getSnapshot() { return snapshot; }
+    }
+
+    private final LogisticsNetwork network;
+    private final CongestionPredictor congestionPredictor;
+    private volatile Version current;
+
+    // writer state, guarded by this
+    private final List<Consumer<LogisticsNetwork>> pending = new ArrayList<>();
+    private final Set<String> updatedRoads = new LinkedHashSet<>();
+    private boolean topologyChanged;
+    private int maxPending = 1024;
+
+    // per-thread engine, reused across versions that share a topology
+    private final ThreadLocal<RoutingEngine> engines = new ThreadLocal<>();
+
+    public VersionedNetwork(LogisticsNetwork network) {
+        this.network = network;
+        this.congestionPredictor = network.getCongestionPredictor();
+        this.current = version(0, network.freeze());
+    }
+
+    // latest published version; never blocks
+    public Version current() {
+        return current;
+    }
+
+    public synchronized void setMaxPending(int maxPending) {
+        if (maxPending < 1) throw new IllegalArgumentException("Batch size must be positive: " + maxPending);
+        this.maxPending = maxPending;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public List<String> findPath(String startId, String endId, boolean useDistance) {
+        NetworkSnapshot snapshot = current.snapshot;
+        return engineFor(snapshot).findPath(startId, endId, useDistance ? snapshot::getDistance : snapshot::getTravelTime);
+    }
+
+    public List<String> findAdaptiveRoute(String startId, String endId, LocalDateTime time) {
+        Version version = current;
+        int hour = time.getHour();
+        double[] costs = version.adaptiveCosts.get(hour);
+        if (costs == null) {
+            costs = congestionPredictor.copyAdjustedCosts(version.snapshot, hour);
+            if (!version.adaptiveCosts.compareAndSet(hour, null, costs)) costs = version.adaptiveCosts.get(hour);
+        }
+        double[] frozen = costs;
+        return engineFor(version.snapshot).findPath(startId, endId, edge -> frozen[edge]);
+    }
+
+    public synchronized void updateRoad(String roadId, double newDistance, double newCongestion, double newSpeed) {
+        updatedRoads.add(roadId);
+        queue(n -> n.updateRoad(roadId, newDistance, newCongestion, newSpeed), false);
+    }
+
+    public synchronized void addLocation(Location location) {
+        queue(n -> n.addLocation(location), true);
+    }
+
+    public synchronized void removeLocation(String locationId) {
+        queue(n -> n.removeLocation(locationId), true);
+    }
+
+    public synchronized void addRoad(Road road) {
+        queue(n -> n.addRoad(road), true);
+    }
+
+    public synchronized void removeRoad(String roadId) {
+        queue(n -> n.removeRoad(roadId), true);
+    }
+
+    // applies the queued mutations and publishes them as one new version; returns the number of
+    // the current version afterwards
+    public synchronized long publish() {
+        if (pending.isEmpty()) {
+            if (congestionPredictor.getHistoryVersion() == current.historyVersion) return current.number;
+            current = version(current.number + 1, current.snapshot);
+            return current.number;
+        }
+        // taken off the queue first, so a failure cannot leave them to be applied twice
+        List<Consumer<LogisticsNetwork>> batch = new ArrayList<>(pending);
+        Set<String> batchRoads = new LinkedHashSet<>(updatedRoads);
+        boolean batchTopologyChanged = topologyChanged;
+        pending.clear();
+        updatedRoads.clear();
+        topologyChanged = false;
+        try {
+            for (Consumer<LogisticsNetwork> mutation : batch) {
+                mutation.accept(network);
+            }
+        } catch (RuntimeException e) {
+            // publish what was applied, so readers see the network as it now is
+            current = version(current.number + 1, network.freeze());
+            throw e;
+        }
+        NetworkSnapshot base = current.snapshot;
+        NetworkSnapshot next;
+        if (batchTopologyChanged) {
+            next = network.freeze();
+        } else {
+            int count = 0;
+            int[] edges = new int[batchRoads.size()];
+            double[] distances = new double[edges.length];
+            double[] congestions = new double[edges.length];
+            double[] speeds = new double[edges.length];
+            for (String roadId : batchRoads) {
+                int edge = base.indexOfRoad(roadId);
+                if (edge < 0) continue;
+                Road road = network.getRoad(roadId);
+                edges[count] = edge;
+                distances[count] = road.getDistance();
+                congestions[count] = road.getCurrentCongestion();
+                speeds[count] = road.getAverageSpeed();
+                count++;
+            }
+            next = base.withUpdatedEdges(count, edges, distances, congestions, speeds);
+            congestionPredictor.onSnapshotDerived(base, next, edges, count);
+        }
+        current = version(current.number + 1, next);
+        return current.number;
+    }
+
+    // a version of the snapshot holding, for every hour the current version holds, costs
+    // recomputed against it; the history version is read first, so anything recorded during the
+    // copy is published again next time
+    private Version version(long number, NetworkSnapshot snapshot) {
+        Version version = new Version(number, snapshot, congestionPredictor.getHistoryVersion());
+        Version previous = current;
+        if (previous == null) return version;
+        for (int hour = 0; hour < 24; hour++) {
+            if (previous.adaptiveCosts.get(hour) != null) {
+                version.adaptiveCosts.set(hour, congestionPredictor.copyAdjustedCosts(snapshot, hour));
+            }
+        }
+        return version;
+    }
+
+    private void queue(Consumer<LogisticsNetwork> mutation, boolean changesTopology) {
+        pending.add(mutation);
+        topologyChanged |= changesTopology;
+        if (pending.size() >= maxPending) publish();
+    }
+
+    private RoutingEngine engineFor(NetworkSnapshot snapshot) {
+        RoutingEngine engine = engines.get();
+        if (engine == null || !engine.getGraph().sharesTopologyWith(snapshot)) {
+            engine = new RoutingEngine(snapshot);
+            engines.set(engine);
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,795 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+// Durable state for a LogisticsNetwork and its DeliveryScheduler: every mutation (locations,
+// roads, road updates, vehicles, deliveries and their assignments) is appended to a log before
+// the call returns, and open() rebuilds both from the newest snapshot plus the log after it.
+//
+// Records are framed as [length][CRC32C][sequence, type, fields] and appended to an in-memory
+// batch; one writer thread writes each batch with a single write and, unless durability is
+// NONE, a single fsync (group commit). With SYNC a mutation waits for its batch, so concurrent
+// mutators share fsyncs; with BATCHED it never waits and the batch is forced at most
+// syncInterval after its first record. A torn record at the end of the log (a crash mid-write)
+// is cut off on recovery.
+//
+// checkpoint() writes a snapshot: the network as a NetworkFile and the vehicles, schedules and
+// waiting deliveries in a small binary file. Later records go to a new log segment and older
+// segments and snapshots are deleted. The snapshot has to match the log position exactly, so
+// every change to the network or scheduler holds a shared barrier from its first effect until
+// its records are appended (beginChange / endChange), and checkpoint() holds it exclusively:
+// it waits for the changes in flight and new ones wait until the snapshot is written.
+public class WriteAheadLog implements AutoCloseable {
+    public enum Durability {
+        SYNC,    // a mutation returns once its record is on disk
+        BATCHED, // records are on disk at most syncInterval after the mutation, which does not wait
+        NONE     // records are written every syncInterval but never forced: they survive a crash of
+                 // the process once written, not a power loss
+    }
+
+    private static final int MAX_PENDING_BYTES = 64 << 20; // mutations wait for the writer beyond this
+    private static final int BATCH_BYTES = 1 << 20;        // BATCHED writes early once a batch is this big
+    private static final int SNAPSHOT_MAGIC = 0x534C4449;  // "IDLS"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final byte ADD_LOCATION = 1;
+    private static final byte REMOVE_LOCATION = 2;
+    private static final byte ADD_ROAD = 3;
+    private static final byte REMOVE_ROAD = 4;
+    private static final byte UPDATE_ROAD = 5;
+    private static final byte ADD_VEHICLE = 6;
+    private static final byte MOVE_VEHICLE = 7;
+    private static final byte ADD_DELIVERY = 8;
+    private static final byte ASSIGN = 9;          // delivery left the queue for a vehicle's schedule
+    private static final byte DROP = 10;           // delivery left the queue unassigned
+    private static final byte RESCHEDULE = 11;     // a vehicle's whole schedule was replaced
+
+    private final Path directory;
+    private final Durability durability;
+    private final long syncIntervalNanos;
+    private final LogisticsNetwork network;
+    private final DeliveryScheduler scheduler;
+
+    private final ReentrantReadWriteLock changes = new ReentrantReadWriteLock(); // see checkpoint()
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAdded = lock.newCondition(); // the writer waits for records
+    private final Condition batchWritten = lock.newCondition(); // mutators wait for the writer
+    private Encoder pending = new Encoder();
+    private Encoder spare = new Encoder();
+    private long lastSequence;    // last record appended
+    private long durableSequence; // last record written (and forced, unless NONE)
+    private boolean flushRequested;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel segment;
+    private long syncCount;
+    private final Thread writer;
+
+    private volatile long checkpointSequence; // last record covered by the newest snapshot
+    private long checkpointInterval = 1_000_000;
+    private final long recoveredRecords;
+    private final long recoveryNanos;
+
+    private WriteAheadLog(Path directory, Durability durability, Duration syncInterval) throws IOException {
+        this.directory = directory;
+        this.durability = durability;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        long start = System.nanoTime();
+
+        long snapshot = newestSnapshot(directory);
+        ScheduleState state = new ScheduleState();
+        if (snapshot >= 0) {
+            this.network = LogisticsNetwork.load(networkSnapshotPath(snapshot));
+            readScheduleSnapshot(scheduleSnapshotPath(snapshot), state);
+        } else {
+            this.network = new LogisticsNetwork();
+            snapshot = 0;
+        }
+        this.checkpointSequence = snapshot;
+        this.lastSequence = snapshot;
+        this.recoveredRecords = replay(state);
+        this.durableSequence = lastSequence;
+
+        this.scheduler = new DeliveryScheduler(network);
+        scheduler.restore(state.vehicles.values(), state.schedules, state.pending.values());
+        this.recoveryNanos = System.nanoTime() - start;
+
+        List<Long> segments = segments(directory);
+        long current = segments.isEmpty() ? lastSequence + 1 : segments.get(segments.size() - 1);
+        this.segment = openSegment(current);
+        network.setWriteAheadLog(this);
+        scheduler.setWriteAheadLog(this);
+        this.writer = Thread.ofPlatform().name("write-ahead-log").daemon().start(this::writeLoop);
+    }
+
+    // recovers the state kept in directory (empty on first use) and logs every change made to it
+    // from now on; syncInterval bounds how long BATCHED and NONE hold records before writing them
+    public static WriteAheadLog open(Path directory, Durability durability, Duration syncInterval)
+            throws IOException {
+        if (syncInterval.isNegative()) throw new IllegalArgumentException("Sync interval cannot be negative: " + syncInterval);
+        Files.createDirectories(directory);
+        return new WriteAheadLog(directory, durability, syncInterval);
+    }
+
+    public LogisticsNetwork getNetwork() { return network; }
+
+    public DeliveryScheduler getScheduler() { return scheduler; }
+
+    public Durability getDurability() { return durability; }
+
+    public long getRecoveredRecords() { return recoveredRecords; }
+
+    public double getRecoveryMillis() { return recoveryNanos / 1_000_000.0; }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // number of fsyncs so far; records per fsync shows how well group commit batches
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // records after which checkpointIfDue takes a snapshot
+    public void setCheckpointInterval(long records) {
+        if (records < 1) throw new IllegalArgumentException("Checkpoint interval must be positive: " + records);
+        this.checkpointInterval = records;
+    }
+
+    // waits until every record appended so far is on disk, whatever the durability
+    public void sync() throws IOException {
+        long target;
+        FileChannel channel;
+        lock.lock();
+        try {
+            target = lastSequence;
+            awaitDurable(target);
+            channel = segment;
+        } finally {
+            lock.unlock();
+        }
+        if (durability == Durability.NONE) channel.force(false);
+    }
+
+    public long checkpointIfDue() throws IOException {
+        return getLastSequence() - checkpointSequence >= checkpointInterval ? checkpoint() : checkpointSequence;
+    }
+
+    // snapshots the network and scheduler and drops the log they cover; returns the last record
+    // the snapshot includes. Waits for changes in flight and holds new ones back until the
+    // snapshot is written; must not be called from within a change
+    public long checkpoint() throws IOException {
+        changes.writeLock().lock();
+        try {
+            return writeCheckpoint();
+        } finally {
+            changes.writeLock().unlock();
+        }
+    }
+
+    // with the change barrier held exclusively
+    private long writeCheckpoint() throws IOException {
+        long sequence;
+        lock.lock();
+        try {
+            sequence = lastSequence;
+            if (sequence == checkpointSequence) return sequence;
+            awaitDurable(sequence);
+            // records after the snapshot start a new segment
+            segment.close();
+            segment = openSegment(sequence + 1);
+        } finally {
+            lock.unlock();
+        }
+
+        NetworkFile.write(network, networkSnapshotPath(sequence));
+        Path schedule = scheduleSnapshotPath(sequence);
+        Path temporary = schedule.resolveSibling(schedule.getFileName() + ".tmp");
+        Encoder encoder = new Encoder();
+        writeScheduleSnapshot(encoder, sequence);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            encoder.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temporary, schedule, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+
+        for (long first : segments(directory)) {
+            if (first <= sequence) Files.deleteIfExists(segmentPath(first));
+        }
+        for (long older : snapshots(directory)) {
+            if (older < sequence) {
+                Files.deleteIfExists(networkSnapshotPath(older));
+                Files.deleteIfExists(scheduleSnapshotPath(older));
+            }
+        }
+        checkpointSequence = sequence;
+        return sequence;
+    }
+
+    // writes and forces what is still pending and detaches from the network and scheduler,
+    // which keep working without a log
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            recordsAdded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        network.setWriteAheadLog(null);
+        scheduler.setWriteAheadLog(null);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null) segment.force(false);
+        } finally {
+            segment.close();
+        }
+        if (failure != null) throw failure;
+    }
+
+    // ---- records, appended by LogisticsNetwork and DeliveryScheduler after each change
+
+    void logAddLocation(Location location) {
+        append(ADD_LOCATION, out -> out.putLocation(location));
+    }
+
+    void logRemoveLocation(String locationId) {
+        append(REMOVE_LOCATION, out -> out.putString(locationId));
+    }
+
+    void logAddRoad(Road road) {
+        append(ADD_ROAD, out -> {
+            out.putString(road.getId());
+            out.putString(road.getSource().getId());
+            out.putString(road.getDestination().getId());
+            out.putDouble(road.getDistance());
+            out.putDouble(road.getCurrentCongestion());
+            out.putDouble(road.getAverageSpeed());
+        });
+    }
+
+    void logRemoveRoad(String roadId) {
+        append(REMOVE_ROAD, out -> out.putString(roadId));
+    }
+
+    void logUpdateRoad(String roadId, double distance, double congestion, double speed) {
+        append(UPDATE_ROAD, out -> {
+            out.putString(roadId);
+            out.putDouble(distance);
+            out.putDouble(congestion);
+            out.putDouble(speed);
+        });
+    }
+
+    void logAddVehicle(Vehicle vehicle) {
+        append(ADD_VEHICLE, out -> {
+            out.putString(vehicle.getId());
+            out.putDouble(vehicle.getCapacity());
+            out.putLocation(vehicle.getCurrentLocation());
+        });
+    }
+
+    void logMoveVehicle(String vehicleId, Location location) {
+        append(MOVE_VEHICLE, out -> {
+            out.putString(vehicleId);
+            out.putLocation(location);
+        });
+    }
+
+    void logAddDelivery(Delivery delivery) {
+        append(ADD_DELIVERY, out -> out.putDelivery(delivery));
+    }
+
+    void logAssignment(String vehicleId, String deliveryId) {
+        append(ASSIGN, out -> {
+            out.putString(vehicleId);
+            out.putString(deliveryId);
+        });
+    }
+
+    void logDrop(String deliveryId) {
+        append(DROP, out -> out.putString(deliveryId));
+    }
+
+    void logReschedule(String vehicleId, List<Delivery> deliveries) {
+        append(RESCHEDULE, out -> {
+            out.putString(vehicleId);
+            out.putInt(deliveries.size());
+            for (Delivery delivery : deliveries) out.putString(delivery.getId());
+        });
+    }
+
+    // brackets a change to the network or scheduler together with its records, so checkpoint()
+    // never sees one half done; reentrant
+    void beginChange() {
+        changes.readLock().lock();
+    }
+
+    void endChange() {
+        changes.readLock().unlock();
+    }
+
+    private interface Fields {
+        void write(Encoder out);
+    }
+
+    private void append(byte type, Fields fields) {
+        lock.lock();
+        try {
+            while (pending.size > MAX_PENDING_BYTES && failure == null && !closed) batchWritten.awaitUninterruptibly();
+            checkUsable();
+            long sequence = ++lastSequence;
+            int start = pending.beginRecord(sequence, type);
+            fields.write(pending);
+            pending.endRecord(start);
+            recordsAdded.signal();
+            if (durability == Durability.SYNC) awaitDurable(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // with the lock held: waits until the writer has written the record, writing early if needed
+    private void awaitDurable(long sequence) {
+        while (durableSequence < sequence && failure == null) {
+            flushRequested = true;
+            recordsAdded.signal();
+            batchWritten.awaitUninterruptibly();
+        }
+        checkUsable();
+    }
+
+    private void checkUsable() {
+        if (failure != null) throw new IllegalStateException("Write-ahead log failed", failure);
+        if (closed) throw new IllegalStateException("Write-ahead log is closed");
+    }
+
+    // swaps out the pending batch, writes it and (unless NONE) forces it, then wakes its waiters
+    private void writeLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                while (pending.size == 0 && !closed) recordsAdded.awaitUninterruptibly();
+                if (pending.size == 0) return;
+                if (durability != Durability.SYNC) {
+                    long deadline = System.nanoTime() + syncIntervalNanos;
+                    long remaining;
+                    while (!closed && !flushRequested && pending.size < BATCH_BYTES
+                            && (remaining = deadline - System.nanoTime()) > 0) {
+                        try {
+                            recordsAdded.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+                Encoder batch = pending;
+                pending = spare;
+                spare = null;
+                long last = lastSequence;
+                FileChannel channel = segment;
+                flushRequested = false;
+                boolean force = durability != Durability.NONE;
+                lock.unlock();
+                IOException error = null;
+                try {
+                    batch.writeTo(channel);
+                    if (force) channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                batch.clear();
+                spare = batch;
+                if (error != null) {
+                    failure = error;
+                    batchWritten.signalAll();
+                    return;
+                }
+                if (force) syncCount++;
+                durableSequence = last;
+                batchWritten.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- recovery
+
+    // applies every record after lastSequence; returns how many were applied
+    private long replay(ScheduleState state) throws IOException {
+        List<Long> segments = segments(directory);
+        long applied = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segmentPath(segments.get(i));
+            boolean last = i == segments.size() - 1;
+            long validBytes = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+                while (true) {
+                    byte[] body = readRecord(in);
+                    if (body == null) break;
+                    ByteBuffer record = ByteBuffer.wrap(body);
+                    long sequence = record.getLong();
+                    if (sequence > lastSequence) {
+                        if (sequence != lastSequence + 1) {
+                            throw new IOException("Write-ahead log is missing records " + (lastSequence + 1)
+                                    + " to " + (sequence - 1));
+                        }
+                        apply(record, state);
+                        lastSequence = sequence;
+                        applied++;
+                    }
+                    validBytes += 8 + body.length;
+                }
+            } catch (TornRecordException e) {
+                if (!last) throw new IOException("Corrupt write-ahead log segment: " + path);
+                // a crash mid-write: drop the partial record so new records follow valid ones
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                    channel.force(true);
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static final class TornRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    // next record body, null at the end of the segment
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            int checksum = in.readInt();
+            if (length < 9 || length > MAX_PENDING_BYTES) throw new TornRecordException();
+            byte[] body = new byte[length];
+            in.readFully(body);
+            CRC32C crc = new CRC32C();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) throw new TornRecordException();
+            return body;
+        } catch (EOFException e) {
+            throw new TornRecordException();
+        }
+    }
+
+    private void apply(ByteBuffer record, ScheduleState state) {
+        byte type = record.get();
+        switch (type) {
+            case ADD_LOCATION -> network.addLocation(readLocation(record, null));
+            case REMOVE_LOCATION -> network.removeLocation(readString(record));
+            case ADD_ROAD -> {
+                String id = readString(record);
+                Location source = network.getLocation(readString(record));
+                Location destination = network.getLocation(readString(record));
+                Road road = new Road(id, source, destination, record.getDouble());
+                road.setCurrentCongestion(record.getDouble());
+                road.setAverageSpeed(record.getDouble());
+                network.addRoad(road);
+            }
+            case REMOVE_ROAD -> network.removeRoad(readString(record));
+            case UPDATE_ROAD -> network.updateRoad(readString(record), record.getDouble(), record.getDouble(),
+                    record.getDouble());
+            case ADD_VEHICLE -> {
+                String id = readString(record);
+                double capacity = record.getDouble();
+                state.vehicles.put(id, new Vehicle(id, capacity, readLocation(record, network)));
+                state.schedules.put(id, new ArrayList<>());
+            }
+            case MOVE_VEHICLE -> {
+                Vehicle vehicle = state.vehicles.get(readString(record));
+                Location location = readLocation(record, network);
+                if (vehicle != null) vehicle.moveTo(location);
+            }
+            case ADD_DELIVERY -> state.add(readDelivery(record));
+            case ASSIGN -> {
+                List<Delivery> schedule = state.schedules.get(readString(record));
+                Delivery delivery = state.take(readString(record));
+                if (schedule != null && delivery != null) schedule.add(delivery);
+            }
+            case DROP -> state.take(readString(record));
+            case RESCHEDULE -> {
+                String vehicleId = readString(record);
+                List<Delivery> schedule = new ArrayList<>();
+                for (int count = record.getInt(); count > 0; count--) {
+                    Delivery delivery = state.deliveries.get(readString(record));
+                    if (delivery != null) schedule.add(delivery);
+                }
+                state.schedules.put(vehicleId, schedule);
+            }
+            default -> throw new IllegalStateException("Unknown write-ahead log record type: " + type);
+        }
+    }
+
+    // vehicles, schedules and waiting deliveries rebuilt from the snapshot and the log
+    private static final class ScheduleState {
+        final Map<String, Vehicle> vehicles = new LinkedHashMap<>();
+        final Map<String, List<Delivery>> schedules = new HashMap<>();
+        final Map<String, Delivery> pending = new LinkedHashMap<>();
+        final Map<String, Delivery> deliveries = new HashMap<>(); // every delivery by id
+
+        void add(Delivery delivery) {
+            deliveries.put(delivery.getId(), delivery);
+            pending.put(delivery.getId(), delivery);
+        }
+
+        // the delivery, taken off the queue
+        Delivery take(String deliveryId) {
+            pending.remove(deliveryId);
+            return deliveries.get(deliveryId);
+        }
+    }
+
+    // ---- snapshots
+
+    private void writeScheduleSnapshot(Encoder out, long sequence) {
+        out.putInt(SNAPSHOT_MAGIC);
+        out.putInt(SNAPSHOT_VERSION);
+        out.putLong(sequence);
+        Collection<Vehicle> vehicles = scheduler.getVehicles();
+        Map<String, List<Delivery>> schedules = scheduler.getScheduledDeliveries();
+        out.putInt(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            out.putString(vehicle.getId());
+            out.putDouble(vehicle.getCapacity());
+            out.putLocation(vehicle.getCurrentLocation());
+            List<Delivery> schedule = new ArrayList<>(schedules.getOrDefault(vehicle.getId(), List.of()));
+            out.putInt(schedule.size());
+            for (Delivery delivery : schedule) out.putDelivery(delivery);
+        }
+        List<Delivery> waiting = scheduler.getPendingDeliveries();
+        out.putInt(waiting.size());
+        for (Delivery delivery : waiting) out.putDelivery(delivery);
+    }
+
+    private void readScheduleSnapshot(Path path, ScheduleState state) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (in.remaining() < 16 || in.getInt() != SNAPSHOT_MAGIC) throw new IOException("Not a schedule snapshot: " + path);
+        int version = in.getInt();
+        if (version != SNAPSHOT_VERSION) throw new IOException("Unsupported schedule snapshot version " + version + ": " + path);
+        in.getLong();
+        for (int vehicles = in.getInt(); vehicles > 0; vehicles--) {
+            String id = readString(in);
+            double capacity = in.getDouble();
+            state.vehicles.put(id, new Vehicle(id, capacity, readLocation(in, network)));
+            List<Delivery> schedule = new ArrayList<>();
+            for (int count = in.getInt(); count > 0; count--) {
+                Delivery delivery = readDelivery(in);
+                state.deliveries.put(delivery.getId(), delivery);
+                schedule.add(delivery);
+            }
+            state.schedules.put(id, schedule);
+        }
+        for (int count = in.getInt(); count > 0; count--) state.add(readDelivery(in));
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can sync a directory; the files themselves are forced
+        }
+    }
+
+    // ---- files: wal-<first sequence>.log segments, snapshot-<sequence>.network / .schedule pairs
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(firstSequence), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        syncDirectory();
+        return channel;
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("wal-%020d.log", firstSequence));
+    }
+
+    private Path networkSnapshotPath(long sequence) {
+        return directory.resolve(String.format("snapshot-%020d.network", sequence));
+    }
+
+    private Path scheduleSnapshotPath(long sequence) {
+        return directory.resolve(String.format("snapshot-%020d.schedule", sequence));
+    }
+
+    private static List<Long> segments(Path directory) throws IOException {
+        return sequences(directory, "wal-", ".log");
+    }
+
+    // sequences of complete snapshots: the schedule file is written last
+    private static List<Long> snapshots(Path directory) throws IOException {
+        return sequences(directory, "snapshot-", ".schedule");
+    }
+
+    private static long newestSnapshot(Path directory) throws IOException {
+        List<Long> snapshots = snapshots(directory);
+        return snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1);
+    }
+
+    private static List<Long> sequences(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                sequences.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+            }
+        }
+        Collections.sort(sequences);
+        return sequences;
+    }
+
+    // ---- encoding
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    // the network's location with that id if it has one, else the recorded location
+    private static Location readLocation(ByteBuffer in, LogisticsNetwork network) {
+        Location location = new Location(readString(in), readString(in), in.get() != 0, in.getDouble(), in.getDouble());
+        if (network != null) {
+            try {
+                return network.getLocation(location.getId());
+            } catch (IllegalArgumentException e) {
+                return location;
+            }
+        }
+        return location;
+    }
+
+    private static Delivery readDelivery(ByteBuffer in) {
+        String id = readString(in);
+        String destinationId = readString(in);
+        double load = in.getDouble();
+        LocalDateTime deadline = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        double estimatedTime = in.getDouble();
+        Delivery.DeliveryPriority priority = Delivery.DeliveryPriority.values()[in.get()];
+        return new Delivery(id, destinationId, load, deadline, estimatedTime, priority);
+    }
+
+    // growable big-endian buffer of framed records or snapshot fields
+    private static final class Encoder {
+        byte[] bytes = new byte[1 << 16];
+        int size;
+
+        int beginRecord(long sequence, byte type) {
+            int start = size;
+            putInt(0); // length, filled in by endRecord
+            putInt(0); // checksum
+            putLong(sequence);
+            putByte(type);
+            return start;
+        }
+
+        void endRecord(int start) {
+            int length = size - start - 8;
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, start + 8, length);
+            setInt(start, length);
+            setInt(start + 4, (int) crc.getValue());
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            setInt(size, value);
+            size += 4;
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        // UTF-8 with an int length, -1 for null
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            putInt(encoded.length);
+            ensure(encoded.length);
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            size += encoded.length;
+        }
+
+        void putLocation(Location location) {
+            putString(location.getId());
+            putString(location.getName());
+            putByte(location.isHub() ? 1 : 0);
+            putDouble(location.getLatitude());
+            putDouble(location.getLongitude());
+        }
+
+        void putDelivery(Delivery delivery) {
+            putString(delivery.getId());
+            putString(delivery.getDestinationId());
+            putDouble(delivery.getLoad());
+            putLong(delivery.getDeadline().toEpochSecond(ZoneOffset.UTC));
+            putInt(delivery.getDeadline().getNano());
+            putDouble(delivery.getEstimatedTime());
+            putByte(delivery.getPriority().ordinal());
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void setInt(int at, int value) {
+            bytes[at] = (byte) (value >>> 24);
+            bytes[at + 1] = (byte) (value >>> 16);
+            bytes[at + 2] = (byte) (value >>> 8);
+            bytes[at + 3] = (byte) value;
+        }
+
+        private void ensure(int count) {
+            if (size + count > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+        }
+    }
+}
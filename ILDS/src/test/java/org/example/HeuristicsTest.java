@@ -0,0 +1,68 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeuristicsTest {
+
+    // S, X, W, V and T are geocoded, U is not. The shortest route S-X-U-V-T runs west first, so X
+    // looks far from T, and the roads into and out of U are not bound by any straight line; an
+    // estimate of 0 at U alone made A* settle V through W and return S-W-V-T.
+    private static LogisticsNetwork mixedNetwork() {
+        LogisticsNetwork network = new LogisticsNetwork();
+        Location s = new Location("S", "S", false, 0.0, 0.0);
+        Location x = new Location("X", "X", false, 0.0, -0.01);
+        Location u = new Location("U", "U", false);
+        Location w = new Location("W", "W", false, 0.0, 0.04);
+        Location v = new Location("V", "V", false, 0.0, 0.08);
+        Location t = new Location("T", "T", false, 0.0, 0.09);
+        for (Location location : new Location[] {s, x, u, w, v, t}) network.addLocation(location);
+        network.addRoad(new Road("SX", s, x, 1.2));
+        network.addRoad(new Road("XU", x, u, 0.5));
+        network.addRoad(new Road("UV", u, v, 0.5));
+        network.addRoad(new Road("SW", s, w, 4.5));
+        network.addRoad(new Road("WV", w, v, 4.5));
+        network.addRoad(new Road("VT", v, t, 1.2));
+        return network;
+    }
+
+    @Test
+    void aStarMatchesDijkstraWhenSomeLocationsLackCoordinates() {
+        LogisticsNetwork network = mixedNetwork();
+        for (boolean useDistance : new boolean[] {true, false}) {
+            assertEquals(network.findPath("S", "T", useDistance, LogisticsNetwork.SearchMode.DIJKSTRA),
+                    network.findPath("S", "T", useDistance, LogisticsNetwork.SearchMode.ASTAR));
+        }
+        assertEquals(List.of("S", "X", "U", "V", "T"),
+                network.findPath("S", "T", true, LogisticsNetwork.SearchMode.ASTAR));
+    }
+
+    @Test
+    void greatCircleFallsBackToNoEstimateOnPartiallyGeocodedSnapshots() {
+        NetworkSnapshot graph = mixedNetwork().freeze();
+        assertFalse(graph.hasAllCoordinates());
+        RoutingEngine.Heuristic heuristic = Heuristics.greatCircle(graph, graph.indexOf("T"));
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            assertEquals(0.0, heuristic.estimate(node));
+        }
+    }
+
+    @Test
+    void greatCircleEstimatesOnFullyGeocodedSnapshots() {
+        LogisticsNetwork network = new LogisticsNetwork();
+        Location a = new Location("A", "A", false, 0.0, 0.0);
+        Location b = new Location("B", "B", false, 0.0, 0.09);
+        network.addLocation(a);
+        network.addLocation(b);
+        network.addRoad(new Road("AB", a, b, 10.5));
+        NetworkSnapshot graph = network.freeze();
+        assertTrue(graph.hasAllCoordinates());
+        double estimate = Heuristics.greatCircle(graph, graph.indexOf("B")).estimate(graph.indexOf("A"));
+        assertEquals(Heuristics.greatCircleKm(0.0, 0.0, 0.0, 0.09), estimate, 1e-9);
+    }
+}